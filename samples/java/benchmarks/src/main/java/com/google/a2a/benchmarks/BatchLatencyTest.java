@@ -0,0 +1,156 @@
+package com.google.a2a.benchmarks;
+
+import com.google.a2a.server.A2AServerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of checking many tasks with one JSON-RPC batch against one request per task
+ * 用一个JSON-RPC批量请求与每个任务一个请求检查大量任务时的延迟对比
+ *
+ * <p>Starts the server with the stub model, creates {@code tasks} tasks, then repeatedly reads all of
+ * them, once with sequential {@code tasks/get} requests over one keep-alive connection and once with a
+ * single batch of {@code tasks/get} calls, and reports the latency percentiles of reading all tasks.
+ * {@code rtt} adds a fixed delay to every HTTP round trip, as a network between orchestrator and agent
+ * would; on localhost only the per-request overhead of the server shows. Run with:
+ * 使用模拟模型启动服务器并创建{@code tasks}个任务，然后反复读取所有任务：一次在同一个长连接上顺序发送{@code tasks/get}请求，
+ * 一次发送一个包含所有{@code tasks/get}调用的批量请求，并报告读取所有任务的延迟分位数。{@code rtt}为每次HTTP往返增加固定延迟，
+ * 模拟编排器与Agent之间的网络；在本机上只能体现服务器处理每个请求的开销。运行方式：
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.google.a2a.benchmarks.BatchLatencyTest \
+ *     --tasks=200 --iterations=50 --rtt=PT0.001S
+ * </pre>
+ */
+public class BatchLatencyTest {
+
+    public static void main(String[] args) throws Exception {
+        int tasks = Integer.parseInt(option(args, "tasks", "200"));
+        int iterations = Integer.parseInt(option(args, "iterations", "50"));
+        int warmup = Integer.parseInt(option(args, "warmup", "10"));
+        Duration rtt = Duration.parse(option(args, "rtt", "PT0S"));
+
+        try (ConfigurableApplicationContext context = startServer()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/a2a");
+            HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+            List<String> taskIds = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                String taskId = UUID.randomUUID().toString();
+                post(http, uri, sendRequest(taskId), Duration.ZERO);
+                taskIds.add(taskId);
+            }
+
+            List<Long> sequential = new ArrayList<>();
+            List<Long> batched = new ArrayList<>();
+            for (int i = 0; i < warmup + iterations; i++) {
+                long start = System.nanoTime();
+                for (String taskId : taskIds) {
+                    post(http, uri, getRequest(taskId), rtt);
+                }
+                long sequentialNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                post(http, uri, batchRequest(taskIds), rtt);
+                long batchedNanos = System.nanoTime() - start;
+
+                if (i >= warmup) {
+                    sequential.add(TimeUnit.NANOSECONDS.toMicros(sequentialNanos));
+                    batched.add(TimeUnit.NANOSECONDS.toMicros(batchedNanos));
+                }
+            }
+
+            System.out.printf("%-10s %6s %11s %11s %11s%n", "mode", "tasks", "p50 ms", "p99 ms", "max ms");
+            print("sequential", tasks, sequential);
+            print("batch", tasks, batched);
+        }
+    }
+
+    private static ConfigurableApplicationContext startServer() {
+        return new SpringApplicationBuilder(A2AServerApplication.class, StreamingLoadTest.StubModelConfiguration.class)
+            .run("--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.ai.model.chat=none",
+                "--spring.ai.openai.base-url=http://localhost",
+                "--spring.ai.openai.api-key=unused",
+                "--spring.ai.openai.chat.options.model=unused",
+                "--loadtest.model-latency=PT0S");
+    }
+
+    /**
+     * Post a JSON-RPC body and wait for the response, plus the simulated network round trip
+     * 发送JSON-RPC请求体并等待响应，并加上模拟的网络往返时间
+     */
+    private static void post(HttpClient http, URI uri, String body, Duration rtt) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || response.body().contains("\"error\"")) {
+            throw new IllegalStateException("Request failed: " + response.body());
+        }
+        if (!rtt.isZero()) {
+            TimeUnit.NANOSECONDS.sleep(rtt.toNanos());
+        }
+    }
+
+    private static String sendRequest(String taskId) {
+        return """
+            {"jsonrpc":"2.0","id":"%s","method":"tasks/send","params":{"id":"%s","message":{"messageId":"%s",\
+            "kind":"message","role":"user","parts":[{"kind":"text","text":"Hello, world"}]}}}"""
+            .formatted(UUID.randomUUID(), taskId, UUID.randomUUID());
+    }
+
+    private static String getRequest(String taskId) {
+        return """
+            {"jsonrpc":"2.0","id":"%s","method":"tasks/get","params":{"id":"%s","historyLength":0}}"""
+            .formatted(taskId, taskId);
+    }
+
+    private static String batchRequest(List<String> taskIds) {
+        StringBuilder body = new StringBuilder("[");
+        for (String taskId : taskIds) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append(getRequest(taskId));
+        }
+        return body.append(']').toString();
+    }
+
+    private static void print(String mode, int tasks, List<Long> micros) {
+        List<Long> sorted = new ArrayList<>(micros);
+        Collections.sort(sorted);
+        System.out.printf("%-10s %6d %11.2f %11.2f %11.2f%n", mode, tasks, percentile(sorted, 0.50) / 1000.0,
+            percentile(sorted, 0.99) / 1000.0, sorted.get(sorted.size() - 1) / 1000.0);
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size())));
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix))
+            .map(arg -> arg.substring(prefix.length())).findFirst().orElse(defaultValue);
+    }
+}
@@ -0,0 +1,161 @@
+package com.google.a2a.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.A2ACodec;
+import com.google.a2a.model.AgentCapabilities;
+import com.google.a2a.model.AgentCard;
+import com.google.a2a.model.AgentSkill;
+import com.google.a2a.model.Artifact;
+import com.google.a2a.model.JSONRPCRequest;
+import com.google.a2a.model.JSONRPCResponse;
+import com.google.a2a.model.Message;
+import com.google.a2a.model.SendTaskStreamingResponse;
+import com.google.a2a.model.Task;
+import com.google.a2a.model.TaskSendParams;
+import com.google.a2a.model.TaskState;
+import com.google.a2a.model.TaskStatus;
+import com.google.a2a.model.TaskStatusUpdateEvent;
+import com.google.a2a.model.TextPart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing and deserializing each protocol record with A2ACodec
+ * 使用A2ACodec序列化和反序列化各协议记录的开销
+ *
+ * <p>{@code mapper} is the generic {@code ObjectMapper.writeValueAsBytes}/{@code readValue} calls the
+ * server and client made before A2ACodec, which look up the root serializer or deserializer on every
+ * call. {@code codec} uses the readers and writers A2ACodec resolves once, {@code codec-blackbird}
+ * adds Blackbird's generated accessors on top, and {@code codec-generated} the streaming codecs of
+ * A2AJsonModule instead. A {@code response} carries a completed Task with an
+ * artifact and two messages of history, and is read the way A2AClient reads it, with the result as a
+ * Task. With {@code -prof gc} the bytes allocated per operation are reported next to the ns/op. Run with:
+ * {@code mapper}是引入A2ACodec之前服务器和客户端使用的通用{@code ObjectMapper.writeValueAsBytes}/{@code readValue}调用，
+ * 每次调用都会查找根序列化器或反序列化器。{@code codec}使用A2ACodec预先解析的读写器，{@code codec-blackbird}在此基础上
+ * 使用Blackbird生成的访问器，{@code codec-generated}则改用A2AJsonModule生成的流式编解码器。{@code response}携带一个包含产物和两条历史消息的已完成任务，并像A2AClient一样将结果读取为Task。
+ * 使用{@code -prof gc}时，每次操作分配的字节数与ns/op一同报告。运行方式：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar CodecBenchmark -prof gc
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+
+    @State(Scope.Thread)
+    public static class Records {
+
+        @Param({"request", "response", "streaming-response", "task", "agent-card"})
+        String type;
+
+        @Param({"mapper", "codec", "codec-blackbird", "codec-generated"})
+        String mode;
+
+        ObjectMapper objectMapper;
+        A2ACodec codec;
+        Object record;
+        byte[] json;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            objectMapper = new ObjectMapper();
+            codec = new A2ACodec(objectMapper, switch (mode) {
+                case "codec-blackbird" -> A2ACodec.Accessors.BLACKBIRD;
+                case "codec-generated" -> A2ACodec.Accessors.GENERATED;
+                default -> A2ACodec.Accessors.REFLECTION;
+            });
+            Message request = new Message("msg-1", "message", "user",
+                List.of(new TextPart("text", ("Please translate the following paragraph into Chinese. "
+                    + "The quick brown fox jumps over the lazy dog. ").repeat(4), null)),
+                "context-1", "task-1", null, Map.of("source", "orchestrator"));
+            Message reply = new Message("msg-2", "message", "agent",
+                List.of(new TextPart("text", "敏捷的棕色狐狸跳过了懒狗。".repeat(4), null)),
+                "context-1", "task-1", null, null);
+            TaskStatus completed = new TaskStatus(TaskState.COMPLETED, reply, "2025-01-01T00:00:00Z");
+            Task task = new Task("task-1", "context-1", completed,
+                List.of(new Artifact("artifact-1", "translation", null, reply.parts(), 0, true, null, false)),
+                List.of(request, reply), Map.of("tenant", "acme"));
+            record = switch (type) {
+                case "request" -> new JSONRPCRequest("request-1", "2.0", "tasks/send",
+                    new TaskSendParams("task-1", "session-1", request, null, 10, Map.of("tenant", "acme"), null));
+                case "response" -> new JSONRPCResponse("request-1", "2.0", task, null);
+                case "streaming-response" -> new SendTaskStreamingResponse("request-1", "2.0",
+                    new TaskStatusUpdateEvent("task-1", completed, true, null), null);
+                case "task" -> task;
+                default -> new AgentCard("Translation Agent", "Translates between Chinese and English",
+                    "http://localhost:8080/a2a", null, "1.0.0", null, new AgentCapabilities(true, true, true), null,
+                    List.of("text"), List.of("text"),
+                    List.of(new AgentSkill("translate", "Translate", "Translates text between languages",
+                        List.of("translation", "chinese", "english"), List.of("Translate 'hello' into Chinese"),
+                        List.of("text"), List.of("text"))));
+            };
+            json = objectMapper.writeValueAsBytes(record);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize(Records state) throws IOException {
+        if ("mapper".equals(state.mode)) {
+            return state.objectMapper.writeValueAsBytes(state.record);
+        }
+        A2ACodec codec = state.codec;
+        return switch (state.type) {
+            case "request" -> codec.writeRequest((JSONRPCRequest) state.record);
+            case "response" -> codec.writeResponse((JSONRPCResponse) state.record);
+            case "streaming-response" -> codec.writeStreamingResponse((SendTaskStreamingResponse) state.record);
+            case "task" -> codec.writeTask((Task) state.record);
+            default -> codec.writeAgentCard((AgentCard) state.record);
+        };
+    }
+
+    @Benchmark
+    public Object deserialize(Records state) throws IOException {
+        ObjectMapper objectMapper = state.objectMapper;
+        A2ACodec codec = state.codec;
+        boolean mapper = "mapper".equals(state.mode);
+        switch (state.type) {
+            case "request" -> {
+                return mapper ? objectMapper.readValue(state.json, JSONRPCRequest.class)
+                    : codec.readRequest(state.json);
+            }
+            case "response" -> {
+                if (mapper) {
+                    JSONRPCResponse response = objectMapper.readValue(state.json, JSONRPCResponse.class);
+                    return objectMapper.convertValue(response.result(), Task.class);
+                }
+                return codec.readResponse(new String(state.json, StandardCharsets.UTF_8), Task.class).result();
+            }
+            case "streaming-response" -> {
+                String json = new String(state.json, StandardCharsets.UTF_8);
+                return mapper ? objectMapper.readValue(json, SendTaskStreamingResponse.class)
+                    : codec.readStreamingResponse(json);
+            }
+            case "task" -> {
+                return mapper ? objectMapper.readValue(state.json, Task.class) : codec.readTask(state.json);
+            }
+            default -> {
+                String json = new String(state.json, StandardCharsets.UTF_8);
+                return mapper ? objectMapper.readValue(json, AgentCard.class) : codec.readAgentCard(json);
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.google.a2a.benchmarks;
+
+import com.google.a2a.reactive.ReactiveA2AServerApplication;
+import com.google.a2a.server.A2AServerApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the servlet and the reactive server hold many long-lived SSE streams at once
+ * Servlet服务器和响应式服务器同时保持大量长连接SSE流的表现
+ *
+ * <p>For each stack, starts the server with a stub model that answers after a fixed delay, then opens
+ * {@code streams} non-blocking {@code tasks/send} streams over the ramp time, so that all of them are open
+ * together while the model calls run. Reported per stack: streams that got their first event, streams
+ * that ended with the final status, the time to the first event, and the threads and heap the open
+ * streams cost, measured in this JVM against the idle server. The servlet stack keeps an executor job per
+ * stream following its task; the reactive stack only runs the model call there. Streams come from one
+ * address, so the per-client cap is lifted. Virtual-thread executors need Java 21. Run with:
+ * 对每种技术栈，使用固定延迟后应答的模拟模型启动服务器，然后在爬升时间内打开{@code streams}个非阻塞{@code tasks/send}流，
+ * 使它们在模型调用期间同时保持打开。每种技术栈报告：收到第一个事件的流数、以最终状态结束的流数、到达第一个事件的时间，
+ * 以及打开的流在本JVM中相对空闲服务器所占用的线程和堆内存。Servlet技术栈为每个跟踪任务的流占用一个执行器任务；
+ * 响应式技术栈只在执行器上运行模型调用。所有流来自同一地址，因此取消了每客户端上限。虚拟线程执行器需要Java 21。运行方式：
+ * <pre>
+ * java -Xmx4g -cp benchmarks/target/benchmarks.jar com.google.a2a.benchmarks.ConcurrentStreamsLoadTest \
+ *     --stacks=servlet,reactive --streams=10000 --latency=PT20S --ramp=PT10S --executor-mode=virtual
+ * </pre>
+ * Raise the open file limit first ({@code ulimit -n 65536}); each stream uses a socket on both ends.
+ * 请先提高打开文件数上限（{@code ulimit -n 65536}）；每个流在两端各占用一个套接字。
+ */
+public class ConcurrentStreamsLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        List<String> stacks = Arrays.asList(option(args, "stacks", "servlet,reactive").split(","));
+        int streams = Integer.parseInt(option(args, "streams", "10000"));
+        Duration latency = Duration.parse(option(args, "latency", "PT20S"));
+        Duration ramp = Duration.parse(option(args, "ramp", "PT10S"));
+        String executorMode = option(args, "executor-mode", "virtual");
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-9s %7s %7s %9s %7s %13s %13s %9s %9s", "stack", "streams", "opened",
+            "completed", "failed", "first p50 ms", "first p99 ms", "threads", "heap MB"));
+        for (String stack : stacks) {
+            try (ConfigurableApplicationContext context = startServer(stack, latency, streams, executorMode)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                Result result = run(URI.create("http://localhost:" + port + "/a2a/stream"), streams, ramp,
+                    latency);
+                report.add(String.format("%-9s %7d %7d %9d %7d %13d %13d %9d %9.1f", stack, streams,
+                    result.opened(), result.completed(), result.failed(), result.firstEventPercentile(0.50),
+                    result.firstEventPercentile(0.99), result.threads, result.heapBytes / 1048576.0));
+                System.out.println(report.get(report.size() - 1));
+            }
+        }
+        System.out.println();
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * Start one stack with the stub model and limits high enough for the streams
+     * 使用模拟模型和足以容纳所有流的上限启动一种技术栈
+     */
+    private static ConfigurableApplicationContext startServer(String stack, Duration latency, int streams,
+                                                              String executorMode) {
+        int jobs = 2 * streams; // Servlet流：跟踪任务的作业加上处理器作业
+        String[] properties = {
+            "--server.port=0",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN",
+            "--server.tomcat.max-connections=" + (streams + 10000),
+            "--spring.ai.model.chat=none",
+            "--spring.ai.openai.base-url=http://localhost",
+            "--spring.ai.openai.api-key=unused",
+            "--spring.ai.openai.chat.options.model=unused",
+            "--loadtest.model-latency=" + latency,
+            "--a2a.executor.mode=" + executorMode,
+            "--a2a.executor.threads=" + jobs,
+            "--a2a.executor.max-concurrency=" + jobs,
+            "--a2a.executor.queue-capacity=" + jobs,
+            "--a2a.sse.max-streams=" + (streams + 1000),
+            "--a2a.sse.max-streams-per-client=" + (streams + 1000)
+        };
+        return switch (stack) {
+            case "servlet" -> new SpringApplicationBuilder(A2AServerApplication.class,
+                StreamingLoadTest.StubModelConfiguration.class)
+                .web(WebApplicationType.SERVLET)
+                .run(properties);
+            case "reactive" -> new SpringApplicationBuilder(ReactiveA2AServerApplication.class,
+                StreamingLoadTest.StubModelConfiguration.class, NettyConfiguration.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(properties);
+            default -> throw new IllegalArgumentException("Unknown stack: " + stack);
+        };
+    }
+
+    /**
+     * Open the streams over the ramp time and wait for all of them to end
+     * 在爬升时间内打开所有流并等待它们全部结束
+     */
+    private static Result run(URI uri, int streams, Duration ramp, Duration latency) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        int idleThreads = threads.getThreadCount();
+        long idleHeap = memory.getHeapMemoryUsage().getUsed();
+
+        List<Probe> probes = new ArrayList<>(streams);
+        List<CompletableFuture<?>> responses = new ArrayList<>(streams);
+        long pauseNanos = ramp.toNanos() / Math.max(1, streams);
+        long started = System.nanoTime();
+        for (int i = 0; i < streams; i++) {
+            Probe probe = new Probe();
+            probes.add(probe);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(latency.plus(ramp).plusMinutes(2))
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(streamRequest()))
+                .build();
+            responses.add(http.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(probe))
+                .whenComplete((response, error) -> probe.end(error == null && response.statusCode() == 200)));
+            long next = started + (i + 1) * pauseNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+
+        // All streams are open while the model calls run; measure at half the model latency after the ramp
+        // 模型调用期间所有流都保持打开；在爬升结束后半个模型延迟时测量
+        TimeUnit.NANOSECONDS.sleep(latency.toNanos() / 2);
+        System.gc();
+        Result result = new Result(probes);
+        result.threads = threads.getThreadCount() - idleThreads;
+        result.heapBytes = memory.getHeapMemoryUsage().getUsed() - idleHeap;
+
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+            .exceptionally(error -> null)
+            .get(latency.plus(ramp).toSeconds() + 180, TimeUnit.SECONDS);
+        return result;
+    }
+
+    private static String streamRequest() {
+        return """
+            {"jsonrpc":"2.0","id":"%s","method":"tasks/send","params":{"id":"%s","message":{"messageId":"%s",\
+            "kind":"message","role":"user","parts":[{"kind":"text","text":"Hello, world"}]},\
+            "configuration":{"blocking":false}}}"""
+            .formatted(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix))
+            .map(arg -> arg.substring(prefix.length())).findFirst().orElse(defaultValue);
+    }
+
+    /**
+     * Reads one stream line by line, noting its first event and whether it ended with the final status
+     * 逐行读取一个流，记录其第一个事件以及是否以最终状态结束
+     */
+    private static final class Probe implements Flow.Subscriber<String> {
+
+        private final long startedAt = System.nanoTime();
+        private volatile long firstEventNanos = -1; // 到达第一个事件的时间
+        private volatile boolean finalSeen; // 是否收到最终状态
+        private volatile boolean failed; // 是否出错
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("event:error")) {
+                failed = true;
+            } else if (line.startsWith("data:")) {
+                if (firstEventNanos < 0) {
+                    firstEventNanos = System.nanoTime() - startedAt;
+                }
+                if (line.contains("\"final\":true")) {
+                    finalSeen = true;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failed = true;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void end(boolean ok) {
+            if (!ok) {
+                failed = true;
+            }
+        }
+    }
+
+    private static final class Result {
+        final List<Probe> probes;
+        int threads;
+        long heapBytes;
+
+        Result(List<Probe> probes) {
+            this.probes = probes;
+        }
+
+        long opened() {
+            return probes.stream().filter(probe -> probe.firstEventNanos >= 0).count();
+        }
+
+        long completed() {
+            return probes.stream().filter(probe -> probe.finalSeen && !probe.failed).count();
+        }
+
+        long failed() {
+            return probes.stream().filter(probe -> probe.failed || !probe.finalSeen).count();
+        }
+
+        long firstEventPercentile(double p) {
+            List<Long> sorted = new ArrayList<>();
+            for (Probe probe : probes) {
+                if (probe.firstEventNanos >= 0) {
+                    sorted.add(TimeUnit.NANOSECONDS.toMillis(probe.firstEventNanos));
+                }
+            }
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            Collections.sort(sorted);
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size())));
+        }
+    }
+
+    /**
+     * Serve the reactive stack from Netty even though Tomcat is on this module's classpath too
+     * 即使本模块的类路径上也有Tomcat，仍由Netty提供响应式技术栈
+     */
+    @Configuration
+    static class NettyConfiguration {
+
+        @Bean
+        NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+            return new NettyReactiveWebServerFactory();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.google.a2a.benchmarks;
+
+import com.google.a2a.model.Message;
+import com.google.a2a.model.TextPart;
+import com.google.a2a.server.HistoryLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task history append and last-N read cost as the history grows
+ * 任务历史随长度增长时的追加与读取最近N条的开销
+ *
+ * <p>Compares HistoryLog with the CopyOnWriteArrayList it replaced. Run with:
+ * 对比HistoryLog与其替换的CopyOnWriteArrayList。运行方式：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar HistoryBenchmark
+ * </pre>
+ */
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryBenchmark {
+
+    private static final int APPENDS_PER_BATCH = 1_000;
+    private static final int RECENT_LENGTH = 20;
+
+    @State(Scope.Thread)
+    public static class History {
+
+        @Param({"100", "1000", "10000", "100000"})
+        int historySize;
+
+        @Param({"HistoryLog", "CopyOnWriteArrayList"})
+        String implementation;
+
+        HistoryLog log;
+        List<Message> copyOnWrite;
+        Message message;
+
+        // Rebuilt before each iteration so appends always start from the same history length
+        // 每轮迭代前重建，保证追加总是从相同的历史长度开始
+        @Setup(Level.Iteration)
+        public void setUp() {
+            message = new Message("message", "user", List.of(new TextPart("hello")));
+            log = new HistoryLog();
+            copyOnWrite = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < historySize; i++) {
+                append(message);
+            }
+        }
+
+        void append(Message message) {
+            if ("HistoryLog".equals(implementation)) {
+                log.append(message);
+            } else {
+                copyOnWrite.add(message);
+            }
+        }
+
+        List<Message> recent(int length) {
+            if ("HistoryLog".equals(implementation)) {
+                return log.tail(length);
+            }
+            int size = copyOnWrite.size();
+            return copyOnWrite.subList(Math.max(0, size - length), size);
+        }
+    }
+
+    /**
+     * Time to append a batch of messages onto a history of the given length
+     * 在给定长度的历史上追加一批消息的耗时
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = APPENDS_PER_BATCH)
+    @Measurement(iterations = 20, batchSize = APPENDS_PER_BATCH)
+    public void append(History history) {
+        history.append(history.message);
+    }
+
+    /**
+     * Time to read the last messages, as tasks/get does for historyLength
+     * 读取最近消息的耗时，与tasks/get处理historyLength的方式相同
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public void readRecent(History history, Blackhole blackhole) {
+        for (Message message : history.recent(RECENT_LENGTH)) {
+            blackhole.consume(message);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.google.a2a.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.JSONRPCRequest;
+import com.google.a2a.model.Message;
+import com.google.a2a.model.TaskQueryParams;
+import com.google.a2a.model.TaskSendParams;
+import com.google.a2a.model.TextPart;
+import com.google.a2a.server.JsonRpcRequestReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading a JSON-RPC request body into the params record of its method
+ * 将JSON-RPC请求体读取为其方法参数记录的开销
+ *
+ * <p>{@code tree} is how {@code /a2a} read requests before JsonRpcRequestReader: the body as a JsonNode,
+ * the JsonNode as a JSONRPCRequest with map params, and the maps converted into the params record.
+ * {@code bind} binds the body to JSONRPCRequest directly, as {@code /a2a/stream} does, and converts the
+ * map params. {@code streaming} is JsonRpcRequestReader, which reads the params straight into the
+ * record in one pass. The {@code tasks/send} body carries a message of a few hundred characters and
+ * metadata; {@code tasks/get} is the small body an orchestrator polls with. With {@code -prof gc}
+ * the bytes allocated per request show what the extra passes cost. Run with:
+ * {@code tree}是引入JsonRpcRequestReader之前{@code /a2a}读取请求的方式：请求体先读为JsonNode，再读为参数为Map的JSONRPCRequest，
+ * 最后将Map转换为参数记录。{@code bind}像{@code /a2a/stream}一样将请求体直接绑定到JSONRPCRequest并转换Map参数。
+ * {@code streaming}为JsonRpcRequestReader，一次遍历将参数直接读取为记录。{@code tasks/send}请求体携带几百个字符的消息和元数据；
+ * {@code tasks/get}是编排器轮询时的小请求体。使用{@code -prof gc}时，每个请求分配的字节数显示出额外遍历的开销。运行方式：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar RequestReadBenchmark -prof gc
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RequestReadBenchmark {
+
+    @State(Scope.Thread)
+    public static class Bodies {
+
+        @Param({"tasks/send", "tasks/get"})
+        String method;
+
+        @Param({"tree", "bind", "streaming"})
+        String reading;
+
+        ObjectMapper objectMapper;
+        JsonRpcRequestReader reader;
+        Class<?> paramsType;
+        byte[] body;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            objectMapper = new ObjectMapper();
+            reader = new JsonRpcRequestReader(objectMapper, Map.of(
+                "tasks/send", TaskSendParams.class,
+                "tasks/get", TaskQueryParams.class));
+            Object params;
+            if ("tasks/send".equals(method)) {
+                paramsType = TaskSendParams.class;
+                Message message = new Message("msg-1", "message", "user",
+                    List.of(new TextPart("text", ("Please translate the following paragraph into Chinese. "
+                        + "The quick brown fox jumps over the lazy dog. ").repeat(4), null)),
+                    "context-1", null, null, Map.of("source", "orchestrator", "priority", 3));
+                params = new TaskSendParams("task-1", "session-1", message, null, 10,
+                    Map.of("tenant", "acme", "trace", "4bf92f3577b34da6a3ce929d0e0e4736"), null);
+            } else {
+                paramsType = TaskQueryParams.class;
+                params = new TaskQueryParams("task-1", null, 10);
+            }
+            body = objectMapper.writeValueAsBytes(new JSONRPCRequest("request-1", "2.0", method, params));
+        }
+    }
+
+    @Benchmark
+    public Object read(Bodies state) throws IOException {
+        switch (state.reading) {
+            case "tree" -> {
+                JsonNode node = state.objectMapper.readTree(state.body);
+                JSONRPCRequest request = state.objectMapper.treeToValue(node, JSONRPCRequest.class);
+                return state.objectMapper.convertValue(request.params(), state.paramsType);
+            }
+            case "bind" -> {
+                JSONRPCRequest request = state.objectMapper.readValue(state.body, JSONRPCRequest.class);
+                return state.objectMapper.convertValue(request.params(), state.paramsType);
+            }
+            default -> {
+                return state.reader.read(state.body).requests().get(0).params();
+            }
+        }
+    }
+}
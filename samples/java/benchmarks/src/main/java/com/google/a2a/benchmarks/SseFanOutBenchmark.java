@@ -0,0 +1,165 @@
+package com.google.a2a.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.Artifact;
+import com.google.a2a.model.SendTaskStreamingResponse;
+import com.google.a2a.model.TaskArtifactUpdateEvent;
+import com.google.a2a.model.TextPart;
+import com.google.a2a.server.SseFrameCoalescer;
+import com.google.a2a.server.SseFrameEncoder;
+import com.google.a2a.server.TaskEventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing one task event to every stream that follows the task, as the number of streams grows
+ * 随跟踪任务的流数量增长，将一个任务事件写给每个流的开销
+ *
+ * <p>Each operation publishes one artifact chunk on a TaskEventBus and writes it to every subscriber,
+ * either from the frame SseFrameEncoder serializes once and shares, followed by the subscriber's
+ * request id, or by serializing a SendTaskStreamingResponse per subscriber as before. {@code coalesced}
+ * sends the chunks through one SseFrameCoalescer sink per subscriber, as the controllers do, so every
+ * fourth chunk ends a merged frame; the merged events are made once and shared, so their frames are too.
+ * Streams write to a counting sink, so the numbers are the server-side CPU and allocation without the
+ * network. With {@code -prof gc} the bytes allocated per event stay flat from 1 to 1000 subscribers for
+ * the shared and coalesced frames and grow with every subscriber otherwise. Run with:
+ * 每次操作在TaskEventBus上发布一个制品分块并写给每个订阅者：要么使用SseFrameEncoder只序列化一次并共享的帧加上订阅者的请求ID，
+ * 要么像之前一样为每个订阅者序列化一个SendTaskStreamingResponse。{@code coalesced}像控制器一样让分块经过每个订阅者的
+ * SseFrameCoalescer接收器，每四个分块结束一个合并帧；合并事件只生成一次并共享，因此其帧也是共享的。
+ * 各个流写入一个计数输出，因此结果是不含网络的服务端CPU和内存分配。
+ * 使用{@code -prof gc}时，共享帧和合并帧每个事件分配的字节数从1到1000个订阅者保持不变，而另一种方式随每个订阅者增长。运行方式：
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar SseFanOutBenchmark -prof gc
+ * </pre>
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SseFanOutBenchmark {
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. 敏捷的棕色狐狸";
+
+    @State(Scope.Thread)
+    public static class FanOut {
+
+        @Param({"1", "10", "100", "1000"})
+        int subscribers;
+
+        @Param({"shared", "coalesced", "per-subscriber"})
+        String encoding;
+
+        ObjectMapper objectMapper;
+        SseFrameEncoder encoder;
+        TaskEventBus bus;
+        List<TaskEventBus.Subscription> subscriptions;
+        List<Object> requestIds;
+        List<byte[]> tails;
+        SseFrameCoalescer coalescer;
+        List<SseFrameCoalescer.Sink> sinks;
+        TaskArtifactUpdateEvent chunk;
+        CountingOutputStream out;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            objectMapper = new ObjectMapper();
+            encoder = new SseFrameEncoder(objectMapper);
+            bus = new TaskEventBus(64, 16, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST, Duration.ofMinutes(5));
+            subscriptions = new ArrayList<>();
+            requestIds = new ArrayList<>();
+            tails = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                subscriptions.add(bus.subscribe("task-1"));
+                requestIds.add("stream-request-" + i);
+                tails.add(encoder.tail(requestIds.get(i)));
+            }
+            // A chunk the size of a few translated words, as the translation handler streams them
+            // 与翻译处理器流式发出的几个词大小相当的分块
+            Artifact artifact = new Artifact("artifact-1", "translation", null,
+                List.of(new TextPart(TEXT)), 0, true, null, false);
+            chunk = new TaskArtifactUpdateEvent("task-1", artifact, false, null);
+            out = new CountingOutputStream();
+
+            // Four chunks of text fill a frame, so merged frames end on bytes rather than on time
+            // 四个分块的文本填满一帧，因此合并帧按字节数而不是按时间结束
+            coalescer = new SseFrameCoalescer(SseFrameCoalescer.DEFAULT_INTERVAL,
+                4 * TEXT.getBytes(StandardCharsets.UTF_8).length);
+            sinks = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                byte[] tail = tails.get(i);
+                sinks.add(coalescer.open(event -> {
+                    byte[] frame = encoder.frame(event);
+                    out.write(frame);
+                    out.write(tail);
+                    return frame.length + tail.length;
+                }));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            coalescer.close();
+            bus.close();
+        }
+    }
+
+    @Benchmark
+    public long deliverEvent(FanOut state) throws IOException {
+        state.bus.publish(state.chunk);
+        boolean shared = "shared".equals(state.encoding);
+        boolean coalesced = "coalesced".equals(state.encoding);
+        for (int i = 0; i < state.subscribers; i++) {
+            TaskEventBus.Event event = state.subscriptions.get(i).poll();
+            if (coalesced) {
+                state.sinks.get(i).send(event);
+            } else if (shared) {
+                state.out.write(state.encoder.frame(event));
+                state.out.write(state.tails.get(i));
+            } else {
+                SendTaskStreamingResponse response = new SendTaskStreamingResponse(state.requestIds.get(i), "2.0",
+                    event.payload(), null);
+                state.out.write(state.objectMapper.writeValueAsBytes(response));
+            }
+        }
+        return state.out.count;
+    }
+
+    /**
+     * Stands in for the response streams, counting what is written to them
+     * 代替响应流，统计写入的字节数
+     */
+    static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
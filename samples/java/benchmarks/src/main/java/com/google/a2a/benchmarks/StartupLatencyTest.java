@@ -0,0 +1,180 @@
+package com.google.a2a.benchmarks;
+
+import com.google.a2a.server.A2AServerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Startup time and first request latency of the server with each JSON access mode
+ * 每种JSON访问方式下服务器的启动时间和首个请求延迟
+ *
+ * <p>Each run starts the server with the stub model in a fresh JVM, so nothing is loaded or
+ * introspected beforehand, and the modes take turns run after run. A run reports the JVM uptime when
+ * the server is ready, then times the first agent card request, the first {@code tasks/send} and the
+ * first {@code tasks/get}, which are the requests that pay for Jackson building the serializers and
+ * deserializers of the records with {@code reflection}, and that only load the generated codecs with
+ * {@code generated}. The median and the minimum of the runs are reported. Run with:
+ * 每次运行都在新的JVM中使用模拟模型启动服务器，事先不加载也不内省任何类，各模式逐轮交替运行。每次运行报告服务器就绪时的JVM运行时间，
+ * 然后记录第一次获取代理卡片、第一次{@code tasks/send}和第一次{@code tasks/get}的耗时：使用{@code reflection}时由这些请求承担
+ * Jackson构建记录序列化器和反序列化器的开销，使用{@code generated}时只需加载生成的编解码器。报告各次运行的中位数和最小值。运行方式：
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.google.a2a.benchmarks.StartupLatencyTest \
+ *     --modes=reflection,generated --runs=10
+ * </pre>
+ */
+public class StartupLatencyTest {
+
+    private static final String RESULT = "RESULT";
+    private static final List<String> METRICS = List.of("startup", "agent-card", "send", "get");
+
+    public static void main(String[] args) throws Exception {
+        String child = option(args, "child", null);
+        if (child != null) {
+            runChild(child);
+            // Don't wait for non-daemon threads left over after the server has stopped
+            // 不等待服务器停止后残留的非守护线程
+            System.exit(0);
+        }
+        List<String> modes = Arrays.asList(option(args, "modes", "reflection,generated").split(","));
+        int runs = Integer.parseInt(option(args, "runs", "10"));
+
+        Map<String, Map<String, List<Double>>> results = new LinkedHashMap<>();
+        for (int run = 1; run <= runs; run++) {
+            for (String mode : modes) {
+                Map<String, Double> result = fork(mode);
+                System.out.println("run " + run + " " + mode + " " + result);
+                result.forEach((metric, millis) -> results.computeIfAbsent(mode, key -> new LinkedHashMap<>())
+                    .computeIfAbsent(metric, key -> new ArrayList<>()).add(millis));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-11s %-11s %11s %11s%n", "mode", "metric", "median ms", "min ms");
+        results.forEach((mode, metrics) -> metrics.forEach((metric, millis) -> {
+            List<Double> sorted = new ArrayList<>(millis);
+            Collections.sort(sorted);
+            System.out.printf("%-11s %-11s %11.1f %11.1f%n", mode, metric, sorted.get(sorted.size() / 2),
+                sorted.get(0));
+        }));
+    }
+
+    /**
+     * Run one mode in a new JVM with the same classpath and JVM options, and read its result line
+     * 在使用相同类路径和JVM参数的新JVM中运行一个模式，并读取其结果行
+     */
+    private static Map<String, Double> fork(String mode) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+            StartupLatencyTest.class.getName(), "--child=" + mode));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+        Map<String, Double> result = null;
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(RESULT + " ")) {
+                    result = new LinkedHashMap<>();
+                    String[] values = line.substring(RESULT.length() + 1).split(" ");
+                    for (int i = 0; i < METRICS.size(); i++) {
+                        result.put(METRICS.get(i), Double.parseDouble(values[i]));
+                    }
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("Run of " + mode + " failed with exit code " + process.exitValue());
+        }
+        return result;
+    }
+
+    /**
+     * Start the server, time the first requests and print them on one line
+     * 启动服务器，记录首批请求的耗时并打印在一行中
+     */
+    private static void runChild(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = startServer(mode)) {
+            long startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            String taskId = UUID.randomUUID().toString();
+
+            double agentCard = time(http, HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/.well-known/agent-card")).GET());
+            URI a2a = URI.create("http://localhost:" + port + "/a2a");
+            double send = time(http, post(a2a, """
+                {"jsonrpc":"2.0","id":"%s","method":"tasks/send","params":{"id":"%s","message":{"messageId":"%s",\
+                "kind":"message","role":"user","parts":[{"kind":"text","text":"Hello, world"}]}}}"""
+                .formatted(UUID.randomUUID(), taskId, UUID.randomUUID())));
+            double get = time(http, post(a2a, """
+                {"jsonrpc":"2.0","id":"%s","method":"tasks/get","params":{"id":"%s"}}"""
+                .formatted(UUID.randomUUID(), taskId)));
+
+            System.out.printf(Locale.ROOT, "%s %d %.3f %.3f %.3f%n", RESULT, startupMillis, agentCard, send, get);
+        }
+    }
+
+    private static ConfigurableApplicationContext startServer(String mode) {
+        return new SpringApplicationBuilder(A2AServerApplication.class, StreamingLoadTest.StubModelConfiguration.class)
+            .run("--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.ai.model.chat=none",
+                "--spring.ai.openai.base-url=http://localhost",
+                "--spring.ai.openai.api-key=unused",
+                "--spring.ai.openai.chat.options.model=unused",
+                "--loadtest.model-latency=PT0S",
+                "--a2a.json.accessors=" + mode);
+    }
+
+    private static HttpRequest.Builder post(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    /**
+     * Send a request and return its latency in milliseconds
+     * 发送请求并返回其延迟（毫秒）
+     */
+    private static double time(HttpClient http, HttpRequest.Builder request) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = http.send(request.timeout(Duration.ofSeconds(60)).build(),
+            HttpResponse.BodyHandlers.ofString());
+        long nanos = System.nanoTime() - start;
+        if (response.statusCode() != 200 || response.body().contains("\"error\"")) {
+            throw new IllegalStateException("Request failed: " + response.body());
+        }
+        return nanos / 1e6;
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix))
+            .map(arg -> arg.substring(prefix.length())).findFirst().orElse(defaultValue);
+    }
+}
@@ -0,0 +1,221 @@
+package com.google.a2a.benchmarks;
+
+import com.google.a2a.server.A2AServerApplication;
+import com.google.a2a.server.HandlerExecutor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How many concurrent SSE streams one server node sustains in each executor mode
+ * 每种执行模式下单个服务器节点能持续支撑多少并发SSE流
+ *
+ * <p>Starts the server with a stub model that answers after a fixed delay, like a remote model call,
+ * then for each concurrency level keeps that many clients looping on {@code /a2a/stream} for a fixed
+ * time. A level is sustained when no stream fails and the 99th percentile stays under twice the model
+ * latency. {@code common-pool} reproduces the previous behavior: streams ran on the common ForkJoin
+ * pool, whose blocking jobs are limited to its parallelism and queue without bound. Run with:
+ * 使用一个固定延迟后应答的模拟模型（类似远程模型调用）启动服务器，然后对每个并发级别让相应数量的客户端
+ * 在固定时间内循环请求{@code /a2a/stream}。没有流失败且99分位延迟低于模型延迟两倍时视为可支撑该级别。
+ * {@code common-pool}复现之前的行为：流运行在公共ForkJoin线程池上，阻塞任务受其并行度限制且无界排队。运行方式：
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.google.a2a.benchmarks.StreamingLoadTest \
+ *     --modes=common-pool,platform,virtual --levels=100,500,1000,2000 --latency=PT0.5S --duration=PT20S
+ * </pre>
+ */
+public class StreamingLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.asList(option(args, "modes", "common-pool,platform,virtual").split(","));
+        int[] levels = Arrays.stream(option(args, "levels", "100,500,1000,2000").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+        Duration latency = Duration.parse(option(args, "latency", "PT0.5S"));
+        Duration duration = Duration.parse(option(args, "duration", "PT20S"));
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-12s %-9s %7s %9s %7s %9s %9s %10s", "mode", "running", "streams",
+            "completed", "failed", "p50 ms", "p99 ms", "streams/s"));
+        for (String mode : modes) {
+            try (ConfigurableApplicationContext context = startServer(mode, latency)) {
+                HandlerExecutor executor = context.getBean(HandlerExecutor.class);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + "/a2a/stream");
+                for (int level : levels) {
+                    Result result = run(uri, level, duration);
+                    boolean sustained = result.failed.get() == 0
+                        && result.percentile(0.99) < 2 * latency.toMillis();
+                    report.add(String.format("%-12s %-9s %7d %9d %7d %9d %9d %10.1f%s", mode,
+                        executor.mode().name().toLowerCase(), level, result.completed(), result.failed.get(),
+                        result.percentile(0.50), result.percentile(0.99),
+                        result.throughput(), sustained ? "" : "  not sustained"));
+                    System.out.println(report.get(report.size() - 1));
+                }
+            }
+        }
+        System.out.println();
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * Start the server with the stub model and the executor settings of a mode
+     * 使用模拟模型和指定模式的执行器配置启动服务器
+     */
+    private static ConfigurableApplicationContext startServer(String mode, Duration latency) {
+        List<String> properties = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN",
+            "--server.tomcat.max-connections=20000",
+            "--spring.ai.model.chat=none",
+            "--spring.ai.openai.base-url=http://localhost",
+            "--spring.ai.openai.api-key=unused",
+            "--spring.ai.openai.chat.options.model=unused",
+            "--loadtest.model-latency=" + latency,
+            // 所有客户端来自同一地址，放开流数上限
+            "--a2a.sse.max-streams=100000",
+            "--a2a.sse.max-streams-per-client=100000"
+        ));
+        switch (mode) {
+            case "common-pool" -> properties.addAll(List.of(
+                "--a2a.executor.mode=platform",
+                "--a2a.executor.threads=" + ForkJoinPool.getCommonPoolParallelism(),
+                "--a2a.executor.queue-capacity=1000000"));
+            case "platform" -> properties.add("--a2a.executor.mode=platform");
+            case "virtual" -> properties.add("--a2a.executor.mode=virtual");
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        return new SpringApplicationBuilder(A2AServerApplication.class, StubModelConfiguration.class)
+            .run(properties.toArray(String[]::new));
+    }
+
+    /**
+     * Keep {@code clients} streams open back to back for the given time
+     * 在给定时间内保持{@code clients}个流连续不断地请求
+     */
+    private static Result run(URI uri, int clients, Duration duration) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        Result result = new Result();
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        CompletableFuture<?>[] loops = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            loops[i] = loop(http, uri, deadline, result);
+        }
+        CompletableFuture.allOf(loops).get(duration.toSeconds() + 120, TimeUnit.SECONDS);
+        // Streams still queued at the deadline finish afterwards, so throughput uses the real elapsed time
+        // 截止时仍在排队的流会在之后完成，因此吞吐量按实际耗时计算
+        result.elapsedNanos = System.nanoTime() - started;
+        return result;
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient http, URI uri, long deadline, Result result) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json")
+            .header("Accept", "text/event-stream")
+            .POST(HttpRequest.BodyPublishers.ofString(streamRequest()))
+            .build();
+        long start = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                boolean completed = error == null && response.statusCode() == 200
+                    && response.body().contains("\"final\":true") && !response.body().contains("event:error");
+                if (completed) {
+                    result.latenciesMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                } else {
+                    result.failed.incrementAndGet();
+                }
+                return null;
+            })
+            .thenCompose(ignored -> loop(http, uri, deadline, result));
+    }
+
+    private static String streamRequest() {
+        return """
+            {"jsonrpc":"2.0","id":"%s","method":"tasks/send","params":{"id":"%s","message":{"messageId":"%s",\
+            "kind":"message","role":"user","parts":[{"kind":"text","text":"Hello, world"}]}}}"""
+            .formatted(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix))
+            .map(arg -> arg.substring(prefix.length())).findFirst().orElse(defaultValue);
+    }
+
+    private static final class Result {
+        final ConcurrentLinkedQueue<Long> latenciesMillis = new ConcurrentLinkedQueue<>();
+        final AtomicLong failed = new AtomicLong();
+        long elapsedNanos;
+
+        long completed() {
+            return latenciesMillis.size();
+        }
+
+        double throughput() {
+            return completed() / (elapsedNanos / 1e9);
+        }
+
+        long percentile(double p) {
+            List<Long> sorted = new ArrayList<>(latenciesMillis);
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            Collections.sort(sorted);
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size())));
+        }
+    }
+
+    /**
+     * A chat model that answers after a fixed delay
+     * 在固定延迟后应答的聊天模型
+     */
+    @Configuration
+    static class StubModelConfiguration {
+
+        @Bean
+        ChatModel stubChatModel(@Value("${loadtest.model-latency}") Duration latency) {
+            return new ChatModel() {
+                @Override
+                public ChatResponse call(Prompt prompt) {
+                    try {
+                        Thread.sleep(latency.toMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new ChatResponse(List.of(new Generation(new AssistantMessage("你好，世界"))));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.google.a2a.benchmarks;
+
+import com.google.a2a.server.TranslationBatcher;
+import com.google.a2a.server.TranslationBatcherStats;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Translation throughput against the batch size of TranslationBatcher
+ * 翻译吞吐量随TranslationBatcher批大小的变化
+ *
+ * <p>Uses a stub model whose latency is a fixed per-call overhead plus a small cost per text, like a
+ * remote model whose round trip and prompt processing dominate short sentences, and which serves only a
+ * limited number of calls at once, like a provider's concurrency limit. For each batch size a fixed
+ * number of clients translate short sentences back to back for a fixed time; batch size 1 is the
+ * unbatched baseline. Run with:
+ * 使用一个模拟模型，其延迟为每次调用的固定开销加上每条文本的少量开销，类似短句翻译时往返与提示词处理占主导的远程模型，
+ * 并且同时只处理有限数量的调用，类似服务商的并发限制。对每个批大小，固定数量的客户端在固定时间内连续翻译短句；
+ * 批大小1为不合并的基准。运行方式：
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.google.a2a.benchmarks.TranslationBatchBenchmark \
+ *     --batch-sizes=1,2,4,8,16,32 --clients=64 --model-concurrency=8 --overhead=PT0.3S --per-text=PT0.005S \
+ *     --max-delay=PT0.02S --duration=PT10S
+ * </pre>
+ */
+public class TranslationBatchBenchmark {
+
+    private static final Pattern SEGMENT = Pattern.compile("(?m)^\\[\\[(\\d+)]] (.*)$");
+
+    public static void main(String[] args) throws Exception {
+        int[] batchSizes = Arrays.stream(option(args, "batch-sizes", "1,2,4,8,16,32").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+        int clients = Integer.parseInt(option(args, "clients", "64"));
+        int modelConcurrency = Integer.parseInt(option(args, "model-concurrency", "8"));
+        Duration overhead = Duration.parse(option(args, "overhead", "PT0.3S"));
+        Duration perText = Duration.parse(option(args, "per-text", "PT0.005S"));
+        Duration maxDelay = Duration.parse(option(args, "max-delay", "PT0.02S"));
+        Duration duration = Duration.parse(option(args, "duration", "PT10S"));
+
+        AtomicLong modelCalls = new AtomicLong();
+        ChatClient chatClient = ChatClient.create(stubChatModel(modelConcurrency, overhead, perText, modelCalls));
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-10s %9s %11s %9s %9s %9s %10s", "batch size", "texts", "model calls",
+            "avg batch", "p50 ms", "p99 ms", "texts/s"));
+        for (int batchSize : batchSizes) {
+            modelCalls.set(0);
+            try (TranslationBatcher batcher = new TranslationBatcher(
+                    prompt -> chatClient.prompt(prompt).call().content(),
+                    text -> "Translate: " + text, batchSize, maxDelay, 500)) {
+                Result result = run(batcher, clients, duration);
+                TranslationBatcherStats stats = batcher.stats();
+                report.add(String.format("%-10d %9d %11d %9.1f %9d %9d %10.1f", batchSize, result.completed(),
+                    modelCalls.get(), batchSize == 1 ? 1.0 : stats.averageBatchSize(),
+                    result.percentile(0.50), result.percentile(0.99), result.throughput()));
+                System.out.println(report.get(report.size() - 1));
+            }
+        }
+        System.out.println();
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * Keep {@code clients} translations running back to back for the given time
+     * 在给定时间内保持{@code clients}个翻译连续不断地执行
+     */
+    private static Result run(TranslationBatcher batcher, int clients, Duration duration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        Result result = new Result();
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        List<Future<?>> loops = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            loops.add(executor.submit(() -> {
+                for (int n = 0; System.nanoTime() < deadline; n++) {
+                    long start = System.nanoTime();
+                    try {
+                        batcher.translate("Sentence " + n + " from client " + client);
+                        result.latenciesMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    } catch (Exception e) {
+                        result.failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> loop : loops) {
+            loop.get();
+        }
+        result.elapsedNanos = System.nanoTime() - started;
+        executor.shutdown();
+        return result;
+    }
+
+    /**
+     * A chat model that serves {@code concurrency} calls at once, each answered after a fixed overhead plus
+     * a cost per text, translating every numbered segment of a batch prompt
+     * 同时处理{@code concurrency}个调用的聊天模型，每个调用在固定开销加每条文本开销之后应答，会翻译批量提示词中的每个编号片段
+     */
+    private static ChatModel stubChatModel(int concurrency, Duration overhead, Duration perText, AtomicLong calls) {
+        Semaphore permits = new Semaphore(concurrency);
+        return new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                calls.incrementAndGet();
+                String text = prompt.getContents();
+                StringBuilder answer = new StringBuilder();
+                Matcher matcher = SEGMENT.matcher(text);
+                int segments = 0;
+                while (matcher.find()) {
+                    answer.append("[[").append(matcher.group(1)).append("]] 译文 ").append(matcher.group(2))
+                        .append('\n');
+                    segments++;
+                }
+                if (segments == 0) {
+                    answer.append("译文 ").append(text);
+                }
+                try {
+                    permits.acquire();
+                    try {
+                        Thread.sleep(overhead.toMillis() + perText.toMillis() * Math.max(1, segments));
+                    } finally {
+                        permits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(answer.toString()))));
+            }
+        };
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix))
+            .map(arg -> arg.substring(prefix.length())).findFirst().orElse(defaultValue);
+    }
+
+    private static final class Result {
+        final ConcurrentLinkedQueue<Long> latenciesMillis = new ConcurrentLinkedQueue<>();
+        final AtomicLong failed = new AtomicLong();
+        long elapsedNanos;
+
+        long completed() {
+            return latenciesMillis.size();
+        }
+
+        double throughput() {
+            return completed() / (elapsedNanos / 1e9);
+        }
+
+        long percentile(double p) {
+            List<Long> sorted = new ArrayList<>(latenciesMillis);
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            Collections.sort(sorted);
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size())));
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package com.google.a2a.client;
 
 import com.google.a2a.model.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -23,7 +21,7 @@ public class A2AClient {
     
     private final String baseUrl; // 服务器基础URL
     private final HttpClient httpClient; // HTTP客户端
-    private final ObjectMapper objectMapper; // JSON对象映射器
+    private final A2ACodec codec; // 使用预先解析的读写器编解码协议记录
     
     /**
      * Create a new A2A client
@@ -33,11 +31,9 @@ public class A2AClient {
      *                A2A服务器的基础URL
      */
     public A2AClient(String baseUrl) {
-        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-        this.httpClient = HttpClient.newBuilder()
+        this(baseUrl, HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(30))
-            .build();
-        this.objectMapper = new ObjectMapper();
+            .build());
     }
     
     /**
@@ -50,9 +46,20 @@ public class A2AClient {
      *                   自定义HTTP客户端
      */
     public A2AClient(String baseUrl, HttpClient httpClient) {
+        this(baseUrl, httpClient, new A2ACodec());
+    }
+    
+    /**
+     * Create a new A2A client with custom HTTP client and codec
+     * 使用自定义HTTP客户端和编解码器创建A2A客户端
+     * 
+     * @param codec codec of the protocol records, for example one with Blackbird accessors
+     *              协议记录的编解码器，例如使用Blackbird访问器的编解码器
+     */
+    public A2AClient(String baseUrl, HttpClient httpClient, A2ACodec codec) {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.httpClient = httpClient;
-        this.objectMapper = new ObjectMapper();
+        this.codec = codec;
     }
     
     /**
@@ -142,7 +149,7 @@ public class A2AClient {
                     params
                 );
                 
-                String requestBody = objectMapper.writeValueAsString(request);
+                String requestBody = codec.writeRequestAsString(request);
                 
                 HttpRequest httpRequest = HttpRequest.newBuilder()
                     .uri(URI.create(baseUrl + "/a2a/stream"))
@@ -165,7 +172,7 @@ public class A2AClient {
                     if (line.trim().isEmpty()) continue;
                     
                     try {
-                        SendTaskStreamingResponse streamingResponse = objectMapper.readValue(line, SendTaskStreamingResponse.class);
+                        SendTaskStreamingResponse streamingResponse = codec.readStreamingResponse(line);
                         
                         if (streamingResponse.error() != null) {
                             A2AError error = streamingResponse.error();
@@ -218,7 +225,7 @@ public class A2AClient {
                 throw new A2AClientException("HTTP " + response.statusCode() + ": " + response.body());
             }
             
-            return objectMapper.readValue(response.body(), AgentCard.class);
+            return codec.readAgentCard(response.body());
             
         } catch (IOException | InterruptedException e) {
             throw new A2AClientException("Failed to get agent card", e);
@@ -231,7 +238,7 @@ public class A2AClient {
      */
     private JSONRPCResponse doRequest(JSONRPCRequest request) throws A2AClientException {
         try {
-            String requestBody = objectMapper.writeValueAsString(request);
+            String requestBody = codec.writeRequestAsString(request);
             
             HttpRequest httpRequest = HttpRequest.newBuilder()
                 .uri(URI.create(baseUrl + "/a2a"))
@@ -245,30 +252,10 @@ public class A2AClient {
                 throw new A2AClientException("HTTP " + response.statusCode() + ": " + response.body());
             }
             
-            // Parse the response
-            // 解析响应内容
-            JsonNode responseNode = objectMapper.readTree(response.body());
-            
-            // Extract basic fields
-            // 提取基础字段
-            Object id = responseNode.has("id") ? responseNode.get("id").asText() : null;
-            String jsonrpc = responseNode.get("jsonrpc").asText();
-            
-            // Handle error
-            // 处理错误
-            JSONRPCError error = null;
-            if (responseNode.has("error") && !responseNode.get("error").isNull()) {
-                error = objectMapper.treeToValue(responseNode.get("error"), JSONRPCError.class);
-            }
-            
-            // Handle result
-            // 处理结果
-            Object result = null;
-            if (responseNode.has("result") && !responseNode.get("result").isNull()) {
-                result = objectMapper.treeToValue(responseNode.get("result"), Task.class);
-            }
-            
-            JSONRPCResponse jsonrpcResponse = new JSONRPCResponse(id, jsonrpc, result, error);
+            // Parse the response, reading the result straight into a Task
+            // 解析响应内容，结果直接读取为Task
+            JSONRPCResponse jsonrpcResponse = codec.readResponse(response.body(), Task.class);
+            JSONRPCError error = jsonrpcResponse.error();
             
             // Check for A2A errors
             // 检查A2A错误
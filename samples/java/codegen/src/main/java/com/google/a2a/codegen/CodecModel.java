@@ -0,0 +1,381 @@
+package com.google.a2a.codegen;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The records, enums and sealed interfaces of a package that get codecs, and how each record property
+ * is read and written
+ *
+ * <p>Only the Jackson annotations the model uses are understood: {@code @JsonProperty} names,
+ * {@code @JsonInclude} on the record, {@code @JsonIgnore}, {@code @JsonValue} on enums returning a
+ * String, and {@code @JsonTypeInfo(use = NAME)} with {@code @JsonSubTypes} on sealed interfaces.
+ * Types outside of that, such as {@code Object}, maps or a sealed interface deduced from its
+ * properties, are left to the Jackson deserializer and serializer of their type.
+ */
+final class CodecModel {
+
+    static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    static final String JSON_INCLUDE = "com.fasterxml.jackson.annotation.JsonInclude";
+    static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+    static final String JSON_VALUE = "com.fasterxml.jackson.annotation.JsonValue";
+    static final String JSON_TYPE_INFO = "com.fasterxml.jackson.annotation.JsonTypeInfo";
+    static final String JSON_SUB_TYPES = "com.fasterxml.jackson.annotation.JsonSubTypes";
+
+    /**
+     * How values of a type are read and written
+     */
+    enum Kind {
+        /** A String */
+        STRING,
+        /** A primitive or boxed int, long, double or boolean */
+        SCALAR,
+        /** An enum of the package written as the String of its {@code @JsonValue} method */
+        ENUM,
+        /** A record of the package */
+        RECORD,
+        /** A sealed interface of the package whose subtypes are named in a property */
+        UNION,
+        /** A List of any of the above */
+        LIST,
+        /** Anything else, read and written by Jackson */
+        DELEGATE
+    }
+
+    /**
+     * Scalars read and written with dedicated parser and generator calls
+     */
+    enum Scalar {
+        INT("Int", "Integer", "parser.getIntValue()", "JsonToken.VALUE_NUMBER_INT"),
+        LONG("Long", "Long", "parser.getLongValue()", "JsonToken.VALUE_NUMBER_INT"),
+        DOUBLE("Double", "Double", "parser.getDoubleValue()", "JsonToken.VALUE_NUMBER_FLOAT",
+            "JsonToken.VALUE_NUMBER_INT"),
+        BOOLEAN("Boolean", "Boolean", "parser.getBooleanValue()", "JsonToken.VALUE_TRUE",
+            "JsonToken.VALUE_FALSE");
+
+        final String suffix; // suffix of the read helper
+        final String boxed;
+        final String read; // reads the value when the current token is one of tokens
+        final List<String> tokens;
+
+        Scalar(String suffix, String boxed, String read, String... tokens) {
+            this.suffix = suffix;
+            this.boxed = boxed;
+            this.read = read;
+            this.tokens = List.of(tokens);
+        }
+
+        static Scalar of(String type) {
+            return switch (type) {
+                case "int", "java.lang.Integer" -> INT;
+                case "long", "java.lang.Long" -> LONG;
+                case "double", "java.lang.Double" -> DOUBLE;
+                case "boolean", "java.lang.Boolean" -> BOOLEAN;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * A property type
+     */
+    static final class ValueType {
+        final Kind kind;
+        final TypeMirror mirror;
+        final TypeElement element; // type of a RECORD, UNION or ENUM
+        final Scalar scalar;
+        final boolean primitive;
+        final ValueType item; // element type of a LIST
+
+        private ValueType(Kind kind, TypeMirror mirror, TypeElement element, Scalar scalar, ValueType item) {
+            this.kind = kind;
+            this.mirror = mirror;
+            this.element = element;
+            this.scalar = scalar;
+            this.primitive = mirror.getKind().isPrimitive();
+            this.item = item;
+        }
+
+        boolean nullable() {
+            return !primitive;
+        }
+    }
+
+    /**
+     * A record component written as a JSON property
+     */
+    static final class Property {
+        final String name;
+        final String accessor;
+        final ValueType type;
+        final boolean skipNulls;
+
+        Property(String name, String accessor, ValueType type, boolean skipNulls) {
+            this.name = name;
+            this.accessor = accessor;
+            this.type = type;
+            this.skipNulls = skipNulls;
+        }
+    }
+
+    static final class RecordType {
+        final TypeElement element;
+        final List<Property> properties = new ArrayList<>();
+        final List<RecordComponentElement> components = new ArrayList<>(); // canonical constructor parameters
+        UnionType union; // sealed interface naming this record as a subtype
+        String typeId;
+        Property typeProperty; // component named like the type id property
+
+        RecordType(TypeElement element) {
+            this.element = element;
+        }
+    }
+
+    static final class UnionType {
+        final TypeElement element;
+        final String property;
+        final Map<String, RecordType> subtypes = new LinkedHashMap<>();
+
+        UnionType(TypeElement element, String property) {
+            this.element = element;
+            this.property = property;
+        }
+    }
+
+    static final class EnumType {
+        final TypeElement element;
+        final String valueMethod;
+
+        EnumType(TypeElement element, String valueMethod) {
+            this.element = element;
+            this.valueMethod = valueMethod;
+        }
+    }
+
+    final PackageElement packageElement;
+    final Map<TypeElement, RecordType> records = new LinkedHashMap<>();
+    final Map<TypeElement, UnionType> unions = new LinkedHashMap<>();
+    final Map<TypeElement, EnumType> enums = new LinkedHashMap<>();
+    private final Messager messager;
+
+    private CodecModel(PackageElement packageElement, Messager messager) {
+        this.packageElement = packageElement;
+        this.messager = messager;
+    }
+
+    /**
+     * Collect the types of a package and resolve the properties of its records
+     */
+    static CodecModel of(PackageElement packageElement, Messager messager) {
+        CodecModel model = new CodecModel(packageElement, messager);
+        List<TypeElement> interfaces = new ArrayList<>();
+        for (Element element : packageElement.getEnclosedElements()) {
+            TypeElement type = (TypeElement) element;
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            switch (type.getKind()) {
+                case RECORD -> {
+                    if (model.supported(type)) {
+                        model.records.put(type, new RecordType(type));
+                    }
+                }
+                case ENUM -> model.enumType(type);
+                case INTERFACE -> interfaces.add(type);
+                default -> {
+                }
+            }
+        }
+        interfaces.forEach(model::unionType);
+        for (RecordType record : model.records.values()) {
+            model.resolveProperties(record);
+        }
+        return model;
+    }
+
+    /**
+     * Records with type parameters or unsupported primitive components are left to Jackson
+     */
+    private boolean supported(TypeElement type) {
+        if (!type.getTypeParameters().isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.NOTE, "No JSON codec for generic record", type);
+            return false;
+        }
+        for (RecordComponentElement component : type.getRecordComponents()) {
+            TypeMirror mirror = component.asType();
+            if (mirror.getKind().isPrimitive() && Scalar.of(mirror.toString()) == null) {
+                messager.printMessage(Diagnostic.Kind.NOTE, "No JSON codec for record with " + mirror
+                    + " component", type);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void enumType(TypeElement type) {
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD && annotation(member, JSON_VALUE) != null) {
+                ExecutableElement method = (ExecutableElement) member;
+                if (method.getParameters().isEmpty() && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && method.getReturnType().toString().equals("java.lang.String")) {
+                    enums.put(type, new EnumType(type, method.getSimpleName().toString()));
+                }
+                return;
+            }
+        }
+    }
+
+    private void unionType(TypeElement type) {
+        AnnotationMirror typeInfo = annotation(type, JSON_TYPE_INFO);
+        AnnotationMirror subTypes = annotation(type, JSON_SUB_TYPES);
+        if (!type.getModifiers().contains(Modifier.SEALED) || typeInfo == null || subTypes == null
+            || !"NAME".equals(enumValue(typeInfo, "use"))) {
+            return;
+        }
+        String include = enumValue(typeInfo, "include");
+        if (include != null && !include.equals("PROPERTY") && !include.equals("EXISTING_PROPERTY")) {
+            return;
+        }
+        String property = (String) value(typeInfo, "property");
+        UnionType union = new UnionType(type, property == null || property.isEmpty() ? "@type" : property);
+        @SuppressWarnings("unchecked")
+        List<? extends AnnotationValue> entries = (List<? extends AnnotationValue>) value(subTypes, "value");
+        for (AnnotationValue entry : entries) {
+            AnnotationMirror subType = (AnnotationMirror) entry.getValue();
+            TypeElement subElement = (TypeElement) ((DeclaredType) value(subType, "value")).asElement();
+            RecordType record = records.get(subElement);
+            if (record == null || record.union != null) {
+                messager.printMessage(Diagnostic.Kind.NOTE, "No JSON codec for " + type.getSimpleName()
+                    + ": subtype " + subElement.getSimpleName() + " has none", type);
+                return;
+            }
+            String name = (String) value(subType, "name");
+            union.subtypes.put(name == null || name.isEmpty() ? subElement.getSimpleName().toString() : name,
+                record);
+        }
+        union.subtypes.forEach((typeId, record) -> {
+            record.union = union;
+            record.typeId = typeId;
+        });
+        unions.put(type, union);
+    }
+
+    private void resolveProperties(RecordType record) {
+        AnnotationMirror include = annotation(record.element, JSON_INCLUDE);
+        String inclusion = include == null ? "ALWAYS" : enumValue(include, "value");
+        boolean skipNulls = inclusion != null && !inclusion.equals("ALWAYS") && !inclusion.equals("USE_DEFAULTS");
+        if (skipNulls && !inclusion.equals("NON_NULL") && !inclusion.equals("NON_ABSENT")) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "JsonInclude." + inclusion + " is written as NON_NULL",
+                record.element);
+        }
+        for (RecordComponentElement component : record.element.getRecordComponents()) {
+            record.components.add(component);
+            if (componentAnnotation(record.element, component, JSON_IGNORE) != null) {
+                continue;
+            }
+            AnnotationMirror jsonProperty = componentAnnotation(record.element, component, JSON_PROPERTY);
+            String name = jsonProperty == null ? null : (String) value(jsonProperty, "value");
+            if (name == null || name.isEmpty()) {
+                name = component.getSimpleName().toString();
+            }
+            Property property = new Property(name, component.getSimpleName().toString(),
+                valueType(component.asType()), skipNulls);
+            record.properties.add(property);
+            if (record.union != null && name.equals(record.union.property) && property.type.kind == Kind.STRING) {
+                record.typeProperty = property;
+            }
+        }
+    }
+
+    private ValueType valueType(TypeMirror mirror) {
+        String name = mirror.toString();
+        if (name.equals("java.lang.String")) {
+            return new ValueType(Kind.STRING, mirror, null, null, null);
+        }
+        Scalar scalar = Scalar.of(name);
+        if (scalar != null) {
+            return new ValueType(Kind.SCALAR, mirror, null, scalar, null);
+        }
+        if (mirror.getKind() == TypeKind.DECLARED) {
+            DeclaredType declared = (DeclaredType) mirror;
+            TypeElement element = (TypeElement) declared.asElement();
+            if (records.containsKey(element)) {
+                return new ValueType(Kind.RECORD, mirror, element, null, null);
+            }
+            if (unions.containsKey(element)) {
+                return new ValueType(Kind.UNION, mirror, element, null, null);
+            }
+            if (enums.containsKey(element)) {
+                return new ValueType(Kind.ENUM, mirror, element, null, null);
+            }
+            if (element.getQualifiedName().contentEquals("java.util.List") && declared.getTypeArguments().size() == 1
+                && declared.getTypeArguments().get(0).getKind() == TypeKind.DECLARED) {
+                ValueType item = valueType(declared.getTypeArguments().get(0));
+                if (item.kind != Kind.DELEGATE) {
+                    return new ValueType(Kind.LIST, mirror, null, null, item);
+                }
+            }
+        }
+        return new ValueType(Kind.DELEGATE, mirror, null, null, null);
+    }
+
+    /**
+     * Annotations on a record component are propagated to its accessor or field depending on their target
+     */
+    private static AnnotationMirror componentAnnotation(TypeElement record, RecordComponentElement component,
+                                                        String type) {
+        AnnotationMirror found = annotation(component, type);
+        if (found == null && component.getAccessor() != null) {
+            found = annotation(component.getAccessor(), type);
+        }
+        if (found == null) {
+            for (Element member : record.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.FIELD && member.getSimpleName().equals(component.getSimpleName())) {
+                    found = annotation(member, type);
+                }
+            }
+        }
+        return found;
+    }
+
+    static AnnotationMirror annotation(Element element, String type) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(type)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static Object value(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+            : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String enumValue(AnnotationMirror mirror, String name) {
+        Object value = value(mirror, name);
+        return value instanceof VariableElement constant ? constant.getSimpleName().toString() : null;
+    }
+}
@@ -0,0 +1,929 @@
+package com.google.a2a.codegen;
+
+import com.google.a2a.codegen.CodecModel.EnumType;
+import com.google.a2a.codegen.CodecModel.Kind;
+import com.google.a2a.codegen.CodecModel.Property;
+import com.google.a2a.codegen.CodecModel.RecordType;
+import com.google.a2a.codegen.CodecModel.Scalar;
+import com.google.a2a.codegen.CodecModel.UnionType;
+import com.google.a2a.codegen.CodecModel.ValueType;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the codec classes and the Jackson module of a {@link CodecModel}
+ *
+ * <p>Reads go through a {@code Delegates} object of the module, which holds the Jackson deserializers
+ * of the types the codecs do not handle themselves, looked up once per ObjectMapper on first use.
+ * Writes of those types go through the SerializerProvider, as Jackson's bean serializers do for
+ * properties of a dynamic type.
+ */
+final class CodecWriter {
+
+    private static final String GENERATED = "@Generated(\"" + JsonCodecProcessor.class.getName() + "\")";
+    private static final Set<String> RESERVED = Set.of("parser", "context", "delegates", "token", "field",
+        "typeId", "value", "gen", "provider", "buffer", "fields");
+
+    private final CodecModel model;
+    private final String module;
+    private final Filer filer;
+    private final String packageName;
+    private final Set<String> packageTypes = new HashSet<>();
+    private final Map<String, TypeMirror> delegates = new TreeMap<>(); // Delegates method name -> type
+    private final Map<String, ValueType> lists = new LinkedHashMap<>(); // list helper suffix -> list type
+    private final Set<String> helpers = new TreeSet<>(); // read helpers in use
+
+    CodecWriter(CodecModel model, String module, Filer filer) {
+        this.model = model;
+        this.module = module;
+        this.filer = filer;
+        this.packageName = model.packageElement.getQualifiedName().toString();
+        for (Element element : model.packageElement.getEnclosedElements()) {
+            packageTypes.add(element.getSimpleName().toString());
+        }
+    }
+
+    void write() throws IOException {
+        for (RecordType record : model.records.values()) {
+            writeRecord(record);
+        }
+        for (UnionType union : model.unions.values()) {
+            writeUnion(union);
+        }
+        for (EnumType enumType : model.enums.values()) {
+            writeEnum(enumType);
+        }
+        writeModule();
+    }
+
+    private void writeRecord(RecordType record) throws IOException {
+        String name = record.element.getSimpleName().toString();
+        String codec = codec(record.element);
+        Source s = new Source(record.element.getQualifiedName() + "JsonCodec");
+        s.use("java.io.IOException", "javax.annotation.processing.Generated",
+            "com.fasterxml.jackson.core.JsonGenerator", "com.fasterxml.jackson.core.JsonParser",
+            "com.fasterxml.jackson.core.JsonToken", "com.fasterxml.jackson.core.io.SerializedString",
+            "com.fasterxml.jackson.core.type.WritableTypeId", "com.fasterxml.jackson.databind.DeserializationContext",
+            "com.fasterxml.jackson.databind.SerializerProvider",
+            "com.fasterxml.jackson.databind.deser.std.StdDeserializer",
+            "com.fasterxml.jackson.databind.jsontype.TypeSerializer",
+            "com.fasterxml.jackson.databind.ser.std.StdSerializer");
+        Map<Property, String> constants = constants(record.properties);
+        String typeIdConstant = null;
+        if (record.union != null) {
+            typeIdConstant = record.typeProperty != null ? constants.get(record.typeProperty)
+                : constant(record.union.property, constants.values());
+        }
+
+        s.doc("Streaming JSON codec of {@link " + name + "}");
+        s.line(GENERATED);
+        s.open("final class " + codec);
+        for (Property property : record.properties) {
+            s.line("private static final SerializedString " + constants.get(property)
+                + " = new SerializedString(\"" + escape(property.name) + "\");");
+        }
+        if (record.union != null && record.typeProperty == null) {
+            s.line("private static final SerializedString " + typeIdConstant
+                + " = new SerializedString(\"" + escape(record.union.property) + "\");");
+        }
+        s.line("");
+        s.open("private " + codec + "()");
+        s.close();
+
+        s.line("");
+        s.open("static void write(" + name + " value, JsonGenerator gen, SerializerProvider provider) throws IOException");
+        s.line("gen.writeStartObject(value);");
+        if (record.union != null) {
+            s.line("gen.writeFieldName(" + typeIdConstant + ");");
+            s.line("gen.writeString(\"" + escape(record.typeId) + "\");");
+        }
+        s.line("writeFields(value, gen, provider);");
+        s.line("gen.writeEndObject();");
+        s.close();
+
+        s.line("");
+        if (record.union != null) {
+            s.doc("Write the properties; the type id property is written by the caller");
+        }
+        s.open("static void writeFields(" + name + " value, JsonGenerator gen, SerializerProvider provider)"
+            + " throws IOException");
+        for (Property property : record.properties) {
+            if (property == record.typeProperty) {
+                continue;
+            }
+            String local = local(property.accessor);
+            s.line(s.type(property.type.mirror) + " " + local + " = value." + property.accessor + "();");
+            String fieldName = "gen.writeFieldName(" + constants.get(property) + ");";
+            if (!property.type.nullable()) {
+                s.line(fieldName);
+                s.line(writeValue(property.type, local, s) + ";");
+            } else if (property.skipNulls) {
+                s.open("if (" + local + " != null)");
+                s.line(fieldName);
+                s.line(writeValue(property.type, local, s) + ";");
+                s.close();
+            } else if (property.type.kind == Kind.STRING) {
+                s.line(fieldName);
+                s.line("gen.writeString(" + local + ");");
+            } else {
+                s.line(fieldName);
+                s.open("if (" + local + " == null)");
+                s.line("gen.writeNull();");
+                s.otherwise();
+                s.line(writeValue(property.type, local, s) + ";");
+                s.close();
+            }
+        }
+        s.close();
+
+        String delegatesType = module + ".Delegates";
+        String readParameters = "JsonParser parser, DeserializationContext context, " + delegatesType + " delegates";
+        boolean unchecked = record.properties.stream().anyMatch(property -> property.type.kind == Kind.DELEGATE
+            && property.type.mirror.getKind() == TypeKind.DECLARED
+            && !((DeclaredType) property.type.mirror).getTypeArguments().isEmpty());
+        s.line("");
+        if (record.union != null) {
+            s.open("static " + name + " read(" + readParameters + ") throws IOException");
+            s.line("return read(parser, context, delegates, null);");
+            s.close();
+            s.line("");
+            s.doc("Read the properties after the type id, which the " + record.union.element.getSimpleName()
+                + " codec has already read");
+            readParameters += ", String typeId";
+        }
+        if (unchecked) {
+            s.line("@SuppressWarnings(\"unchecked\")");
+        }
+        s.open("static " + name + " read(" + readParameters + ") throws IOException");
+        s.line("JsonToken token = parser.currentToken();");
+        s.open("if (token == JsonToken.START_OBJECT)");
+        s.line("token = parser.nextToken();");
+        s.otherwise("if (token == JsonToken.VALUE_NULL)");
+        s.line("return null;");
+        s.otherwise("if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT)");
+        s.line("return (" + name + ") context.handleUnexpectedToken(" + name + ".class, parser);");
+        s.close();
+        for (RecordComponentElement component : record.components) {
+            String componentName = component.getSimpleName().toString();
+            boolean typeProperty = record.typeProperty != null && record.typeProperty.accessor.equals(componentName);
+            s.line(s.type(component.asType()) + " " + local(componentName) + " = "
+                + (typeProperty ? "typeId" : defaultValue(component.asType())) + ";");
+        }
+        s.open("for (; token == JsonToken.FIELD_NAME; token = parser.nextToken())");
+        s.line("String field = parser.currentName();");
+        s.line("parser.nextToken();");
+        s.open("switch (field)");
+        for (Property property : record.properties) {
+            s.line("case \"" + escape(property.name) + "\" -> " + local(property.accessor) + " = "
+                + readValue(property.type, s) + ";");
+        }
+        s.line("default -> context.handleUnknownProperty(parser, null, " + name + ".class, field);");
+        s.close();
+        s.close();
+        s.line("return new " + name + "(" + record.components.stream()
+            .map(component -> local(component.getSimpleName().toString()))
+            .collect(Collectors.joining(", ")) + ");");
+        s.close();
+
+        s.line("");
+        s.open("static final class Serializer extends StdSerializer<" + name + ">");
+        s.line("");
+        s.open("Serializer()");
+        s.line("super(" + name + ".class);");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public void serialize(" + name + " value, JsonGenerator gen, SerializerProvider provider)"
+            + " throws IOException");
+        s.line("write(value, gen, provider);");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public void serializeWithType(" + name + " value, JsonGenerator gen, SerializerProvider provider,"
+            + " TypeSerializer typeSer) throws IOException");
+        s.line("WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, JsonToken.START_OBJECT));");
+        s.line("writeFields(value, gen, provider);");
+        s.line("typeSer.writeTypeSuffix(gen, typeId);");
+        s.close();
+        s.close();
+
+        s.line("");
+        s.open("static final class Deserializer extends StdDeserializer<" + name + ">");
+        s.line("");
+        s.line("private final " + delegatesType + " delegates;");
+        s.line("");
+        s.open("Deserializer(" + delegatesType + " delegates)");
+        s.line("super(" + name + ".class);");
+        s.line("this.delegates = delegates;");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public " + name + " deserialize(JsonParser parser, DeserializationContext context) throws IOException");
+        s.line("return read(parser, context, delegates);");
+        s.close();
+        if (record.union != null) {
+            String union = record.union.element.getSimpleName().toString();
+            s.use("com.fasterxml.jackson.databind.jsontype.TypeDeserializer");
+            s.line("");
+            s.doc("The " + union + " codec reads the type id, and the value must be a " + name);
+            s.line("@Override");
+            s.open("public Object deserializeWithType(JsonParser parser, DeserializationContext context,"
+                + " TypeDeserializer typeDeserializer) throws IOException");
+            s.line(union + " value = " + codec(record.union.element) + ".read(parser, context, delegates);");
+            s.open("if (value == null || value instanceof " + name + ")");
+            s.line("return value;");
+            s.close();
+            s.line("return context.reportInputMismatch(this, \"Type id of %s is not the one of " + name
+                + "\", value.getClass().getSimpleName());");
+            s.close();
+        }
+        s.line("");
+        s.line("@Override");
+        s.open("public boolean isCachable()");
+        s.line("return true;");
+        s.close();
+        s.close();
+        s.close();
+        s.writeTo(filer, record.element);
+    }
+
+    private void writeUnion(UnionType union) throws IOException {
+        String name = union.element.getSimpleName().toString();
+        String codec = codec(union.element);
+        Source s = new Source(union.element.getQualifiedName() + "JsonCodec");
+        s.use("java.io.IOException", "javax.annotation.processing.Generated",
+            "com.fasterxml.jackson.core.JsonGenerator", "com.fasterxml.jackson.core.JsonParser",
+            "com.fasterxml.jackson.core.JsonToken", "com.fasterxml.jackson.core.util.JsonParserSequence",
+            "com.fasterxml.jackson.databind.DeserializationContext",
+            "com.fasterxml.jackson.databind.DeserializationFeature",
+            "com.fasterxml.jackson.databind.SerializerProvider",
+            "com.fasterxml.jackson.databind.deser.std.StdDeserializer",
+            "com.fasterxml.jackson.databind.jsontype.TypeDeserializer",
+            "com.fasterxml.jackson.databind.jsontype.TypeSerializer",
+            "com.fasterxml.jackson.databind.ser.std.StdSerializer",
+            "com.fasterxml.jackson.databind.util.TokenBuffer");
+        String property = escape(union.property);
+        String delegatesType = module + ".Delegates";
+
+        s.doc("Streaming JSON codec of {@link " + name + "}, whose subtypes are named in its \"" + property
+            + "\" property");
+        s.line(GENERATED);
+        s.open("final class " + codec);
+        s.line("private static final String MISSING_TYPE_ID = \"missing type id property '" + property + "'\";");
+        s.line("private static final String KNOWN_TYPE_IDS = \"known type ids = "
+            + escape(new TreeSet<>(union.subtypes.keySet()).toString()) + "\";");
+        s.line("");
+        s.open("private " + codec + "()");
+        s.close();
+
+        s.line("");
+        s.open("static void write(" + name + " value, JsonGenerator gen, SerializerProvider provider) throws IOException");
+        boolean first = true;
+        for (RecordType subtype : union.subtypes.values()) {
+            String subtypeName = subtype.element.getSimpleName().toString();
+            String local = local(Character.toLowerCase(subtypeName.charAt(0)) + subtypeName.substring(1));
+            String test = "if (value instanceof " + subtypeName + " " + local + ")";
+            if (first) {
+                s.open(test);
+                first = false;
+            } else {
+                s.otherwise(test);
+            }
+            s.line(codec(subtype.element) + ".write(" + local + ", gen, provider);");
+        }
+        s.otherwise();
+        s.line("provider.defaultSerializeValue(value, gen);");
+        s.close();
+        s.close();
+
+        s.line("");
+        s.open("static " + name + " read(JsonParser parser, DeserializationContext context, " + delegatesType
+            + " delegates) throws IOException");
+        s.line("JsonToken token = parser.currentToken();");
+        s.open("if (token == JsonToken.START_OBJECT)");
+        s.line("token = parser.nextToken();");
+        s.otherwise("if (token == JsonToken.VALUE_NULL)");
+        s.line("return null;");
+        s.close();
+        s.line("TokenBuffer buffer = null;");
+        s.open("for (; token == JsonToken.FIELD_NAME; token = parser.nextToken())");
+        s.line("String field = parser.currentName();");
+        s.line("parser.nextToken();");
+        s.open("if (field.equals(\"" + property + "\") && parser.currentToken().isScalarValue())");
+        s.line("String typeId = parser.getText();");
+        s.line("JsonParser fields = parser;");
+        s.open("if (buffer != null)");
+        s.line("// Replay the properties before the type id, then go on with the ones after it");
+        s.line("parser.clearCurrentToken();");
+        s.line("fields = JsonParserSequence.createFlattened(false, buffer.asParser(parser), parser);");
+        s.close();
+        s.line("fields.nextToken();");
+        s.line("return read(typeId, fields, context, delegates);");
+        s.close();
+        s.open("if (buffer == null)");
+        s.line("buffer = context.bufferForInputBuffering(parser);");
+        s.close();
+        s.line("buffer.writeFieldName(field);");
+        s.line("buffer.copyCurrentStructure(parser);");
+        s.close();
+        s.line("throw context.missingTypeIdException(context.constructType(" + name + ".class), MISSING_TYPE_ID);");
+        s.close();
+
+        s.line("");
+        s.open("private static " + name + " read(String typeId, JsonParser parser, DeserializationContext context, "
+            + delegatesType + " delegates) throws IOException");
+        s.open("switch (typeId)");
+        for (Map.Entry<String, RecordType> entry : union.subtypes.entrySet()) {
+            s.open("case \"" + escape(entry.getKey()) + "\":");
+            s.line("return " + codec(entry.getValue().element) + ".read(parser, context, delegates, typeId);");
+            s.dedent();
+        }
+        s.open("default:");
+        s.open("if (context.isEnabled(DeserializationFeature.FAIL_ON_INVALID_SUBTYPE))");
+        s.line("throw context.invalidTypeIdException(context.constructType(" + name + ".class), typeId,"
+            + " KNOWN_TYPE_IDS);");
+        s.close();
+        s.open("for (JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME;"
+            + " token = parser.nextToken())");
+        s.line("parser.nextToken();");
+        s.line("parser.skipChildren();");
+        s.close();
+        s.line("return null;");
+        s.dedent();
+        s.close();
+        s.close();
+
+        s.line("");
+        s.open("static final class Serializer extends StdSerializer<" + name + ">");
+        s.line("");
+        s.open("Serializer()");
+        s.line("super(" + name + ".class);");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public void serialize(" + name + " value, JsonGenerator gen, SerializerProvider provider)"
+            + " throws IOException");
+        s.line("write(value, gen, provider);");
+        s.close();
+        s.line("");
+        s.doc("The codec writes the type id itself");
+        s.line("@Override");
+        s.open("public void serializeWithType(" + name + " value, JsonGenerator gen, SerializerProvider provider,"
+            + " TypeSerializer typeSer) throws IOException");
+        s.line("write(value, gen, provider);");
+        s.close();
+        s.close();
+
+        s.line("");
+        s.open("static final class Deserializer extends StdDeserializer<" + name + ">");
+        s.line("");
+        s.line("private final " + delegatesType + " delegates;");
+        s.line("");
+        s.open("Deserializer(" + delegatesType + " delegates)");
+        s.line("super(" + name + ".class);");
+        s.line("this.delegates = delegates;");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public " + name + " deserialize(JsonParser parser, DeserializationContext context) throws IOException");
+        s.line("return read(parser, context, delegates);");
+        s.close();
+        s.line("");
+        s.doc("The codec reads the type id itself");
+        s.line("@Override");
+        s.open("public Object deserializeWithType(JsonParser parser, DeserializationContext context,"
+            + " TypeDeserializer typeDeserializer) throws IOException");
+        s.line("return read(parser, context, delegates);");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public boolean isCachable()");
+        s.line("return true;");
+        s.close();
+        s.close();
+        s.close();
+        s.writeTo(filer, union.element);
+    }
+
+    private void writeEnum(EnumType enumType) throws IOException {
+        String name = enumType.element.getSimpleName().toString();
+        String codec = codec(enumType.element);
+        Source s = new Source(enumType.element.getQualifiedName() + "JsonCodec");
+        s.use("java.io.IOException", "java.util.HashMap", "java.util.Map", "javax.annotation.processing.Generated",
+            "com.fasterxml.jackson.core.JsonParser", "com.fasterxml.jackson.core.JsonToken",
+            "com.fasterxml.jackson.databind.DeserializationContext");
+        String delegate = delegate(enumType.element.asType());
+
+        s.doc("JSON codec of {@link " + name + "}, read from and written as its {@code " + enumType.valueMethod
+            + "()}");
+        s.line(GENERATED);
+        s.open("final class " + codec);
+        s.line("private static final Map<String, " + name + "> VALUES = values();");
+        s.line("");
+        s.open("private " + codec + "()");
+        s.close();
+        s.line("");
+        s.doc("Read a value, leaving values it does not know to Jackson");
+        s.open("static " + name + " read(JsonParser parser, DeserializationContext context, " + module
+            + ".Delegates delegates) throws IOException");
+        s.line("JsonToken token = parser.currentToken();");
+        s.open("if (token == JsonToken.VALUE_STRING)");
+        s.line(name + " value = VALUES.get(parser.getText());");
+        s.open("if (value != null)");
+        s.line("return value;");
+        s.close();
+        s.otherwise("if (token == JsonToken.VALUE_NULL)");
+        s.line("return null;");
+        s.close();
+        s.line("return (" + name + ") delegates." + delegate + "(context).deserialize(parser, context);");
+        s.close();
+        s.line("");
+        s.open("private static Map<String, " + name + "> values()");
+        s.line("Map<String, " + name + "> values = new HashMap<>();");
+        s.open("for (" + name + " value : " + name + ".values())");
+        s.line("values.put(value." + enumType.valueMethod + "(), value);");
+        s.close();
+        s.line("return values;");
+        s.close();
+        s.close();
+        s.writeTo(filer, enumType.element);
+    }
+
+    private void writeModule() throws IOException {
+        Source s = new Source(packageName + "." + module);
+        s.use("java.io.IOException", "java.util.ArrayList", "java.util.List", "javax.annotation.processing.Generated",
+            "com.fasterxml.jackson.core.JsonGenerator", "com.fasterxml.jackson.core.JsonParser",
+            "com.fasterxml.jackson.core.JsonToken", "com.fasterxml.jackson.core.Version",
+            "com.fasterxml.jackson.databind.DeserializationContext",
+            "com.fasterxml.jackson.databind.JsonDeserializer", "com.fasterxml.jackson.databind.JsonMappingException",
+            "com.fasterxml.jackson.databind.Module", "com.fasterxml.jackson.databind.SerializerProvider",
+            "com.fasterxml.jackson.databind.module.SimpleDeserializers",
+            "com.fasterxml.jackson.databind.module.SimpleSerializers");
+
+        s.doc("Jackson module with the generated JSON codecs of the records in {@code " + packageName + "}",
+            "",
+            "<p>Register a new instance on each ObjectMapper: the deserializers the codecs leave to Jackson are",
+            "looked up once per registration and kept for that mapper.");
+        s.line(GENERATED);
+        s.open("public final class " + module + " extends Module");
+        s.line("");
+        s.line("@Override");
+        s.open("public String getModuleName()");
+        s.line("return \"" + module + "\";");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public Version version()");
+        s.line("return Version.unknownVersion();");
+        s.close();
+        s.line("");
+        s.line("@Override");
+        s.open("public void setupModule(SetupContext context)");
+        s.line("Delegates delegates = new Delegates();");
+        s.line("SimpleSerializers serializers = new SimpleSerializers();");
+        s.line("SimpleDeserializers deserializers = new SimpleDeserializers();");
+        List<TypeElement> types = new ArrayList<>(model.records.keySet());
+        types.addAll(model.unions.keySet());
+        for (TypeElement type : types) {
+            String name = type.getSimpleName().toString();
+            s.line("serializers.addSerializer(" + name + ".class, new " + codec(type) + ".Serializer());");
+            s.line("deserializers.addDeserializer(" + name + ".class, new " + codec(type)
+                + ".Deserializer(delegates));");
+        }
+        s.line("context.addSerializers(serializers);");
+        s.line("context.addDeserializers(deserializers);");
+        s.close();
+
+        // List helpers may need helpers of nested lists, so the queue grows while it is drained
+        Deque<String> pending = new ArrayDeque<>(lists.keySet());
+        Set<String> written = new HashSet<>();
+        while (!pending.isEmpty()) {
+            String suffix = pending.poll();
+            if (!written.add(suffix)) {
+                continue;
+            }
+            int before = lists.size();
+            writeListHelpers(s, suffix, lists.get(suffix));
+            lists.keySet().stream().skip(before).forEach(pending::add);
+        }
+
+        for (Scalar scalar : Scalar.values()) {
+            if (helpers.contains("read" + scalar.suffix)) {
+                writeScalarHelper(s, scalar, false);
+            }
+            if (helpers.contains("readNullable" + scalar.suffix)) {
+                writeScalarHelper(s, scalar, true);
+            }
+        }
+        if (helpers.contains("readString")) {
+            s.line("");
+            s.open("static String readString(JsonParser parser, DeserializationContext context) throws IOException");
+            s.line("JsonToken token = parser.currentToken();");
+            s.open("if (token == JsonToken.VALUE_STRING)");
+            s.line("return parser.getText();");
+            s.close();
+            s.line("return token == JsonToken.VALUE_NULL ? null : context.readValue(parser, String.class);");
+            s.close();
+        }
+        if (!delegates.isEmpty()) {
+            s.line("");
+            s.doc("Read a value with a Jackson deserializer, which gives the value of a JSON null");
+            s.open("static Object read(JsonDeserializer<Object> deserializer, JsonParser parser,"
+                + " DeserializationContext context) throws IOException");
+            s.line("return parser.currentToken() == JsonToken.VALUE_NULL ? deserializer.getNullValue(context)");
+            s.line("    : deserializer.deserialize(parser, context);");
+            s.close();
+        }
+
+        s.line("");
+        s.doc("Jackson deserializers of the types the codecs do not read themselves, looked up on first use");
+        s.open("static final class Delegates");
+        for (String delegate : delegates.keySet()) {
+            s.line("");
+            s.line("private volatile JsonDeserializer<Object> " + delegate + ";");
+        }
+        for (Map.Entry<String, TypeMirror> entry : delegates.entrySet()) {
+            String delegate = entry.getKey();
+            s.line("");
+            s.open("JsonDeserializer<Object> " + delegate + "(DeserializationContext context)"
+                + " throws JsonMappingException");
+            s.line("JsonDeserializer<Object> deserializer = " + delegate + ";");
+            s.open("if (deserializer == null)");
+            s.line("deserializer = context.findRootValueDeserializer(" + javaType(entry.getValue(), s) + ");");
+            s.line(delegate + " = deserializer;");
+            s.close();
+            s.line("return deserializer;");
+            s.close();
+        }
+        s.close();
+        s.close();
+        s.writeTo(filer, model.packageElement);
+    }
+
+    private void writeListHelpers(Source s, String suffix, ValueType list) {
+        ValueType item = list.item;
+        String listType = s.type(list.mirror);
+        String itemType = s.type(item.mirror);
+        s.line("");
+        s.open("static void write" + suffix + "(" + listType + " list, JsonGenerator gen, SerializerProvider provider)"
+            + " throws IOException");
+        s.line("gen.writeStartArray(list, list.size());");
+        s.open("for (" + itemType + " item : list)");
+        if (item.kind == Kind.STRING) {
+            s.line("gen.writeString(item);");
+        } else {
+            s.open("if (item == null)");
+            s.line("gen.writeNull();");
+            s.otherwise();
+            s.line(writeValue(item, "item", s) + ";");
+            s.close();
+        }
+        s.close();
+        s.line("gen.writeEndArray();");
+        s.close();
+
+        String fallback = delegate(list.mirror);
+        s.line("");
+        s.line("@SuppressWarnings(\"unchecked\")");
+        s.open("static " + listType + " read" + suffix + "(JsonParser parser, DeserializationContext context,"
+            + " Delegates delegates) throws IOException");
+        s.line("JsonToken token = parser.currentToken();");
+        s.open("if (token == JsonToken.VALUE_NULL)");
+        s.line("return null;");
+        s.otherwise("if (token != JsonToken.START_ARRAY)");
+        s.line("return (" + listType + ") delegates." + fallback + "(context).deserialize(parser, context);");
+        s.close();
+        s.line(listType + " list = new ArrayList<>();");
+        s.open("while (parser.nextToken() != JsonToken.END_ARRAY)");
+        s.line("list.add(" + readValue(item, s).replace(module + ".", "") + ");");
+        s.close();
+        s.line("return list;");
+        s.close();
+    }
+
+    private static void writeScalarHelper(Source s, Scalar scalar, boolean nullable) {
+        String type = nullable ? scalar.boxed : scalar.name().toLowerCase(Locale.ROOT);
+        String fast = scalar.tokens.stream().map(token -> "token == " + token).collect(Collectors.joining(" || "));
+        s.line("");
+        s.open("static " + type + " read" + (nullable ? "Nullable" : "") + scalar.suffix
+            + "(JsonParser parser, DeserializationContext context) throws IOException");
+        s.line("JsonToken token = parser.currentToken();");
+        s.open("if (" + fast + ")");
+        s.line("return " + scalar.read + ";");
+        s.close();
+        if (nullable) {
+            s.line("return token == JsonToken.VALUE_NULL ? null : context.readValue(parser, " + type + ".class);");
+        } else {
+            s.line("return context.readValue(parser, " + type + ".class);");
+        }
+        s.close();
+    }
+
+    /**
+     * The statement writing a non-null value
+     */
+    private String writeValue(ValueType type, String value, Source s) {
+        return switch (type.kind) {
+            case STRING -> "gen.writeString(" + value + ")";
+            case SCALAR -> (type.scalar == Scalar.BOOLEAN ? "gen.writeBoolean(" : "gen.writeNumber(") + value + ")";
+            case ENUM -> "gen.writeString(" + value + "." + model.enums.get(type.element).valueMethod + "())";
+            case RECORD, UNION -> codec(type.element) + ".write(" + value + ", gen, provider)";
+            case LIST -> module + ".write" + list(type) + "(" + value + ", gen, provider)";
+            case DELEGATE -> "provider.defaultSerializeValue(" + value + ", gen)";
+        };
+    }
+
+    /**
+     * The expression reading a value, the parser being on its first token
+     */
+    private String readValue(ValueType type, Source s) {
+        switch (type.kind) {
+            case STRING -> {
+                helpers.add("readString");
+                return module + ".readString(parser, context)";
+            }
+            case SCALAR -> {
+                String helper = "read" + (type.primitive ? "" : "Nullable") + type.scalar.suffix;
+                helpers.add(helper);
+                return module + "." + helper + "(parser, context)";
+            }
+            case ENUM, RECORD, UNION -> {
+                return codec(type.element) + ".read(parser, context, delegates)";
+            }
+            case LIST -> {
+                return module + ".read" + list(type) + "(parser, context, delegates)";
+            }
+            default -> {
+                String read = module + ".read(delegates." + delegate(type.mirror) + "(context), parser, context)";
+                String javaType = s.type(type.mirror);
+                return javaType.equals("Object") ? read : "(" + javaType + ") " + read;
+            }
+        }
+    }
+
+    private String list(ValueType type) {
+        String suffix = capitalize(name(type.mirror));
+        lists.putIfAbsent(suffix, type);
+        return suffix;
+    }
+
+    private String delegate(TypeMirror type) {
+        String name = name(type);
+        if (SourceVersion.isKeyword(name)) {
+            name += "Type";
+        }
+        delegates.putIfAbsent(name, type);
+        return name;
+    }
+
+    /**
+     * A name for a type, such as mapOfStringAndObject for {@code Map<String, Object>}
+     */
+    private static String name(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            DeclaredType declared = (DeclaredType) type;
+            String name = declared.asElement().getSimpleName().toString();
+            name = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+            if (!declared.getTypeArguments().isEmpty()) {
+                name += "Of" + declared.getTypeArguments().stream().map(argument -> capitalize(name(argument)))
+                    .collect(Collectors.joining("And"));
+            }
+            return name;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return name(((ArrayType) type).getComponentType()) + "Array";
+        }
+        if (type.getKind() == TypeKind.WILDCARD) {
+            TypeMirror bound = ((WildcardType) type).getExtendsBound();
+            return bound == null ? "any" : name(bound);
+        }
+        return type.toString().replaceAll("[^A-Za-z0-9]", "");
+    }
+
+    /**
+     * The expression building the Jackson JavaType of a type
+     */
+    private static String javaType(TypeMirror type, Source s) {
+        switch (type.getKind()) {
+            case DECLARED -> {
+                DeclaredType declared = (DeclaredType) type;
+                String raw = s.use(((TypeElement) declared.asElement()).getQualifiedName().toString()) + ".class";
+                if (declared.getTypeArguments().isEmpty()) {
+                    return "context.constructType(" + raw + ")";
+                }
+                return "context.getTypeFactory().constructParametricType(" + raw + ", "
+                    + declared.getTypeArguments().stream().map(argument -> javaType(argument, s))
+                    .collect(Collectors.joining(", ")) + ")";
+            }
+            case ARRAY -> {
+                return "context.getTypeFactory().constructArrayType("
+                    + javaType(((ArrayType) type).getComponentType(), s) + ")";
+            }
+            case WILDCARD -> {
+                TypeMirror bound = ((WildcardType) type).getExtendsBound();
+                return bound == null ? "context.constructType(Object.class)" : javaType(bound, s);
+            }
+            default -> {
+                return "context.constructType(" + type + ".class)";
+            }
+        }
+    }
+
+    private static Map<Property, String> constants(List<Property> properties) {
+        Map<Property, String> constants = new LinkedHashMap<>();
+        for (Property property : properties) {
+            constants.put(property, constant(property.name, constants.values()));
+        }
+        return constants;
+    }
+
+    /**
+     * An upper case constant name for a property name, such as CONTEXT_ID for contextId
+     */
+    private static String constant(String name, java.util.Collection<String> taken) {
+        String constant = name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").replaceAll("[^A-Za-z0-9_]", "_")
+            .toUpperCase(Locale.ROOT);
+        if (constant.isEmpty() || !Character.isJavaIdentifierStart(constant.charAt(0))) {
+            constant = "_" + constant;
+        }
+        String unique = constant;
+        for (int i = 2; taken.contains(unique); i++) {
+            unique = constant + "_" + i;
+        }
+        return unique;
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "false";
+            case LONG -> "0L";
+            case FLOAT -> "0f";
+            case DOUBLE -> "0d";
+            case INT, SHORT, BYTE -> "0";
+            case CHAR -> "'\\0'";
+            default -> "null";
+        };
+    }
+
+    private static String local(String name) {
+        return RESERVED.contains(name) ? name + "Value" : name;
+    }
+
+    private String codec(TypeElement type) {
+        return type.getSimpleName() + "JsonCodec";
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * A Java source file being built, with its imports
+     */
+    private final class Source {
+
+        private final String qualifiedName;
+        private final Map<String, String> imports = new TreeMap<>(); // simple name -> qualified name
+        private final StringBuilder body = new StringBuilder();
+        private int indent;
+
+        Source(String qualifiedName) {
+            this.qualifiedName = qualifiedName;
+        }
+
+        /**
+         * Import types and return the name to refer to the last one with
+         */
+        String use(String... types) {
+            String name = null;
+            for (String type : types) {
+                int dot = type.lastIndexOf('.');
+                String simple = type.substring(dot + 1);
+                String typePackage = dot < 0 ? "" : type.substring(0, dot);
+                if (typePackage.equals(packageName)) {
+                    name = simple;
+                } else if (typePackage.equals("java.lang") && !packageTypes.contains(simple)) {
+                    name = simple;
+                } else if (packageTypes.contains(simple) || !imports.getOrDefault(simple, type).equals(type)) {
+                    name = type;
+                } else {
+                    imports.put(simple, type);
+                    name = simple;
+                }
+            }
+            return name;
+        }
+
+        /**
+         * The source form of a type
+         */
+        String type(TypeMirror type) {
+            switch (type.getKind()) {
+                case DECLARED -> {
+                    DeclaredType declared = (DeclaredType) type;
+                    String name = use(((TypeElement) declared.asElement()).getQualifiedName().toString());
+                    if (declared.getTypeArguments().isEmpty()) {
+                        return name;
+                    }
+                    return name + "<" + declared.getTypeArguments().stream().map(this::type)
+                        .collect(Collectors.joining(", ")) + ">";
+                }
+                case ARRAY -> {
+                    return type(((ArrayType) type).getComponentType()) + "[]";
+                }
+                case WILDCARD -> {
+                    WildcardType wildcard = (WildcardType) type;
+                    if (wildcard.getExtendsBound() != null) {
+                        return "? extends " + type(wildcard.getExtendsBound());
+                    }
+                    return wildcard.getSuperBound() == null ? "?" : "? super " + type(wildcard.getSuperBound());
+                }
+                default -> {
+                    return type.toString();
+                }
+            }
+        }
+
+        void line(String text) {
+            if (!text.isEmpty()) {
+                body.append("    ".repeat(indent)).append(text);
+            }
+            body.append('\n');
+        }
+
+        void doc(String... lines) {
+            line("/**");
+            for (String text : lines) {
+                line(text.isEmpty() ? " *" : " * " + text);
+            }
+            line(" */");
+        }
+
+        void open(String text) {
+            line(text.endsWith(":") ? text : text + " {");
+            indent++;
+        }
+
+        void otherwise() {
+            indent--;
+            line("} else {");
+            indent++;
+        }
+
+        void otherwise(String condition) {
+            indent--;
+            line("} else " + condition + " {");
+            indent++;
+        }
+
+        void dedent() {
+            indent--;
+        }
+
+        void close() {
+            indent--;
+            line("}");
+        }
+
+        void writeTo(Filer filer, Element originatingElement) throws IOException {
+            if (indent != 0) {
+                throw new IllegalStateException("Unbalanced blocks in " + qualifiedName);
+            }
+            StringBuilder source = new StringBuilder("package ").append(packageName).append(";\n\n");
+            for (String type : imports.values().stream().sorted().toList()) {
+                source.append("import ").append(type).append(";\n");
+            }
+            source.append('\n').append(body);
+            try (Writer writer = filer.createSourceFile(qualifiedName, originatingElement).openWriter()) {
+                writer.write(source.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.google.a2a.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Annotation processor writing the JSON codecs of packages annotated with {@link JsonCodecs}
+ *
+ * <p>For each record of the package it writes a {@code <Record>JsonCodec} class whose static
+ * methods write the record with {@code JsonGenerator} calls and read it with {@code JsonParser}
+ * calls, field by field, with the codecs of nested records called directly. The Jackson serializer
+ * and deserializer nested in it make the codec usable from any ObjectMapper through the generated
+ * module. Nothing is looked up by reflection when a record is read or written, and Jackson no longer
+ * introspects the records to build bean serializers and deserializers on first use.
+ */
+@SupportedAnnotationTypes("com.google.a2a.codegen.JsonCodecs")
+public final class JsonCodecProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(JsonCodecs.class)) {
+            String module = element.getAnnotation(JsonCodecs.class).module();
+            try {
+                CodecModel model = CodecModel.of((PackageElement) element, processingEnv.getMessager());
+                new CodecWriter(model, module, processingEnv.getFiler()).write();
+            } catch (IOException | IllegalStateException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write JSON codecs: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.google.a2a.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates streaming JSON codecs for the records of the annotated package
+ *
+ * <p>Put it on a {@code package-info.java}. {@link JsonCodecProcessor} then writes, for every record
+ * of the package, a codec that writes it with {@code JsonGenerator} and reads it with
+ * {@code JsonParser} calls, and a Jackson module named {@link #module()} that registers them.
+ * Sealed interfaces whose {@code @JsonTypeInfo} uses type names in a property get a codec that
+ * dispatches on that property.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PACKAGE)
+public @interface JsonCodecs {
+
+    /**
+     * Simple name of the generated Jackson module, in the annotated package
+     */
+    String module();
+}
@@ -0,0 +1,225 @@
+package com.google.a2a.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.IOException;
+
+/**
+ * A2ACodec reads and writes the protocol records with readers and writers resolved once
+ *
+ * <p>Generic {@code ObjectMapper.readValue}/{@code writeValueAsString} calls look up the root
+ * serializer or deserializer of the type on every call. The codec resolves them when it is created,
+ * for {@link JSONRPCRequest}, {@link JSONRPCResponse}, {@link SendTaskStreamingResponse},
+ * {@link Task} and {@link AgentCard}, and reuses them. A codec is immutable and thread-safe; create
+ * one per ObjectMapper and share it.
+ *
+ * <p>With {@link Accessors#BLACKBIRD} the codec works on a copy of the mapper with Jackson's
+ * Blackbird module, which replaces reflective getter and constructor calls with generated lambdas.
+ * Blackbird is an optional dependency of this module: applications that want it add
+ * {@code jackson-module-blackbird} themselves.
+ *
+ * <p>With {@link Accessors#GENERATED} the copy of the mapper gets {@link A2AJsonModule} instead, whose
+ * serializers and deserializers are written at compile time and read and write each record with
+ * streaming parser and generator calls, without introspecting it first.
+ */
+public final class A2ACodec {
+
+    private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+    /**
+     * How bean properties and creators are accessed
+     */
+    public enum Accessors {
+        /** Jackson's default reflective access */
+        REFLECTION,
+        /** Generated lambdas from the Blackbird module */
+        BLACKBIRD,
+        /** Streaming codecs generated at compile time, from {@link A2AJsonModule} */
+        GENERATED
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Accessors accessors;
+    private final ObjectReader idReader;
+    private final ObjectReader requestReader;
+    private final ObjectWriter requestWriter;
+    private final ObjectReader responseReader;
+    private final ObjectWriter responseWriter;
+    private final ObjectReader streamingResponseReader;
+    private final ObjectWriter streamingResponseWriter;
+    private final ObjectReader taskReader;
+    private final ObjectWriter taskWriter;
+    private final ObjectReader errorReader;
+    private final ObjectReader agentCardReader;
+    private final ObjectWriter agentCardWriter;
+
+    /**
+     * A codec on a default ObjectMapper with reflective access
+     */
+    public A2ACodec() {
+        this(new ObjectMapper(), Accessors.REFLECTION);
+    }
+
+    /**
+     * A codec on the given mapper, keeping its configuration and modules
+     *
+     * @param accessors {@link Accessors#BLACKBIRD} to register Blackbird on a copy of the mapper,
+     *                  {@link Accessors#GENERATED} to register {@link A2AJsonModule} on it
+     * @throws IllegalStateException if Blackbird is requested but not on the classpath
+     */
+    public A2ACodec(ObjectMapper objectMapper, Accessors accessors) {
+        this.accessors = accessors;
+        this.objectMapper = switch (accessors) {
+            case REFLECTION -> objectMapper;
+            case BLACKBIRD -> withBlackbird(objectMapper);
+            case GENERATED -> objectMapper.copy().registerModule(new A2AJsonModule());
+        };
+        this.idReader = this.objectMapper.readerFor(Object.class);
+        this.requestReader = this.objectMapper.readerFor(JSONRPCRequest.class);
+        this.requestWriter = this.objectMapper.writerFor(JSONRPCRequest.class);
+        this.responseReader = this.objectMapper.readerFor(JSONRPCResponse.class);
+        this.responseWriter = this.objectMapper.writerFor(JSONRPCResponse.class);
+        this.streamingResponseReader = this.objectMapper.readerFor(SendTaskStreamingResponse.class);
+        this.streamingResponseWriter = this.objectMapper.writerFor(SendTaskStreamingResponse.class);
+        this.taskReader = this.objectMapper.readerFor(Task.class);
+        this.taskWriter = this.objectMapper.writerFor(Task.class);
+        this.errorReader = this.objectMapper.readerFor(JSONRPCError.class);
+        this.agentCardReader = this.objectMapper.readerFor(AgentCard.class);
+        this.agentCardWriter = this.objectMapper.writerFor(AgentCard.class);
+    }
+
+    /**
+     * Whether the Blackbird module is on the classpath
+     */
+    public static boolean isBlackbirdAvailable() {
+        try {
+            Class.forName(BLACKBIRD_MODULE, false, A2ACodec.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The mapper the codec reads and writes with, including Blackbird or the generated codecs if they were requested
+     */
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public Accessors accessors() {
+        return accessors;
+    }
+
+    public JSONRPCRequest readRequest(byte[] json) throws IOException {
+        return requestReader.readValue(json);
+    }
+
+    public byte[] writeRequest(JSONRPCRequest request) throws IOException {
+        return requestWriter.writeValueAsBytes(request);
+    }
+
+    public String writeRequestAsString(JSONRPCRequest request) throws IOException {
+        return requestWriter.writeValueAsString(request);
+    }
+
+    /**
+     * Read a response, leaving its result as maps and lists
+     */
+    public JSONRPCResponse readResponse(byte[] json) throws IOException {
+        return responseReader.readValue(json);
+    }
+
+    /**
+     * Read a response with its result read straight into the given type
+     *
+     * <p>{@link JSONRPCResponse#result()} is declared as {@code Object}, so reading it through the
+     * response reader builds maps that then have to be converted. This reads the response fields one
+     * by one and the result with the reader of its type, in a single pass.
+     */
+    public JSONRPCResponse readResponse(String json, Class<?> resultType) throws IOException {
+        ObjectReader resultReader = resultType == Task.class ? taskReader : objectMapper.readerFor(resultType);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("JSON-RPC response is not an object");
+            }
+            Object id = null;
+            String jsonrpc = null;
+            Object result = null;
+            JSONRPCError error = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> id = idReader.readValue(parser);
+                    case "jsonrpc" -> jsonrpc = parser.getValueAsString();
+                    case "result" -> result = value == JsonToken.VALUE_NULL ? null : resultReader.readValue(parser);
+                    case "error" -> error = value == JsonToken.VALUE_NULL ? null : errorReader.readValue(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new JSONRPCResponse(id, jsonrpc, result, error);
+        }
+    }
+
+    public byte[] writeResponse(JSONRPCResponse response) throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    public String writeResponseAsString(JSONRPCResponse response) throws IOException {
+        return responseWriter.writeValueAsString(response);
+    }
+
+    public SendTaskStreamingResponse readStreamingResponse(String json) throws IOException {
+        return streamingResponseReader.readValue(json);
+    }
+
+    public byte[] writeStreamingResponse(SendTaskStreamingResponse response) throws IOException {
+        return streamingResponseWriter.writeValueAsBytes(response);
+    }
+
+    public String writeStreamingResponseAsString(SendTaskStreamingResponse response) throws IOException {
+        return streamingResponseWriter.writeValueAsString(response);
+    }
+
+    public Task readTask(byte[] json) throws IOException {
+        return taskReader.readValue(json);
+    }
+
+    public byte[] writeTask(Task task) throws IOException {
+        return taskWriter.writeValueAsBytes(task);
+    }
+
+    public AgentCard readAgentCard(String json) throws IOException {
+        return agentCardReader.readValue(json);
+    }
+
+    public byte[] writeAgentCard(AgentCard agentCard) throws IOException {
+        return agentCardWriter.writeValueAsBytes(agentCard);
+    }
+
+    private static ObjectMapper withBlackbird(ObjectMapper objectMapper) {
+        if (!isBlackbirdAvailable()) {
+            throw new IllegalStateException("Blackbird accessors need com.fasterxml.jackson.module:"
+                + "jackson-module-blackbird on the classpath");
+        }
+        ObjectMapper copy = objectMapper.copy();
+        copy.registerModule(Blackbird.module());
+        return copy;
+    }
+
+    /**
+     * Refers to Blackbird only once it is known to be on the classpath
+     */
+    private static final class Blackbird {
+        static Module module() {
+            return new BlackbirdModule();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.google.a2a.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * PersistentList is an immutable list whose append returns a new list sharing structure with the old one
+ *
+ * <p>Elements are stored in a 32-way trie plus a tail array of up to 32 elements. Appending
+ * copies at most the tail, or one path of the trie every 32 appends, so adding a message to a
+ * task history costs O(1) instead of copying the whole history. Both the old and the new list
+ * stay valid and can be shared between threads without synchronization.
+ *
+ * <p>A list can also start from an existing immutable list ({@link #extending(List)}), so a
+ * history owned elsewhere can be extended without copying it.
+ */
+public final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_ROOT = new Object[WIDTH];
+    private static final Object[] EMPTY_TAIL = new Object[0];
+    private static final PersistentList<?> EMPTY = new PersistentList<>(List.of(), 0, BITS, EMPTY_ROOT, EMPTY_TAIL);
+
+    private final List<? extends E> base; // elements before the trie
+    private final int baseSize;
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentList(List<? extends E> base, int size, int shift, Object[] root, Object[] tail) {
+        this.base = base;
+        this.baseSize = base.size();
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Returns the empty list
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * Returns a persistent list with the given elements; a PersistentList is returned as is and null gives the empty list
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentList<?> list) {
+            return (PersistentList<E>) list;
+        }
+        PersistentList<E> result = empty();
+        return elements == null ? result : result.appendAll(elements);
+    }
+
+    /**
+     * Returns a persistent list starting with the elements of an immutable list, without copying them
+     *
+     * <p>The base list must never change afterwards, e.g. a fixed snapshot of a history.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> extending(List<? extends E> base) {
+        if (base instanceof PersistentList<?> list) {
+            return (PersistentList<E>) list;
+        }
+        return base == null || base.isEmpty() ? empty() : new PersistentList<>(base, base.size(), BITS, EMPTY_ROOT, EMPTY_TAIL);
+    }
+
+    /**
+     * Returns a new list with the element added at the end
+     */
+    public PersistentList<E> append(E element) {
+        int trieSize = size - baseSize;
+        if (trieSize - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentList<>(base, size + 1, shift, root, newTail);
+        }
+
+        // The tail is full: move it into the trie and start a new one
+        Object[] newRoot;
+        int newShift = shift;
+        if ((trieSize >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentList<>(base, size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    /**
+     * Returns a new list with the elements added at the end
+     */
+    public PersistentList<E> appendAll(Collection<? extends E> elements) {
+        PersistentList<E> result = this;
+        for (E element : elements) {
+            result = result.append(element);
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        if (index < baseSize) {
+            return base.get(index);
+        }
+        int trieIndex = index - baseSize;
+        return (E) leafFor(trieIndex)[trieIndex & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int tailOffset() {
+        int trieSize = size - baseSize;
+        return trieSize < WIDTH ? 0 : ((trieSize - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int index = ((size - baseSize - 1) >>> level) & MASK;
+        Object[] result = parent.clone();
+        if (level == BITS) {
+            result[index] = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[index];
+            result[index] = child != null
+                ? pushTail(level - BITS, child, tailNode)
+                : newPath(level - BITS, tailNode);
+        }
+        return result;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+}
@@ -53,4 +53,18 @@ public record Task(
     public Task(String id, String contextId, TaskStatus status, List<Artifact> artifacts, List<Message> history, Map<String, Object> metadata) {
         this(id, contextId, "task", status, artifacts, history, metadata);
     }
+
+    /**
+     * Returns a copy of this task with a different status; the history is shared, not copied
+     */
+    public Task withStatus(TaskStatus status) {
+        return new Task(id, contextId, kind, status, artifacts, history, metadata);
+    }
+
+    /**
+     * Returns a copy of this task with a different history
+     */
+    public Task withHistory(List<Message> history) {
+        return new Task(id, contextId, kind, status, artifacts, history, metadata);
+    }
 } 
\ No newline at end of file
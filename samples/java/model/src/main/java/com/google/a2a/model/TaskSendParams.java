@@ -1,5 +1,6 @@
 package com.google.a2a.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Map;
@@ -37,6 +38,24 @@ public record TaskSendParams(
     /**
      * Metadata is optional metadata associated with sending this message
      */
-    @JsonProperty("metadata") Map<String, Object> metadata
+    @JsonProperty("metadata") Map<String, Object> metadata,
+    
+    /**
+     * Configuration is the optional send configuration, e.g. whether to wait for the result
+     */
+    @JsonProperty("configuration") MessageSendConfiguration configuration
 ) {
+    
+    public TaskSendParams(String id, String sessionId, Message message, PushNotificationConfig pushNotification,
+                          Integer historyLength, Map<String, Object> metadata) {
+        this(id, sessionId, message, pushNotification, historyLength, metadata, null);
+    }
+    
+    /**
+     * Whether the client waits for the task to finish; true unless the configuration says otherwise
+     */
+    @JsonIgnore
+    public boolean isBlocking() {
+        return configuration == null || configuration.blocking() == null || configuration.blocking();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,10 @@
+/**
+ * A2A protocol records
+ *
+ * <p>{@link com.google.a2a.codegen.JsonCodecProcessor} writes a streaming JSON codec for each record
+ * at compile time, registered on an ObjectMapper by the {@code A2AJsonModule} Jackson module.
+ */
+@JsonCodecs(module = "A2AJsonModule")
+package com.google.a2a.model;
+
+import com.google.a2a.codegen.JsonCodecs;
@@ -0,0 +1,59 @@
+package com.google.a2a.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A2ACodec unit tests
+ */
+class A2ACodecTest {
+
+    private final Task task = new Task("task-1", "context-1",
+        new TaskStatus(TaskState.COMPLETED, new Message("msg-2", "message", "agent",
+            List.of(new TextPart("text", "Bonjour", null)), "context-1", "task-1", null, null), "2025-01-01T00:00:00Z"),
+        List.of(new Artifact("artifact-1", "translation", null, List.of(new TextPart("text", "Bonjour", null)), 0,
+            true, null, false)),
+        null, Map.of("source", "test"));
+
+    @Test
+    void testRecordsRoundTrip() throws Exception {
+        for (A2ACodec.Accessors accessors : A2ACodec.Accessors.values()) {
+            A2ACodec codec = new A2ACodec(new ObjectMapper(), accessors);
+
+            assertEquals(task, codec.readTask(codec.writeTask(task)));
+
+            JSONRPCRequest request = new JSONRPCRequest("request-1", "2.0", "tasks/get", Map.of("id", "task-1"));
+            assertEquals(request, codec.readRequest(codec.writeRequest(request)));
+
+            SendTaskStreamingResponse event = new SendTaskStreamingResponse("request-1", "2.0", null,
+                new A2AError(ErrorCode.TASK_NOT_FOUND, "Task not found", null));
+            assertEquals(event, codec.readStreamingResponse(codec.writeStreamingResponseAsString(event)));
+        }
+    }
+
+    @Test
+    void testResponseResultIsReadIntoTheGivenType() throws Exception {
+        A2ACodec codec = new A2ACodec();
+        String json = codec.writeResponseAsString(new JSONRPCResponse("request-1", "2.0", task, null));
+
+        JSONRPCResponse response = codec.readResponse(json, Task.class);
+        assertEquals(task, response.result());
+        assertEquals("request-1", response.id());
+        assertNull(response.error());
+
+        assertInstanceOf(Map.class, codec.readResponse(json.getBytes(StandardCharsets.UTF_8)).result());
+
+        JSONRPCResponse error = codec.readResponse(
+            "{\"jsonrpc\":\"2.0\",\"id\":7,\"result\":null,\"error\":{\"code\":-32001,\"message\":\"Not cancelable\"}}",
+            Task.class);
+        assertNull(error.result());
+        assertEquals(7, error.id());
+        assertEquals(-32001, error.error().code());
+    }
+}
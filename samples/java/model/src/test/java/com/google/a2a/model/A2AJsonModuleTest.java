@@ -0,0 +1,123 @@
+package com.google.a2a.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Generated A2AJsonModule unit tests
+ */
+class A2AJsonModuleTest {
+
+    private final ObjectMapper reflective = new ObjectMapper();
+    private final ObjectMapper generated = new ObjectMapper().registerModule(new A2AJsonModule());
+
+    private final Message message = new Message("msg-1", "message", "user",
+        List.of(new TextPart("text", "Translate this", Map.of("lang", "en")),
+            new FilePart("file", new FileContentBytes("notes.txt", "text/plain", "aGVsbG8="), null),
+            new FilePart("file", new FileContentURI(null, null, "https://example.com/a.pdf"), null),
+            new DataPart("data", Map.of("rows", List.of(1, 2, 3)), null)),
+        "context-1", "task-1", List.of("task-0"), Map.of("source", "test"));
+    private final Task task = new Task("task-1", "context-1",
+        new TaskStatus(TaskState.INPUT_REQUIRED, message, "2025-01-01T00:00:00Z"),
+        List.of(new Artifact("artifact-1", "translation", null, List.of(new TextPart("text", "Bonjour", null)), 0,
+            true, null, false)),
+        List.of(message), Map.of("tenant", "acme"));
+
+    @Test
+    void testRecordsAreWrittenLikeJacksonWritesThemAndReadBack() throws Exception {
+        List<Object> records = List.of(
+            task,
+            new TaskSendParams("task-1", "session-1", message,
+                new PushNotificationConfig("https://example.com/hook", "token",
+                    new PushNotificationAuthenticationInfo(List.of("bearer"), null)), 5, null,
+                new MessageSendConfiguration(List.of("text"), false, 5, null)),
+            new JSONRPCRequest(7, "2.0", "tasks/get", Map.of("id", "task-1", "historyLength", 2)),
+            new TaskStatusUpdateEvent("task-1", task.status(), true, null),
+            new SendTaskStreamingResponse("request-1", "2.0", null,
+                new A2AError(ErrorCode.TASK_NOT_FOUND, "Task not found", Map.of("id", "task-1"))),
+            new JSONRPCError(-32602, "Invalid params", null),
+            new AgentCard("Translation Agent", null, "http://localhost:8080/a2a",
+                new AgentProvider("Example", null), "1.0.0", null, new AgentCapabilities(true, false, true),
+                null, List.of("text"), List.of("text"),
+                List.of(new AgentSkill("translate", "Translate", null, List.of("translation"), null, null, null))));
+
+        for (Object record : records) {
+            String json = generated.writeValueAsString(record);
+            assertEquals(reflective.readTree(reflective.writeValueAsString(record)), reflective.readTree(json),
+                record.getClass().getSimpleName());
+            assertEquals(record, generated.readValue(json, record.getClass()), record.getClass().getSimpleName());
+            assertEquals(record, generated.readValue(reflective.writeValueAsString(record), record.getClass()));
+        }
+    }
+
+    @Test
+    void testPartKindIsWrittenOnce() throws Exception {
+        TextPart part = new TextPart("text", "Hello", null);
+
+        assertEquals("{\"kind\":\"text\",\"text\":\"Hello\"}", generated.writeValueAsString(part));
+        assertEquals("{\"kind\":\"text\",\"text\":\"Hello\"}", generated.writerFor(Part.class).writeValueAsString(part));
+    }
+
+    @Test
+    void testPartIsReadWhereverItsKindIs() throws Exception {
+        TextPart part = new TextPart("text", "Hello", Map.of("lang", "en"));
+
+        assertEquals(part, generated.readValue("{\"kind\":\"text\",\"text\":\"Hello\",\"metadata\":{\"lang\":\"en\"}}",
+            Part.class));
+        assertEquals(part, generated.readValue("{\"text\":\"Hello\",\"metadata\":{\"lang\":\"en\"},\"kind\":\"text\"}",
+            Part.class));
+        assertEquals(part, generated.readValue("{\"metadata\":{\"lang\":\"en\"},\"kind\":\"text\",\"text\":\"Hello\"}",
+            TextPart.class));
+
+        Message read = generated.readValue(generated.writeValueAsString(message), Message.class);
+        assertEquals(message.parts(), read.parts());
+    }
+
+    @Test
+    void testPartWithUnknownOrMissingKindFails() {
+        assertThrows(InvalidTypeIdException.class,
+            () -> generated.readValue("{\"kind\":\"video\",\"url\":\"https://example.com\"}", Part.class));
+        assertThrows(InvalidTypeIdException.class,
+            () -> generated.readValue("{\"text\":\"Hello\"}", Part.class));
+    }
+
+    @Test
+    void testPartWithUnknownKindIsNullWhenInvalidSubtypesAreAllowed() throws Exception {
+        ObjectMapper lenient = generated.copy().disable(DeserializationFeature.FAIL_ON_INVALID_SUBTYPE);
+
+        Message read = lenient.readValue("{\"messageId\":\"msg-1\",\"role\":\"user\",\"parts\":["
+            + "{\"kind\":\"video\",\"url\":{\"href\":\"https://example.com\"}},{\"kind\":\"text\",\"text\":\"Hi\"}]}",
+            Message.class);
+        assertEquals(Arrays.asList(null, new TextPart("text", "Hi", null)), read.parts());
+    }
+
+    @Test
+    void testUnknownPropertiesFollowTheMapperConfiguration() throws Exception {
+        String json = "{\"id\":\"task-1\",\"contextId\":\"context-1\",\"extra\":{\"nested\":[1,2]}}";
+
+        assertThrows(UnrecognizedPropertyException.class, () -> generated.readValue(json, Task.class));
+
+        ObjectMapper lenient = generated.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Task read = lenient.readValue(json, Task.class);
+        assertEquals("task-1", read.id());
+        assertEquals("context-1", read.contextId());
+    }
+
+    @Test
+    void testNullsAndTreesAreRead() throws Exception {
+        assertNull(generated.readValue("null", Task.class));
+
+        JsonNode tree = reflective.valueToTree(task);
+        assertEquals(task, generated.treeToValue(tree, Task.class));
+    }
+}
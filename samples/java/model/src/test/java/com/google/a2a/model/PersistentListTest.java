@@ -0,0 +1,73 @@
+package com.google.a2a.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PersistentList unit tests
+ */
+class PersistentListTest {
+
+    @Test
+    void testAppendKeepsOlderVersions() {
+        PersistentList<Integer> list = PersistentList.empty();
+        List<PersistentList<Integer>> versions = new ArrayList<>();
+        // Large enough for the trie to grow to three levels
+        for (int i = 0; i < 40_000; i++) {
+            versions.add(list);
+            list = list.append(i);
+        }
+
+        assertEquals(40_000, list.size());
+        assertEquals(IntStream.range(0, 40_000).boxed().toList(), list);
+        for (int size : new int[]{0, 1, 31, 32, 33, 1024, 1025, 32_768, 32_800}) {
+            assertEquals(IntStream.range(0, size).boxed().toList(), versions.get(size));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> versions.get(10).get(10));
+    }
+
+    @Test
+    void testBranchesShareHistory() {
+        PersistentList<String> base = PersistentList.copyOf(List.of("a", "b"));
+        PersistentList<String> left = base.append("left");
+        PersistentList<String> right = base.append("right");
+
+        assertEquals(List.of("a", "b"), base);
+        assertEquals(List.of("a", "b", "left"), left);
+        assertEquals(List.of("a", "b", "right"), right);
+        assertSame(left, PersistentList.copyOf(left));
+        assertTrue(PersistentList.copyOf(null).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> base.add("c"));
+    }
+
+    @Test
+    void testExtendingSharesBase() {
+        List<Integer> base = IntStream.range(0, 100).boxed().toList();
+        PersistentList<Integer> list = PersistentList.extending(base);
+        for (int i = 100; i < 2_000; i++) {
+            list = list.append(i);
+        }
+
+        assertEquals(IntStream.range(0, 2_000).boxed().toList(), list);
+        assertEquals(100, PersistentList.extending(base).size());
+        assertSame(list, PersistentList.extending(list));
+    }
+
+    @Test
+    void testTaskHistorySerializesAsArray() throws Exception {
+        Message message = new Message("m1", "user", List.of(new TextPart("hello")));
+        Task task = new Task("task-1", "context", new TaskStatus(TaskState.WORKING, null, null))
+            .withHistory(PersistentList.<Message>empty().append(message));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Task decoded = objectMapper.readValue(objectMapper.writeValueAsString(task), Task.class);
+
+        assertEquals(List.of("m1"), decoded.history().stream().map(Message::messageId).toList());
+    }
+}
@@ -0,0 +1,508 @@
+package com.google.a2a.reactive;
+
+import com.google.a2a.model.A2ACodec;
+import com.google.a2a.model.A2AError;
+import com.google.a2a.model.ErrorCode;
+import com.google.a2a.model.JSONRPCError;
+import com.google.a2a.model.JSONRPCRequest;
+import com.google.a2a.model.JSONRPCResponse;
+import com.google.a2a.model.SendTaskStreamingResponse;
+import com.google.a2a.model.Task;
+import com.google.a2a.model.TaskQueryParams;
+import com.google.a2a.model.TaskSendParams;
+import com.google.a2a.model.TaskStatusUpdateEvent;
+import com.google.a2a.server.A2AServer;
+import com.google.a2a.server.JsonRpcBatchDispatcher;
+import com.google.a2a.server.JsonRpcMethodRegistry;
+import com.google.a2a.server.JsonRpcRequestReader;
+import com.google.a2a.server.SseFrameCoalescer;
+import com.google.a2a.server.SseFrameEncoder;
+import com.google.a2a.server.SseStreamRegistry;
+import com.google.a2a.server.TaskEventBus;
+import com.google.a2a.server.TaskEventSink;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A2A WebFlux controller exposing the same JSON-RPC and SSE endpoints as A2AController
+ * 与A2AController提供相同JSON-RPC和SSE端点的A2A WebFlux控制器
+ *
+ * <p>No thread waits for a stream here. A stream subscribes to its task on the TaskEventBus and is
+ * notified when events arrive; it takes events from its subscription only while the client has demand,
+ * so the backlog of a slow client stays in its bounded bus queue, where the slow-consumer policy
+ * applies. Model calls still run on the HandlerExecutor through {@link A2AServer#handleTaskSendAsync}.
+ * 这里没有线程等待流。流在TaskEventBus上订阅其任务并在事件到达时收到通知；只有客户端有需求时才从订阅中取出事件，
+ * 因此慢速客户端积压的事件留在其有界的总线队列中，并由慢速消费者策略处理。模型调用仍通过
+ * {@link A2AServer#handleTaskSendAsync}在HandlerExecutor上运行。
+ */
+@RestController
+public class ReactiveA2AController {
+
+    private static final byte[] HEARTBEAT = ":heartbeat\n\n".getBytes(StandardCharsets.UTF_8); // 心跳注释
+
+    private final A2AServer server;
+    private final A2ACodec codec; // 使用预先解析的读写器编解码协议记录
+    private volatile byte[] agentCardJson; // 序列化后的代理卡片
+    private final SseFrameCoalescer frameCoalescer; // 合并流中的制品分块
+    private final SseFrameEncoder frameEncoder; // 编码各个流共享的帧
+    private final SseStreamRegistry streamRegistry; // 限制流数量并维护其心跳和超时
+    private final JsonRpcMethodRegistry methods; // 按方法名应答JSON-RPC请求
+    private final JsonRpcBatchDispatcher batchDispatcher; // 并行执行批量请求中的调用
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    public ReactiveA2AController(A2AServer server, A2ACodec codec, SseFrameCoalescer frameCoalescer,
+                                 SseFrameEncoder frameEncoder, SseStreamRegistry streamRegistry,
+                                 JsonRpcMethodRegistry methods, JsonRpcBatchDispatcher batchDispatcher) {
+        this.server = server;
+        this.codec = codec;
+        this.frameCoalescer = frameCoalescer;
+        this.frameEncoder = frameEncoder;
+        this.streamRegistry = streamRegistry;
+        this.methods = methods;
+        this.batchDispatcher = batchDispatcher;
+    }
+
+    /**
+     * Handle JSON-RPC requests
+     * 处理JSON-RPC请求
+     *
+     * <p>Single requests and batches are answered as by A2AController, through the same
+     * JsonRpcMethodRegistry and JsonRpcBatchDispatcher. Methods that run on the receiving thread may
+     * write the task journal, and a batch waits for its calls, so both start on the bounded elastic
+     * scheduler rather than the event loop; {@code tasks/send} moves on to its own pool from there.
+     * 单个请求和批量请求的应答方式与A2AController相同，使用同一个JsonRpcMethodRegistry和JsonRpcBatchDispatcher。
+     * 在接收线程上运行的方法可能写入任务日志，批量请求需要等待其调用，因此二者都在有界弹性调度器而不是事件循环上开始；
+     * {@code tasks/send}再从那里转到其自己的线程池。
+     */
+    @PostMapping(
+            path = "/a2a",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<?>> handleJsonRpcRequest(@RequestBody byte[] body) {
+        JsonRpcRequestReader.Body requests;
+        try {
+            requests = methods.read(body);
+        } catch (IOException e) {
+            return Mono.just(ResponseEntity.badRequest().body(errorResponse(null, ErrorCode.PARSE_ERROR, "Parse error")));
+        }
+        if (requests.batch()) {
+            return Mono.<ResponseEntity<?>>fromCallable(() -> handleBatch(requests.requests()))
+                .subscribeOn(Schedulers.boundedElastic());
+        }
+        JSONRPCRequest request = requests.requests().get(0);
+        if (!JsonRpcMethodRegistry.isValid(request)) {
+            // 请求无效或协议版本不符，返回错误响应
+            return Mono.just(ResponseEntity.badRequest().body(JsonRpcMethodRegistry.invalidRequest(request)));
+        }
+        return Mono.defer(() -> Mono.fromFuture(methods.dispatch(request)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(response -> ResponseEntity.ok(response));
+    }
+
+    private ResponseEntity<?> handleBatch(List<JSONRPCRequest> batch) {
+        if (batch.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse(null, ErrorCode.INVALID_REQUEST, "Empty batch"));
+        }
+        if (!batchDispatcher.accepts(batch.size())) {
+            return ResponseEntity.badRequest().body(errorResponse(null, ErrorCode.INVALID_REQUEST,
+                "Batch too large, at most " + batchDispatcher.maxBatchSize() + " requests"));
+        }
+        return ResponseEntity.ok(batchDispatcher.dispatch(batch, methods::call));
+    }
+
+    /**
+     * Handle streaming task requests (Server-Sent Events)
+     * 处理流式任务请求（SSE服务端推送事件）
+     *
+     * <p>Same protocol as A2AController: {@code tasks/send} runs the task and streams its events,
+     * {@code tasks/resubscribe} follows a known task from the {@code Last-Event-ID} it was given, every
+     * frame carries its event sequence number as the SSE id, and frames are written from the bytes
+     * SseFrameEncoder shares between streams. Streams are registered with the SseStreamRegistry for caps,
+     * heartbeats and timeouts; a client that goes away cancels the stream, and with it a blocking task
+     * nobody else follows.
+     * 协议与A2AController相同：{@code tasks/send}运行任务并推送其事件，{@code tasks/resubscribe}从给定的
+     * {@code Last-Event-ID}开始跟踪已存在的任务，每一帧以事件序号作为SSE ID，帧由SseFrameEncoder在各流之间共享的字节写出。
+     * 流注册到SseStreamRegistry以限制数量、发送心跳和处理超时；客户端离开时流被取消，没有其他人跟踪的阻塞任务也随之取消。
+     *
+     * <p>The body is read by the JsonRpcMethodRegistry like that of {@code /a2a}; a body that is not JSON,
+     * a batch, an invalid request and missing or malformed params each get a single error event.
+     * 请求体与{@code /a2a}一样由JsonRpcMethodRegistry读取；不是JSON的请求体、批量请求、无效请求以及缺失或格式错误的参数都只得到一个错误事件。
+     */
+    @PostMapping(
+            value = "/a2a/stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE
+    )
+    public Flux<DataBuffer> handleStreamingTask(@RequestBody byte[] body,
+                                                @RequestHeader(value = "Last-Event-ID", required = false)
+                                                String lastEventId,
+                                                ServerHttpRequest httpRequest) {
+        String client = clientAddress(httpRequest);
+        return Flux.create(sink -> {
+            JSONRPCRequest request = readStreamRequest(sink, body);
+            if (request != null) {
+                openStream(sink, request, lastEventId, client);
+            }
+        });
+    }
+
+    /**
+     * Read the single request of a stream, or send the error event that ends it and return null
+     * 读取流的单个请求；无法读取时推送结束该流的错误事件并返回null
+     */
+    private JSONRPCRequest readStreamRequest(FluxSink<DataBuffer> sink, byte[] body) {
+        JsonRpcRequestReader.Body requests;
+        try {
+            requests = methods.read(body);
+        } catch (IOException e) {
+            sendErrorEvent(sink, null, ErrorCode.PARSE_ERROR, "Parse error");
+            return null;
+        }
+        if (requests.batch()) {
+            sendErrorEvent(sink, null, ErrorCode.INVALID_REQUEST,
+                "Batch requests are not supported on /a2a/stream");
+            return null;
+        }
+        JSONRPCRequest request = requests.requests().get(0);
+        if (!JsonRpcMethodRegistry.isValid(request)) {
+            // 请求无效或协议版本不符，推送错误事件
+            sendErrorEvent(sink, request.id(), ErrorCode.INVALID_REQUEST,
+                JsonRpcMethodRegistry.invalidRequest(request).error().message());
+            return null;
+        }
+        return request;
+    }
+
+    private void openStream(FluxSink<DataBuffer> sink, JSONRPCRequest request, String lastEventId, String client) {
+        SseStreamRegistry.Stream stream = streamRegistry.open(client, () -> sink.next(bufferFactory.wrap(HEARTBEAT)));
+        if (stream == null) {
+            // 打开的流过多，拒绝本次请求
+            sendErrorEvent(sink, request.id(), ErrorCode.INTERNAL_ERROR, "Too many streams, please retry later");
+            return;
+        }
+        // Cancellation means the client went away; onDispose follows every end, after which abort does nothing
+        // 取消意味着客户端已离开；onDispose在每种结束后都会调用，此后中止不再生效
+        sink.onCancel(() -> stream.abort(SseStreamRegistry.AbortReason.DISCONNECTED));
+        sink.onDispose(stream::close);
+        stream.onAbort(() -> endAborted(sink, request.id(), stream.abortReason()));
+
+        try {
+            byte[] tail = frameEncoder.tail(request.id());
+            switch (request.method()) {
+                case "tasks/send" -> streamTask(sink, stream, request, tail);
+                case "tasks/resubscribe" -> resubscribeTask(sink, stream, request, tail, lastEventId);
+                // 其他方法报错
+                default -> sendErrorEvent(sink, request.id(), ErrorCode.METHOD_NOT_FOUND, "Method not found");
+            }
+        } catch (Exception e) {
+            sendErrorEvent(sink, request.id(), ErrorCode.INTERNAL_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Run a streaming task and push its events
+     * 运行流式任务并推送其事件
+     *
+     * <p>The stream subscribes before the message is sent, then the turn runs on the HandlerExecutor.
+     * A blocking send ends once the turn's events are written; a non-blocking one follows the task until
+     * its stream-ending status.
+     * 流在发送消息之前订阅，然后本轮在HandlerExecutor上运行。阻塞发送在本轮的事件写出后结束；非阻塞发送跟踪任务直到其结束流的状态。
+     */
+    private void streamTask(FluxSink<DataBuffer> sink, SseStreamRegistry.Stream stream, JSONRPCRequest request,
+                            byte[] tail) {
+        TaskSendParams params = methods.params(request, TaskSendParams.class);
+        if (params == null || params.id() == null) {
+            sendErrorEvent(sink, request.id(), ErrorCode.INVALID_PARAMS, "Invalid parameters");
+            return;
+        }
+        TaskEventBus.Subscription subscription = server.getEventBus().subscribe(params.id());
+        if (params.isBlocking()) {
+            stream.onAbort(() -> cancelAbandoned(params.id(), stream.abortReason()));
+        }
+        stream.onAbort(subscription::close);
+        Follower follower = new Follower(sink, stream, subscription, tail, request.id(), params.isBlocking());
+        follower.start();
+
+        server.handleTaskSendAsync(request.id(), params, TaskEventSink.NONE).whenComplete((response, error) -> {
+            if (error != null) {
+                follower.fail(error.getMessage());
+            } else if (response.error() != null) {
+                follower.fail(response.error().message());
+            } else if (params.isBlocking()) {
+                // 本轮的事件已全部发布
+                follower.endTurn();
+            }
+        });
+    }
+
+    /**
+     * Follow a known task: replay what the client missed, or start from the current status
+     * 跟踪已存在的任务：重放客户端错过的事件，或从当前状态开始
+     */
+    private void resubscribeTask(FluxSink<DataBuffer> sink, SseStreamRegistry.Stream stream, JSONRPCRequest request,
+                                 byte[] tail, String lastEventId) {
+        TaskQueryParams params = methods.params(request, TaskQueryParams.class);
+        if (params == null || params.id() == null) {
+            sendErrorEvent(sink, request.id(), ErrorCode.INVALID_PARAMS, "Invalid parameters");
+            return;
+        }
+        long afterSequence = parseSequence(lastEventId);
+        TaskEventBus.Subscription subscription = server.getEventBus().subscribe(params.id(), afterSequence);
+        // The status is read after subscribing, and the server stores a status before publishing it, so a
+        // task that has not ended here still publishes its stream-ending status to the subscription
+        // 状态在订阅之后读取，且服务器先保存状态再发布，因此此时尚未结束的任务仍会将其结束流的状态发布到订阅中
+        Task task = server.getTaskStore().get(params.id());
+        if (task == null) {
+            subscription.close();
+            sendErrorEvent(sink, request.id(), ErrorCode.TASK_NOT_FOUND, "Task not found");
+            return;
+        }
+        stream.onAbort(subscription::close);
+        Follower follower = new Follower(sink, stream, subscription, tail, request.id(), false);
+        boolean nothingToReplay = subscription.startSequence() <= Math.max(afterSequence, 0);
+        if (!subscription.isResumed() || (nothingToReplay && A2AServer.endsStream(task.status().state()))) {
+            follower.sendStatus(params.id(), task, subscription.startSequence());
+        }
+        follower.start();
+    }
+
+    /**
+     * End the response of an aborted stream: a timed-out client gets an error event it can resubscribe
+     * after, a client that went away has nothing more written
+     * 结束被中止流的响应：超时的客户端会收到错误事件并可随后重新订阅，已离开的客户端不再写出任何内容
+     */
+    private void endAborted(FluxSink<DataBuffer> sink, Object requestId, SseStreamRegistry.AbortReason reason) {
+        switch (reason) {
+            case IDLE -> sendErrorEvent(sink, requestId, ErrorCode.INTERNAL_ERROR, "Stream idle timeout");
+            case EXPIRED -> sendErrorEvent(sink, requestId, ErrorCode.INTERNAL_ERROR,
+                "Stream reached its maximum duration");
+            case DISCONNECTED -> sink.complete();
+        }
+    }
+
+    /**
+     * Cancel the task of a blocking send whose client went away, unless another stream still follows it
+     * 取消客户端已离开的阻塞发送的任务，除非仍有其他流跟踪该任务
+     */
+    private void cancelAbandoned(String taskId, SseStreamRegistry.AbortReason reason) {
+        // 本流的订阅尚未关闭，因此只剩它自己时数量为1
+        if (reason == SseStreamRegistry.AbortReason.DISCONNECTED
+                && server.getEventBus().subscriberCount(taskId) <= 1) {
+            server.cancelTask(taskId);
+        }
+    }
+
+    /**
+     * Parse a Last-Event-ID header, -1 when absent or not a sequence number
+     * 解析Last-Event-ID请求头，缺失或不是序号时为-1
+     */
+    static long parseSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.strip());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String clientAddress(ServerHttpRequest request) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote == null || remote.getAddress() == null) {
+            return "unknown";
+        }
+        return remote.getAddress().getHostAddress();
+    }
+
+    /**
+     * Writes the events of a subscription to one stream, as far as the client asks for them
+     * 按客户端的需求将订阅中的事件写入一个流
+     *
+     * <p>{@link #drain} runs whenever an event is queued, the subscription closes, the client requests
+     * more or the turn ends, on whichever thread caused it; a work counter lets only one thread write at
+     * a time and makes the others leave their work to it.
+     * 每当有事件排队、订阅关闭、客户端请求更多或本轮结束时，都会在引起它的线程上运行{@link #drain}；
+     * 工作计数器保证同一时间只有一个线程写出，其他线程把工作留给它。
+     */
+    private final class Follower {
+
+        private final FluxSink<DataBuffer> sink;
+        private final SseStreamRegistry.Stream stream;
+        private final TaskEventBus.Subscription subscription;
+        private final SseFrameCoalescer.Sink frames;
+        private final Object requestId;
+        private final boolean blocking; // 是否为阻塞发送，其流随本轮结束
+        private final AtomicInteger wip = new AtomicInteger(); // 待处理的drain次数
+
+        private volatile boolean turnEnded; // 阻塞发送的本轮事件已全部发布
+        private volatile String failure; // 任务失败的错误信息
+
+        // The following fields are only used inside drain
+        // 以下字段仅在drain中使用
+        private boolean ended; // 是否已写出结束流的事件
+        private boolean finished; // 流是否已结束
+
+        Follower(FluxSink<DataBuffer> sink, SseStreamRegistry.Stream stream, TaskEventBus.Subscription subscription,
+                 byte[] tail, Object requestId, boolean blocking) {
+            this.sink = sink;
+            this.stream = stream;
+            this.subscription = subscription;
+            this.requestId = requestId;
+            this.blocking = blocking;
+            this.frames = frameCoalescer.open(event -> {
+                byte[] frame = frameEncoder.frame(event);
+                // The shared frame is wrapped, not copied, and never written to
+                // 共享帧只被包装而不复制，且不会被写入
+                sink.next(bufferFactory.wrap(frame));
+                sink.next(bufferFactory.wrap(tail));
+                stream.touch();
+                return frame.length + tail.length;
+            });
+        }
+
+        /**
+         * Start draining on events and on demand
+         * 开始在事件到达和有需求时取出事件
+         */
+        void start() {
+            sink.onRequest(n -> drain());
+            subscription.onAvailable(this::drain);
+        }
+
+        /**
+         * Write a stored status before the subscription's events
+         * 在订阅的事件之前写出保存的状态
+         */
+        void sendStatus(String taskId, Task task, long sequence) {
+            boolean ends = A2AServer.endsStream(task.status().state());
+            write(new TaskEventBus.Event(sequence, new TaskStatusUpdateEvent(taskId, task.status(), ends, null)));
+        }
+
+        void endTurn() {
+            turnEnded = true;
+            drain();
+        }
+
+        void fail(String message) {
+            failure = message != null ? message : "Task failed";
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (!finished) {
+                    step();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void step() {
+            String failed = failure;
+            boolean empty = false;
+            while (!ended && sink.requestedFromDownstream() > 0) {
+                TaskEventBus.Event event = subscription.poll();
+                if (event == null) {
+                    empty = true;
+                    break;
+                }
+                write(event);
+            }
+            boolean drained = ended || empty;
+            // A blocking send ends with its turn, after the turn's events; a follow ends with a stream-ending
+            // event; both end once a disconnected subscription is drained
+            // 阻塞发送随本轮结束，在本轮事件之后；跟踪随结束流的事件结束；两者都在被断开的订阅取完后结束
+            boolean done;
+            if (failed != null) {
+                done = !blocking || drained;
+            } else if (blocking) {
+                done = (turnEnded && drained) || (empty && subscription.isClosed());
+            } else {
+                done = ended || (empty && subscription.isClosed());
+            }
+            if (!done) {
+                return;
+            }
+            finished = true;
+            frames.close();
+            subscription.close();
+            // Closed before the response ends, since onDispose only runs after the client saw the end
+            // 在响应结束之前关闭，因为onDispose要在客户端看到结束之后才运行
+            stream.close();
+            if (failed != null) {
+                // 任务处理出错，推送错误事件
+                sendErrorEvent(sink, requestId, ErrorCode.INTERNAL_ERROR, failed);
+            } else {
+                sink.complete();
+            }
+        }
+
+        private void write(TaskEventBus.Event event) {
+            if (ended) {
+                return;
+            }
+            frames.send(event);
+            ended = event.isFinal();
+        }
+    }
+
+    /**
+     * Get agent card information
+     * 获取Agent Card信息
+     */
+    @GetMapping("/.well-known/agent-card")
+    public ResponseEntity<byte[]> getAgentCard() throws IOException {
+        byte[] json = agentCardJson;
+        if (json == null) {
+            // The card never changes, so it is serialized once; concurrent first calls may both do it
+            // 卡片不会改变，因此只序列化一次；并发的首次调用可能各自序列化
+            json = codec.writeAgentCard(server.getAgentCard());
+            agentCardJson = json;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    private static JSONRPCResponse errorResponse(Object requestId, ErrorCode code, String message) {
+        return new JSONRPCResponse(requestId, "2.0", null, new JSONRPCError(code.getValue(), message, null));
+    }
+
+    /**
+     * Send an error event and end the stream
+     * 发送错误事件并结束流
+     */
+    private void sendErrorEvent(FluxSink<DataBuffer> sink, Object requestId, ErrorCode code, String message) {
+        try {
+            SendTaskStreamingResponse errorResponse = new SendTaskStreamingResponse(requestId, "2.0", null,
+                new A2AError(code, message, null));
+            byte[] data = ("event:error\ndata:" + codec.writeStreamingResponseAsString(errorResponse) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+            sink.next(bufferFactory.wrap(data));
+            sink.complete();
+        } catch (IOException e) {
+            sink.error(e);
+        }
+    }
+}
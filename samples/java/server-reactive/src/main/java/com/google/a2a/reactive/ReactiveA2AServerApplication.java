@@ -0,0 +1,25 @@
+package com.google.a2a.reactive;
+
+import com.google.a2a.server.A2AMetricsConfiguration;
+import com.google.a2a.server.A2AServerConfiguration;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Reactive A2A Server Spring Boot Application
+ * 响应式A2A服务器Spring Boot应用程序入口
+ *
+ * <p>Runs the same A2AServer, beans and {@code a2a.*} properties as the servlet server on Spring WebFlux
+ * and Netty; only the controller differs.
+ * 在Spring WebFlux和Netty上运行与Servlet服务器相同的A2AServer、Bean和{@code a2a.*}配置，只有控制器不同。
+ */
+// 只扫描本包，服务器模块的配置通过@Import引入，避免加载其Servlet控制器
+@SpringBootApplication
+@Import({A2AServerConfiguration.class, A2AMetricsConfiguration.class})
+public class ReactiveA2AServerApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveA2AServerApplication.class, args);
+    }
+}
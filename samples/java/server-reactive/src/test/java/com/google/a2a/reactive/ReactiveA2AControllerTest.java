@@ -0,0 +1,222 @@
+package com.google.a2a.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.*;
+import com.google.a2a.server.A2AMethods;
+import com.google.a2a.server.A2AServer;
+import com.google.a2a.server.HandlerExecutor;
+import com.google.a2a.server.InMemoryTaskStore;
+import com.google.a2a.server.JsonRpcBatchDispatcher;
+import com.google.a2a.server.JsonRpcMethodRegistry;
+import com.google.a2a.server.SseFrameCoalescer;
+import com.google.a2a.server.SseFrameEncoder;
+import com.google.a2a.server.SseStreamRegistry;
+import com.google.a2a.server.TaskEventBus;
+import com.google.a2a.server.TaskMailboxes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReactiveA2AController tests
+ */
+class ReactiveA2AControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HandlerExecutor executor;
+    private TaskEventBus eventBus;
+    private SseFrameCoalescer frameCoalescer;
+    private SseStreamRegistry streamRegistry;
+    private A2AMethods methods;
+    private JsonRpcBatchDispatcher batchDispatcher;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        AgentCard agentCard = new AgentCard("Test Agent", "Test Agent", "http://localhost:8080/a2a", null, "1.0.0",
+            null, new AgentCapabilities(true, true, true), null, List.of("text"), List.of("text"), List.of());
+        executor = new HandlerExecutor(4, 10);
+        eventBus = new TaskEventBus();
+        A2AServer server = new A2AServer(agentCard, (task, message) -> new Task(task.id(), task.contextId(),
+            task.kind(), new TaskStatus(TaskState.COMPLETED, null, Instant.now().toString()), task.artifacts(),
+            task.history(), task.metadata()), new InMemoryTaskStore(), executor, new TaskMailboxes(), eventBus,
+            objectMapper);
+        frameCoalescer = new SseFrameCoalescer(Duration.ZERO, 16384);
+        streamRegistry = new SseStreamRegistry(Duration.ofSeconds(15), Duration.ofMinutes(5), Duration.ofMinutes(30),
+            2, 2, 4, 2);
+        methods = new A2AMethods(server);
+        batchDispatcher = new JsonRpcBatchDispatcher();
+        A2ACodec codec = new A2ACodec(objectMapper, A2ACodec.Accessors.REFLECTION);
+        client = WebTestClient.bindToController(new ReactiveA2AController(server, codec, frameCoalescer,
+            new SseFrameEncoder(objectMapper), streamRegistry,
+            new JsonRpcMethodRegistry(objectMapper, methods.methods()), batchDispatcher)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchDispatcher.close();
+        methods.close();
+        streamRegistry.close();
+        frameCoalescer.close();
+        eventBus.close();
+        executor.close();
+    }
+
+    @Test
+    void testSendAndGet() throws Exception {
+        JSONRPCResponse sent = post("/a2a", "tasks/send", sendParams("task-1"));
+        assertNull(sent.error());
+        assertEquals(TaskState.COMPLETED,
+            objectMapper.convertValue(sent.result(), Task.class).status().state());
+
+        JSONRPCResponse got = post("/a2a", "tasks/get", Map.of("id", "task-1"));
+        assertEquals(TaskState.COMPLETED, objectMapper.convertValue(got.result(), Task.class).status().state());
+
+        JSONRPCResponse missing = post("/a2a", "tasks/get", Map.of("id", "task-2"));
+        assertEquals(ErrorCode.TASK_NOT_FOUND.getValue(), missing.error().code());
+    }
+
+    @Test
+    void testBatchAnswersEveryCallInOrder() throws Exception {
+        post("/a2a", "tasks/send", sendParams("task-1"));
+
+        List<JSONRPCResponse> responses = client.post().uri("/a2a")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(
+                new JSONRPCRequest("request-1", "2.0", "tasks/get", Map.of("id", "task-1")),
+                new JSONRPCRequest("request-2", "2.0", "tasks/get", Map.of("id", "task-2")),
+                new JSONRPCRequest("request-3", "2.0", "tasks/unknown", Map.of())))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(JSONRPCResponse.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(3, responses.size());
+        assertEquals("request-1", responses.get(0).id());
+        assertNull(responses.get(0).error());
+        assertEquals(ErrorCode.TASK_NOT_FOUND.getValue(), responses.get(1).error().code());
+        assertEquals(ErrorCode.METHOD_NOT_FOUND.getValue(), responses.get(2).error().code());
+    }
+
+    @Test
+    void testStreamEndsWithTurn() throws Exception {
+        String body = stream("tasks/send", sendParams("task-1"), null);
+
+        assertTrue(body.startsWith("id:1\nevent:task-update\ndata:"));
+        assertTrue(body.contains("\"state\":\"completed\""));
+        assertTrue(body.contains("\"final\":true"));
+        assertTrue(body.contains("\"id\":\"stream-request\""));
+        assertFalse(body.contains("event:error"));
+        assertEquals(0, streamRegistry.stats().openCount());
+    }
+
+    @Test
+    void testUnreadableStreamRequestsGetOneErrorEvent() throws Exception {
+        String missingParams = stream("tasks/send", null, null);
+        assertTrue(missingParams.startsWith("event:error\n"));
+        assertTrue(missingParams.contains(String.valueOf(ErrorCode.INVALID_PARAMS.getValue())));
+        assertTrue(missingParams.contains("\"id\":\"stream-request\""));
+
+        String malformedParams = stream("tasks/resubscribe", List.of("task-1"), null);
+        assertTrue(malformedParams.contains(String.valueOf(ErrorCode.INVALID_PARAMS.getValue())));
+
+        String notJson = streamBody("{\"jsonrpc\":\"2.0\",");
+        assertTrue(notJson.startsWith("event:error\n"));
+        assertTrue(notJson.contains(String.valueOf(ErrorCode.PARSE_ERROR.getValue())));
+        assertEquals(0, streamRegistry.stats().openCount());
+    }
+
+    @Test
+    void testResubscribeReplaysMissedEvents() throws Exception {
+        stream("tasks/send", sendParams("task-1"), null);
+
+        String replayed = stream("tasks/resubscribe", Map.of("id", "task-1"), "1");
+        assertFalse(replayed.contains("id:1\n"));
+        assertTrue(replayed.startsWith("id:2\n"));
+        assertTrue(replayed.contains("\"final\":true"));
+
+        String missing = stream("tasks/resubscribe", Map.of("id", "task-2"), null);
+        assertTrue(missing.startsWith("event:error\n"));
+        assertTrue(missing.contains(String.valueOf(ErrorCode.TASK_NOT_FOUND.getValue())));
+    }
+
+    @Test
+    void testStreamsOverCapAreRefused() throws Exception {
+        SseStreamRegistry.Stream first = streamRegistry.open("127.0.0.1", () -> { });
+        SseStreamRegistry.Stream second = streamRegistry.open("127.0.0.2", () -> { });
+
+        String body = stream("tasks/send", sendParams("task-1"), null);
+        assertTrue(body.startsWith("event:error\n"));
+        assertTrue(body.contains("Too many streams"));
+        assertEquals(1, streamRegistry.stats().rejectedCount());
+
+        first.close();
+        second.close();
+    }
+
+    private JSONRPCResponse post(String uri, String method, Object params) {
+        return client.post().uri(uri)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new JSONRPCRequest("request-1", "2.0", method, params))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(JSONRPCResponse.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    private String stream(String method, Object params, String lastEventId) {
+        WebTestClient.RequestBodySpec request = client.post().uri("/a2a/stream")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            request = request.header("Last-Event-ID", lastEventId);
+        }
+        return read(request.bodyValue(new JSONRPCRequest("stream-request", "2.0", method, params)));
+    }
+
+    private String streamBody(String body) {
+        return read(client.post().uri("/a2a/stream")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .bodyValue(body));
+    }
+
+    private String read(WebTestClient.RequestHeadersSpec<?> request) {
+        // Read the raw bytes, since decoding as SSE would keep only the data lines
+        byte[] body = request
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> sendParams(String taskId) {
+        return Map.of(
+            "id", taskId,
+            "message", Map.of(
+                "messageId", UUID.randomUUID().toString(),
+                "kind", "message",
+                "role", "user",
+                "parts", List.of(Map.of(
+                    "kind", "text",
+                    "text", "Test message"
+                ))
+            )
+        );
+    }
+}
@@ -1,29 +1,33 @@
 package com.google.a2a.server;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.A2ACodec;
 import com.google.a2a.model.A2AError;
-import com.google.a2a.model.AgentCard;
 import com.google.a2a.model.ErrorCode;
 import com.google.a2a.model.JSONRPCError;
 import com.google.a2a.model.JSONRPCRequest;
 import com.google.a2a.model.JSONRPCResponse;
 import com.google.a2a.model.SendTaskStreamingResponse;
 import com.google.a2a.model.Task;
+import com.google.a2a.model.TaskQueryParams;
 import com.google.a2a.model.TaskSendParams;
-import com.google.a2a.model.TaskState;
-import com.google.a2a.model.TaskStatus;
 import com.google.a2a.model.TaskStatusUpdateEvent;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
-import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A2A REST controller for handling JSON-RPC requests
@@ -32,176 +36,497 @@ import java.util.concurrent.CompletableFuture;
 @RestController
 public class A2AController {
 
+    private static final long EMITTER_TIMEOUT_MARGIN_MILLIS = 60_000; // 容器超时相对流最长时长的余量
+
     private final A2AServer server;
-    private final ObjectMapper objectMapper;
+    private final A2ACodec codec; // 使用预先解析的读写器编解码协议记录
+    private volatile byte[] agentCardJson; // 序列化后的代理卡片
+    private final SseFrameCoalescer frameCoalescer; // 合并流中的制品分块
+    private final SseFrameEncoder frameEncoder; // 编码各个流共享的帧
+    private final SseStreamRegistry streamRegistry; // 限制流数量并维护其心跳和超时
+    private final JsonRpcMethodRegistry methods; // 按方法名应答JSON-RPC请求
+    private final JsonRpcBatchDispatcher batchDispatcher; // 并行执行批量请求中的调用
 
-    public A2AController(A2AServer server, ObjectMapper objectMapper) {
+    public A2AController(A2AServer server, A2ACodec codec, SseFrameCoalescer frameCoalescer,
+                         SseFrameEncoder frameEncoder, SseStreamRegistry streamRegistry,
+                         JsonRpcMethodRegistry methods, JsonRpcBatchDispatcher batchDispatcher) {
         this.server = server;
-        this.objectMapper = objectMapper;
+        this.codec = codec;
+        this.frameCoalescer = frameCoalescer;
+        this.frameEncoder = frameEncoder;
+        this.streamRegistry = streamRegistry;
+        this.methods = methods;
+        this.batchDispatcher = batchDispatcher;
     }
 
     /**
      * Handle JSON-RPC requests
      * 处理JSON-RPC请求的主入口，支持多种任务方法
+     *
+     * <p>Requests are answered by the JsonRpcMethodRegistry, which reads the body in one pass with the
+     * params already in the type of their method, and runs the method where the method says: {@code tasks/get} on this thread, {@code tasks/send}
+     * on its own pool. The response is asynchronous, so a request waiting for a model call does not hold
+     * a container thread.
+     * 请求由JsonRpcMethodRegistry应答：它一次读取请求体，参数直接读取为方法的类型，并在方法指定的位置运行：{@code tasks/get}在本线程上，
+     * {@code tasks/send}在其自己的线程池上。响应是异步的，因此等待模型调用的请求不会占用容器线程。
+     *
+     * <p>The body is either one request or a JSON-RPC 2.0 batch: an array of requests answered with an
+     * array of responses in the same order. The calls of a batch run in parallel on the helper threads of
+     * the JsonRpcBatchDispatcher, not on the container thread, and each gets its own response, an error one if it failed, so a batch of
+     * 200 {@code tasks/get} calls costs one round trip. An empty batch, or one larger than the dispatcher
+     * allows, is answered with a single error response, as is a body that is not JSON.
+     * 请求体可以是单个请求，也可以是JSON-RPC 2.0批量请求：一个请求数组，以相同顺序的响应数组应答。批量中的调用在
+     * JsonRpcBatchDispatcher的协助线程上并行执行，而不在容器线程上，每个调用得到自己的响应，失败时为错误响应，因此200个{@code tasks/get}调用只需一次往返。
+     * 空批量、超过分发器允许大小的批量以及不是JSON的请求体以单个错误响应应答。
      */
     @PostMapping(
             path = "/a2a",
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<JSONRPCResponse> handleJsonRpcRequest(@RequestBody JSONRPCRequest request) {
-
-        if (!"2.0".equals(request.jsonrpc())) {
-            // 检查JSON-RPC协议版本
-            JSONRPCError error = new JSONRPCError(
-                    ErrorCode.INVALID_REQUEST.getValue(),
-                    "Invalid JSON-RPC version",
-                    null
-            );
-            JSONRPCResponse response = new JSONRPCResponse(
-                    request.id(),
-                    "2.0",
-                    null,
-                    error
-            );
-            // 返回错误响应，协议版本不符
-            return ResponseEntity.badRequest().body(response);
-        }
-
-        // 根据method字段分发不同的任务处理逻辑
-        JSONRPCResponse response = switch (request.method()) {
-            case "tasks/send" -> server.handleTaskSend(request);
-            case "tasks/get" -> server.handleTaskGet(request);
-            case "tasks/cancel" -> server.handleTaskCancel(request);
-            default -> {
-                JSONRPCError error = new JSONRPCError(
-                        ErrorCode.METHOD_NOT_FOUND.getValue(),
-                        "Method not found",
-                        null
-                );
-                yield new JSONRPCResponse(
-                        request.id(),
-                        "2.0",
-                        null,
-                        error
-                );
-            }
-        };
+    public CompletableFuture<ResponseEntity<?>> handleJsonRpcRequest(@RequestBody byte[] body) {
+        JsonRpcRequestReader.Body requests;
+        try {
+            requests = methods.read(body);
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().body(errorResponse(null, ErrorCode.PARSE_ERROR, "Parse error")));
+        }
+        if (requests.batch()) {
+            return handleBatch(requests.requests());
+        }
+        JSONRPCRequest request = requests.requests().get(0);
+        if (!JsonRpcMethodRegistry.isValid(request)) {
+            // 请求无效或协议版本不符，返回错误响应
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().body(JsonRpcMethodRegistry.invalidRequest(request)));
+        }
+        return methods.dispatch(request).thenApply(response -> ResponseEntity.ok(response));
+    }
 
-        // 返回处理结果
-        return ResponseEntity.ok(response);
+    private CompletableFuture<ResponseEntity<?>> handleBatch(List<JSONRPCRequest> batch) {
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().body(errorResponse(null, ErrorCode.INVALID_REQUEST, "Empty batch")));
+        }
+        if (!batchDispatcher.accepts(batch.size())) {
+            return CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().body(errorResponse(null, ErrorCode.INVALID_REQUEST,
+                    "Batch too large, at most " + batchDispatcher.maxBatchSize() + " requests")));
+        }
+        // The calls run on the dispatcher's helper threads, so the container thread is released at once
+        // 调用在分发器的协助线程上执行，因此容器线程立即释放
+        return batchDispatcher.dispatchAsync(batch, methods::call).thenApply(responses -> ResponseEntity.ok(responses));
+    }
+
+    private static JSONRPCResponse errorResponse(Object requestId, ErrorCode code, String message) {
+        return new JSONRPCResponse(requestId, "2.0", null, new JSONRPCError(code.getValue(), message, null));
     }
 
     /**
      * Handle streaming task requests (Server-Sent Events)
      * 处理流式任务请求（SSE服务端推送事件），用于实时推送任务状态
+     *
+     * <p>{@code tasks/send} runs the task and streams its events; {@code tasks/resubscribe} follows a task
+     * that is already known. Every frame carries the task's event sequence number as its SSE id, so a
+     * client that lost its connection resubscribes with the {@code Last-Event-ID} header and gets the
+     * events it missed replayed.
+     * {@code tasks/send}运行任务并推送其事件；{@code tasks/resubscribe}跟踪已存在的任务。每一帧都以任务事件的序号作为SSE ID，
+     * 因此断开连接的客户端可以携带{@code Last-Event-ID}请求头重新订阅，并重放其错过的事件。
+     *
+     * <p>Frames are written from bytes shared by all streams of the task (see SseFrameEncoder), followed
+     * by this stream's request id, so many streams following one task do not serialize its events
+     * once each.
+     * 帧由该任务所有流共享的字节（见SseFrameEncoder）加上本流的请求ID写出，因此跟踪同一任务的多个流不会各自序列化其事件。
+     *
+     * <p>Every stream is registered with the SseStreamRegistry, which refuses it with an error event when
+     * too many streams are open, sends heartbeats while it is quiet and aborts it when it times out or
+     * its client goes away. An aborted stream stops following its task; if the client of a blocking
+     * {@code tasks/send} went away and nobody else follows the task, the task is canceled as well.
+     * 每个流都会注册到SseStreamRegistry：打开的流过多时以错误事件拒绝，流安静时发送心跳，超时或客户端离开时中止。
+     * 被中止的流停止跟踪其任务；如果阻塞{@code tasks/send}的客户端已离开且没有其他人跟踪该任务，任务也会被取消。
+     *
+     * <p>No thread waits for a stream. The turn runs on the HandlerExecutor, and the stream is notified
+     * when its subscription has events, which it then writes on the registry's write pool; a stream that
+     * follows a task for minutes holds no thread in between, so followers never take handler threads.
+     * 没有线程等待流。本轮在HandlerExecutor上运行，订阅中有事件时流会收到通知，然后在注册表的写入线程池上写出；
+     * 跟踪任务数分钟的流在事件之间不占用任何线程，因此跟踪者不会占用处理器线程。
+     *
+     * <p>The body is read by the JsonRpcMethodRegistry like that of {@code /a2a}, so the params arrive in
+     * the type of their method. A body that is not JSON, a batch, an invalid request and missing or
+     * malformed params each get a single error event.
+     * 请求体与{@code /a2a}一样由JsonRpcMethodRegistry读取，参数直接为其方法的类型。不是JSON的请求体、批量请求、
+     * 无效请求以及缺失或格式错误的参数都只得到一个错误事件。
      */
     @PostMapping(
             value = "/a2a/stream",
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.TEXT_EVENT_STREAM_VALUE
     )
-    public SseEmitter handleStreamingTask(@RequestBody JSONRPCRequest request) {
+    public SseEmitter handleStreamingTask(@RequestBody byte[] body,
+                                          @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                          HttpServletRequest servletRequest) {
 
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+        // The registry ends streams after their maximum duration; the container timeout is only a backstop
+        // 注册表会在流达到最长时长后结束流；容器超时只是兜底
+        SseEmitter emitter = new SseEmitter(streamRegistry.maxDuration().toMillis() + EMITTER_TIMEOUT_MARGIN_MILLIS);
+        JsonRpcRequestReader.Body requests;
+        try {
+            requests = methods.read(body);
+        } catch (IOException e) {
+            sendErrorEvent(emitter, null, ErrorCode.PARSE_ERROR, "Parse error");
+            return emitter;
+        }
+        if (requests.batch()) {
+            sendErrorEvent(emitter, null, ErrorCode.INVALID_REQUEST,
+                "Batch requests are not supported on /a2a/stream");
+            return emitter;
+        }
+        JSONRPCRequest request = requests.requests().get(0);
+        if (!JsonRpcMethodRegistry.isValid(request)) {
+            // 请求无效或协议版本不符，推送错误事件
+            sendErrorEvent(emitter, request.id(), ErrorCode.INVALID_REQUEST,
+                JsonRpcMethodRegistry.invalidRequest(request).error().message());
+            return emitter;
+        }
 
-        // 异步处理任务，避免阻塞主线程
-        CompletableFuture.runAsync(() -> {
-            try {
-                if (!"tasks/send".equals(request.method())) {
-                    // 只支持tasks/send方法，其他方法报错
-                    sendErrorEvent(emitter, request.id(), ErrorCode.METHOD_NOT_FOUND, "Method not found");
-                    return;
-                }
+        SseStreamRegistry.Stream stream = streamRegistry.open(servletRequest.getRemoteAddr(),
+            () -> emitter.send(SseEmitter.event().comment("heartbeat")));
+        if (stream == null) {
+            // 打开的流过多，拒绝本次请求
+            sendErrorEvent(emitter, request.id(), ErrorCode.INTERNAL_ERROR, "Too many streams, please retry later");
+            return emitter;
+        }
+        // The container reports clients that went away and streams that outlived its timeout
+        // 容器报告已离开的客户端和超过其超时的流
+        emitter.onError(e -> stream.abort(SseStreamRegistry.AbortReason.DISCONNECTED));
+        emitter.onTimeout(() -> stream.abort(SseStreamRegistry.AbortReason.EXPIRED));
+        stream.onAbort(() -> endAborted(emitter, request.id(), stream.abortReason()));
 
-                TaskSendParams params = parseTaskSendParams(request.params());
-
-                // Create initial status with timestamp
-                // 创建初始任务状态，标记为WORKING
-                TaskStatus initialStatus = new TaskStatus(
-                    TaskState.WORKING,
-                    null,  // No message initially
-                    Instant.now().toString()
-                );
-
-                // Send initial status update
-                // 发送初始状态事件到客户端
-                TaskStatusUpdateEvent initialEvent = new TaskStatusUpdateEvent(
-                        params.id(),
-                        initialStatus,
-                        false,  // final
-                        null    // metadata
-                );
-
-                SendTaskStreamingResponse initialResponse = new SendTaskStreamingResponse(
-                        request.id(),
-                        "2.0",
-                        initialEvent,
-                        null
-                );
-
-                emitter.send(SseEmitter.event()
-                        .name("task-update")
-                        .data(objectMapper.writeValueAsString(initialResponse)));
-
-                // Process task
-                // 处理实际任务
-                JSONRPCResponse taskResponse = server.handleTaskSend(request);
-
-                if (taskResponse.error() != null) {
-                    // 任务处理出错，推送错误事件
-                    sendErrorEvent(emitter, request.id(), ErrorCode.INTERNAL_ERROR, taskResponse.error().message());
-                    return;
+        try {
+            byte[] tail = frameEncoder.tail(request.id());
+            switch (request.method()) {
+                case "tasks/send" -> streamTask(emitter, stream, request, tail);
+                case "tasks/resubscribe" -> resubscribeTask(emitter, stream, request, tail, lastEventId);
+                // 其他方法报错
+                default -> {
+                    stream.close();
+                    sendErrorEvent(emitter, request.id(), ErrorCode.METHOD_NOT_FOUND, "Method not found");
                 }
+            }
+        } catch (Exception e) {
+            stream.close();
+            sendErrorEvent(emitter, request.id(), ErrorCode.INTERNAL_ERROR, e.getMessage());
+        }
 
-                // Send final status update
-                // 发送最终状态事件，任务完成
-                Task completedTask = (Task) taskResponse.result();
-                TaskStatusUpdateEvent finalEvent = new TaskStatusUpdateEvent(
-                        completedTask.id(),
-                        completedTask.status(),
-                        true,   // final
-                        null    // metadata
-                );
-
-                SendTaskStreamingResponse finalResponse = new SendTaskStreamingResponse(
-                        request.id(),
-                        "2.0",
-                        finalEvent,
-                        null
-                );
-
-                emitter.send(SseEmitter.event()
-                        .name("task-update")
-                        .data(objectMapper.writeValueAsString(finalResponse)));
+        // 返回SseEmitter对象，客户端可持续接收事件
+        return emitter;
+    }
 
-                emitter.complete();
+    /**
+     * Run a streaming task and push its events
+     * 运行流式任务并推送其事件
+     *
+     * <p>The stream subscribes to the task on the TaskEventBus before the message is sent, then the turn
+     * runs on the HandlerExecutor. Each event is written as soon as it is published, so the first token
+     * reaches the client as soon as it is generated. A blocking send ends once the turn's events are
+     * written; a non-blocking one follows the task until its stream-ending status. All events go through
+     * an SseFrameCoalescer sink, which merges artifact chunks that arrive faster than the flush interval
+     * into one frame. If a write fails, for example because the client went away, later events are
+     * dropped and the task still runs to completion.
+     * 流在发送消息之前先在TaskEventBus上订阅该任务，然后本轮在HandlerExecutor上运行。每个事件发布后即写出，
+     * 因此第一个token生成后即可到达客户端。阻塞发送在本轮的事件写出后结束；非阻塞发送跟踪任务直到其结束流的状态。
+     * 所有事件都经过SseFrameCoalescer接收器，到达速度快于刷出间隔的制品分块会被合并为一帧。
+     * 如果写入失败（例如客户端已断开），之后的事件会被丢弃，任务仍会运行至完成。
+     *
+     * <p>When the stream is aborted its subscription is closed, which ends a non-blocking follow. For a
+     * blocking send whose client went away the task is canceled too, unless another stream follows it,
+     * since nobody is left waiting for the turn.
+     * 流被中止时会关闭其订阅，从而结束非阻塞的跟踪。对于客户端已离开的阻塞发送，除非有其他流跟踪该任务，
+     * 任务也会被取消，因为已没有人在等待本轮的结果。
+     */
+    private void streamTask(SseEmitter emitter, SseStreamRegistry.Stream stream, JSONRPCRequest request,
+                            byte[] tail) {
+        TaskSendParams params = methods.params(request, TaskSendParams.class);
+        if (params == null || params.id() == null) {
+            stream.close();
+            sendErrorEvent(emitter, request.id(), ErrorCode.INVALID_PARAMS, "Invalid parameters");
+            return;
+        }
+        TaskEventBus.Subscription subscription = server.getEventBus().subscribe(params.id());
+        if (params.isBlocking()) {
+            stream.onAbort(() -> cancelAbandoned(params.id(), stream.abortReason()));
+        }
+        stream.onAbort(subscription::close);
+        Follower follower = new Follower(emitter, stream, subscription, tail, request.id(), params.isBlocking());
+        follower.start();
 
-            } catch (Exception e) {
-                // 发生异常，推送错误事件
-                sendErrorEvent(emitter, request.id(), ErrorCode.INTERNAL_ERROR, e.getMessage());
+        // Process task, pushing status updates and artifact chunks as they are published
+        // 处理实际任务，状态更新和制品分块发布后即推送
+        server.handleTaskSendAsync(request.id(), params, TaskEventSink.NONE).whenComplete((response, error) -> {
+            if (error != null) {
+                follower.fail(error.getMessage());
+            } else if (response.error() != null) {
+                // 任务处理出错，推送错误事件
+                follower.fail(response.error().message());
+            } else if (params.isBlocking()) {
+                // 本轮的事件已全部发布
+                follower.endTurn();
             }
         });
+    }
 
-        // 返回SseEmitter对象，客户端可持续接收事件
-        return emitter;
+    /**
+     * Follow a known task: replay what the client missed, or start from the current status, then push
+     * new events until a stream-ending status
+     * 跟踪已存在的任务：重放客户端错过的事件，或从当前状态开始，然后推送新事件直到结束流的状态
+     *
+     * @param lastEventId the last sequence number the client saw, from the {@code Last-Event-ID} header
+     *                    客户端看到的最后序号，来自{@code Last-Event-ID}请求头
+     */
+    private void resubscribeTask(SseEmitter emitter, SseStreamRegistry.Stream stream, JSONRPCRequest request,
+                                 byte[] tail, String lastEventId) {
+        TaskQueryParams params = methods.params(request, TaskQueryParams.class);
+        if (params == null || params.id() == null) {
+            stream.close();
+            sendErrorEvent(emitter, request.id(), ErrorCode.INVALID_PARAMS, "Invalid parameters");
+            return;
+        }
+        long afterSequence = parseSequence(lastEventId);
+        TaskEventBus.Subscription subscription = server.getEventBus().subscribe(params.id(), afterSequence);
+        // The status is read after subscribing, and the server stores a status before publishing it, so a
+        // task that has not ended here still publishes its stream-ending status to the subscription
+        // 状态在订阅之后读取，且服务器先保存状态再发布，因此此时尚未结束的任务仍会将其结束流的状态发布到订阅中
+        Task task = server.getTaskStore().get(params.id());
+        if (task == null) {
+            subscription.close();
+            stream.close();
+            sendErrorEvent(emitter, request.id(), ErrorCode.TASK_NOT_FOUND, "Task not found");
+            return;
+        }
+        stream.onAbort(subscription::close);
+        Follower follower = new Follower(emitter, stream, subscription, tail, request.id(), false);
+        boolean nothingToReplay = subscription.startSequence() <= Math.max(afterSequence, 0);
+        if (!subscription.isResumed() || (nothingToReplay && A2AServer.endsStream(task.status().state()))) {
+            follower.sendStatus(params.id(), task, subscription.startSequence());
+        }
+        follower.start();
     }
 
     /**
-     * Get agent card information
-     * 获取Agent Card信息，描述AI代理能力
+     * Write one event as a task-update frame: its shared bytes, then this stream's tail
+     * 将一个事件作为task-update帧写出：先写其共享字节，再写本流的尾部
+     *
+     * <p>A failed write means the client went away, so the stream is aborted.
+     * 写入失败意味着客户端已离开，因此中止该流。
+     *
+     * @param tail the stream's request id and the end of the frame, from SseFrameEncoder#tail
+     *             本流的请求ID和帧结尾，来自SseFrameEncoder#tail
+     * @return the number of bytes of the frame
+     *         帧的字节数
      */
-    @GetMapping("/.well-known/agent-card")
-    public ResponseEntity<AgentCard> getAgentCard() {
-        return ResponseEntity.ok(server.getAgentCard());
+    private int writeFrame(SseEmitter emitter, SseStreamRegistry.Stream stream, byte[] tail, TaskEventBus.Event event)
+            throws IOException {
+        byte[] frame = frameEncoder.frame(event);
+        // The parts are written as raw bytes, in order
+        // 各部分按顺序以原始字节写出
+        Set<ResponseBodyEmitter.DataWithMediaType> parts = new LinkedHashSet<>(2);
+        parts.add(new ResponseBodyEmitter.DataWithMediaType(frame, MediaType.APPLICATION_OCTET_STREAM));
+        parts.add(new ResponseBodyEmitter.DataWithMediaType(tail, MediaType.APPLICATION_OCTET_STREAM));
+        try {
+            emitter.send(parts);
+        } catch (IOException | IllegalStateException e) {
+            stream.abort(SseStreamRegistry.AbortReason.DISCONNECTED);
+            throw e;
+        }
+        stream.touch();
+        return frame.length + tail.length;
+    }
+
+    /**
+     * End the response of an aborted stream: a timed-out client gets an error event it can resubscribe
+     * after, a client that went away only has its response completed
+     * 结束被中止流的响应：超时的客户端会收到错误事件并可随后重新订阅，已离开的客户端只结束其响应
+     */
+    private void endAborted(SseEmitter emitter, Object requestId, SseStreamRegistry.AbortReason reason) {
+        try {
+            switch (reason) {
+                case IDLE -> sendErrorEvent(emitter, requestId, ErrorCode.INTERNAL_ERROR, "Stream idle timeout");
+                case EXPIRED -> sendErrorEvent(emitter, requestId, ErrorCode.INTERNAL_ERROR,
+                    "Stream reached its maximum duration");
+                case DISCONNECTED -> emitter.complete();
+            }
+        } catch (IllegalStateException e) {
+            // 响应已结束
+        }
+    }
+
+    /**
+     * Cancel the task of a blocking send whose client went away, unless another stream still follows it
+     * 取消客户端已离开的阻塞发送的任务，除非仍有其他流跟踪该任务
+     */
+    private void cancelAbandoned(String taskId, SseStreamRegistry.AbortReason reason) {
+        // 本流的订阅尚未关闭，因此只剩它自己时数量为1
+        if (reason == SseStreamRegistry.AbortReason.DISCONNECTED
+                && server.getEventBus().subscriberCount(taskId) <= 1) {
+            server.cancelTask(taskId);
+        }
+    }
+
+    /**
+     * Parse a Last-Event-ID header, -1 when absent or not a sequence number
+     * 解析Last-Event-ID请求头，缺失或不是序号时为-1
+     */
+    static long parseSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.strip());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Writes the events of a subscription to the frames of one stream
+     * 将订阅中的事件写入一个流的帧
+     *
+     * <p>{@link #drain} is scheduled on the stream's writes whenever an event is queued, the subscription
+     * closes or the turn ends, so the events are written in order by one write at a time, and at most
+     * one drain waits to run.
+     * 每当有事件排队、订阅关闭或本轮结束时，都会在流的写入上安排一次{@link #drain}，因此事件由同一时间的一次写入按顺序写出，
+     * 且最多只有一次drain等待运行。
+     */
+    private final class Follower {
+
+        private final SseEmitter emitter;
+        private final SseStreamRegistry.Stream stream;
+        private final TaskEventBus.Subscription subscription;
+        private final SseFrameCoalescer.Sink frames;
+        private final Object requestId;
+        private final boolean blocking; // 是否为阻塞发送，其流随本轮结束
+        private final AtomicBoolean scheduled = new AtomicBoolean(); // 是否已安排一次drain
+
+        private volatile boolean turnEnded; // 阻塞发送的本轮事件已全部发布
+        private volatile String failure; // 任务失败的错误信息
+
+        // The following fields are only used on the stream's writes
+        // 以下字段仅在流的写入中使用
+        private boolean ended; // 是否已写出结束流的事件
+        private boolean finished; // 流是否已结束
+
+        Follower(SseEmitter emitter, SseStreamRegistry.Stream stream, TaskEventBus.Subscription subscription,
+                 byte[] tail, Object requestId, boolean blocking) {
+            this.emitter = emitter;
+            this.stream = stream;
+            this.subscription = subscription;
+            this.requestId = requestId;
+            this.blocking = blocking;
+            // Deferred flushes run on the stream's writes too, not on the coalescer's timer
+            // 延迟的刷出也在流的写入上运行，而不在合并器的定时器上
+            this.frames = frameCoalescer.open(event -> writeFrame(emitter, stream, tail, event), stream);
+        }
+
+        /**
+         * Start draining when events arrive
+         * 开始在事件到达时取出事件
+         */
+        void start() {
+            subscription.onAvailable(this::schedule);
+        }
+
+        /**
+         * Write a stored status before the subscription's events
+         * 在订阅的事件之前写出保存的状态
+         */
+        void sendStatus(String taskId, Task task, long sequence) {
+            boolean ends = A2AServer.endsStream(task.status().state());
+            TaskEventBus.Event event = new TaskEventBus.Event(sequence,
+                new TaskStatusUpdateEvent(taskId, task.status(), ends, null));
+            stream.execute(() -> write(event));
+        }
+
+        void endTurn() {
+            turnEnded = true;
+            schedule();
+        }
+
+        void fail(String message) {
+            failure = message != null ? message : "Task failed";
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                stream.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            scheduled.set(false);
+            if (finished) {
+                return;
+            }
+            // Read before draining, so everything published before the turn ended or the subscription
+            // closed is written first
+            // 在取出事件之前读取，以便本轮结束或订阅关闭之前发布的事件都先写出
+            String failed = failure;
+            boolean turnDone = turnEnded;
+            boolean closed = subscription.isClosed();
+            TaskEventBus.Event event;
+            while (!ended && (event = subscription.poll()) != null) {
+                write(event);
+            }
+            // A blocking send ends with its turn, after the turn's events; a follow ends with a stream-ending
+            // event; both end once a disconnected subscription is drained
+            // 阻塞发送随本轮结束，在本轮事件之后；跟踪随结束流的事件结束；两者都在被断开的订阅取完后结束
+            boolean done;
+            if (failed != null) {
+                done = true;
+            } else if (blocking) {
+                done = turnDone || closed;
+            } else {
+                done = ended || closed;
+            }
+            if (!done) {
+                return;
+            }
+            finished = true;
+            frames.close();
+            subscription.close();
+            stream.close();
+            if (failed != null) {
+                // 任务处理出错，推送错误事件
+                sendErrorEvent(emitter, requestId, ErrorCode.INTERNAL_ERROR, failed);
+            } else {
+                emitter.complete();
+            }
+        }
+
+        private void write(TaskEventBus.Event event) {
+            if (ended) {
+                return;
+            }
+            frames.send(event);
+            ended = event.isFinal();
+        }
     }
 
     /**
-     * Parse TaskSendParams
-     * 解析任务发送参数
+     * Get agent card information
+     * 获取Agent Card信息，描述AI代理能力
      */
-    private TaskSendParams parseTaskSendParams(Object params) throws Exception {
-        return objectMapper.convertValue(params, TaskSendParams.class);
+    @GetMapping("/.well-known/agent-card")
+    public ResponseEntity<byte[]> getAgentCard() throws IOException {
+        byte[] json = agentCardJson;
+        if (json == null) {
+            // The card never changes, so it is serialized once; concurrent first calls may both do it
+            // 卡片不会改变，因此只序列化一次；并发的首次调用可能各自序列化
+            json = codec.writeAgentCard(server.getAgentCard());
+            agentCardJson = json;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
     }
 
     /**
@@ -220,7 +545,7 @@ public class A2AController {
 
             emitter.send(SseEmitter.event()
                     .name("error")
-                    .data(objectMapper.writeValueAsString(errorResponse)));
+                    .data(codec.writeStreamingResponseAsString(errorResponse)));
 
             emitter.completeWithError(new RuntimeException(message));
 
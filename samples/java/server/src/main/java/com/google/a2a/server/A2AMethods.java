@@ -0,0 +1,114 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.ErrorCode;
+import com.google.a2a.model.JSONRPCError;
+import com.google.a2a.model.JSONRPCResponse;
+import com.google.a2a.model.TaskIDParams;
+import com.google.a2a.model.TaskPushNotificationConfig;
+import com.google.a2a.model.TaskQueryParams;
+import com.google.a2a.model.TaskSendParams;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A2AMethods defines the JSON-RPC methods of the A2A protocol on an A2AServer
+ * A2AMethods在A2AServer上定义A2A协议的JSON-RPC方法
+ *
+ * <p>{@code tasks/send} may wait for a model call, so it runs on a bounded pool of its own with a
+ * timeout, and a full pool answers "Server is busy". {@code tasks/get} and {@code tasks/cancel} only
+ * touch the task store and run on the receiving thread, so they are answered right away however many
+ * sends are in flight. This server does not deliver push notifications: the
+ * {@code tasks/pushNotification/*} methods answer {@code -32002}. {@code tasks/resubscribe} streams
+ * events and is only served by {@code /a2a/stream}.
+ * {@code tasks/send}可能需要等待模型调用，因此在自己的有界线程池上运行并设有时限，线程池已满时应答"Server is busy"。
+ * {@code tasks/get}和{@code tasks/cancel}只访问任务存储，在接收线程上运行，因此无论有多少发送请求在进行都会立即应答。
+ * 本服务器不投递推送通知：{@code tasks/pushNotification/*}方法应答{@code -32002}。{@code tasks/resubscribe}推送事件流，
+ * 只由{@code /a2a/stream}提供。
+ */
+public class A2AMethods implements Closeable {
+
+    public static final int DEFAULT_SEND_THREADS = 200;
+    public static final int DEFAULT_SEND_QUEUE_CAPACITY = 1000;
+    public static final Duration DEFAULT_SEND_TIMEOUT = Duration.ofMinutes(5);
+
+    private final ThreadPoolExecutor sendExecutor; // 运行tasks/send的有界线程池
+    private final List<JsonRpcMethod<?>> methods;
+
+    public A2AMethods(A2AServer server) {
+        this(server, DEFAULT_SEND_THREADS, DEFAULT_SEND_QUEUE_CAPACITY, DEFAULT_SEND_TIMEOUT);
+    }
+
+    /**
+     * Define the methods
+     * 定义方法
+     *
+     * @param sendThreads {@code tasks/send} requests run at once
+     *                    同时运行的{@code tasks/send}请求数
+     * @param sendQueueCapacity {@code tasks/send} requests waiting for a thread
+     *                          等待线程的{@code tasks/send}请求数
+     * @param sendTimeout how long a {@code tasks/send} caller waits for the response
+     *                    {@code tasks/send}调用者等待响应的时间
+     */
+    public A2AMethods(A2AServer server, int sendThreads, int sendQueueCapacity, Duration sendTimeout) {
+        if (sendThreads <= 0 || sendQueueCapacity <= 0) {
+            throw new IllegalArgumentException("sendThreads and sendQueueCapacity must be positive");
+        }
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(sendQueueCapacity), NamedThreads.daemon("a2a-rpc-send-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.sendExecutor.allowCoreThreadTimeOut(true);
+        this.methods = List.of(
+            new JsonRpcMethod<>("tasks/send", TaskSendParams.class,
+                (id, params) -> server.handleTaskSend(id, params, TaskEventSink.NONE), sendExecutor, sendTimeout),
+            JsonRpcMethod.inline("tasks/get", TaskQueryParams.class, server::handleTaskGet),
+            JsonRpcMethod.inline("tasks/cancel", TaskIDParams.class, server::handleTaskCancel),
+            JsonRpcMethod.inline("tasks/pushNotification/set", TaskPushNotificationConfig.class,
+                (id, params) -> errorResponse(id, ErrorCode.PUSH_NOTIFICATION_NOT_SUPPORTED,
+                    "Push notifications are not supported")),
+            JsonRpcMethod.inline("tasks/pushNotification/get", TaskIDParams.class,
+                (id, params) -> errorResponse(id, ErrorCode.PUSH_NOTIFICATION_NOT_SUPPORTED,
+                    "Push notifications are not supported")),
+            JsonRpcMethod.inline("tasks/resubscribe", TaskQueryParams.class,
+                (id, params) -> errorResponse(id, ErrorCode.UNSUPPORTED_OPERATION,
+                    "tasks/resubscribe is only available on /a2a/stream"))
+        );
+    }
+
+    /**
+     * The methods, for a JsonRpcMethodRegistry
+     * 供JsonRpcMethodRegistry使用的方法列表
+     */
+    public List<JsonRpcMethod<?>> methods() {
+        return methods;
+    }
+
+    /**
+     * {@code tasks/send} requests running now
+     * 正在运行的{@code tasks/send}请求数
+     */
+    public int activeSends() {
+        return sendExecutor.getActiveCount();
+    }
+
+    /**
+     * {@code tasks/send} requests waiting for a thread
+     * 等待线程的{@code tasks/send}请求数
+     */
+    public int queuedSends() {
+        return sendExecutor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        sendExecutor.shutdownNow();
+    }
+
+    private static JSONRPCResponse errorResponse(Object requestId, ErrorCode code, String message) {
+        return new JSONRPCResponse(requestId, "2.0", null, new JSONRPCError(code.getValue(), message, null));
+    }
+}
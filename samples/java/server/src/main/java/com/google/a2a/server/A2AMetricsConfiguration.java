@@ -0,0 +1,392 @@
+package com.google.a2a.server;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes A2A server statistics as Micrometer meters (see /actuator/metrics)
+ * 将A2A服务器统计信息发布为Micrometer指标（见 /actuator/metrics）
+ */
+@Configuration
+public class A2AMetricsConfiguration {
+
+    /**
+     * Task store hit/miss/eviction counters and size gauges
+     * 任务存储的命中、未命中、淘汰计数及容量指标
+     */
+    @Bean
+    public MeterBinder taskStoreMetrics(TaskStore taskStore) {
+        return registry -> {
+            FunctionCounter.builder("a2a.task.store.requests", taskStore, store -> store.stats().hitCount())
+                .tag("result", "hit")
+                .description("Task lookups that found a task")
+                .register(registry);
+            FunctionCounter.builder("a2a.task.store.requests", taskStore, store -> store.stats().missCount())
+                .tag("result", "miss")
+                .description("Task lookups that found nothing")
+                .register(registry);
+            FunctionCounter.builder("a2a.task.store.evictions", taskStore, store -> store.stats().evictionCount())
+                .tag("cause", "size")
+                .description("Tasks evicted by size or weight limits")
+                .register(registry);
+            FunctionCounter.builder("a2a.task.store.evictions", taskStore, store -> store.stats().expirationCount())
+                .tag("cause", "expired")
+                .description("Terminal tasks expired after their TTL")
+                .register(registry);
+            Gauge.builder("a2a.task.store.size", taskStore, TaskStore::size)
+                .description("Number of stored tasks")
+                .register(registry);
+            Gauge.builder("a2a.task.store.weight", taskStore, store -> store.stats().weightBytes())
+                .baseUnit("bytes")
+                .description("Estimated bytes retained by stored tasks and history")
+                .register(registry);
+            if (taskStore instanceof JournaledTaskStore journaled) {
+                bindJournal(registry, journaled);
+            }
+        };
+    }
+
+    /**
+     * Handler executor queue depth, wait time and throughput
+     * 处理执行器的队列深度、排队时间和吞吐量
+     */
+    @Bean
+    public MeterBinder handlerExecutorMetrics(HandlerExecutor handlerExecutor) {
+        return registry -> {
+            Gauge.builder("a2a.handler.queue.depth", handlerExecutor, executor -> executor.stats().queueDepth())
+                .description("Non-blocking tasks and streams waiting to run")
+                .register(registry);
+            Gauge.builder("a2a.handler.active", handlerExecutor, executor -> executor.stats().activeCount())
+                .description("Handler invocations currently running")
+                .register(registry);
+            FunctionTimer.builder("a2a.handler.queue.wait", handlerExecutor,
+                    executor -> executor.stats().waitCount(),
+                    executor -> executor.stats().totalWaitNanos(), TimeUnit.NANOSECONDS)
+                .description("Time non-blocking tasks and streams spent queued before they started running")
+                .register(registry);
+            FunctionCounter.builder("a2a.handler.completed", handlerExecutor, executor -> executor.stats().completedCount())
+                .description("Non-blocking handler invocations and streams finished")
+                .register(registry);
+            FunctionCounter.builder("a2a.handler.rejected", handlerExecutor, executor -> executor.stats().rejectedCount())
+                .description("Non-blocking tasks and streams rejected because the queue was full")
+                .register(registry);
+            FunctionCounter.builder("a2a.handler.canceled", handlerExecutor, executor -> executor.stats().canceledCount())
+                .description("Non-blocking tasks canceled before or while running")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Translation cache hit/miss/eviction counters, hit ratio and size gauges
+     * 翻译缓存的命中、未命中、淘汰计数，命中率及容量指标
+     */
+    @Bean
+    public MeterBinder translationCacheMetrics(TranslationCache translationCache) {
+        return registry -> {
+            FunctionCounter.builder("a2a.translation.cache.requests", translationCache, cache -> cache.stats().hitCount())
+                .tag("result", "hit")
+                .description("Translations served from the cache")
+                .register(registry);
+            FunctionCounter.builder("a2a.translation.cache.requests", translationCache, cache -> cache.stats().missCount())
+                .tag("result", "miss")
+                .description("Translations that called the model")
+                .register(registry);
+            Gauge.builder("a2a.translation.cache.hit.ratio", translationCache, cache -> cache.stats().hitRate())
+                .description("Share of translations served from the cache")
+                .register(registry);
+            FunctionCounter.builder("a2a.translation.cache.evictions", translationCache,
+                    cache -> cache.stats().evictionCount())
+                .tag("cause", "size")
+                .description("Cached translations evicted by the weight limit")
+                .register(registry);
+            FunctionCounter.builder("a2a.translation.cache.evictions", translationCache,
+                    cache -> cache.stats().expirationCount())
+                .tag("cause", "expired")
+                .description("Cached translations expired after their TTL")
+                .register(registry);
+            Gauge.builder("a2a.translation.cache.size", translationCache, cache -> cache.stats().size())
+                .description("Number of cached translations")
+                .register(registry);
+            Gauge.builder("a2a.translation.cache.weight", translationCache, cache -> cache.stats().weightBytes())
+                .baseUnit("bytes")
+                .description("Estimated bytes retained by cached translations")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Model calls started and coalesced, the coalescing ratio and the calls in flight
+     * 发起和合并的模型调用数、合并比例及正在进行的调用数
+     */
+    @Bean
+    public MeterBinder modelCallMetrics(SingleFlight<String> modelCalls) {
+        return registry -> {
+            FunctionCounter.builder("a2a.model.calls", modelCalls, calls -> calls.stats().callCount())
+                .tag("result", "called")
+                .description("Model calls started")
+                .register(registry);
+            FunctionCounter.builder("a2a.model.calls", modelCalls, calls -> calls.stats().coalescedCount())
+                .tag("result", "coalesced")
+                .description("Requests that shared a model call already in flight")
+                .register(registry);
+            FunctionCounter.builder("a2a.model.calls.abandoned", modelCalls, calls -> calls.stats().abandonedCount())
+                .description("Model calls canceled because every waiting task was canceled")
+                .register(registry);
+            Gauge.builder("a2a.model.calls.coalescing.ratio", modelCalls, calls -> calls.stats().coalescingRatio())
+                .description("Share of requests that shared a model call already in flight")
+                .register(registry);
+            Gauge.builder("a2a.model.calls.in.flight", modelCalls, calls -> calls.stats().inFlight())
+                .description("Model calls in flight")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Batches sent, texts per batch and batches that fell back to one call per text
+     * 发送的批次数、每批文本数及退回逐条调用的批次数
+     */
+    @Bean
+    public MeterBinder translationBatchMetrics(TranslationBatcher translationBatcher) {
+        return registry -> {
+            FunctionCounter.builder("a2a.translation.batches", translationBatcher,
+                    batcher -> batcher.stats().batchCount())
+                .description("Prompts sent with more than one text")
+                .register(registry);
+            FunctionCounter.builder("a2a.translation.batch.texts", translationBatcher,
+                    batcher -> batcher.stats().batchedTextCount())
+                .description("Texts sent in batched prompts")
+                .register(registry);
+            FunctionCounter.builder("a2a.translation.batch.fallbacks", translationBatcher,
+                    batcher -> batcher.stats().fallbackCount())
+                .description("Batches whose answer could not be split and were translated text by text")
+                .register(registry);
+            Gauge.builder("a2a.translation.batch.size", translationBatcher,
+                    batcher -> batcher.stats().averageBatchSize())
+                .description("Average number of texts per batched prompt")
+                .register(registry);
+        };
+    }
+
+    /**
+     * SSE events, frames written after coalescing, bytes per frame, and shared frame reuse
+     * SSE事件数、合并后写出的帧数、每帧字节数及共享帧的复用
+     */
+    @Bean
+    public MeterBinder sseFrameMetrics(SseFrameCoalescer frameCoalescer, SseFrameEncoder frameEncoder) {
+        return registry -> {
+            FunctionCounter.builder("a2a.sse.events", frameCoalescer, coalescer -> coalescer.stats().eventCount())
+                .description("Stream events before coalescing")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.frames", frameCoalescer, coalescer -> coalescer.stats().frameCount())
+                .description("SSE frames written")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.frame.bytes", frameCoalescer, coalescer -> coalescer.stats().byteCount())
+                .baseUnit("bytes")
+                .description("Bytes of SSE frame data written")
+                .register(registry);
+            Gauge.builder("a2a.sse.frame.size", frameCoalescer, coalescer -> coalescer.stats().averageFrameBytes())
+                .baseUnit("bytes")
+                .description("Average bytes per SSE frame")
+                .register(registry);
+            Gauge.builder("a2a.sse.frame.events", frameCoalescer, coalescer -> coalescer.stats().eventsPerFrame())
+                .description("Average stream events merged into one SSE frame")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.encodings", frameEncoder, encoder -> encoder.stats().encodedCount())
+                .tag("result", "encoded")
+                .description("Events serialized into a frame shared by all streams of the task")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.encodings", frameEncoder, encoder -> encoder.stats().reusedCount())
+                .tag("result", "reused")
+                .description("Frames written from bytes another stream already serialized")
+                .register(registry);
+            Gauge.builder("a2a.sse.encoding.reuse", frameEncoder, encoder -> encoder.stats().reuseRatio())
+                .description("Share of frame writes that reused a shared frame")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Open SSE streams, streams refused by the caps, heartbeats, and streams aborted by reason
+     * 打开的SSE流、被上限拒绝的流、心跳以及按原因统计的被中止的流
+     */
+    @Bean
+    public MeterBinder sseStreamMetrics(SseStreamRegistry streamRegistry) {
+        return registry -> {
+            Gauge.builder("a2a.sse.streams", streamRegistry, streams -> streams.stats().openCount())
+                .description("Open SSE streams")
+                .register(registry);
+            Gauge.builder("a2a.sse.streams.limit", streamRegistry, SseStreamRegistry::maxStreams)
+                .description("SSE streams allowed open at once")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.streams.rejected", streamRegistry,
+                    streams -> streams.stats().rejectedCount())
+                .description("SSE streams refused because too many were open")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.heartbeats", streamRegistry, streams -> streams.stats().heartbeatCount())
+                .description("Heartbeat comments written to quiet SSE streams")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.streams.aborted", streamRegistry, streams -> streams.stats().idleCount())
+                .tag("reason", "idle")
+                .description("SSE streams aborted after the idle timeout")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.streams.aborted", streamRegistry,
+                    streams -> streams.stats().expiredCount())
+                .tag("reason", "expired")
+                .description("SSE streams aborted after the maximum duration")
+                .register(registry);
+            FunctionCounter.builder("a2a.sse.streams.aborted", streamRegistry,
+                    streams -> streams.stats().disconnectedCount())
+                .tag("reason", "disconnected")
+                .description("SSE streams aborted because their client went away")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Calls, errors, rejections and timeouts of every JSON-RPC method, and the tasks/send pool
+     * 每个JSON-RPC方法的调用、错误、拒绝和超时次数，以及tasks/send线程池
+     */
+    @Bean
+    public MeterBinder jsonRpcMethodMetrics(JsonRpcMethodRegistry methodRegistry, A2AMethods a2aMethods) {
+        return registry -> {
+            for (String method : methodRegistry.methodNames()) {
+                FunctionTimer.builder("a2a.rpc.calls", methodRegistry,
+                        methods -> methods.stats(method).callCount(),
+                        methods -> methods.stats(method).totalNanos(), TimeUnit.NANOSECONDS)
+                    .tag("method", method)
+                    .description("JSON-RPC requests answered, from receipt to response")
+                    .register(registry);
+                FunctionCounter.builder("a2a.rpc.errors", methodRegistry, methods -> methods.stats(method).errorCount())
+                    .tag("method", method)
+                    .description("JSON-RPC requests answered with an error")
+                    .register(registry);
+                FunctionCounter.builder("a2a.rpc.rejected", methodRegistry,
+                        methods -> methods.stats(method).rejectedCount())
+                    .tag("method", method)
+                    .description("JSON-RPC requests refused because the method's executor was full")
+                    .register(registry);
+                FunctionCounter.builder("a2a.rpc.timeouts", methodRegistry,
+                        methods -> methods.stats(method).timeoutCount())
+                    .tag("method", method)
+                    .description("JSON-RPC requests answered with an error after the method's timeout")
+                    .register(registry);
+            }
+            Gauge.builder("a2a.rpc.send.active", a2aMethods, A2AMethods::activeSends)
+                .description("tasks/send requests running")
+                .register(registry);
+            Gauge.builder("a2a.rpc.send.queue.depth", a2aMethods, A2AMethods::queuedSends)
+                .description("tasks/send requests waiting for a thread")
+                .register(registry);
+        };
+    }
+
+    /**
+     * JSON-RPC batches and their calls, and the share of calls run by helper threads
+     * JSON-RPC批量及其调用数，以及由协助线程执行的调用比例
+     */
+    @Bean
+    public MeterBinder jsonRpcBatchMetrics(JsonRpcBatchDispatcher batchDispatcher) {
+        return registry -> {
+            FunctionCounter.builder("a2a.jsonrpc.batches", batchDispatcher, batches -> batches.stats().batchCount())
+                .description("JSON-RPC batch requests dispatched")
+                .register(registry);
+            FunctionCounter.builder("a2a.jsonrpc.batch.calls", batchDispatcher,
+                    batches -> batches.stats().callCount())
+                .description("Calls in dispatched JSON-RPC batch requests")
+                .register(registry);
+            FunctionCounter.builder("a2a.jsonrpc.batches.rejected", batchDispatcher,
+                    batches -> batches.stats().rejectedCount())
+                .description("JSON-RPC batch requests refused because they had too many calls")
+                .register(registry);
+            Gauge.builder("a2a.jsonrpc.batch.parallel.ratio", batchDispatcher,
+                    batches -> batches.stats().parallelRatio())
+                .description("Share of batch calls run by helper threads")
+                .register(registry);
+            Gauge.builder("a2a.jsonrpc.batch.helpers.active", batchDispatcher,
+                    batches -> batches.stats().activeHelpers())
+                .description("Helper threads currently running batch calls")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Events published and replayed, open subscriptions, and subscribers that fell behind
+     * 发布和重放的事件数、打开的订阅数以及跟不上的订阅者
+     */
+    @Bean
+    public MeterBinder taskEventBusMetrics(TaskEventBus taskEventBus) {
+        return registry -> {
+            FunctionCounter.builder("a2a.events.published", taskEventBus, bus -> bus.stats().publishedCount())
+                .description("Task events published on the event bus")
+                .register(registry);
+            FunctionCounter.builder("a2a.events.replayed", taskEventBus, bus -> bus.stats().replayedCount())
+                .description("Retained events replayed to resubscribing streams")
+                .register(registry);
+            FunctionCounter.builder("a2a.events.slow.consumers", taskEventBus, bus -> bus.stats().droppedCount())
+                .tag("action", "dropped")
+                .description("Events slow subscribers lost under the drop-oldest policy")
+                .register(registry);
+            FunctionCounter.builder("a2a.events.slow.consumers", taskEventBus,
+                    bus -> bus.stats().disconnectedCount())
+                .tag("action", "disconnected")
+                .description("Slow subscribers disconnected under the disconnect policy")
+                .register(registry);
+            Gauge.builder("a2a.events.topics", taskEventBus, bus -> bus.stats().topicCount())
+                .description("Tasks whose recent events are retained")
+                .register(registry);
+            Gauge.builder("a2a.events.subscribers", taskEventBus, bus -> bus.stats().subscriberCount())
+                .description("Open event subscriptions")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Tasks with messages in flight and messages rejected by full mailboxes
+     * 有消息正在处理的任务数及因邮箱已满被拒绝的消息数
+     */
+    @Bean
+    public MeterBinder taskMailboxMetrics(TaskMailboxes taskMailboxes) {
+        return registry -> {
+            Gauge.builder("a2a.mailbox.active", taskMailboxes, TaskMailboxes::activeCount)
+                .description("Tasks with a message running or waiting for its turn")
+                .register(registry);
+            FunctionCounter.builder("a2a.mailbox.rejected", taskMailboxes, TaskMailboxes::rejectedCount)
+                .description("Messages rejected because their task had too many pending messages")
+                .register(registry);
+        };
+    }
+
+    /**
+     * Journal segment count, snapshot timings and compaction progress
+     * 日志段数量、快照耗时及压缩进度
+     */
+    private static void bindJournal(MeterRegistry registry, JournaledTaskStore store) {
+        Gauge.builder("a2a.journal.segments", store, s -> s.journalStats().segmentCount())
+            .description("Journal segment files on disk")
+            .register(registry);
+        FunctionTimer.builder("a2a.journal.snapshot", store,
+                s -> s.journalStats().snapshotCount(),
+                s -> s.journalStats().snapshotTotalMillis(), TimeUnit.MILLISECONDS)
+            .description("Snapshots written and time spent writing them")
+            .register(registry);
+        TimeGauge.builder("a2a.journal.snapshot.last", store, TimeUnit.MILLISECONDS,
+                s -> s.journalStats().lastSnapshotMillis())
+            .description("Duration of the most recent snapshot")
+            .register(registry);
+        FunctionCounter.builder("a2a.journal.compactions", store, s -> s.journalStats().compactionCount())
+            .description("Segments rewritten by the compactor")
+            .register(registry);
+        FunctionCounter.builder("a2a.journal.reclaimed", store, s -> s.journalStats().reclaimedBytes())
+            .baseUnit("bytes")
+            .description("Disk bytes freed by snapshots and compaction")
+            .register(registry);
+    }
+}
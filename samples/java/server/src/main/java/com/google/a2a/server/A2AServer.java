@@ -2,14 +2,21 @@ package com.google.a2a.server;
 
 import com.google.a2a.model.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * A2AServer represents an A2A server instance
@@ -17,69 +24,342 @@ import java.util.UUID;
  */
 public class A2AServer {
 
+    private static final Logger logger = LoggerFactory.getLogger(A2AServer.class);
+
     private final AgentCard agentCard; // 代理卡片，描述AI代理能力
     private final TaskHandler handler; // 任务处理器，处理具体业务逻辑
-    private final Map<String, Task> taskStore; // 任务存储，保存所有任务对象
-    private final Map<String, List<Message>> taskHistory; // 任务历史，保存每个任务的消息历史
+    private final TaskStore taskStore; // 任务存储，保存任务对象及其消息历史
+    private final HandlerExecutor handlerExecutor; // 非阻塞请求的后台执行器
     private final ObjectMapper objectMapper; // JSON对象映射器
+    private final TaskStateMachine stateMachine; // 基于版本的任务状态转换
+    private final TaskMailboxes mailboxes; // 按任务依次处理消息
+    private final TaskEventBus eventBus; // 向订阅者分发任务事件
+    private final ConcurrentHashMap<String, Execution> executions = new ConcurrentHashMap<>(); // 按任务ID记录正在处理的任务
 
     public A2AServer(AgentCard agentCard, TaskHandler handler, ObjectMapper objectMapper) {
+        this(agentCard, handler, new InMemoryTaskStore(), objectMapper);
+    }
+
+    public A2AServer(AgentCard agentCard, TaskHandler handler, TaskStore taskStore, ObjectMapper objectMapper) {
+        this(agentCard, handler, taskStore, new HandlerExecutor(), objectMapper);
+    }
+
+    public A2AServer(AgentCard agentCard, TaskHandler handler, TaskStore taskStore, HandlerExecutor handlerExecutor,
+                     ObjectMapper objectMapper) {
+        this(agentCard, handler, taskStore, handlerExecutor, new TaskMailboxes(), objectMapper);
+    }
+
+    public A2AServer(AgentCard agentCard, TaskHandler handler, TaskStore taskStore, HandlerExecutor handlerExecutor,
+                     TaskMailboxes mailboxes, ObjectMapper objectMapper) {
+        this(agentCard, handler, taskStore, handlerExecutor, mailboxes, new TaskEventBus(), objectMapper);
+    }
+
+    public A2AServer(AgentCard agentCard, TaskHandler handler, TaskStore taskStore, HandlerExecutor handlerExecutor,
+                     TaskMailboxes mailboxes, TaskEventBus eventBus, ObjectMapper objectMapper) {
         this.agentCard = agentCard;
         this.handler = handler;
-        this.taskStore = new ConcurrentHashMap<>();
-        this.taskHistory = new ConcurrentHashMap<>();
+        this.taskStore = taskStore;
+        this.handlerExecutor = handlerExecutor;
+        this.mailboxes = mailboxes;
+        this.eventBus = eventBus;
         this.objectMapper = objectMapper;
+        this.stateMachine = new TaskStateMachine(taskStore);
     }
 
     /**
      * Handle task send request
      * 处理任务发送请求，创建新任务并调用业务处理逻辑
+     *
+     * <p>By default the handler runs on the calling thread and the finished task is returned.
+     * With {@code configuration.blocking=false} the task is returned as SUBMITTED right away and
+     * the handler runs on the HandlerExecutor; clients poll {@code tasks/get} for the result.
+     * 默认在调用线程上运行处理器并返回完成的任务。当{@code configuration.blocking=false}时立即返回SUBMITTED状态的任务，
+     * 处理器在HandlerExecutor上运行，客户端通过{@code tasks/get}轮询结果。
+     *
+     * <p>Messages for the same task are processed one at a time, in arrival order: each turn
+     * (record the message, run the handler, store the result) starts only after the previous one
+     * finished, so the handler always sees the task left by the previous turn. A non-blocking message
+     * queued behind another turn is acknowledged as SUBMITTED without its message in the history yet.
+     * 同一任务的消息按到达顺序逐条处理：每一轮（记录消息、运行处理器、保存结果）在上一轮结束后才开始，
+     * 因此处理器总能看到上一轮留下的任务。排在其他轮次之后的非阻塞消息以SUBMITTED确认，此时历史中尚不包含该消息。
+     *
+     * <p>Every status change and every event the handler emits is published on the TaskEventBus, where
+     * any number of streams can follow the task.
+     * 每次状态变化以及处理器发出的每个事件都会发布到TaskEventBus上，任意数量的流都可以在那里跟踪该任务。
      */
     public JSONRPCResponse handleTaskSend(JSONRPCRequest request) {
-        try {
-            TaskSendParams params = parseParams(request.params(), TaskSendParams.class);
-
-            // Generate contextId if not provided
-            // 生成上下文ID（如未提供）
-            String contextId = UUID.randomUUID().toString();
-
-            // Create initial task status
-            // 创建初始任务状态，标记为WORKING
-            TaskStatus initialStatus = new TaskStatus(
-                TaskState.WORKING,
-                null,  // No message initially
-                Instant.now().toString()  // Current timestamp
-            );
-
-            // Create new task with all required fields
-            // 创建新任务对象，包含所有必要字段
-            Task task = new Task(
-                params.id(),
-                contextId,
-                "task",  // kind is always "task"
-                initialStatus,
-                null,    // No artifacts initially
-                null,    // No history initially 
-                params.metadata()  // Use metadata from params
-            );
-
-            // Process task
-            // 调用任务处理器处理任务
-            Task updatedTask = handler.handle(task, params.message());
-
-            // Store task and history
-            // 存储任务和消息历史
-            taskStore.put(task.id(), updatedTask);
-            taskHistory.computeIfAbsent(task.id(), k -> new CopyOnWriteArrayList<>())
-                      .add(params.message());
-
-            // 返回成功响应，包含处理后的任务
-            return createSuccessResponse(request.id(), updatedTask);
+        return handleTaskSend(request, TaskEventSink.NONE);
+    }
 
+    /**
+     * Handle task send request, passing the handler's intermediate events to a sink
+     * 处理任务发送请求，并将处理器的中间事件传给接收器
+     *
+     * <p>Events are delivered only for blocking requests, on the calling thread, each one right after it
+     * was published on the TaskEventBus: the WORKING status when the turn starts, whatever the handler
+     * emits, and the status of the stored result.
+     * 仅阻塞请求会传递事件，在调用线程上、每个事件发布到TaskEventBus之后立即传递：本轮开始时的WORKING状态、处理器发出的事件，
+     * 以及保存结果的状态。
+     *
+     * @param events receives the status updates and artifact chunks of this turn
+     *               接收本轮的状态更新和制品分块
+     */
+    public JSONRPCResponse handleTaskSend(JSONRPCRequest request, TaskEventSink events) {
+        TaskSendParams params;
+        try {
+            params = parseParams(request.params(), TaskSendParams.class);
         } catch (Exception e) {
-            // 发生异常，返回错误响应
             return createErrorResponse(request.id(), ErrorCode.INTERNAL_ERROR, e.getMessage());
         }
+        return handleTaskSend(request.id(), params, events);
+    }
+
+    /**
+     * Handle task send request with parameters that were already read
+     * 使用已读取的参数处理任务发送请求
+     *
+     * @param requestId id of the JSON-RPC request, echoed in the response
+     *                  JSON-RPC请求的ID，在响应中原样返回
+     */
+    public JSONRPCResponse handleTaskSend(Object requestId, TaskSendParams params, TaskEventSink events) {
+        try {
+            Task task = newTask(params);
+            Task resultTask = params.isBlocking()
+                ? sendBlocking(task, params.message(), events)
+                : sendNonBlocking(task, params.message());
+            return sendResponse(requestId, params, resultTask);
+
+        } catch (RejectedExecutionException e) {
+            // 该任务排队的消息过多，不影响正在处理的轮次
+            return createErrorResponse(requestId, ErrorCode.INTERNAL_ERROR, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return createErrorResponse(requestId, ErrorCode.INTERNAL_ERROR, "Interrupted while waiting for the task");
+        } catch (Exception e) {
+            // 发生异常（任务已在其轮次内标记为失败），返回错误响应
+            return createErrorResponse(requestId, ErrorCode.INTERNAL_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * The task a send request opens, before its turn has run
+     * 发送请求所开启的任务（本轮运行之前）
+     */
+    private Task newTask(TaskSendParams params) {
+        // Generate contextId if not provided
+        // 生成上下文ID（如未提供）
+        String contextId = UUID.randomUUID().toString();
+
+        // Create new task with all required fields
+        // 创建新任务对象，包含所有必要字段；非阻塞请求先标记为SUBMITTED，否则为WORKING
+        return new Task(
+            params.id(),
+            contextId,
+            "task",  // kind is always "task"
+            newStatus(params.isBlocking() ? TaskState.WORKING : TaskState.SUBMITTED),
+            null,    // No artifacts initially
+            null,    // No history initially 
+            params.metadata()  // Use metadata from params
+        );
+    }
+
+    /**
+     * The response to a send request once its turn ran or was queued
+     * 本轮运行或排队之后对发送请求的响应
+     *
+     * @param resultTask the task to answer with, or null if the executor rejected the turn
+     *                   作为响应的任务，执行器拒绝本轮时为null
+     */
+    private JSONRPCResponse sendResponse(Object requestId, TaskSendParams params, Task resultTask) {
+        if (resultTask == null) {
+            return createErrorResponse(requestId, ErrorCode.INTERNAL_ERROR, "Server is busy, please retry later");
+        }
+        // 返回成功响应，按historyLength附带历史（未指定时返回全部历史）
+        int historyLength = params.historyLength() != null ? params.historyLength() : Integer.MAX_VALUE;
+        return createSuccessResponse(requestId,
+            resultTask.withHistory(taskStore.getRecentHistory(resultTask.id(), historyLength)));
+    }
+
+    /**
+     * Handle task send request without blocking the caller
+     * 不阻塞调用者地处理任务发送请求
+     *
+     * <p>The request is handled as by {@link #handleTaskSend(JSONRPCRequest, TaskEventSink)}, but on the
+     * HandlerExecutor, so event-loop callers such as a reactive server never wait for the model. The
+     * future completes with the response once the turn ended, or with a busy error when the executor is
+     * full as the turn begins; events reach the sink on the handler thread.
+     * 请求的处理方式与{@link #handleTaskSend(JSONRPCRequest, TaskEventSink)}相同，但在HandlerExecutor上进行，
+     * 因此响应式服务器等事件循环调用者不会等待模型。本轮结束后future以响应完成；本轮开始时执行器已满则以繁忙错误完成；
+     * 事件在处理器线程上到达接收器。
+     */
+    public CompletableFuture<JSONRPCResponse> handleTaskSendAsync(JSONRPCRequest request, TaskEventSink events) {
+        TaskSendParams params;
+        try {
+            params = parseParams(request.params(), TaskSendParams.class);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(
+                createErrorResponse(request.id(), ErrorCode.INTERNAL_ERROR, e.getMessage()));
+        }
+        return handleTaskSendAsync(request.id(), params, events);
+    }
+
+    /**
+     * Handle task send request with parameters that were already read, without blocking the caller
+     * 使用已读取的参数处理任务发送请求，不阻塞调用者
+     *
+     * <p>A blocking request waits for its task's turn in the mailbox, not on an executor thread, and only
+     * takes a HandlerExecutor slot once the turn has begun; otherwise requests waiting behind a
+     * non-blocking turn of the same task could fill the executor while that turn sits in its queue.
+     * 阻塞请求在邮箱中而不是在执行器线程上等待其任务的轮次，轮次开始后才占用HandlerExecutor的位置；
+     * 否则排在同一任务非阻塞轮次之后的请求可能占满执行器，而该轮次一直留在执行器队列中。
+     */
+    public CompletableFuture<JSONRPCResponse> handleTaskSendAsync(Object requestId, TaskSendParams params,
+                                                                  TaskEventSink events) {
+        if (!params.isBlocking()) {
+            return submitAsync(requestId, () -> handleTaskSend(requestId, params, events));
+        }
+        CompletableFuture<JSONRPCResponse> response = new CompletableFuture<>();
+        Task task = newTask(params);
+        try {
+            mailboxes.enqueue(task.id(), new Execution(started -> {
+                try {
+                    handlerExecutor.submit(() -> {
+                        try {
+                            response.complete(sendResponse(requestId, params,
+                                runTurn(task, params.message(), started, events)));
+                        } catch (Exception e) {
+                            response.complete(createErrorResponse(requestId, ErrorCode.INTERNAL_ERROR,
+                                e.getMessage()));
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // The task was not opened, so the next turn can start right away
+                    // 任务尚未开启，下一轮可以立即开始
+                    started.finish();
+                    response.complete(sendResponse(requestId, params, null));
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            // 该任务排队的消息过多
+            response.complete(createErrorResponse(requestId, ErrorCode.INTERNAL_ERROR, e.getMessage()));
+        }
+        return response;
+    }
+
+    private CompletableFuture<JSONRPCResponse> submitAsync(Object requestId, Supplier<JSONRPCResponse> send) {
+        CompletableFuture<JSONRPCResponse> response = new CompletableFuture<>();
+        try {
+            handlerExecutor.submit(() -> {
+                try {
+                    response.complete(send.get());
+                } catch (RuntimeException e) {
+                    response.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            response.complete(
+                createErrorResponse(requestId, ErrorCode.INTERNAL_ERROR, "Server is busy, please retry later"));
+        }
+        return response;
+    }
+
+    /**
+     * Wait for the task's turn, then run the handler on the calling thread
+     * 等待轮到该任务后，在调用线程上运行处理器
+     */
+    private Task sendBlocking(Task task, Message message, TaskEventSink events) throws Exception {
+        CountDownLatch turn = new CountDownLatch(1);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Execution execution = new Execution(started -> {
+            turn.countDown();
+            if (abandoned.get()) {
+                started.finish();
+            }
+        });
+        mailboxes.enqueue(task.id(), execution);
+        try {
+            turn.await();
+        } catch (InterruptedException e) {
+            // Give up the turn; whoever sees the other side first passes it on
+            // 放弃这一轮；先察觉到对方的一方负责移交给下一轮
+            abandoned.set(true);
+            if (turn.getCount() == 0) {
+                execution.finish();
+            }
+            throw e;
+        }
+        return runTurn(task, message, execution, events);
+    }
+
+    /**
+     * Run a blocking turn that has started on the calling thread
+     * 在调用线程上运行已开始的阻塞轮次
+     */
+    private Task runTurn(Task task, Message message, Execution execution, TaskEventSink events) throws Exception {
+        try {
+            if (!execution.begin()) {
+                // 排队时任务已被取消
+                return taskStore.get(task.id());
+            }
+            VersionedTask opened = open(task, message);
+            executions.put(task.id(), execution);
+            publishStatus(opened.task(), events);
+            return runHandler(opened, message, execution, events);
+        } catch (Exception e) {
+            // Fail the task before the next turn may start
+            // 在下一轮可能开始之前将任务标记为失败
+            markFailed(task.id());
+            throw e;
+        } finally {
+            execution.finish();
+        }
+    }
+
+    /**
+     * Queue the turn and return at once; the handler runs on the HandlerExecutor when the turn starts
+     * 将这一轮加入队列并立即返回；轮到时处理器在HandlerExecutor上运行
+     *
+     * @return the submitted task, or null if the executor rejected it
+     *         已提交的任务，执行器拒绝时返回null
+     */
+    private Task sendNonBlocking(Task task, Message message) {
+        AtomicBoolean rejected = new AtomicBoolean();
+        mailboxes.enqueue(task.id(), new Execution(started -> {
+            try {
+                if (started.token.isCancellationRequested()) {
+                    started.finish();
+                    return;
+                }
+                VersionedTask opened = open(task, message);
+                executions.put(task.id(), started);
+                publishStatus(opened.task(), TaskEventSink.NONE);
+                submitHandler(opened, message, started);
+            } catch (Exception e) {
+                // Usually runs on the thread that finished the previous turn, so the error stays here
+                // 通常在结束上一轮的线程上运行，因此错误在此处理
+                if (e instanceof RejectedExecutionException) {
+                    rejected.set(true);
+                } else {
+                    logger.warn("Task {} failed", task.id(), e);
+                }
+                executions.remove(task.id(), started);
+                markFailed(task.id());
+                started.finish();
+            }
+        }));
+        // If the turn started on this thread, a rejection is reported to the caller
+        // 如果这一轮在当前线程上开始，拒绝会报告给调用方
+        return rejected.get() ? null : task;
+    }
+
+    /**
+     * Record the task and the user message; the store owns the history
+     * 记录任务和用户消息，历史只由任务存储保存
+     */
+    private VersionedTask open(Task task, Message message) {
+        VersionedTask opened = stateMachine.open(task);
+        taskStore.appendHistory(task.id(), message);
+        return opened;
     }
 
     /**
@@ -87,99 +367,306 @@ public class A2AServer {
      * 处理任务查询请求，根据ID获取任务及其历史
      */
     public JSONRPCResponse handleTaskGet(JSONRPCRequest request) {
+        TaskQueryParams params;
         try {
-            TaskQueryParams params = parseParams(request.params(), TaskQueryParams.class);
+            params = parseParams(request.params(), TaskQueryParams.class);
+        } catch (Exception e) {
+            // 参数错误，返回错误响应
+            return createErrorResponse(request.id(), ErrorCode.INVALID_REQUEST, "Invalid parameters");
+        }
+        return handleTaskGet(request.id(), params);
+    }
 
+    /**
+     * Handle task get request with parameters that were already read
+     * 使用已读取的参数处理任务查询请求
+     */
+    public JSONRPCResponse handleTaskGet(Object requestId, TaskQueryParams params) {
+        try {
             Task task = taskStore.get(params.id());
             if (task == null) {
-                // 未找到任务，返回错误
-                return createErrorResponse(request.id(), ErrorCode.TASK_NOT_FOUND, "Task not found");
+                // 未找到任务（或已被淘汰），返回错误
+                return createErrorResponse(requestId, ErrorCode.TASK_NOT_FOUND, "Task not found");
             }
 
             // Include history if requested
             // 如果请求指定了historyLength，则返回部分历史
             if (params.historyLength() != null && params.historyLength() > 0) {
-                List<Message> history = getTaskHistory(params.id());
-                int limit = Math.min(params.historyLength(), history.size());
-                List<Message> limitedHistory = history.subList(Math.max(0, history.size() - limit), history.size());
+                // Only the requested tail is read; the window does not copy messages
+                // 只读取请求的尾部窗口，不复制消息
+                List<Message> limitedHistory = taskStore.getRecentHistory(params.id(), params.historyLength());
                 
                 // Create task with history
                 // 创建包含历史的任务对象
-                Task taskWithHistory = new Task(
-                    task.id(),
-                    task.contextId(),
-                    task.kind(),
-                    task.status(),
-                    task.artifacts(),
-                    limitedHistory,
-                    task.metadata()
-                );
+                Task taskWithHistory = task.withHistory(limitedHistory);
                 
-                return createSuccessResponse(request.id(), taskWithHistory);
+                return createSuccessResponse(requestId, taskWithHistory);
             }
 
             // 返回不带历史的任务
-            return createSuccessResponse(request.id(), task);
+            return createSuccessResponse(requestId, task);
 
         } catch (Exception e) {
             // 参数错误，返回错误响应
-            return createErrorResponse(request.id(), ErrorCode.INVALID_REQUEST, "Invalid parameters");
+            return createErrorResponse(requestId, ErrorCode.INVALID_REQUEST, "Invalid parameters");
         }
     }
 
     /**
      * Handle task cancel request
      * 处理任务取消请求，尝试将任务状态置为CANCELED
+     *
+     * <p>Messages still waiting for their turn are dropped and a queued handler is removed from the
+     * executor; a running one is signaled through its CancellationToken and interrupted, and whatever
+     * it returns afterwards is discarded.
+     * 仍在排队的消息会被丢弃，排队中的处理器会从执行器中移除；正在运行的处理器会通过CancellationToken收到通知并被中断，
+     * 之后返回的结果会被丢弃。
      */
     public JSONRPCResponse handleTaskCancel(JSONRPCRequest request) {
+        TaskIDParams params;
         try {
-            TaskIDParams params = parseParams(request.params(), TaskIDParams.class);
+            params = parseParams(request.params(), TaskIDParams.class);
+        } catch (Exception e) {
+            // 参数错误，返回错误响应
+            return createErrorResponse(request.id(), ErrorCode.INVALID_REQUEST, "Invalid parameters");
+        }
+        return handleTaskCancel(request.id(), params);
+    }
 
-            Task task = taskStore.get(params.id());
-            if (task == null) {
+    /**
+     * Handle task cancel request with parameters that were already read
+     * 使用已读取的参数处理任务取消请求
+     */
+    public JSONRPCResponse handleTaskCancel(Object requestId, TaskIDParams params) {
+        try {
+            // Check if task can be canceled and cancel it atomically; finished tasks cannot be canceled
+            // 原子地检查并取消任务；已结束（完成、取消、失败）的任务不可取消
+            Task canceledTask;
+            try {
+                canceledTask = cancel(params.id());
+            } catch (IllegalTaskTransitionException e) {
+                return createErrorResponse(requestId, ErrorCode.TASK_NOT_CANCELABLE, "Task cannot be canceled");
+            }
+            if (canceledTask == null) {
                 // 未找到任务，返回错误
-                return createErrorResponse(request.id(), ErrorCode.TASK_NOT_FOUND, "Task not found");
-            }
-
-            // Check if task can be canceled
-            // 检查任务是否可以取消（已完成、已取消、已失败的任务不可取消）
-            if (task.status().state() == TaskState.COMPLETED || 
-                task.status().state() == TaskState.CANCELED ||
-                task.status().state() == TaskState.FAILED) {
-                return createErrorResponse(request.id(), ErrorCode.TASK_NOT_CANCELABLE, "Task cannot be canceled");
-            }
-
-            // Create canceled status with timestamp
-            // 创建取消状态
-            TaskStatus canceledStatus = new TaskStatus(
-                TaskState.CANCELED,
-                null,  // No message
-                Instant.now().toString()
-            );
-
-            // Update task status to canceled
-            // 更新任务状态为已取消
-            Task canceledTask = new Task(
-                task.id(),
-                task.contextId(),
-                task.kind(),
-                canceledStatus,
-                task.artifacts(),
-                task.history(),
-                task.metadata()
-            );
-            
-            taskStore.put(params.id(), canceledTask);
+                return createErrorResponse(requestId, ErrorCode.TASK_NOT_FOUND, "Task not found");
+            }
 
             // 返回已取消的任务
-            return createSuccessResponse(request.id(), canceledTask);
+            return createSuccessResponse(requestId, canceledTask);
 
         } catch (Exception e) {
             // 参数错误，返回错误响应
-            return createErrorResponse(request.id(), ErrorCode.INVALID_REQUEST, "Invalid parameters");
+            return createErrorResponse(requestId, ErrorCode.INVALID_REQUEST, "Invalid parameters");
+        }
+    }
+
+    /**
+     * Cancel a task on the server's own behalf, for example when the stream that started it went away
+     * 由服务器自身取消任务，例如启动任务的流已断开时
+     *
+     * @return whether the task was canceled; false if it is unknown or already finished
+     *         任务是否被取消；任务不存在或已结束时为false
+     */
+    public boolean cancelTask(String taskId) {
+        try {
+            return cancel(taskId) != null;
+        } catch (IllegalTaskTransitionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Move a task to CANCELED, publish it, drop its queued messages and stop its handler
+     * 将任务置为CANCELED并发布，丢弃其排队的消息并停止其处理器
+     *
+     * @return the canceled task, or null if it does not exist
+     *         已取消的任务；任务不存在时返回null
+     * @throws IllegalTaskTransitionException if the task has already finished
+     */
+    private Task cancel(String taskId) {
+        VersionedTask canceled = stateMachine.transition(taskId, TaskState.CANCELED);
+        if (canceled == null) {
+            return null;
+        }
+        Task canceledTask = canceled.task();
+        publishStatus(canceledTask, TaskEventSink.NONE);
+
+        // Drop the messages still waiting for their turn, then stop the handler; the version it
+        // started from is gone, so its result cannot be stored
+        // 丢弃仍在排队的消息，然后停止处理器；其开始时的版本已被替换，因此其结果无法保存
+        mailboxes.cancelPending(taskId);
+        Execution execution = executions.remove(taskId);
+        if (execution != null) {
+            execution.cancel();
+        }
+        return canceledTask;
+    }
+
+    /**
+     * Run the handler and store its result, unless the task changed meanwhile
+     * 运行任务处理器并保存处理结果，除非任务在此期间被修改
+     *
+     * <p>The result replaces the version the handler started from; if a cancel or a newer turn
+     * wrote the task in between, the result is discarded. The messages the handler added are stored
+     * first, so a client that sees the final status, and a journal replayed after a crash, also has the
+     * reply.
+     * 处理结果替换处理器开始时的版本；如果期间取消或新一轮请求写入了任务，则丢弃该结果。处理器新增的消息先被保存，
+     * 因此看到最终状态的客户端以及崩溃后重放的日志也都能得到回复。
+     *
+     * @param started the task version the handler works on
+     *                处理器所处理的任务版本
+     * @param execution an execution that has begun
+     *                  已开始的执行
+     * @param events receives the handler's intermediate events
+     *               接收处理器的中间事件
+     * @return the stored task, without history
+     *         保存后的任务（不含历史）
+     */
+    private Task runHandler(VersionedTask started, Message message, Execution execution, TaskEventSink events)
+            throws Exception {
+        Task task = started.task();
+        try {
+            // The handler sees the conversation so far and extends it
+            // 处理器在现有对话历史的基础上追加新消息
+            List<Message> history = taskStore.getHistory(task.id());
+            Task updatedTask;
+            try {
+                updatedTask = handler.handle(task.withHistory(PersistentList.extending(history)), message,
+                    execution.token, publishUntilCanceled(task.id(), events, execution.token));
+            } catch (Exception e) {
+                if (execution.token.isCancellationRequested()) {
+                    // 被取消导致的异常，不视为失败
+                    return taskStore.get(task.id());
+                }
+                throw e;
+            }
+
+            // Store only the messages the handler added, before the status that tells clients the turn ended
+            // 仅保存处理器新增的消息，且在告知客户端本轮结束的状态之前保存
+            List<Message> updatedHistory = updatedTask.history();
+            if (updatedHistory != null && !execution.token.isCancellationRequested()) {
+                for (int i = history.size(); i < updatedHistory.size(); i++) {
+                    taskStore.appendHistory(task.id(), updatedHistory.get(i));
+                }
+            }
+
+            VersionedTask committed = stateMachine.complete(started, updatedTask.withHistory(null));
+            if (committed == null) {
+                // 任务已被取消或被新一轮请求替换，丢弃处理结果
+                logger.debug("Discarding handler result of task {}, it changed while the handler ran", task.id());
+                return taskStore.get(task.id());
+            }
+            publishStatus(committed.task(), events);
+            return committed.task();
+        } finally {
+            execution.end();
+            executions.remove(task.id(), execution);
         }
     }
 
+    /**
+     * Queue the handler on the executor; the task moves to WORKING once a thread picks it up
+     * 将任务处理提交到执行器；被线程取出后任务状态变为WORKING
+     */
+    private void submitHandler(VersionedTask submitted, Message message, Execution execution) {
+        execution.queued(handlerExecutor.submit(() -> {
+            if (!execution.begin()) {
+                execution.finish();
+                return;
+            }
+            String taskId = submitted.task().id();
+            try {
+                // Only a task that is still the submitted version starts working
+                // 只有仍处于提交时版本的任务才会开始处理
+                VersionedTask working = stateMachine.complete(submitted,
+                    submitted.task().withStatus(newStatus(TaskState.WORKING)));
+                if (working != null) {
+                    publishStatus(working.task(), TaskEventSink.NONE);
+                    runHandler(working, message, execution, TaskEventSink.NONE);
+                }
+            } catch (Exception e) {
+                logger.warn("Task {} failed", taskId, e);
+                markFailed(taskId);
+            } finally {
+                execution.end();
+                executions.remove(taskId, execution);
+                execution.finish();
+            }
+        }));
+    }
+
+    /**
+     * Publish events and pass them on until the task is canceled
+     * 在任务被取消之前发布并转发事件
+     *
+     * <p>Events are only listened to when the caller takes them or a stream follows the task on the bus.
+     * 只有调用者接收事件或有流通过事件总线跟踪该任务时，事件才有人监听。
+     */
+    private TaskEventSink publishUntilCanceled(String taskId, TaskEventSink events, CancellationToken cancellation) {
+        return new TaskEventSink() {
+            @Override
+            public boolean isListening() {
+                return events.isListening() || eventBus.subscriberCount(taskId) > 0;
+            }
+
+            @Override
+            public void sendStatusUpdate(TaskStatusUpdateEvent event) {
+                if (!cancellation.isCancellationRequested()) {
+                    eventBus.publish(event);
+                    events.sendStatusUpdate(event);
+                }
+            }
+
+            @Override
+            public void sendArtifactUpdate(TaskArtifactUpdateEvent event) {
+                if (!cancellation.isCancellationRequested()) {
+                    eventBus.publish(event);
+                    events.sendArtifactUpdate(event);
+                }
+            }
+        };
+    }
+
+    /**
+     * Publish the current status of a task and pass it on
+     * 发布任务的当前状态并转发
+     */
+    private void publishStatus(Task task, TaskEventSink events) {
+        TaskStatusUpdateEvent event = new TaskStatusUpdateEvent(task.id(), task.status(),
+            endsStream(task.status().state()), null);
+        eventBus.publish(event);
+        events.sendStatusUpdate(event);
+    }
+
+    /**
+     * Whether a status ends the stream of a task: it finished, or it waits for the client
+     * 状态是否结束任务的流：任务已结束，或正在等待客户端
+     */
+    public static boolean endsStream(TaskState state) {
+        return TaskStateMachine.isTerminal(state) || state == TaskState.INPUT_REQUIRED
+            || state == TaskState.AUTH_REQUIRED;
+    }
+
+    /**
+     * Move a task to FAILED unless it already finished
+     * 将任务置为FAILED，已结束的任务除外
+     */
+    private void markFailed(String taskId) {
+        try {
+            VersionedTask failed = stateMachine.transition(taskId, TaskState.FAILED);
+            if (failed != null) {
+                publishStatus(failed.task(), TaskEventSink.NONE);
+            }
+        } catch (IllegalTaskTransitionException e) {
+            logger.debug("Task {} already finished as {}", taskId, e.getFrom());
+        }
+    }
+
+    private static TaskStatus newStatus(TaskState state) {
+        return new TaskStatus(state, null, Instant.now().toString());
+    }
+
     /**
      * Get agent card information
      * 获取Agent Card信息
@@ -193,7 +680,39 @@ public class A2AServer {
      * 获取指定任务的消息历史
      */
     public List<Message> getTaskHistory(String taskId) {
-        return taskHistory.getOrDefault(taskId, List.of());
+        return taskStore.getHistory(taskId);
+    }
+
+    /**
+     * Get the task store
+     * 获取任务存储
+     */
+    public TaskStore getTaskStore() {
+        return taskStore;
+    }
+
+    /**
+     * Get the executor used for non-blocking requests
+     * 获取非阻塞请求使用的执行器
+     */
+    public HandlerExecutor getHandlerExecutor() {
+        return handlerExecutor;
+    }
+
+    /**
+     * Get the bus that fans task events out to streams
+     * 获取将任务事件分发给各个流的事件总线
+     */
+    public TaskEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Get the per-task mailboxes that order messages of the same task
+     * 获取按任务排序消息的邮箱
+     */
+    public TaskMailboxes getMailboxes() {
+        return mailboxes;
     }
 
     /**
@@ -201,7 +720,8 @@ public class A2AServer {
      * 解析请求参数为指定类型
      */
     private <T> T parseParams(Object params, Class<T> clazz) throws Exception {
-        return objectMapper.convertValue(params, clazz);
+        // 由JsonRpcRequestReader读取的参数已是目标类型
+        return clazz.isInstance(params) ? clazz.cast(params) : objectMapper.convertValue(params, clazz);
     }
 
     /**
@@ -230,4 +750,106 @@ public class A2AServer {
             error
         );
     }
+
+    /**
+     * One turn of a task, which tasks/cancel can stop
+     * 任务的一轮处理，可以被tasks/cancel停止
+     */
+    private final class Execution implements TaskMailboxes.Turn {
+
+        final CancellationToken token = new CancellationToken(); // 传给处理器的取消令牌
+        private final Consumer<Execution> onStart; // 轮到本轮时执行
+        private final AtomicBoolean finished = new AtomicBoolean(); // 是否已将邮箱移交给下一轮
+        private volatile Runnable done; // 通知邮箱本轮结束
+        private Thread runner; // 正在运行处理器的线程
+        private Future<?> job; // 非阻塞请求在执行器中的任务
+
+        Execution(Consumer<Execution> onStart) {
+            this.onStart = onStart;
+        }
+
+        @Override
+        public void start(Runnable done) {
+            this.done = done;
+            onStart.accept(this);
+        }
+
+        /**
+         * End the turn and let the next message of the task start; later calls do nothing
+         * 结束本轮并让该任务的下一条消息开始；重复调用不做任何事
+         */
+        void finish() {
+            if (finished.compareAndSet(false, true)) {
+                done.run();
+            }
+        }
+
+        /**
+         * Mark the handler as running on the current thread
+         * 标记处理器在当前线程上运行
+         *
+         * @return false if the task was canceled first
+         *         如果任务已先被取消则返回false
+         */
+        synchronized boolean begin() {
+            if (token.isCancellationRequested()) {
+                return false;
+            }
+            runner = Thread.currentThread();
+            return true;
+        }
+
+        /**
+         * Remember the executor job of a non-blocking request
+         * 记录非阻塞请求在执行器中的任务
+         */
+        void queued(Future<?> job) {
+            boolean dropped;
+            synchronized (this) {
+                this.job = job;
+                dropped = token.isCancellationRequested() && runner == null;
+                if (dropped) {
+                    handlerExecutor.cancel(job);
+                }
+            }
+            if (dropped) {
+                // 被移除的任务不会运行，由这里结束本轮
+                finish();
+            }
+        }
+
+        /**
+         * Detach from the current thread, clearing an interrupt left by cancel
+         * 与当前线程解除关联，并清除取消留下的中断标记
+         */
+        synchronized void end() {
+            runner = null;
+            if (token.isCancellationRequested()) {
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * Cancel the execution: signal the token, then interrupt the handler or drop the queued job
+         * 取消执行：通知令牌，然后中断处理器或移除排队中的任务
+         */
+        @Override
+        public void cancel() {
+            boolean dropped;
+            synchronized (this) {
+                token.cancel();
+                dropped = job != null && runner == null;
+                if (job != null) {
+                    handlerExecutor.cancel(job);
+                }
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+            if (dropped) {
+                // 被移除的任务不会运行，由这里结束本轮
+                finish();
+            }
+        }
+    }
 }
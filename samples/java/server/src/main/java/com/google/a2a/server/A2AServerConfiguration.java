@@ -1,14 +1,23 @@
 package com.google.a2a.server;
 
 import com.google.a2a.model.*;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,22 +28,235 @@ import java.util.UUID;
 @Configuration
 public class A2AServerConfiguration {
 
+    /**
+     * Version of the translation prompt; change it whenever the prompt changes so cached results are not reused
+     * 翻译提示词的版本；修改提示词时同时修改该值，避免使用旧的缓存结果
+     */
+    static final String TRANSLATION_PROMPT_VERSION = "1";
+
     /**
      * Configure A2AServer bean
      * 配置A2AServer的Bean
      */
     @Bean
-    public A2AServer a2aServer(ObjectMapper objectMapper, ChatModel chatModel) {
+    public A2AServer a2aServer(ObjectMapper objectMapper, ChatModel chatModel, TaskStore taskStore,
+                               HandlerExecutor handlerExecutor, TaskMailboxes taskMailboxes,
+                               TaskEventBus taskEventBus, TranslationCache translationCache, SingleFlight<String> modelCalls,
+                               TranslationBatcher translationBatcher,
+                               @Value("${spring.ai.openai.chat.options.model:}") String model) {
         // Create translation agent card
         // 创建翻译Agent Card
         AgentCard agentCard = createTranslationAgentCard();
 
         // Create translation task handler
         // 创建翻译任务处理器
-        TaskHandler taskHandler = createTranslationTaskHandler(chatModel);
+        TaskHandler taskHandler = createTranslationTaskHandler(chatModel, translationCache, modelCalls,
+            translationBatcher, model + "/" + TRANSLATION_PROMPT_VERSION);
+
+        // 返回A2AServer实例，包含Agent Card、任务处理器、任务存储、执行器、任务邮箱、事件总线和对象映射器
+        return new A2AServer(agentCard, taskHandler, taskStore, handlerExecutor, taskMailboxes, taskEventBus,
+            objectMapper);
+    }
+
+    /**
+     * Configure the bounded executor for non-blocking tasks/send requests and SSE streams
+     * 配置非阻塞tasks/send请求和SSE流使用的有界执行器
+     */
+    @Bean
+    public HandlerExecutor handlerExecutor(
+            @Value("${a2a.executor.mode:platform}") HandlerExecutor.Mode mode,
+            @Value("${a2a.executor.threads:16}") int threads,
+            @Value("${a2a.executor.max-concurrency:1000}") int maxConcurrency,
+            @Value("${a2a.executor.queue-capacity:1000}") int queueCapacity) {
+        // 平台线程模式下并发数即线程数；虚拟线程模式下由信号量限制，虚拟线程不可用时仍使用threads个平台线程
+        return new HandlerExecutor(mode, threads, maxConcurrency, queueCapacity);
+    }
+
+    /**
+     * Configure the per-task mailboxes that process messages of one task in order
+     * 配置按顺序处理同一任务消息的任务邮箱
+     */
+    @Bean
+    public TaskMailboxes taskMailboxes(@Value("${a2a.mailbox.capacity:100}") int capacity) {
+        return new TaskMailboxes(capacity);
+    }
+
+    /**
+     * Configure the bus that retains recent task events and fans them out to streams
+     * 配置保留最近任务事件并将其分发给各个流的事件总线
+     */
+    @Bean
+    public TaskEventBus taskEventBus(
+            @Value("${a2a.event-bus.retained-events:512}") int retainedEvents,
+            @Value("${a2a.event-bus.subscriber-capacity:256}") int subscriberCapacity,
+            @Value("${a2a.event-bus.slow-consumer-policy:drop-oldest}") TaskEventBus.SlowConsumerPolicy policy,
+            @Value("${a2a.event-bus.retention:PT5M}") Duration retention) {
+        return new TaskEventBus(retainedEvents, subscriberCapacity, policy, retention);
+    }
+
+    /**
+     * Configure the coalescing of artifact chunks into SSE frames
+     * 配置将制品分块合并为SSE帧
+     */
+    @Bean
+    public SseFrameCoalescer sseFrameCoalescer(
+            @Value("${a2a.sse.coalesce-interval:PT0.05S}") Duration interval,
+            @Value("${a2a.sse.coalesce-max-bytes:16384}") int maxBytes) {
+        return new SseFrameCoalescer(interval, maxBytes);
+    }
+
+    /**
+     * Configure the codec of the protocol records
+     * 配置协议记录的编解码器
+     */
+    @Bean
+    public A2ACodec a2aCodec(ObjectMapper objectMapper,
+                             @Value("${a2a.json.accessors:generated}") A2ACodec.Accessors accessors) {
+        return new A2ACodec(objectMapper, accessors);
+    }
+
+    /**
+     * Register Blackbird on Spring's ObjectMapper too, so HTTP responses use the generated accessors
+     * 将Blackbird也注册到Spring的ObjectMapper上，使HTTP响应同样使用生成的访问器
+     */
+    @Bean
+    @ConditionalOnProperty(name = "a2a.json.accessors", havingValue = "blackbird")
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
 
-        // 返回A2AServer实例，包含Agent Card、任务处理器和对象映射器
-        return new A2AServer(agentCard, taskHandler, objectMapper);
+    /**
+     * Register the generated record codecs on Spring's ObjectMapper too, so HTTP requests and responses use them
+     * 将生成的记录编解码器也注册到Spring的ObjectMapper上，使HTTP请求和响应同样使用它们
+     */
+    @Bean
+    @ConditionalOnProperty(name = "a2a.json.accessors", havingValue = "generated")
+    public Module a2aJsonModule() {
+        return new A2AJsonModule();
+    }
+
+    /**
+     * Configure the encoder of SSE frames shared by all streams of a task
+     * 配置任务所有流共享的SSE帧的编码器
+     */
+    @Bean
+    public SseFrameEncoder sseFrameEncoder(ObjectMapper objectMapper) {
+        return new SseFrameEncoder(objectMapper);
+    }
+
+    /**
+     * Configure the registry that caps open SSE streams and keeps them alive with heartbeats
+     * 配置限制打开的SSE流数量并以心跳保持其连接的注册表
+     */
+    @Bean
+    public SseStreamRegistry sseStreamRegistry(
+            @Value("${a2a.sse.heartbeat-interval:PT15S}") Duration heartbeatInterval,
+            @Value("${a2a.sse.idle-timeout:PT5M}") Duration idleTimeout,
+            @Value("${a2a.sse.max-duration:PT30M}") Duration maxDuration,
+            @Value("${a2a.sse.max-streams:10000}") int maxStreams,
+            @Value("${a2a.sse.max-streams-per-client:100}") int maxStreamsPerClient,
+            @Value("${a2a.sse.write-threads:64}") int writeThreads,
+            @Value("${a2a.sse.write-threads-per-client:16}") int writeThreadsPerClient) {
+        return new SseStreamRegistry(heartbeatInterval, idleTimeout, maxDuration, maxStreams, maxStreamsPerClient,
+            writeThreads, writeThreadsPerClient);
+    }
+
+    /**
+     * Configure the A2A JSON-RPC methods and the pool tasks/send runs on
+     * 配置A2A的JSON-RPC方法以及tasks/send运行的线程池
+     */
+    @Bean
+    public A2AMethods a2aMethods(
+            A2AServer server,
+            @Value("${a2a.rpc.send.threads:200}") int sendThreads,
+            @Value("${a2a.rpc.send.queue-capacity:1000}") int sendQueueCapacity,
+            @Value("${a2a.rpc.send.timeout:PT5M}") Duration sendTimeout) {
+        return new A2AMethods(server, sendThreads, sendQueueCapacity, sendTimeout);
+    }
+
+    /**
+     * Configure the registry answering JSON-RPC requests; JsonRpcMethod beans add methods to it
+     * 配置应答JSON-RPC请求的方法注册表；JsonRpcMethod类型的Bean会作为方法加入其中
+     */
+    @Bean
+    public JsonRpcMethodRegistry jsonRpcMethodRegistry(ObjectMapper objectMapper, A2AMethods a2aMethods,
+                                                       ObjectProvider<JsonRpcMethod<?>> additionalMethods) {
+        List<JsonRpcMethod<?>> methods = new ArrayList<>(a2aMethods.methods());
+        additionalMethods.orderedStream().forEach(methods::add);
+        return new JsonRpcMethodRegistry(objectMapper, methods);
+    }
+
+    /**
+     * Configure the dispatcher that runs the calls of JSON-RPC batch requests in parallel
+     * 配置并行执行JSON-RPC批量请求中各调用的分发器
+     */
+    @Bean
+    public JsonRpcBatchDispatcher jsonRpcBatchDispatcher(
+            @Value("${a2a.batch.max-size:1000}") int maxBatchSize,
+            @Value("${a2a.batch.parallelism:16}") int parallelism,
+            @Value("${a2a.batch.threads:64}") int threads) {
+        return new JsonRpcBatchDispatcher(maxBatchSize, parallelism, threads);
+    }
+
+    /**
+     * Configure the cache of translation results consulted before the model is called
+     * 配置调用模型前查询的翻译结果缓存
+     */
+    @Bean
+    public TranslationCache translationCache(
+            @Value("${a2a.translation-cache.maximum-weight:67108864}") long maximumWeight,
+            @Value("${a2a.translation-cache.ttl:PT24H}") Duration ttl) {
+        return new TranslationCache(maximumWeight, ttl);
+    }
+
+    /**
+     * Configure the coalescing of identical model calls that are in flight at the same time
+     * 配置同时进行的相同模型调用的合并
+     */
+    @Bean
+    public SingleFlight<String> modelCalls() {
+        return new SingleFlight<>();
+    }
+
+    /**
+     * Configure the optional batching of short texts into one model prompt
+     * 配置可选的短文本合并为一个模型提示词的批量翻译
+     */
+    @Bean
+    public TranslationBatcher translationBatcher(
+            ChatModel chatModel,
+            @Value("${a2a.translation-batch.max-size:1}") int maxBatchSize,
+            @Value("${a2a.translation-batch.max-delay:PT0.02S}") Duration maxDelay,
+            @Value("${a2a.translation-batch.max-text-length:500}") int maxTextLength) {
+        ChatClient chatClient = ChatClient.create(chatModel);
+        return new TranslationBatcher(prompt -> chatClient.prompt(prompt).call().content(),
+            this::createTranslationPrompt, maxBatchSize, maxDelay, maxTextLength);
+    }
+
+    /**
+     * Configure the bounded task store, journaled to disk when a journal directory is set
+     * 配置有界任务存储，设置日志目录时将其持久化到磁盘
+     */
+    @Bean
+    public TaskStore taskStore(
+            ObjectMapper objectMapper,
+            @Value("${a2a.task-store.maximum-size:10000}") long maximumSize,
+            @Value("${a2a.task-store.maximum-weight:268435456}") long maximumWeight,
+            @Value("${a2a.task-store.terminal-ttl:PT1H}") Duration terminalTtl,
+            @Value("${a2a.journal.directory:}") String journalDirectory,
+            @Value("${a2a.journal.segment-size:67108864}") int segmentSize,
+            @Value("${a2a.journal.fsync:true}") boolean fsync,
+            @Value("${a2a.journal.snapshot-interval:PT1H}") Duration snapshotInterval,
+            @Value("${a2a.journal.compaction-interval:PT5M}") Duration compactionInterval,
+            @Value("${a2a.journal.maintenance-bytes-per-second:8388608}") long maintenanceBytesPerSecond) throws IOException {
+        if (journalDirectory.isBlank()) {
+            return new InMemoryTaskStore(maximumSize, maximumWeight, terminalTtl);
+        }
+        // 从日志恢复任务，重启后任务不会丢失
+        JournalOptions options = new JournalOptions(segmentSize, fsync, snapshotInterval, compactionInterval,
+            maintenanceBytesPerSecond);
+        return new JournaledTaskStore(Path.of(journalDirectory), objectMapper, options,
+            maximumSize, maximumWeight, terminalTtl);
     }
 
     /**
@@ -49,7 +271,7 @@ public class A2AServerConfiguration {
 
         AgentCapabilities capabilities = new AgentCapabilities(
             true,  // streaming
-            true,  // pushNotifications
+            false, // pushNotifications: tasks/pushNotification/* answer -32002
             true   // stateTransitionHistory
         );
 
@@ -92,84 +314,165 @@ public class A2AServerConfiguration {
     /**
      * Create translation task handler using ChatClient
      * 使用ChatClient创建翻译任务处理器
+     *
+     * <p>When a client listens, on {@code /a2a/stream} or by following the task, a cache miss streams the
+     * translation from the model and sends each token as an appended artifact chunk. Otherwise the whole
+     * result is fetched through single-flight coalescing and, if enabled, batching.
+     * 客户端通过{@code /a2a/stream}或跟踪任务进行监听时，缓存未命中的翻译会从模型流式获取，每个token作为追加的制品分块发送；
+     * 否则通过合并调用（以及开启时的批量翻译）获取完整结果。
+     *
+     * @param cacheVersion identifies the model and prompt in cache keys
+     *                     在缓存键中标识模型和提示词
      */
-    private TaskHandler createTranslationTaskHandler(ChatModel chatModel) {
+    TaskHandler createTranslationTaskHandler(ChatModel chatModel, TranslationCache translationCache,
+                                                     SingleFlight<String> modelCalls,
+                                                     TranslationBatcher translationBatcher, String cacheVersion) {
         ChatClient chatClient = ChatClient.create(chatModel);
 
-        return (task, message) -> {
-            try {
-                // Extract text content from message parts
-                // 从消息内容中提取需要翻译的文本
-                String textToTranslate = extractTextFromMessage(message);
+        return new TaskHandler() {
+            @Override
+            public Task handle(Task task, Message message) {
+                return handle(task, message, CancellationToken.NONE, TaskEventSink.NONE);
+            }
 
-                if (textToTranslate == null || textToTranslate.trim().isEmpty()) {
-                    // 如果没有文本内容，返回错误任务
-                    return createErrorTask(task, "No text content found in the message");
-                }
+            @Override
+            public Task handle(Task task, Message message, CancellationToken cancellation, TaskEventSink events) {
+                try {
+                    // Extract text content from message parts
+                    // 从消息内容中提取需要翻译的文本
+                    String textToTranslate = extractTextFromMessage(message);
+
+                    if (textToTranslate == null || textToTranslate.trim().isEmpty()) {
+                        // 如果没有文本内容，返回错误任务
+                        return createErrorTask(task, "No text content found in the message");
+                    }
 
-                // Create translation prompt
-                // 构造翻译提示词
-                String translationPrompt = createTranslationPrompt(textToTranslate);
-
-                // Call ChatClient for translation
-                // 调用ChatClient进行翻译
-                String translatedText = chatClient
-                    .prompt(translationPrompt)
-                    .call()
-                    .content();
-
-                // Create response message with translation
-                // 创建包含翻译结果的响应消息
-                TextPart responsePart = new TextPart(translatedText, null);
-                Message responseMessage = new Message(
-                    UUID.randomUUID().toString(),
-                    "message",
-                    "assistant",
-                    List.of(responsePart),
-                    message.contextId(),
-                    task.id(),
-                    List.of(message.messageId()),
-                    null
-                );
-
-                // Create completed status
-                // 创建已完成状态
-                TaskStatus completedStatus = new TaskStatus(
-                    TaskState.COMPLETED,
-                    null,  // No status message
-                    Instant.now().toString()
-                );
-
-                // Add response to history
-                // 将响应消息加入历史记录
-                List<Message> updatedHistory = task.history() != null ?
-                    List.of(task.history().toArray(new Message[0])) :
-                    List.of();
-                updatedHistory = List.of(
-                    java.util.stream.Stream.concat(
-                        updatedHistory.stream(),
-                        java.util.stream.Stream.of(message, responseMessage)
-                    ).toArray(Message[]::new)
-                );
-
-                // 返回新的Task对象，包含翻译结果和历史
-                return new Task(
-                    task.id(),
-                    task.contextId(),
-                    task.kind(),
-                    completedStatus,
-                    task.artifacts(),
-                    updatedHistory,
-                    task.metadata()
-                );
-
-            } catch (Exception e) {
-                // 发生异常时，返回错误任务
-                return createErrorTask(task, "Translation failed: " + e.getMessage());
+                    // Repeated texts are answered from the cache without calling the model
+                    // 重复的文本直接由缓存返回，无需调用模型
+                    String cacheKey = TranslationCache.key(cacheVersion, textToTranslate);
+                    String translatedText = translationCache.get(cacheKey);
+                    if (translatedText != null) {
+                        sendTranslationChunk(events, task.id(), UUID.randomUUID().toString(), translatedText,
+                            false, true);
+                    } else if (events.isListening()) {
+                        // A listening client gets the translation token by token
+                        // 有客户端监听时逐个token发送翻译结果
+                        translatedText = streamTranslation(chatClient, task.id(), textToTranslate, cancellation,
+                            events);
+                        translationCache.put(cacheKey, translatedText);
+                    } else {
+                        // Concurrent tasks with the same text share one model call
+                        // 文本相同的并发任务共享同一次模型调用
+                        translatedText = modelCalls.execute(cacheKey, () -> {
+                            // Call ChatClient for translation, together with other short texts when batching is on
+                            // 调用ChatClient进行翻译，开启批量翻译时与其他短文本合并发送
+                            String translation = translationBatcher.translate(textToTranslate);
+                            if (translation != null) {
+                                translationCache.put(cacheKey, translation);
+                            }
+                            return translation;
+                        });
+                    }
+
+                    // Create response message with translation
+                    // 创建包含翻译结果的响应消息
+                    TextPart responsePart = new TextPart(translatedText, null);
+                    Message responseMessage = new Message(
+                        UUID.randomUUID().toString(),
+                        "message",
+                        "assistant",
+                        List.of(responsePart),
+                        message.contextId(),
+                        task.id(),
+                        List.of(message.messageId()),
+                        null
+                    );
+
+                    // Create completed status
+                    // 创建已完成状态
+                    TaskStatus completedStatus = new TaskStatus(
+                        TaskState.COMPLETED,
+                        null,  // No status message
+                        Instant.now().toString()
+                    );
+
+                    // Add the reply to history (it already ends with the user message); the history is shared, not copied
+                    // 将回复加入历史记录（历史已包含用户消息）；之前的历史被共享而非复制
+                    List<Message> updatedHistory = PersistentList.<Message>copyOf(task.history())
+                        .append(responseMessage);
+
+                    // 返回新的Task对象，包含翻译结果和历史
+                    return new Task(
+                        task.id(),
+                        task.contextId(),
+                        task.kind(),
+                        completedStatus,
+                        task.artifacts(),
+                        updatedHistory,
+                        task.metadata()
+                    );
+
+                } catch (Exception e) {
+                    // 发生异常时，返回错误任务
+                    return createErrorTask(task, "Translation failed: " + e.getMessage());
+                }
             }
         };
     }
 
+    /**
+     * Stream a translation from the model, sending every token as an appended artifact chunk
+     * 从模型流式获取翻译，将每个token作为追加的制品分块发送
+     *
+     * <p>Each token is held back until the next one arrives, so the last chunk can carry {@code lastChunk}.
+     * 每个token会保留到下一个token到达后再发送，以便最后一块能够带上{@code lastChunk}。
+     *
+     * @return the whole translation
+     *         完整的翻译结果
+     */
+    private String streamTranslation(ChatClient chatClient, String taskId, String text,
+                                     CancellationToken cancellation, TaskEventSink events) {
+        String artifactId = UUID.randomUUID().toString();
+        StringBuilder translation = new StringBuilder();
+        String previous = null;
+        boolean append = false;
+        // Blocking on the stream is interrupted by tasks/cancel, which also cancels the model request
+        // 阻塞读取流时会被tasks/cancel中断，同时取消模型请求
+        for (String token : chatClient.prompt(createTranslationPrompt(text)).stream().content().toIterable()) {
+            cancellation.throwIfCancellationRequested();
+            if (token == null || token.isEmpty()) {
+                continue;
+            }
+            if (previous != null) {
+                sendTranslationChunk(events, taskId, artifactId, previous, append, false);
+                append = true;
+            }
+            translation.append(token);
+            previous = token;
+        }
+        sendTranslationChunk(events, taskId, artifactId, previous == null ? "" : previous, append, true);
+        return translation.toString();
+    }
+
+    /**
+     * Send one chunk of the translation artifact
+     * 发送翻译制品的一个分块
+     */
+    private void sendTranslationChunk(TaskEventSink events, String taskId, String artifactId, String text,
+                                      boolean append, boolean lastChunk) {
+        Artifact chunk = new Artifact(
+            artifactId,
+            "translation",
+            null,  // No description
+            List.of(new TextPart(text, null)),
+            0,     // index
+            append,
+            null,  // No metadata
+            lastChunk
+        );
+        events.sendArtifactUpdate(new TaskArtifactUpdateEvent(taskId, chunk, false, null));
+    }
+
     /**
      * Extract text content from message parts
      * 从消息的各个部分提取文本内容
@@ -225,14 +528,6 @@ public class A2AServerConfiguration {
             Instant.now().toString()
         );
 
-        return new Task(
-            originalTask.id(),
-            originalTask.contextId(),
-            originalTask.kind(),
-            errorStatus,
-            originalTask.artifacts(),
-            originalTask.history(),
-            originalTask.metadata()
-        );
+        return originalTask.withStatus(errorStatus);
     }
 }
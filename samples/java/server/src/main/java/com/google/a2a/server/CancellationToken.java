@@ -0,0 +1,93 @@
+package com.google.a2a.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * CancellationToken tells a TaskHandler that its task was canceled
+ * CancellationToken用于通知TaskHandler其任务已被取消
+ *
+ * <p>The server also interrupts the thread running the handler, which aborts blocking calls such as
+ * {@code ChatClient.call()}. Handlers can check {@link #isCancellationRequested()} between steps, and
+ * register {@link #onCancel(Runnable)} callbacks to release work that does not react to interrupts,
+ * for example a streaming subscription.
+ * 服务器还会中断运行处理器的线程，从而中止{@code ChatClient.call()}等阻塞调用。处理器可以在步骤之间检查
+ * {@link #isCancellationRequested()}，也可以通过{@link #onCancel(Runnable)}注册回调来释放不响应中断的工作，例如流式订阅。
+ */
+public final class CancellationToken {
+
+    /**
+     * A token that is never canceled
+     * 永远不会被取消的令牌
+     */
+    public static final CancellationToken NONE = new CancellationToken();
+
+    private final List<Runnable> callbacks = new ArrayList<>(); // 取消时执行的回调
+    private volatile boolean cancellationRequested; // 是否已请求取消
+
+    CancellationToken() {
+    }
+
+    /**
+     * Whether the task was canceled
+     * 任务是否已被取消
+     */
+    public boolean isCancellationRequested() {
+        return cancellationRequested;
+    }
+
+    /**
+     * Throw if the task was canceled
+     * 如果任务已被取消则抛出异常
+     *
+     * @throws CancellationException if cancellation was requested
+     *                               已请求取消时抛出
+     */
+    public void throwIfCancellationRequested() {
+        if (cancellationRequested) {
+            throw new CancellationException("Task was canceled");
+        }
+    }
+
+    /**
+     * Run a callback when the task is canceled, or right away if it already was
+     * 在任务被取消时执行回调，如果已经取消则立即执行
+     *
+     * <p>{@link #NONE} is shared and never canceled, so it does not keep the callback.
+     * {@link #NONE}是共享的且永远不会被取消，因此不保存回调。
+     */
+    public void onCancel(Runnable callback) {
+        if (this == NONE) {
+            return;
+        }
+        synchronized (callbacks) {
+            if (!cancellationRequested) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Request cancellation and run the registered callbacks once
+     * 请求取消并执行一次已注册的回调
+     *
+     * @return false if cancellation had already been requested
+     *         如果之前已请求取消则返回false
+     */
+    boolean cancel() {
+        List<Runnable> toRun;
+        synchronized (callbacks) {
+            if (cancellationRequested || this == NONE) {
+                return false;
+            }
+            cancellationRequested = true;
+            toRun = List.copyOf(callbacks);
+            callbacks.clear();
+        }
+        toRun.forEach(Runnable::run);
+        return true;
+    }
+}
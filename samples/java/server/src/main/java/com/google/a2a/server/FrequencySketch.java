@@ -0,0 +1,83 @@
+package com.google.a2a.server;
+
+/**
+ * A 4-bit Count-Min sketch estimating how often keys were accessed recently
+ * 4位Count-Min草图，用于估算键最近的访问频率
+ *
+ * <p>Counters are halved once the number of increments reaches ten times the capacity, so
+ * the estimate favours recent popularity (TinyLFU aging). Not thread-safe; callers guard it.
+ * 当递增次数达到容量的十倍时所有计数器减半，使估算偏向近期热度（TinyLFU老化）。非线程安全，由调用方加锁。
+ */
+final class FrequencySketch {
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb492b66f, 0x9ae16a3b, 0xc2b2ae35};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private final long[] table; // 每个long存放16个4位计数器
+    private final int counterMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedSize) {
+        int capacity = (int) Math.max(8, Math.min(expectedSize, MAX_TABLE_SIZE));
+        this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+        this.counterMask = (table.length << 4) - 1;
+        this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Estimated number of recent occurrences of the key, at most 15
+     * 键最近出现次数的估计值，最大为15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int counter = counterIndex(hash, i);
+            int count = (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Record one occurrence of the key
+     * 记录键的一次出现
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int counter = counterIndex(hash, i);
+            int word = counter >>> 4;
+            int shift = (counter & 15) << 2;
+            if (((table[word] >>> shift) & 0xfL) != MAX_COUNT) {
+                table[word] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int counterIndex(int hash, int i) {
+        int h = (hash + SEEDS[i]) * SEEDS[i];
+        h ^= h >>> 17;
+        return h & counterMask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
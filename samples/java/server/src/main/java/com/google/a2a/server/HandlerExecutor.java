@@ -0,0 +1,295 @@
+package com.google.a2a.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor that runs TaskHandler invocations and SSE producers off the request thread
+ * 有界执行器，在请求线程之外运行TaskHandler和SSE推送任务
+ *
+ * <p>In {@link Mode#PLATFORM} mode a fixed number of threads drain a bounded queue. In
+ * {@link Mode#VIRTUAL} mode every job gets its own virtual thread, so blocking model calls and
+ * SSE writes do not pin platform threads; a semaphore caps how many run at once and the jobs
+ * waiting for a permit form the queue. Either way, when the queue is full new work is rejected
+ * instead of piling up, and the time each job spends queued is recorded for metrics.
+ * {@link Mode#PLATFORM}模式下固定数量的线程消费有界队列。{@link Mode#VIRTUAL}模式下每个任务使用独立的虚拟线程，
+ * 阻塞的模型调用和SSE写入不会占用平台线程；信号量限制同时运行的数量，等待许可的任务即为队列。
+ * 两种模式下队列已满时都会拒绝新任务而不是无限堆积，并记录每个任务的排队时间用于指标统计。
+ *
+ * <p>Virtual threads need Java 21; on older runtimes VIRTUAL falls back to PLATFORM with the pool size
+ * PLATFORM would have, since {@code maxConcurrency} platform threads are not what the limit was sized for.
+ * 虚拟线程需要Java 21；在更低版本上VIRTUAL模式会退回PLATFORM模式，并使用PLATFORM模式的线程池大小，
+ * 因为{@code maxConcurrency}是按虚拟线程而不是平台线程设定的上限。
+ */
+public class HandlerExecutor implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HandlerExecutor.class);
+
+    public static final int DEFAULT_THREADS = 16;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    private final Mode mode; // 实际使用的执行模式
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor platformExecutor; // 平台线程池，VIRTUAL模式下为null
+    private final Semaphore permits; // 并发许可，PLATFORM模式下为null
+    private final int maxConcurrency; // 最大并发数
+    private final int queueCapacity; // 最大排队数
+    private final AtomicInteger pending = new AtomicInteger(); // 已提交未结束的任务数（VIRTUAL模式）
+
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder canceledCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    public HandlerExecutor() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create a platform thread executor
+     * 创建平台线程执行器
+     *
+     * @param threads number of handler threads
+     *                处理线程数
+     * @param queueCapacity maximum number of jobs waiting for a thread
+     *                      等待线程的最大任务数
+     */
+    public HandlerExecutor(int threads, int queueCapacity) {
+        this(Mode.PLATFORM, threads, threads, queueCapacity);
+    }
+
+    /**
+     * Create an executor
+     * 创建执行器
+     *
+     * @param mode whether jobs run on a platform thread pool or on virtual threads
+     *             任务运行在平台线程池还是虚拟线程上
+     * @param threads pool size in PLATFORM mode, and in VIRTUAL mode when virtual threads are not available
+     *                PLATFORM模式下的线程池大小，VIRTUAL模式下虚拟线程不可用时同样使用
+     * @param maxConcurrency maximum number of jobs running at once on virtual threads
+     *                       虚拟线程上同时运行的最大任务数
+     * @param queueCapacity maximum number of jobs waiting to run
+     *                      等待运行的最大任务数
+     */
+    public HandlerExecutor(Mode mode, int threads, int maxConcurrency, int queueCapacity) {
+        this(mode == Mode.VIRTUAL ? virtualThreadsOrWarn() : null, threads, maxConcurrency, queueCapacity);
+    }
+
+    /**
+     * Create an executor that runs each job on its own thread of {@code threadPerJob}, limited by a
+     * semaphore, or on a platform pool if it is null; tests stand in for virtual threads with platform ones
+     * 创建在{@code threadPerJob}的独立线程上运行每个任务并由信号量限制的执行器；为null时使用平台线程池。
+     * 测试中用平台线程代替虚拟线程
+     */
+    HandlerExecutor(ExecutorService threadPerJob, int threads, int maxConcurrency, int queueCapacity) {
+        if (threads <= 0 || maxConcurrency <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("threads, maxConcurrency and queueCapacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        if (threadPerJob != null) {
+            this.mode = Mode.VIRTUAL;
+            this.maxConcurrency = maxConcurrency;
+            this.executor = threadPerJob;
+            this.platformExecutor = null;
+            this.permits = new Semaphore(maxConcurrency);
+        } else {
+            this.mode = Mode.PLATFORM;
+            this.maxConcurrency = threads;
+            this.platformExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), NamedThreads.nonDaemon("a2a-handler-"), new ThreadPoolExecutor.AbortPolicy());
+            this.executor = platformExecutor;
+            this.permits = null;
+        }
+    }
+
+    /**
+     * Queue a job
+     * 提交任务
+     *
+     * @throws RejectedExecutionException if the queue is full or the executor is closed
+     *                                    队列已满或执行器已关闭时抛出
+     */
+    public Future<?> submit(Runnable job) {
+        long enqueuedAt = System.nanoTime();
+        if (permits == null) {
+            try {
+                return executor.submit(() -> run(job, enqueuedAt));
+            } catch (RejectedExecutionException e) {
+                rejectedCount.increment();
+                throw e;
+            }
+        }
+
+        if (pending.incrementAndGet() > maxConcurrency + queueCapacity) {
+            pending.decrementAndGet();
+            rejectedCount.increment();
+            throw new RejectedExecutionException("Handler queue is full");
+        }
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // Canceled while waiting for a permit
+                // 等待许可时被取消
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                run(job, enqueuedAt);
+            } finally {
+                permits.release();
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                // Also runs when the job is canceled before its thread starts, so the slot is never lost
+                // 任务在其线程启动前被取消时也会执行，因此不会丢失排队位置
+                pending.decrementAndGet();
+            }
+        };
+        try {
+            executor.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Cancel a submitted job, interrupting it if it is running
+     * 取消已提交的任务，正在运行时中断它
+     *
+     * <p>A job still waiting to run is removed right away, so its queue slot is free for new work.
+     * 仍在等待运行的任务会被立即移除，其队列位置可立即用于新任务。
+     */
+    public void cancel(Future<?> job) {
+        if (job.cancel(true)) {
+            canceledCount.increment();
+            if (platformExecutor != null) {
+                platformExecutor.remove((Runnable) job);
+            }
+        }
+    }
+
+    /**
+     * The mode in use, which is PLATFORM if virtual threads were requested but are not available
+     * 实际使用的模式；请求虚拟线程但不可用时为PLATFORM
+     */
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Snapshot of the executor counters
+     * 执行器统计信息快照
+     */
+    public HandlerExecutorStats stats() {
+        if (permits == null) {
+            return new HandlerExecutorStats(
+                platformExecutor.getQueue().size(),
+                platformExecutor.getActiveCount(),
+                completedCount.sum(),
+                rejectedCount.sum(),
+                canceledCount.sum(),
+                waitCount.sum(),
+                totalWaitNanos.sum()
+            );
+        }
+        int active = maxConcurrency - permits.availablePermits();
+        return new HandlerExecutorStats(
+            Math.max(0, pending.get() - active),
+            active,
+            completedCount.sum(),
+            rejectedCount.sum(),
+            canceledCount.sum(),
+            waitCount.sum(),
+            totalWaitNanos.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Runnable job, long enqueuedAt) {
+        totalWaitNanos.add(System.nanoTime() - enqueuedAt);
+        waitCount.increment();
+        try {
+            job.run();
+        } finally {
+            completedCount.increment();
+        }
+    }
+
+    private static ExecutorService virtualThreadsOrWarn() {
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        if (virtualExecutor == null) {
+            logger.warn("Virtual threads need Java 21 or later, running handlers on a pool of a2a.executor.threads "
+                + "platform threads");
+        }
+        return virtualExecutor;
+    }
+
+    /**
+     * Create a thread-per-task executor of named virtual threads, or null before Java 21
+     * 创建按任务分配命名虚拟线程的执行器，Java 21之前返回null
+     *
+     * <p>Looked up reflectively so the server still builds and runs on Java 17.
+     * 通过反射获取，使服务器仍可在Java 17上编译和运行。
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "a2a-handler-virtual-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Where handler jobs run
+     * 处理任务的运行方式
+     */
+    public enum Mode {
+        /**
+         * A fixed pool of platform threads
+         * 固定大小的平台线程池
+         */
+        PLATFORM,
+        /**
+         * One virtual thread per job, limited by a semaphore
+         * 每个任务一个虚拟线程，由信号量限制并发
+         */
+        VIRTUAL
+    }
+}
@@ -0,0 +1,31 @@
+package com.google.a2a.server;
+
+/**
+ * HandlerExecutorStats is a point-in-time snapshot of HandlerExecutor counters
+ * HandlerExecutorStats是处理执行器计数器的时间点快照
+ *
+ * @param queueDepth jobs waiting for a thread
+ *                   等待线程的任务数
+ * @param activeCount jobs currently running
+ *                    正在运行的任务数
+ * @param completedCount jobs finished since startup
+ *                       启动以来完成的任务数
+ * @param rejectedCount jobs rejected because the queue was full
+ *                      因队列已满被拒绝的任务数
+ * @param canceledCount jobs canceled before or while running
+ *                      运行前或运行中被取消的任务数
+ * @param waitCount jobs that left the queue
+ *                  已出队的任务数
+ * @param totalWaitNanos total time those jobs spent queued
+ *                       这些任务的总排队时间
+ */
+public record HandlerExecutorStats(
+    int queueDepth,
+    int activeCount,
+    long completedCount,
+    long rejectedCount,
+    long canceledCount,
+    long waitCount,
+    long totalWaitNanos
+) {
+}
@@ -0,0 +1,114 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Message;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Append-only message history stored in fixed-size chunks
+ * 以固定大小分块存储的只追加消息历史
+ *
+ * <p>Appending writes into the tail chunk and never copies earlier messages; only the small
+ * chunk directory is doubled when it fills up. The size is published with a volatile write
+ * after the message is stored, so readers never lock and never see a partially appended message.
+ * Appends must be serialized by the caller (the task store does this under its own lock).
+ * 追加只写入尾部分块，从不复制之前的消息；仅在分块目录写满时将其扩容一倍。消息写入后才通过volatile写发布新的大小，
+ * 因此读操作无需加锁，也不会看到未完成的追加。追加需由调用方串行化（任务存储在自身锁内完成）。
+ *
+ * <p>{@link #snapshot()} and {@link #tail(int)} return fixed windows that do not change when
+ * messages are appended later.
+ * {@link #snapshot()}和{@link #tail(int)}返回固定窗口，之后的追加不会影响其内容。
+ */
+public final class HistoryLog extends AbstractList<Message> implements RandomAccess {
+
+    static final int CHUNK_SHIFT = 7;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // 每个分块的消息数
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile Message[][] chunks = new Message[4][]; // 分块目录
+    private volatile int size; // 已发布的消息数
+
+    /**
+     * Append a message at the tail
+     * 在尾部追加一条消息
+     */
+    public void append(Message message) {
+        int index = size;
+        int chunk = index >>> CHUNK_SHIFT;
+        Message[][] directory = chunks;
+        if (chunk == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+            chunks = directory;
+        }
+        if (directory[chunk] == null) {
+            directory[chunk] = new Message[CHUNK_SIZE];
+        }
+        directory[chunk][index & CHUNK_MASK] = message;
+        size = index + 1;
+    }
+
+    @Override
+    public Message get(int index) {
+        Objects.checkIndex(index, size);
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * All messages appended so far, as a fixed window
+     * 目前已追加的全部消息（固定窗口）
+     */
+    public List<Message> snapshot() {
+        return new Window(this, 0, size);
+    }
+
+    /**
+     * The last {@code length} messages (or fewer if the history is shorter), as a fixed window
+     * 最近的{@code length}条消息（历史较短时返回全部），以固定窗口形式返回
+     */
+    public List<Message> tail(int length) {
+        int end = size;
+        return new Window(this, Math.max(0, end - Math.max(0, length)), end);
+    }
+
+    /**
+     * Read-only view of a range that was already published when the view was created
+     * 创建时已发布的区间的只读视图
+     */
+    private static final class Window extends AbstractList<Message> implements RandomAccess {
+        private final HistoryLog log;
+        private final int from;
+        private final int to;
+
+        Window(HistoryLog log, int from, int to) {
+            this.log = log;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Message get(int index) {
+            Objects.checkIndex(index, to - from);
+            return log.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public List<Message> subList(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, size());
+            return new Window(log, from + fromIndex, from + toIndex);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.TaskState;
+
+/**
+ * Thrown when a task cannot move from its current state to the requested one
+ * 任务无法从当前状态转换到请求的状态时抛出
+ */
+public class IllegalTaskTransitionException extends IllegalStateException {
+
+    private final String taskId; // 任务ID
+    private final TaskState from; // 当前状态
+    private final TaskState to; // 请求的状态
+
+    public IllegalTaskTransitionException(String taskId, TaskState from, TaskState to) {
+        super("Task " + taskId + " cannot move from " + from + " to " + to);
+        this.taskId = taskId;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public TaskState getFrom() {
+        return from;
+    }
+
+    public TaskState getTo() {
+        return to;
+    }
+}
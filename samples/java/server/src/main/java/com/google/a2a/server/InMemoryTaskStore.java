@@ -0,0 +1,572 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Message;
+import com.google.a2a.model.Task;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-memory TaskStore with W-TinyLFU eviction and TTL for terminal tasks
+ * 有界内存任务存储，使用W-TinyLFU淘汰策略，并对终态任务设置过期时间
+ *
+ * <p>New tasks enter a small LRU window; tasks leaving the window must beat the oldest
+ * task of the main segmented LRU on estimated access frequency to be admitted. Tasks in
+ * COMPLETED, CANCELED or FAILED state expire after the configured TTL.
+ * 新任务先进入小的LRU窗口；离开窗口的任务需要在访问频率上胜过主分段LRU中最旧的任务才会被保留。
+ * 处于COMPLETED、CANCELED或FAILED状态的任务在TTL到期后被清除。
+ *
+ * <p>Reads are lock-free; recording an access is skipped when the policy lock is busy.
+ * {@link #compareAndSet} is lock-free as well: it swaps the task version of the entry atomically
+ * and leaves the weight and expiry update to whichever thread holds the policy lock next.
+ * 读操作无锁；策略锁繁忙时跳过访问记录。{@link #compareAndSet}同样无锁：它原子地替换条目的任务版本，
+ * 权重和过期时间的更新交给下一个持有策略锁的线程完成。
+ */
+public class InMemoryTaskStore implements TaskStore {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 256L * 1024 * 1024;
+    public static final Duration DEFAULT_TERMINAL_TTL = Duration.ofHours(1);
+
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final double PROTECTED_PERCENT = 0.80;
+    private static final VarHandle CURRENT;
+
+    static {
+        try {
+            CURRENT = MethodHandles.lookup().findVarHandle(Node.class, "current", VersionedTask.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long maximumSize; // 最大任务数量
+    private final long maximumWeight; // 最大估算字节数
+    private final long terminalTtlNanos; // 终态任务的存活时间，0表示不过期
+    private final long windowMaximum; // 窗口区容量
+    private final long protectedMaximum; // 保护区容量
+    private final LongSupplier ticker; // 纳秒时钟
+    private final RemovalListener removalListener; // 任务被删除时的回调
+
+    private final ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<Node> pendingRefresh = new ConcurrentLinkedQueue<>(); // 无锁写入后待更新权重和过期时间的条目
+
+    // The following fields are guarded by policyLock
+    // 以下字段由policyLock保护
+    private final FrequencySketch sketch;
+    private final NodeDeque window = new NodeDeque();
+    private final NodeDeque probation = new NodeDeque();
+    private final NodeDeque protectedSegment = new NodeDeque();
+    private final LinkedHashSet<Node> expiryQueue = new LinkedHashSet<>();
+    private volatile long weightedSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    public InMemoryTaskStore() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_MAXIMUM_WEIGHT, DEFAULT_TERMINAL_TTL);
+    }
+
+    /**
+     * Create a bounded store
+     * 创建有界任务存储
+     *
+     * @param maximumSize maximum number of tasks
+     *                    最大任务数量
+     * @param maximumWeight maximum estimated bytes of tasks and history
+     *                      任务及历史的最大估算字节数
+     * @param terminalTtl how long terminal tasks are kept, null or zero to keep them until evicted
+     *                    终态任务的保留时长，null或0表示直到被淘汰前一直保留
+     */
+    public InMemoryTaskStore(long maximumSize, long maximumWeight, Duration terminalTtl) {
+        this(maximumSize, maximumWeight, terminalTtl, (taskId, cause) -> { });
+    }
+
+    /**
+     * Create a bounded store that reports removed tasks
+     * 创建会通知任务删除事件的有界任务存储
+     *
+     * @param removalListener called under the store lock whenever a task is removed, evicted or expired
+     *                        任务被删除、淘汰或过期时在存储锁内回调
+     */
+    public InMemoryTaskStore(long maximumSize, long maximumWeight, Duration terminalTtl, RemovalListener removalListener) {
+        this(maximumSize, maximumWeight, terminalTtl, System::nanoTime, removalListener);
+    }
+
+    InMemoryTaskStore(long maximumSize, long maximumWeight, Duration terminalTtl, LongSupplier ticker) {
+        this(maximumSize, maximumWeight, terminalTtl, ticker, (taskId, cause) -> { });
+    }
+
+    InMemoryTaskStore(long maximumSize, long maximumWeight, Duration terminalTtl, LongSupplier ticker,
+                      RemovalListener removalListener) {
+        if (maximumSize <= 0 || maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumSize and maximumWeight must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.terminalTtlNanos = terminalTtl == null || terminalTtl.isNegative() ? 0 : terminalTtl.toNanos();
+        this.windowMaximum = Math.max(1, (long) (maximumSize * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((maximumSize - windowMaximum) * PROTECTED_PERCENT);
+        this.ticker = ticker;
+        this.removalListener = removalListener;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public Task get(String taskId) {
+        VersionedTask versioned = getVersioned(taskId);
+        return versioned != null ? versioned.task() : null;
+    }
+
+    @Override
+    public VersionedTask getVersioned(String taskId) {
+        Node node = data.get(taskId);
+        VersionedTask current = node != null ? node.current : null;
+        if (current == null || node.isExpired(ticker.getAsLong())) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        if (policyLock.tryLock()) {
+            try {
+                onAccess(node);
+            } finally {
+                policyLock.unlock();
+            }
+            drainRefreshes();
+        }
+        return current;
+    }
+
+    @Override
+    public void put(Task task) {
+        policyLock.lock();
+        try {
+            write(task);
+        } finally {
+            policyLock.unlock();
+        }
+        drainRefreshes();
+    }
+
+    @Override
+    public VersionedTask compareAndSet(String taskId, VersionedTask expected, Task task) {
+        if (expected == null) {
+            policyLock.lock();
+            try {
+                Node node = data.get(taskId);
+                if (node != null && node.current != null && !node.isExpired(ticker.getAsLong())) {
+                    return null;
+                }
+                return write(task);
+            } finally {
+                policyLock.unlock();
+                drainRefreshes();
+            }
+        }
+
+        Node node = data.get(taskId);
+        if (node == null || node.isExpired(ticker.getAsLong())) {
+            return null;
+        }
+        VersionedTask next = new VersionedTask(task, expected.version() + 1);
+        if (!CURRENT.compareAndSet(node, expected, next)) {
+            return null;
+        }
+        // Weight, expiry and eviction are brought up to date by whoever holds the policy lock next
+        // 权重、过期时间和淘汰由下一个持有策略锁的线程更新
+        pendingRefresh.add(node);
+        drainRefreshes();
+        return next;
+    }
+
+    @Override
+    public Task remove(String taskId) {
+        policyLock.lock();
+        try {
+            Node node = data.get(taskId);
+            if (node == null) {
+                return null;
+            }
+            Task removed = node.current.task();
+            removeNode(node, RemovalCause.EXPLICIT);
+            return removed;
+        } finally {
+            policyLock.unlock();
+            drainRefreshes();
+        }
+    }
+
+    @Override
+    public void appendHistory(String taskId, Message message) {
+        policyLock.lock();
+        try {
+            Node node = data.get(taskId);
+            if (node == null) {
+                return;
+            }
+            long messageWeight = TaskSizeEstimator.estimate(message);
+            node.history.append(message);
+            node.historyWeight += messageWeight;
+            setWeight(node, node.weight + messageWeight);
+            evictEntries();
+        } finally {
+            policyLock.unlock();
+        }
+        drainRefreshes();
+    }
+
+    @Override
+    public List<Message> getHistory(String taskId) {
+        Node node = data.get(taskId);
+        if (node == null || node.isExpired(ticker.getAsLong())) {
+            return List.of();
+        }
+        return node.history.snapshot();
+    }
+
+    @Override
+    public List<Message> getRecentHistory(String taskId, int length) {
+        Node node = data.get(taskId);
+        if (node == null || node.isExpired(ticker.getAsLong())) {
+            return List.of();
+        }
+        return node.history.tail(length);
+    }
+
+    /**
+     * Whether the task is stored, without affecting statistics or eviction order
+     * 任务是否存在，不影响统计和淘汰顺序
+     */
+    boolean contains(String taskId) {
+        Node node = data.get(taskId);
+        return node != null && !node.isExpired(ticker.getAsLong());
+    }
+
+    /**
+     * The task with its version, without affecting statistics or eviction order
+     * 获取任务及其版本，不影响统计和淘汰顺序
+     */
+    VersionedTask peekVersioned(String taskId) {
+        Node node = data.get(taskId);
+        if (node == null || node.isExpired(ticker.getAsLong())) {
+            return null;
+        }
+        return node.current;
+    }
+
+    /**
+     * Visit every live task with its history, without affecting statistics or eviction order
+     * 遍历所有有效任务及其历史，不影响统计和淘汰顺序
+     */
+    void forEach(BiConsumer<Task, List<Message>> action) {
+        long now = ticker.getAsLong();
+        for (Node node : data.values()) {
+            VersionedTask current = node.current;
+            if (current != null && !node.isExpired(now)) {
+                action.accept(current.task(), node.history.snapshot());
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return data.size();
+    }
+
+    @Override
+    public TaskStoreStats stats() {
+        return new TaskStoreStats(
+            hitCount.sum(),
+            missCount.sum(),
+            evictionCount.sum(),
+            expirationCount.sum(),
+            data.size(),
+            weightedSize
+        );
+    }
+
+    /**
+     * Store a task and update its entry; called under the policy lock
+     * 保存任务并更新其条目；在策略锁内调用
+     */
+    private VersionedTask write(Task task) {
+        long now = ticker.getAsLong();
+        Node node = data.get(task.id());
+        if (node == null) {
+            node = new Node(task.id());
+            data.put(task.id(), node);
+            window.addLast(node);
+            node.segment = Segment.WINDOW;
+            sketch.increment(node.key);
+        } else {
+            onAccess(node);
+        }
+
+        // Lock-free compareAndSet calls may race with this write, so the version is swapped atomically too
+        // 无锁的compareAndSet可能与此写入并发，因此版本同样原子替换
+        VersionedTask current;
+        VersionedTask next;
+        do {
+            current = node.current;
+            next = new VersionedTask(task, current != null ? current.version() + 1 : 1);
+        } while (!CURRENT.compareAndSet(node, current, next));
+
+        refresh(node, now);
+        expireEntries(now);
+        evictEntries();
+        return next;
+    }
+
+    /**
+     * Recompute the weight and expiry of an entry from its current task; called under the policy lock
+     * 根据条目当前的任务重新计算权重和过期时间；在策略锁内调用
+     */
+    private void refresh(Node node, long now) {
+        VersionedTask current = node.current;
+        if (node.segment == null || current == null) {
+            return; // 已被删除
+        }
+        setWeight(node, TaskSizeEstimator.estimate(current.task()) + node.historyWeight);
+        updateExpiry(node, current.task(), now);
+    }
+
+    /**
+     * Apply refreshes queued by lock-free writes, unless another thread holds the policy lock
+     * 应用无锁写入排队的刷新，其他线程持有策略锁时跳过
+     *
+     * <p>Called after every unlock, so a refresh queued while the lock was busy is applied by the holder.
+     * 每次释放锁后都会调用，因此锁繁忙时排队的刷新会由持有者完成。
+     */
+    private void drainRefreshes() {
+        while (!pendingRefresh.isEmpty() && policyLock.tryLock()) {
+            try {
+                long now = ticker.getAsLong();
+                Node node;
+                while ((node = pendingRefresh.poll()) != null) {
+                    refresh(node, now);
+                }
+                expireEntries(now);
+                evictEntries();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Record an access: bump its frequency and move it within its segment
+     * 记录访问：增加频率并在所属分段内移动位置
+     */
+    private void onAccess(Node node) {
+        if (node.segment == null) {
+            return; // 已被删除
+        }
+        sketch.increment(node.key);
+        switch (node.segment) {
+            case WINDOW -> window.moveToLast(node);
+            case PROBATION -> {
+                probation.remove(node);
+                protectedSegment.addLast(node);
+                node.segment = Segment.PROTECTED;
+                while (protectedSegment.size > protectedMaximum) {
+                    Node demoted = protectedSegment.first();
+                    protectedSegment.remove(demoted);
+                    probation.addLast(demoted);
+                    demoted.segment = Segment.PROBATION;
+                }
+            }
+            case PROTECTED -> protectedSegment.moveToLast(node);
+        }
+    }
+
+    private void updateExpiry(Node node, Task task, long now) {
+        expiryQueue.remove(node);
+        if (terminalTtlNanos > 0 && task.status() != null && TaskStateMachine.isTerminal(task.status().state())) {
+            node.expiresAt = now + terminalTtlNanos;
+            expiryQueue.add(node);
+        } else {
+            node.expiresAt = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Drop terminal tasks whose TTL elapsed; the queue is ordered by expiry time
+     * 清除TTL已到期的终态任务，队列按过期时间排序
+     */
+    private void expireEntries(long now) {
+        while (!expiryQueue.isEmpty()) {
+            Node node = expiryQueue.iterator().next();
+            if (!node.isExpired(now)) {
+                return;
+            }
+            removeNode(node, RemovalCause.EXPIRED);
+            expirationCount.increment();
+        }
+    }
+
+    /**
+     * Move window overflow into probation, then evict until both limits are met
+     * 将窗口溢出的任务移入试用区，然后淘汰直到满足数量和容量限制
+     */
+    private void evictEntries() {
+        while (window.size > windowMaximum) {
+            Node candidate = window.first();
+            window.remove(candidate);
+            probation.addLast(candidate);
+            candidate.segment = Segment.PROBATION;
+        }
+        while (data.size() > maximumSize || weightedSize > maximumWeight) {
+            Node victim = probation.first();
+            Node candidate = probation.last();
+            Node evicted;
+            if (victim == null) {
+                evicted = protectedSegment.first() != null ? protectedSegment.first() : window.first();
+            } else if (victim == candidate) {
+                evicted = victim;
+            } else {
+                // TinyLFU admission: the newcomer must be more popular than the victim
+                // TinyLFU准入：新来者必须比受害者更热门
+                evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+            }
+            if (evicted == null) {
+                return;
+            }
+            removeNode(evicted, RemovalCause.SIZE);
+            evictionCount.increment();
+        }
+    }
+
+    private void removeNode(Node node, RemovalCause cause) {
+        data.remove(node.key, node);
+        switch (node.segment) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> protectedSegment.remove(node);
+        }
+        expiryQueue.remove(node);
+        weightedSize -= node.weight;
+        node.segment = null;
+        // A removed entry can no longer be updated by compareAndSet
+        // 已删除的条目不能再被compareAndSet更新
+        CURRENT.setVolatile(node, (VersionedTask) null);
+        removalListener.onRemoval(node.key, cause);
+    }
+
+    private void setWeight(Node node, long weight) {
+        weightedSize += weight - node.weight;
+        node.weight = weight;
+    }
+
+    /**
+     * Why a task left the store
+     * 任务离开存储的原因
+     */
+    public enum RemovalCause {
+        EXPLICIT, // 显式删除
+        SIZE,     // 超出数量或容量限制被淘汰
+        EXPIRED   // 终态任务过期
+    }
+
+    /**
+     * Callback for removed tasks
+     * 任务删除回调
+     */
+    @FunctionalInterface
+    public interface RemovalListener {
+        void onRemoval(String taskId, RemovalCause cause);
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * Store entry; the current version and expiry are read without the lock, the rest is guarded by it
+     * 存储条目；当前版本和expiresAt可无锁读取，其余字段由锁保护
+     */
+    private static final class Node {
+        final String key;
+        final HistoryLog history = new HistoryLog(); // 追加由policyLock串行化
+        volatile VersionedTask current; // 当前任务及版本，删除后为null，通过CURRENT原子更新
+        volatile long expiresAt = Long.MAX_VALUE;
+        long weight;
+        long historyWeight;
+        Segment segment;
+        Node prev;
+        Node next;
+
+        Node(String key) {
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list ordered from least to most recently used
+     * 侵入式双向链表，从最久未使用到最近使用排列
+     */
+    private static final class NodeDeque {
+        Node head;
+        Node tail;
+        long size;
+
+        Node first() {
+            return head;
+        }
+
+        Node last() {
+            return tail;
+        }
+
+        void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+}
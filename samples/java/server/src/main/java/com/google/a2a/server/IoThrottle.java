@@ -0,0 +1,45 @@
+package com.google.a2a.server;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits background I/O to a byte rate so it does not compete with request handling
+ * 将后台I/O限制在指定速率，避免与请求处理争抢资源
+ */
+final class IoThrottle {
+
+    private static final long MAX_BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long bytesPerSecond; // 0表示不限速
+    private long nextFreeNanos;
+
+    IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Account for bytes about to be written, sleeping if the budget is exhausted
+     * 记录即将写入的字节数，超出预算时休眠
+     */
+    synchronized void acquire(long bytes) throws InterruptedIOException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        // Unused budget is only carried over for a short burst
+        // 未用完的预算只允许短暂突发
+        nextFreeNanos = Math.max(nextFreeNanos, now - MAX_BURST_NANOS)
+            + TimeUnit.SECONDS.toNanos(bytes) / bytesPerSecond;
+        long waitNanos = nextFreeNanos - now;
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttling journal I/O");
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.a2a.model.Message;
+import com.google.a2a.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary payload encoding of journal records
+ * 日志记录的二进制负载编码
+ *
+ * <p>Layout: type (1 byte), task ID length (2 bytes), task ID (UTF-8), then for messages the
+ * history index (4 bytes), followed by the JSON body of the task or message.
+ * 格式：类型（1字节）、任务ID长度（2字节）、任务ID（UTF-8），消息记录随后是历史位置（4字节），最后是任务或消息的JSON。
+ */
+final class JournalCodec {
+
+    private static final byte TASK_PUT = 1;
+    private static final byte MESSAGE_APPEND = 2;
+    private static final byte TASK_REMOVE = 3;
+
+    private final ObjectWriter taskWriter;
+    private final ObjectReader taskReader;
+    private final ObjectWriter messageWriter;
+    private final ObjectReader messageReader;
+
+    JournalCodec(ObjectMapper objectMapper) {
+        this.taskWriter = objectMapper.writerFor(Task.class);
+        this.taskReader = objectMapper.readerFor(Task.class);
+        this.messageWriter = objectMapper.writerFor(Message.class);
+        this.messageReader = objectMapper.readerFor(Message.class);
+    }
+
+    byte[] encode(JournalRecord record) throws IOException {
+        byte[] taskId = record.taskId().getBytes(StandardCharsets.UTF_8);
+        if (taskId.length > 0xffff) {
+            throw new IOException("Task ID too long: " + taskId.length + " bytes");
+        }
+        byte[] body;
+        int header = 1 + 2 + taskId.length;
+        byte type;
+        if (record instanceof JournalRecord.TaskPut put) {
+            type = TASK_PUT;
+            body = taskWriter.writeValueAsBytes(put.task());
+        } else if (record instanceof JournalRecord.MessageAppend append) {
+            type = MESSAGE_APPEND;
+            header += 4;
+            body = messageWriter.writeValueAsBytes(append.message());
+        } else {
+            type = TASK_REMOVE;
+            body = new byte[0];
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(header + body.length);
+        buffer.put(type);
+        buffer.putShort((short) taskId.length);
+        buffer.put(taskId);
+        if (record instanceof JournalRecord.MessageAppend append) {
+            buffer.putInt(append.index());
+        }
+        buffer.put(body);
+        return buffer.array();
+    }
+
+    JournalRecord decode(byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte type = buffer.get();
+        int taskIdLength = Short.toUnsignedInt(buffer.getShort());
+        String taskId = new String(payload, buffer.position(), taskIdLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + taskIdLength);
+        return switch (type) {
+            case TASK_PUT -> new JournalRecord.TaskPut(
+                taskReader.readValue(payload, buffer.position(), buffer.remaining()));
+            case MESSAGE_APPEND -> {
+                int index = buffer.getInt();
+                Message message = messageReader.readValue(payload, buffer.position(), buffer.remaining());
+                yield new JournalRecord.MessageAppend(taskId, index, message);
+            }
+            case TASK_REMOVE -> new JournalRecord.TaskRemove(taskId);
+            default -> throw new IOException("Unknown journal record type: " + type);
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.google.a2a.server;
+
+import java.time.Duration;
+
+/**
+ * JournalOptions configures a TaskJournal and its background maintenance
+ * JournalOptions用于配置TaskJournal及其后台维护任务
+ *
+ * @param segmentSize size of each segment file in bytes
+ *                    每个段文件的字节数
+ * @param fsync whether writes wait until they reach the disk
+ *              写入是否等待落盘
+ * @param snapshotInterval how often a snapshot is written, zero to disable
+ *                         快照间隔，0表示禁用
+ * @param compactionInterval how often sealed segments are compacted, zero to disable
+ *                           段压缩间隔，0表示禁用
+ * @param maintenanceBytesPerSecond I/O budget of snapshots and compaction, zero for unlimited
+ *                                  快照和压缩的I/O速率上限，0表示不限制
+ */
+public record JournalOptions(
+    int segmentSize,
+    boolean fsync,
+    Duration snapshotInterval,
+    Duration compactionInterval,
+    long maintenanceBytesPerSecond
+) {
+
+    /**
+     * Default options: 64 MiB segments, fsync on, hourly snapshots, compaction every
+     * five minutes at up to 8 MiB/s
+     * 默认选项：64 MiB段文件、启用fsync、每小时快照、每五分钟压缩一次，速率不超过8 MiB/s
+     */
+    public static JournalOptions defaults() {
+        return new JournalOptions(TaskJournal.DEFAULT_SEGMENT_SIZE, true, Duration.ofHours(1), Duration.ofMinutes(5), 8L * 1024 * 1024);
+    }
+}
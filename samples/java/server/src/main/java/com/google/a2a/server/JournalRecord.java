@@ -0,0 +1,45 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Message;
+import com.google.a2a.model.Task;
+
+/**
+ * JournalRecord is a single task store mutation persisted by TaskJournal
+ * JournalRecord表示TaskJournal持久化的一次任务存储变更
+ */
+public sealed interface JournalRecord {
+
+    /**
+     * ID of the task the mutation applies to
+     * 变更所属的任务ID
+     */
+    String taskId();
+
+    /**
+     * A task was stored or replaced
+     * 任务被存储或替换
+     */
+    record TaskPut(Task task) implements JournalRecord {
+        @Override
+        public String taskId() {
+            return task.id();
+        }
+    }
+
+    /**
+     * A message was appended to a task history at the given position
+     * 消息被追加到任务历史的指定位置
+     *
+     * <p>The position makes replay idempotent: a message already present is skipped.
+     * 位置信息使重放具有幂等性：已存在的消息会被跳过。
+     */
+    record MessageAppend(String taskId, int index, Message message) implements JournalRecord {
+    }
+
+    /**
+     * A task was removed, evicted or expired
+     * 任务被删除、淘汰或过期
+     */
+    record TaskRemove(String taskId) implements JournalRecord {
+    }
+}
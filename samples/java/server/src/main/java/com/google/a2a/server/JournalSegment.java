@@ -0,0 +1,209 @@
+package com.google.a2a.server;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped file of the task journal
+ * 任务日志中一个固定大小的内存映射文件
+ *
+ * <p>Each record is framed as length (4 bytes), CRC32C of the payload (4 bytes) and the
+ * payload. The file is preallocated with zeros, so a zero length marks the end of data; a
+ * record with a bad checksum marks a torn write and ends the segment as well.
+ * 每条记录由长度（4字节）、负载的CRC32C（4字节）和负载组成。文件预先填充零，
+ * 长度为0表示数据结束；校验失败的记录表示写入不完整，同样视为段结束。
+ */
+final class JournalSegment {
+
+    static final int HEADER_SIZE = 8;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    final long id; // 段序号，按写入顺序递增
+    final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writeOffset; // 由TaskJournal的追加锁保护
+    private int forcedOffset; // 已刷盘的偏移量
+
+    private JournalSegment(long id, Path path, FileChannel channel, MappedByteBuffer buffer, int writeOffset) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.writeOffset = writeOffset;
+        this.forcedOffset = writeOffset;
+    }
+
+    /**
+     * Create and preallocate a new segment
+     * 创建并预分配新的段文件
+     */
+    static JournalSegment create(Path directory, long id, int capacity) throws IOException {
+        Path path = directory.resolve(fileName(id));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        return new JournalSegment(id, path, channel, buffer, 0);
+    }
+
+    /**
+     * Reopen an existing segment for appending after its last valid record
+     * 重新打开已有段，从最后一条有效记录之后继续追加
+     */
+    static JournalSegment openForAppend(Path path, long id, int validEnd) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        JournalSegment segment = new JournalSegment(id, path, channel, buffer, validEnd);
+        if (hasDataAfter(buffer, validEnd)) {
+            // Clear the remains of a torn write so they are never mistaken for records
+            // 清除不完整写入的残留数据，避免被误认为记录
+            byte[] zeros = new byte[buffer.capacity() - validEnd];
+            buffer.put(validEnd, zeros);
+            buffer.force();
+        }
+        return segment;
+    }
+
+    private static boolean hasDataAfter(MappedByteBuffer buffer, int offset) {
+        for (int i = offset; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read all valid records of a segment file
+     * 读取段文件中的所有有效记录
+     */
+    static Scan scan(Path path, JournalCodec codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return scanFrames(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0, codec);
+        }
+    }
+
+    /**
+     * Decode consecutive frames starting at an offset until the end of valid data
+     * 从指定偏移量开始连续解码记录帧，直到有效数据结束
+     */
+    static Scan scanFrames(MappedByteBuffer buffer, int start, JournalCodec codec) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        int offset = start;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - HEADER_SIZE) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            if (checksum(payload) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            entries.add(new Entry(offset, HEADER_SIZE + length, codec.decode(payload)));
+            offset += HEADER_SIZE + length;
+        }
+        return new Scan(entries, offset);
+    }
+
+    static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Bytes needed to store a payload including its frame header
+     * 存储负载所需的字节数（含帧头）
+     */
+    static int frameSize(byte[] payload) {
+        return HEADER_SIZE + payload.length;
+    }
+
+    boolean hasRoomFor(int frameSize) {
+        return writeOffset + frameSize <= buffer.capacity();
+    }
+
+    /**
+     * Append a framed payload; the caller holds the journal append lock and checked the room
+     * 追加带帧头的负载；调用方持有追加锁并已检查剩余空间
+     *
+     * @return the offset of the record
+     *         记录所在的偏移量
+     */
+    int append(byte[] payload) {
+        int offset = writeOffset;
+        buffer.put(offset + HEADER_SIZE, payload);
+        buffer.putInt(offset + 4, checksum(payload));
+        // Length last: a record only becomes visible once it is complete
+        // 最后写入长度：记录完整后才可见
+        buffer.putInt(offset, payload.length);
+        writeOffset = offset + HEADER_SIZE + payload.length;
+        return offset;
+    }
+
+    int writeOffset() {
+        return writeOffset;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Flush written bytes up to the given offset to the storage device
+     * 将指定偏移量之前写入的数据刷到存储设备
+     */
+    synchronized void force(int upTo) {
+        if (upTo > forcedOffset) {
+            buffer.force(forcedOffset, upTo - forcedOffset);
+            forcedOffset = upTo;
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    static String fileName(long id) {
+        return String.format("%s%020d%s", PREFIX, id, SUFFIX);
+    }
+
+    /**
+     * Parse the segment ID from a file name, or -1 if it is not a segment file
+     * 从文件名解析段序号，不是段文件时返回-1
+     */
+    static long parseId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A decoded record and where it is stored
+     * 解码后的记录及其存储位置
+     */
+    record Entry(int offset, int size, JournalRecord record) {
+    }
+
+    /**
+     * Result of scanning a segment: its records and the end of valid data
+     * 扫描结果：段中的记录以及有效数据的结束位置
+     */
+    record Scan(List<Entry> entries, int validEnd) {
+    }
+}
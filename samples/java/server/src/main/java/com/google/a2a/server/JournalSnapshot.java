@@ -0,0 +1,137 @@
+package com.google.a2a.server;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Point-in-time snapshot of the task store, stored next to the journal segments
+ * 任务存储的时间点快照，与日志段存放在同一目录
+ *
+ * <p>A snapshot named after segment N holds the store state as of the start of segment N, so
+ * recovery loads it and replays segments N and later only. The file has a small header (magic,
+ * version, N) followed by records framed exactly like segment records. It is written to a
+ * temporary file and renamed once complete, so a visible snapshot is always whole.
+ * 以段N命名的快照保存段N开始时的存储状态，恢复时加载快照后只需重放段N及之后的段。
+ * 文件由小型头部（魔数、版本、N）和与段记录格式相同的记录帧组成。先写入临时文件，完成后再重命名，因此可见的快照总是完整的。
+ */
+final class JournalSnapshot {
+
+    private static final int MAGIC = 0x41324153; // "A2AS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private JournalSnapshot() {
+    }
+
+    static String fileName(long startSegmentId) {
+        return String.format("%s%020d%s", PREFIX, startSegmentId, SUFFIX);
+    }
+
+    /**
+     * Parse the start segment ID from a file name, or -1 if it is not a snapshot file
+     * 从文件名解析起始段序号，不是快照文件时返回-1
+     */
+    static long parseId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Feed every record of a snapshot file to the consumer
+     * 将快照文件中的所有记录交给consumer
+     *
+     * @return the ID of the first segment not covered by the snapshot
+     *         快照未覆盖的第一个段的序号
+     */
+    static long read(Path path, JournalCodec codec, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a task snapshot: " + path);
+            }
+            long startSegmentId = buffer.getLong(8);
+            for (JournalSegment.Entry entry : JournalSegment.scanFrames(buffer, HEADER_SIZE, codec).entries()) {
+                consumer.accept(entry.record());
+            }
+            return startSegmentId;
+        }
+    }
+
+    /**
+     * Streams records into a temporary snapshot file
+     * 将记录流式写入临时快照文件
+     */
+    static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private final JournalCodec codec;
+        private final IoThrottle throttle;
+        private boolean committed;
+
+        Writer(Path directory, long startSegmentId, JournalCodec codec, IoThrottle throttle) throws IOException {
+            this.target = directory.resolve(fileName(startSegmentId));
+            this.temp = directory.resolve(fileName(startSegmentId) + TEMP_SUFFIX);
+            this.channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            this.codec = codec;
+            this.throttle = throttle;
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(startSegmentId);
+        }
+
+        void append(JournalRecord record) throws IOException {
+            byte[] payload = codec.encode(record);
+            throttle.acquire(JournalSegment.HEADER_SIZE + payload.length);
+            out.writeInt(payload.length);
+            out.writeInt(JournalSegment.checksum(payload));
+            out.write(payload);
+        }
+
+        /**
+         * Flush the snapshot to disk and make it visible under its final name
+         * 将快照刷到磁盘并以最终文件名发布
+         */
+        Path commit() throws IOException {
+            out.writeInt(0);
+            out.flush();
+            channel.force(true);
+            out.close();
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+            return target;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.google.a2a.server;
+
+/**
+ * JournalStats is a point-in-time snapshot of TaskJournal maintenance counters
+ * JournalStats是任务日志维护计数器的时间点快照
+ *
+ * @param segmentCount number of segment files on disk
+ *                     磁盘上的段文件数量
+ * @param snapshotCount snapshots written since startup
+ *                      启动以来写入的快照数
+ * @param snapshotTotalMillis total time spent writing snapshots
+ *                            写入快照的总耗时
+ * @param lastSnapshotMillis duration of the most recent snapshot
+ *                           最近一次快照的耗时
+ * @param compactionCount segments rewritten by the compactor
+ *                        被压缩重写的段数
+ * @param reclaimedBytes disk bytes freed by snapshots and compaction
+ *                       快照和压缩释放的磁盘字节数
+ */
+public record JournalStats(
+    int segmentCount,
+    long snapshotCount,
+    long snapshotTotalMillis,
+    long lastSnapshotMillis,
+    long compactionCount,
+    long reclaimedBytes
+) {
+}
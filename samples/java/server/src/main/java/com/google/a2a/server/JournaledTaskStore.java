@@ -0,0 +1,488 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.Message;
+import com.google.a2a.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable TaskStore that writes every mutation ahead to a TaskJournal
+ * 持久化任务存储，每次变更先写入TaskJournal
+ *
+ * <p>Reads are served by a bounded InMemoryTaskStore, which is rebuilt from the journal on
+ * startup. Tasks evicted or expired from memory are recorded as removals so they stay gone
+ * after a restart.
+ * 读操作由有界的InMemoryTaskStore提供，启动时从日志重建。从内存中淘汰或过期的任务会记录为删除，
+ * 因此重启后依然不存在。
+ *
+ * <p>Mutations of the same task are serialized by a striped lock so the journal order matches
+ * the in-memory order; the durability wait happens outside the lock so commits can be grouped.
+ * Evictions are journaled under the same stripe once the write that caused them has released its own.
+ * 同一任务的变更由分段锁串行化，保证日志顺序与内存顺序一致；等待持久化在锁外进行，以便组提交。
+ * 淘汰在引发它的写入释放自身分段锁后，同样在该任务的分段锁内记录到日志。
+ *
+ * <p>A background thread periodically snapshots the store, which retires all older segments,
+ * and compacts sealed segments whose records are mostly superseded. Both are rate limited.
+ * 后台线程定期为存储生成快照（使所有更早的段失效），并压缩大部分记录已被取代的封存段。两者均受速率限制。
+ */
+public class JournaledTaskStore implements TaskStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournaledTaskStore.class);
+    private static final int LOCK_STRIPES = 64;
+    private static final double MIN_GARBAGE_RATIO = 0.5;
+
+    private final InMemoryTaskStore delegate; // 内存索引
+    private final TaskJournal journal; // 持久化日志
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final ConcurrentHashMap<String, IndexEntry> index = new ConcurrentHashMap<>(); // 每个任务的最新记录位置
+    private final List<String> evictedWhileRecovering = new ArrayList<>();
+    private final ConcurrentLinkedQueue<String> pendingEvictions = new ConcurrentLinkedQueue<>(); // 待记录到日志的淘汰
+    private volatile boolean recovering = true;
+
+    private final IoThrottle throttle; // 后台维护的I/O限速
+    private final ScheduledExecutorService maintenance; // 后台维护线程，未启用时为null
+    private final AtomicLong snapshotCount = new AtomicLong();
+    private final AtomicLong snapshotTotalMillis = new AtomicLong();
+    private volatile long lastSnapshotMillis;
+    private final AtomicLong compactionCount = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+
+    /**
+     * Open a journaled store, replaying the journal in the directory
+     * 打开持久化任务存储并重放目录中的日志
+     *
+     * @param directory the journal directory
+     *                  日志目录
+     * @param objectMapper mapper used to encode tasks and messages
+     *                     用于编码任务和消息的对象映射器
+     * @param options journal and maintenance options
+     *                日志及后台维护选项
+     */
+    public JournaledTaskStore(Path directory, ObjectMapper objectMapper, JournalOptions options,
+                              long maximumSize, long maximumWeight, Duration terminalTtl) throws IOException {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.delegate = new InMemoryTaskStore(maximumSize, maximumWeight, terminalTtl, this::onRemoval);
+        this.journal = TaskJournal.open(directory, objectMapper, options, this::replay);
+        this.recovering = false;
+
+        // Record tasks that did not fit while replaying
+        // 记录重放过程中因容量不足被淘汰的任务
+        for (String taskId : evictedWhileRecovering) {
+            if (!delegate.contains(taskId)) {
+                journal.append(new JournalRecord.TaskRemove(taskId));
+            }
+        }
+        evictedWhileRecovering.clear();
+
+        this.throttle = new IoThrottle(options.maintenanceBytesPerSecond());
+        this.maintenance = startMaintenance(options.snapshotInterval(), options.compactionInterval());
+    }
+
+    @Override
+    public Task get(String taskId) {
+        return delegate.get(taskId);
+    }
+
+    @Override
+    public void put(Task task) {
+        long position;
+        ReentrantLock lock = lockFor(task.id());
+        lock.lock();
+        try {
+            position = append(new JournalRecord.TaskPut(task));
+            delegate.put(task);
+            recordPut(task.id(), position);
+        } finally {
+            lock.unlock();
+        }
+        journalEvictions();
+        commit(position);
+    }
+
+    @Override
+    public VersionedTask getVersioned(String taskId) {
+        return delegate.getVersioned(taskId);
+    }
+
+    @Override
+    public VersionedTask compareAndSet(String taskId, VersionedTask expected, Task task) {
+        VersionedTask updated;
+        long position;
+        ReentrantLock lock = lockFor(taskId);
+        lock.lock();
+        try {
+            // Every write of this task holds the stripe, so only a write that will succeed is journaled
+            // 该任务的所有写入都持有此分段锁，因此只有会成功的写入才被记录到日志
+            if (delegate.peekVersioned(taskId) != expected) {
+                return null;
+            }
+            position = append(new JournalRecord.TaskPut(task));
+            updated = delegate.compareAndSet(taskId, expected, task);
+            if (updated == null) {
+                // Evicted from memory in between; keep the journal in line with memory
+                // 期间已从内存中淘汰，保持日志与内存一致
+                position = append(new JournalRecord.TaskRemove(taskId));
+                index.remove(taskId);
+            } else {
+                recordPut(taskId, position);
+            }
+        } finally {
+            lock.unlock();
+        }
+        journalEvictions();
+        commit(position);
+        return updated;
+    }
+
+    @Override
+    public Task remove(String taskId) {
+        Task removed;
+        long position;
+        ReentrantLock lock = lockFor(taskId);
+        lock.lock();
+        try {
+            position = append(new JournalRecord.TaskRemove(taskId));
+            removed = delegate.remove(taskId);
+            index.remove(taskId);
+        } finally {
+            lock.unlock();
+        }
+        journalEvictions();
+        commit(position);
+        return removed;
+    }
+
+    @Override
+    public void appendHistory(String taskId, Message message) {
+        long position;
+        ReentrantLock lock = lockFor(taskId);
+        lock.lock();
+        try {
+            if (!delegate.contains(taskId)) {
+                return;
+            }
+            int index = delegate.getHistory(taskId).size();
+            position = append(new JournalRecord.MessageAppend(taskId, index, message));
+            delegate.appendHistory(taskId, message);
+        } finally {
+            lock.unlock();
+        }
+        journalEvictions();
+        commit(position);
+    }
+
+    @Override
+    public List<Message> getHistory(String taskId) {
+        return delegate.getHistory(taskId);
+    }
+
+    @Override
+    public List<Message> getRecentHistory(String taskId, int length) {
+        return delegate.getRecentHistory(taskId, length);
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+
+    @Override
+    public TaskStoreStats stats() {
+        return delegate.stats();
+    }
+
+    /**
+     * Number of journal segment files
+     * 日志段文件数量
+     */
+    public int segmentCount() {
+        return journal.segmentCount();
+    }
+
+    /**
+     * Snapshot of the journal maintenance counters
+     * 日志维护计数器的快照
+     */
+    public JournalStats journalStats() {
+        return new JournalStats(
+            journal.segmentCount(),
+            snapshotCount.get(),
+            snapshotTotalMillis.get(),
+            lastSnapshotMillis,
+            compactionCount.get(),
+            reclaimedBytes.get()
+        );
+    }
+
+    /**
+     * Write a snapshot of the store and delete the journal segments it replaces
+     * 为存储写入快照，并删除被其取代的日志段
+     */
+    public synchronized void snapshot() throws IOException {
+        if (journal.isSnapshotCurrent()) {
+            return;
+        }
+        long start = System.nanoTime();
+        JournalSnapshot.Writer writer;
+        // Hold every stripe while sealing the segment so no mutation is journaled but not yet applied
+        // 封存段时持有全部分段锁，确保不存在已写日志但尚未应用到内存的变更
+        lockAll();
+        try {
+            writer = journal.beginSnapshot(throttle);
+        } finally {
+            unlockAll();
+        }
+        try (writer) {
+            // Mutations running concurrently are replayed on top; puts carry full state and
+            // messages their index, so applying them twice is harmless
+            // 并发发生的变更会在快照之上重放；put携带完整状态、消息携带序号，重复应用不会出错
+            delegate.forEach((task, history) -> {
+                try {
+                    writer.append(new JournalRecord.TaskPut(task));
+                    for (int i = 0; i < history.size(); i++) {
+                        writer.append(new JournalRecord.MessageAppend(task.id(), i, history.get(i)));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            reclaimedBytes.addAndGet(journal.completeSnapshot(writer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastSnapshotMillis = millis;
+        snapshotTotalMillis.addAndGet(millis);
+        snapshotCount.incrementAndGet();
+    }
+
+    /**
+     * Rewrite sealed segments that are mostly made of superseded records
+     * 重写大部分记录已被取代的封存段
+     */
+    public synchronized void compact() throws IOException {
+        for (long segmentId : journal.sealedSegmentIds()) {
+            TaskJournal.Compaction compaction = journal.compact(segmentId, this::isLive, MIN_GARBAGE_RATIO, throttle);
+            if (compaction == null) {
+                continue;
+            }
+            for (String taskId : compaction.taskIds()) {
+                index.computeIfPresent(taskId, (id, entry) -> new IndexEntry(
+                    compaction.remap(entry.putPosition()), compaction.remap(entry.incarnationStart())));
+            }
+            compactionCount.incrementAndGet();
+            reclaimedBytes.addAndGet(compaction.reclaimedBytes());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journalEvictions();
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+            try {
+                maintenance.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        journal.close();
+    }
+
+    /**
+     * Apply a recovered record to the in-memory index
+     * 将恢复出的记录应用到内存索引
+     */
+    private void replay(JournalRecord record, long position) {
+        if (record instanceof JournalRecord.TaskPut put) {
+            delegate.put(put.task());
+            recordPut(put.task().id(), position);
+        } else if (record instanceof JournalRecord.MessageAppend append) {
+            // Skip messages that are already part of the history
+            // 跳过已在历史中的消息
+            if (append.index() >= delegate.getHistory(append.taskId()).size()) {
+                delegate.appendHistory(append.taskId(), append.message());
+            }
+        } else if (record instanceof JournalRecord.TaskRemove remove) {
+            delegate.remove(remove.taskId());
+            index.remove(remove.taskId());
+        }
+    }
+
+    /**
+     * Remember the latest put of a task; a put after a removal starts a new incarnation
+     * 记录任务最新一次put的位置；删除后的put开始新的生命周期
+     */
+    private void recordPut(String taskId, long position) {
+        if (!delegate.contains(taskId)) {
+            return; // 已被立即淘汰
+        }
+        index.compute(taskId, (id, entry) ->
+            new IndexEntry(position, entry == null ? position : entry.incarnationStart()));
+    }
+
+    /**
+     * Whether a journal record is still needed to rebuild the store
+     * 日志记录是否仍为重建存储所需
+     */
+    private boolean isLive(JournalRecord record, long position) {
+        if (record instanceof JournalRecord.TaskRemove) {
+            // Kept until a snapshot covers it, or an older put could resurface
+            // 保留到被快照覆盖，否则更早的put可能重新生效
+            return true;
+        }
+        IndexEntry entry = index.get(record.taskId());
+        if (entry == null) {
+            return false;
+        }
+        if (record instanceof JournalRecord.TaskPut) {
+            return entry.putPosition() == position;
+        }
+        return position >= entry.incarnationStart();
+    }
+
+    /**
+     * Queue tasks dropped by the in-memory store; called under its lock
+     * 将被内存存储淘汰的任务加入队列；在其锁内调用
+     *
+     * <p>The stripe of the evicted task can't be taken here, since writers take their stripe before
+     * this lock; journaling is left to {@link #journalEvictions()} once the writer has let go of it.
+     * 此处无法获取被淘汰任务的分段锁，因为写入方先持有分段锁再获取该锁；日志记录留给写入方释放分段锁后的
+     * {@link #journalEvictions()}。
+     */
+    private void onRemoval(String taskId, InMemoryTaskStore.RemovalCause cause) {
+        if (cause == InMemoryTaskStore.RemovalCause.EXPLICIT) {
+            return; // remove()已写入日志
+        }
+        if (recovering) {
+            index.remove(taskId);
+            evictedWhileRecovering.add(taskId);
+            return;
+        }
+        pendingEvictions.add(taskId);
+    }
+
+    /**
+     * Journal queued evictions, each under its task's stripe and only if the task is still gone
+     * 记录队列中的淘汰，每个都在其任务的分段锁内进行，且仅当任务仍不在内存中时记录
+     *
+     * <p>A put that raced the eviction has already journaled the newer state and put it back in
+     * memory, so a removal written after it would drop the task on replay. Must be called without
+     * holding any stripe.
+     * 与淘汰并发的put已将更新的状态写入日志并放回内存，此时再写入删除记录会使任务在重放时丢失。
+     * 调用时不得持有任何分段锁。
+     */
+    private void journalEvictions() {
+        String taskId;
+        while ((taskId = pendingEvictions.poll()) != null) {
+            ReentrantLock lock = lockFor(taskId);
+            lock.lock();
+            try {
+                if (delegate.contains(taskId)) {
+                    continue;
+                }
+                index.remove(taskId);
+                // No durability wait: losing this record only brings the task back after a crash
+                // 不等待落盘：丢失该记录只会使任务在崩溃恢复后重新出现
+                journal.append(new JournalRecord.TaskRemove(taskId));
+            } catch (IOException e) {
+                logger.warn("Failed to journal removal of task {}", taskId, e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ScheduledExecutorService startMaintenance(Duration snapshotInterval, Duration compactionInterval) {
+        boolean snapshots = snapshotInterval != null && !snapshotInterval.isZero() && !snapshotInterval.isNegative();
+        boolean compaction = compactionInterval != null && !compactionInterval.isZero() && !compactionInterval.isNegative();
+        if (!snapshots && !compaction) {
+            return null;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            NamedThreads.daemon("task-journal-maintenance-"));
+        if (snapshots) {
+            long millis = snapshotInterval.toMillis();
+            executor.scheduleWithFixedDelay(() -> runMaintenance("snapshot", this::snapshot),
+                millis, millis, TimeUnit.MILLISECONDS);
+        }
+        if (compaction) {
+            long millis = compactionInterval.toMillis();
+            executor.scheduleWithFixedDelay(() -> runMaintenance("compaction", this::compact),
+                millis, millis, TimeUnit.MILLISECONDS);
+        }
+        return executor;
+    }
+
+    private void runMaintenance(String name, MaintenanceTask task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            // Keep the schedule alive; the next run retries
+            // 保持调度继续运行，下次执行时重试
+            logger.warn("Task journal {} failed", name, e);
+        }
+    }
+
+    private long append(JournalRecord record) {
+        try {
+            return journal.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write task journal", e);
+        }
+    }
+
+    private void commit(long position) {
+        try {
+            journal.commit(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to commit task journal", e);
+        }
+    }
+
+    private ReentrantLock lockFor(String taskId) {
+        return locks[(taskId.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface MaintenanceTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * Journal positions of a task's latest put and of the put that started its current incarnation
+     * 任务最新一次put的日志位置，以及开启当前生命周期的put的位置
+     */
+    private record IndexEntry(long putPosition, long incarnationStart) {
+    }
+}
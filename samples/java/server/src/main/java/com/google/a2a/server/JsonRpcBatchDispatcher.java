@@ -0,0 +1,235 @@
+package com.google.a2a.server;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * JsonRpcBatchDispatcher runs the calls of a JSON-RPC batch in parallel and returns their results in
+ * request order
+ * JsonRpcBatchDispatcher并行执行JSON-RPC批量请求中的各个调用，并按请求顺序返回结果
+ *
+ * <p>The calling thread works through the batch itself, and up to {@code parallelism - 1} threads of a
+ * pool shared by all batches help it; {@link #dispatchAsync} leaves the batch to the pool alone. The pool has at most {@code threads} threads and no queue: when
+ * they are all busy a batch gets fewer helpers, down to none, so a batch always finishes and the total
+ * number of threads stays bounded. Calls of one batch are independent; each produces its own result,
+ * so one failed call does not affect the others.
+ * 调用线程自己处理批量中的调用，所有批量共享的线程池中最多{@code parallelism - 1}个线程协助它；{@link #dispatchAsync}则把批量完全交给线程池。线程池最多有{@code threads}个线程且没有队列：
+ * 线程都在忙时批量得到的协助线程更少，直至没有，因此批量总能完成，线程总数也保持有界。同一批量中的调用相互独立，
+ * 各自产生结果，一个调用失败不影响其他调用。
+ *
+ * <p>Batches of more than {@code maxBatchSize} calls are refused with {@link #accepts} returning false.
+ * 超过{@code maxBatchSize}个调用的批量会被拒绝，此时{@link #accepts}返回false。
+ */
+public class JsonRpcBatchDispatcher implements Closeable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    public static final int DEFAULT_PARALLELISM = 16;
+    public static final int DEFAULT_THREADS = 64;
+
+    private final int maxBatchSize; // 每个批量最多的调用数
+    private final int parallelism; // 每个批量最多同时执行的调用数
+    private final ThreadPoolExecutor helpers; // 所有批量共享的协助线程
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder helperCallCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public JsonRpcBatchDispatcher() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_PARALLELISM, DEFAULT_THREADS);
+    }
+
+    /**
+     * Create a dispatcher
+     * 创建批量分发器
+     *
+     * @param maxBatchSize calls allowed in one batch
+     *                     一个批量允许的调用数
+     * @param parallelism calls of one batch run at once, including the calling thread
+     *                    一个批量同时执行的调用数，包括调用线程
+     * @param threads helper threads shared by all batches
+     *                所有批量共享的协助线程数
+     */
+    public JsonRpcBatchDispatcher(int maxBatchSize, int parallelism, int threads) {
+        if (maxBatchSize <= 0 || parallelism <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("maxBatchSize, parallelism and threads must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.parallelism = parallelism;
+        this.helpers = new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            NamedThreads.daemon("a2a-batch-"));
+    }
+
+    /**
+     * Whether a batch of this size may be dispatched; counts the refusal when it may not
+     * 该大小的批量是否允许分发；不允许时计入拒绝次数
+     */
+    public boolean accepts(int batchSize) {
+        if (batchSize > maxBatchSize) {
+            rejectedCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Run a call for every item and return the results in item order
+     * 对每一项执行调用，并按项的顺序返回结果
+     *
+     * <p>Returns once every call finished. Calls are expected to turn their failures into results; if
+     * one throws anyway, the others still run and the first exception is rethrown at the end.
+     * 所有调用结束后返回。调用应将失败转换为结果；如果仍有调用抛出异常，其他调用照常执行，最后重新抛出第一个异常。
+     */
+    public <T, R> List<R> dispatch(List<T> items, Function<? super T, ? extends R> call) {
+        Batch<T, R> batch = new Batch<>(items, call);
+        startHelpers(batch, parallelism - 1);
+        batch.work(false);
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return batch.done.get();
+                } catch (InterruptedException e) {
+                    // Results written by helpers must not be lost, so wait for them and restore the flag later
+                    // 协助线程写入的结果不能丢失，因此继续等待，稍后恢复中断标志
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Run a call for every item on the helper threads, without the calling thread
+     * 在协助线程上对每一项执行调用，调用线程不参与
+     *
+     * <p>The batch gets up to {@code parallelism} helpers, and the future completes with the results in
+     * item order once every call finished, or with the first exception a call threw. When no helper is
+     * free at all the calling thread runs the batch, so a batch still always finishes.
+     * 批量最多得到{@code parallelism}个协助线程，所有调用结束后future以按项顺序排列的结果完成，或以调用抛出的第一个异常完成。
+     * 完全没有空闲的协助线程时由调用线程执行该批量，因此批量仍总能完成。
+     */
+    public <T, R> CompletableFuture<List<R>> dispatchAsync(List<T> items, Function<? super T, ? extends R> call) {
+        Batch<T, R> batch = new Batch<>(items, call);
+        if (startHelpers(batch, parallelism) == 0) {
+            // 协助线程都在忙，由调用线程执行
+            batch.work(false);
+        }
+        return batch.done;
+    }
+
+    /**
+     * Start up to {@code count} helpers on a batch, fewer when the pool is busy
+     * 为批量启动最多{@code count}个协助线程，线程池繁忙时更少
+     *
+     * @return the number of helpers started
+     *         启动的协助线程数
+     */
+    private int startHelpers(Batch<?, ?> batch, int count) {
+        int started = 0;
+        while (started < Math.min(count, batch.size)) {
+            try {
+                helpers.execute(() -> batch.work(true));
+            } catch (RejectedExecutionException e) {
+                // 协助线程都在忙，剩余的调用由已有的工作者执行
+                break;
+            }
+            started++;
+        }
+        return started;
+    }
+
+    /**
+     * The calls of one batch; each worker takes the next item until none is left, so the order of the
+     * results never depends on which thread ran them
+     * 一个批量的调用；每个工作者依次取下一项直到没有剩余，因此结果的顺序与由哪个线程执行无关
+     */
+    private final class Batch<T, R> {
+
+        private final List<T> items;
+        private final Function<? super T, ? extends R> call;
+        private final int size;
+        private final Object[] results;
+        private final AtomicInteger next = new AtomicInteger(); // 下一个待执行的项
+        private final AtomicInteger remaining; // 尚未结束的调用数
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>(); // 第一个异常
+        private final CompletableFuture<List<R>> done = new CompletableFuture<>();
+
+        Batch(List<T> items, Function<? super T, ? extends R> call) {
+            this.items = items;
+            this.call = call;
+            this.size = items.size();
+            this.results = new Object[size];
+            this.remaining = new AtomicInteger(size);
+            batchCount.increment();
+            callCount.add(size);
+            if (size == 0) {
+                done.complete(new ArrayList<>());
+            }
+        }
+
+        void work(boolean helper) {
+            int i;
+            while ((i = next.getAndIncrement()) < size) {
+                try {
+                    results[i] = call.apply(items.get(i));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    if (helper) {
+                        helperCallCount.increment();
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        finish();
+                    }
+                }
+            }
+        }
+
+        private void finish() {
+            if (failure.get() != null) {
+                done.completeExceptionally(failure.get());
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            List<R> list = (List<R>) new ArrayList<>(Arrays.asList(results));
+            done.complete(list);
+        }
+    }
+
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Snapshot of the dispatcher counters
+     * 分发器计数器的快照
+     */
+    public JsonRpcBatchStats stats() {
+        return new JsonRpcBatchStats(batchCount.sum(), callCount.sum(), helperCallCount.sum(), rejectedCount.sum(),
+            helpers.getActiveCount());
+    }
+
+    @Override
+    public void close() {
+        helpers.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package com.google.a2a.server;
+
+/**
+ * JsonRpcBatchStats is a point-in-time snapshot of JsonRpcBatchDispatcher counters
+ * JsonRpcBatchStats是JSON-RPC批量分发器计数器的时间点快照
+ *
+ * @param batchCount batches dispatched
+ *                   已分发的批量数
+ * @param callCount calls in the dispatched batches
+ *                  已分发批量中的调用数
+ * @param helperCallCount calls run by helper threads rather than the thread that received the batch
+ *                        由协助线程而非接收批量的线程执行的调用数
+ * @param rejectedCount batches refused because they had too many calls
+ *                      因调用过多而被拒绝的批量数
+ * @param activeHelpers helper threads currently running calls
+ *                      正在执行调用的协助线程数
+ */
+public record JsonRpcBatchStats(
+    long batchCount,
+    long callCount,
+    long helperCallCount,
+    long rejectedCount,
+    int activeHelpers
+) {
+
+    /**
+     * Average number of calls per batch, 0.0 when no batch was dispatched
+     * 每个批量的平均调用数，未分发批量时为0.0
+     */
+    public double averageBatchSize() {
+        return batchCount == 0 ? 0.0 : (double) callCount / batchCount;
+    }
+
+    /**
+     * Ratio of calls run by helper threads, 0.0 when there were no calls
+     * 由协助线程执行的调用比例，无调用时为0.0
+     */
+    public double parallelRatio() {
+        return callCount == 0 ? 0.0 : (double) helperCallCount / callCount;
+    }
+}
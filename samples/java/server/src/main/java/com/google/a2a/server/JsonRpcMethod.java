@@ -0,0 +1,73 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.JSONRPCResponse;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * JsonRpcMethod binds a JSON-RPC method name to its handler, the type its params are read into, and
+ * where and for how long it runs
+ * JsonRpcMethod将JSON-RPC方法名绑定到其处理器、参数读取的类型以及运行位置和时限
+ *
+ * <p>Without an executor the method runs on the thread that received the request, which suits cheap
+ * methods: they never wait in a queue. With one, the method runs there and the caller is answered
+ * when it finishes, or with an error once the timeout passed; the call itself is not interrupted.
+ * 没有执行器时方法在接收请求的线程上运行，适合开销小的方法：它们从不排队。有执行器时方法在其上运行，
+ * 结束时应答调用者，超过时限后以错误应答；调用本身不会被中断。
+ *
+ * @param name method name, such as {@code tasks/get}
+ *             方法名，例如{@code tasks/get}
+ * @param paramsType type the request params are read into before the handler is called
+ *                   调用处理器之前请求参数读取为的类型
+ * @param handler answers the request
+ *                应答请求
+ * @param executor where the handler runs, or null for the receiving thread
+ *                 处理器运行的位置，为null时在接收线程上运行
+ * @param timeout how long the caller waits for a handler on the executor, or null for no limit
+ *                调用者等待执行器上处理器的时间，为null时不限
+ */
+public record JsonRpcMethod<P>(
+    String name,
+    Class<P> paramsType,
+    Handler<P> handler,
+    Executor executor,
+    Duration timeout
+) {
+
+    public JsonRpcMethod {
+        if (name == null || paramsType == null || handler == null) {
+            throw new IllegalArgumentException("name, paramsType and handler must not be null");
+        }
+        if (timeout != null && executor == null) {
+            throw new IllegalArgumentException("A timeout needs an executor: " + name);
+        }
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("timeout must be positive: " + name);
+        }
+    }
+
+    /**
+     * A method that runs on the thread that received the request
+     * 在接收请求的线程上运行的方法
+     */
+    public static <P> JsonRpcMethod<P> inline(String name, Class<P> paramsType, Handler<P> handler) {
+        return new JsonRpcMethod<>(name, paramsType, handler, null, null);
+    }
+
+    /**
+     * Answers one request of the method
+     * 应答该方法的一个请求
+     */
+    @FunctionalInterface
+    public interface Handler<P> {
+
+        /**
+         * @param requestId id of the request, to echo in the response
+         *                  请求ID，需在响应中原样返回
+         * @param params the request params read into the method's params type
+         *               读取为方法参数类型的请求参数
+         */
+        JSONRPCResponse handle(Object requestId, P params);
+    }
+}
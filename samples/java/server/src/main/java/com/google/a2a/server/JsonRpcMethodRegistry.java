@@ -0,0 +1,236 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.ErrorCode;
+import com.google.a2a.model.JSONRPCError;
+import com.google.a2a.model.JSONRPCRequest;
+import com.google.a2a.model.JSONRPCResponse;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JsonRpcMethodRegistry answers JSON-RPC requests with the JsonRpcMethod registered for their method
+ * JsonRpcMethodRegistry使用为请求方法注册的JsonRpcMethod应答JSON-RPC请求
+ *
+ * <p>The methods are looked up in a map built once, when the registry is created. Each request's
+ * params are read into the type its method declares, straight from the body by a JsonRpcRequestReader,
+ * so handlers get typed params and malformed ones are answered with {@code -32602} before any handler runs. A method then runs on the receiving
+ * thread or on its own executor, with its own timeout (see JsonRpcMethod), so cheap methods never
+ * queue behind expensive ones. Handler failures, a full executor and timeouts become error responses;
+ * the returned future never completes exceptionally.
+ * 方法在注册表创建时构建的映射中查找。每个请求的参数由JsonRpcRequestReader直接从请求体读取为其方法声明的类型，因此处理器得到类型化的参数，
+ * 格式错误的参数在任何处理器运行之前就以{@code -32602}应答。方法随后在接收线程或其自己的执行器上运行，并使用自己的时限
+ * （见JsonRpcMethod），因此开销小的方法不会排在开销大的方法之后。处理器失败、执行器已满和超时都会转换为错误响应；
+ * 返回的future不会异常完成。
+ */
+public class JsonRpcMethodRegistry {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry<?>> methods; // 按方法名预先构建的映射
+    private final JsonRpcRequestReader requestReader; // 按方法类型读取参数
+
+    /**
+     * Create a registry
+     * 创建方法注册表
+     *
+     * @throws IllegalArgumentException if two methods have the same name
+     *                                  两个方法同名时抛出
+     */
+    public JsonRpcMethodRegistry(ObjectMapper objectMapper, Collection<? extends JsonRpcMethod<?>> methods) {
+        this.objectMapper = objectMapper;
+        Map<String, Entry<?>> entries = new HashMap<>();
+        Map<String, Class<?>> paramsTypes = new HashMap<>();
+        for (JsonRpcMethod<?> method : methods) {
+            if (entries.put(method.name(), new Entry<>(method)) != null) {
+                throw new IllegalArgumentException("Duplicate JSON-RPC method: " + method.name());
+            }
+            paramsTypes.put(method.name(), method.paramsType());
+        }
+        this.methods = Map.copyOf(entries);
+        this.requestReader = new JsonRpcRequestReader(objectMapper, paramsTypes);
+    }
+
+    /**
+     * Names of the registered methods
+     * 已注册方法的名称
+     */
+    public Set<String> methodNames() {
+        return methods.keySet();
+    }
+
+    /**
+     * The method registered under a name, or null
+     * 以该名称注册的方法，不存在时为null
+     */
+    public JsonRpcMethod<?> method(String name) {
+        Entry<?> entry = name == null ? null : methods.get(name);
+        return entry == null ? null : entry.method;
+    }
+
+    /**
+     * Read a request body, with the params of every request already in the type of its method
+     * 读取请求体，每个请求的参数已读取为其方法的类型
+     *
+     * @throws IOException if the body is not well-formed JSON
+     *                     请求体不是格式正确的JSON时抛出
+     */
+    public JsonRpcRequestReader.Body read(byte[] body) throws IOException {
+        return requestReader.read(body);
+    }
+
+    /**
+     * The params of a request in a type: as read by the JsonRpcRequestReader, or converted from a request
+     * built otherwise; null if they are missing or do not fit
+     * 指定类型的请求参数：由JsonRpcRequestReader读取，或由以其他方式构建的请求转换而来；缺失或不符时为null
+     */
+    public <P> P params(JSONRPCRequest request, Class<P> type) {
+        Object params = request.params();
+        if (type.isInstance(params)) {
+            return type.cast(params);
+        }
+        if (params == null || params == JsonRpcRequestReader.MALFORMED_PARAMS) {
+            return null;
+        }
+        try {
+            return objectMapper.convertValue(params, type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether a request is a JSON-RPC 2.0 request
+     * 请求是否为JSON-RPC 2.0请求
+     */
+    public static boolean isValid(JSONRPCRequest request) {
+        // 检查JSON-RPC协议版本
+        return "2.0".equals(request.jsonrpc()) && request.method() != null;
+    }
+
+    /**
+     * The error response for a request that is not {@linkplain #isValid valid}, echoing its id
+     * 无效请求对应的错误响应，原样返回其ID
+     */
+    public static JSONRPCResponse invalidRequest(JSONRPCRequest request) {
+        String message = request.method() != null ? "Invalid JSON-RPC version" : "Invalid request";
+        return errorResponse(request.id(), ErrorCode.INVALID_REQUEST, message);
+    }
+
+    /**
+     * Answer a request with its method
+     * 使用请求的方法应答请求
+     */
+    public CompletableFuture<JSONRPCResponse> dispatch(JSONRPCRequest request) {
+        Entry<?> entry = request.method() == null ? null : methods.get(request.method());
+        if (entry == null) {
+            return CompletableFuture.completedFuture(
+                errorResponse(request.id(), ErrorCode.METHOD_NOT_FOUND, "Method not found"));
+        }
+        return entry.dispatch(request);
+    }
+
+    /**
+     * Answer one request of a batch, waiting for its response
+     * 应答批量中的一个请求，并等待其响应
+     */
+    public JSONRPCResponse call(JSONRPCRequest request) {
+        return isValid(request) ? dispatch(request).join() : invalidRequest(request);
+    }
+
+    /**
+     * Snapshot of a method's counters, or null for an unknown method
+     * 方法计数器的快照，方法不存在时为null
+     */
+    public JsonRpcMethodStats stats(String name) {
+        Entry<?> entry = methods.get(name);
+        return entry == null ? null : entry.stats();
+    }
+
+    private static JSONRPCResponse errorResponse(Object requestId, ErrorCode code, String message) {
+        return new JSONRPCResponse(requestId, "2.0", null, new JSONRPCError(code.getValue(), message, null));
+    }
+
+    /**
+     * A registered method with its counters
+     * 已注册的方法及其计数器
+     */
+    private final class Entry<P> {
+
+        private final JsonRpcMethod<P> method;
+        private final LongAdder callCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+        private final LongAdder timeoutCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        Entry(JsonRpcMethod<P> method) {
+            this.method = method;
+        }
+
+        CompletableFuture<JSONRPCResponse> dispatch(JSONRPCRequest request) {
+            long start = System.nanoTime();
+            P params = params(request, method.paramsType());
+            if (params == null) {
+                return CompletableFuture.completedFuture(
+                    finish(errorResponse(request.id(), ErrorCode.INVALID_PARAMS, "Invalid parameters"), start));
+            }
+            P typedParams = params;
+            if (method.executor() == null) {
+                return CompletableFuture.completedFuture(finish(invoke(request.id(), typedParams), start));
+            }
+
+            CompletableFuture<JSONRPCResponse> response = new CompletableFuture<>();
+            try {
+                method.executor().execute(() -> response.complete(invoke(request.id(), typedParams)));
+            } catch (RejectedExecutionException e) {
+                rejectedCount.increment();
+                return CompletableFuture.completedFuture(finish(
+                    errorResponse(request.id(), ErrorCode.INTERNAL_ERROR, "Server is busy, please retry later"), start));
+            }
+            if (method.timeout() != null) {
+                // The handler keeps running; only the caller stops waiting for it
+                // 处理器继续运行，只是调用者不再等待
+                JSONRPCResponse timedOut = errorResponse(request.id(), ErrorCode.INTERNAL_ERROR,
+                    "Request timed out after " + method.timeout());
+                return response.completeOnTimeout(timedOut, method.timeout().toNanos(), TimeUnit.NANOSECONDS)
+                    .thenApply(result -> {
+                        if (result == timedOut) {
+                            timeoutCount.increment();
+                        }
+                        return finish(result, start);
+                    });
+            }
+            return response.thenApply(result -> finish(result, start));
+        }
+
+        private JSONRPCResponse invoke(Object requestId, P params) {
+            try {
+                return method.handler().handle(requestId, params);
+            } catch (RuntimeException e) {
+                return errorResponse(requestId, ErrorCode.INTERNAL_ERROR, e.getMessage());
+            }
+        }
+
+        private JSONRPCResponse finish(JSONRPCResponse response, long start) {
+            callCount.increment();
+            totalNanos.add(System.nanoTime() - start);
+            if (response.error() != null) {
+                errorCount.increment();
+            }
+            return response;
+        }
+
+        JsonRpcMethodStats stats() {
+            return new JsonRpcMethodStats(callCount.sum(), errorCount.sum(), rejectedCount.sum(), timeoutCount.sum(),
+                totalNanos.sum());
+        }
+    }
+}
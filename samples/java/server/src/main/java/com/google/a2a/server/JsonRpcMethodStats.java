@@ -0,0 +1,33 @@
+package com.google.a2a.server;
+
+/**
+ * JsonRpcMethodStats is a point-in-time snapshot of the counters of one JSON-RPC method
+ * JsonRpcMethodStats是单个JSON-RPC方法计数器的时间点快照
+ *
+ * @param callCount requests answered, including error responses
+ *                  已应答的请求数，包括错误响应
+ * @param errorCount requests answered with an error response
+ *                   以错误响应应答的请求数
+ * @param rejectedCount requests refused because the method's executor was full
+ *                      因方法的执行器已满而被拒绝的请求数
+ * @param timeoutCount requests answered with an error after the method's timeout
+ *                     超过方法时限后以错误应答的请求数
+ * @param totalNanos time from receiving the requests to answering them
+ *                   从收到请求到应答的总时间
+ */
+public record JsonRpcMethodStats(
+    long callCount,
+    long errorCount,
+    long rejectedCount,
+    long timeoutCount,
+    long totalNanos
+) {
+
+    /**
+     * Ratio of requests answered with an error, 0.0 when there were no requests
+     * 以错误应答的请求比例，无请求时为0.0
+     */
+    public double errorRate() {
+        return callCount == 0 ? 0.0 : (double) errorCount / callCount;
+    }
+}
@@ -0,0 +1,189 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.a2a.model.JSONRPCRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JsonRpcRequestReader reads JSON-RPC request bodies with their params already in the type of their method
+ * JsonRpcRequestReader读取JSON-RPC请求体，其参数直接读取为方法对应的类型
+ *
+ * <p>Binding a body to JSONRPCRequest reads {@code params} into a tree of maps, which is then converted
+ * again into the method's params record: two passes over the params and a map per JSON object. This
+ * reader walks the body once with a streaming parser. When {@code method} comes before {@code params},
+ * as clients write it, the params are read straight into the record; when it comes after, the params
+ * are buffered as tokens and read once the method is known. Params of an unknown method are skipped.
+ * 将请求体绑定到JSONRPCRequest时，{@code params}会先读取为由Map组成的树，再转换为方法的参数记录：参数被处理两遍，
+ * 并且每个JSON对象都会创建一个Map。本读取器使用流式解析器只遍历请求体一次。当{@code method}在{@code params}之前时
+ * （客户端通常如此），参数直接读取为记录；在其之后时，参数先缓存为token，得知方法后再读取。未知方法的参数被跳过。
+ *
+ * <p>The envelope is read leniently, so a request that is not valid JSON-RPC 2.0 is still returned
+ * with what it has and gets its error response from JsonRpcMethodRegistry. Params that do not fit the
+ * method's type are replaced by {@link #MALFORMED_PARAMS}; only malformed JSON fails the whole body.
+ * 请求信封的读取是宽松的，因此不是有效JSON-RPC 2.0的请求仍会携带已有字段返回，并由JsonRpcMethodRegistry给出错误响应。
+ * 与方法类型不符的参数被替换为{@link #MALFORMED_PARAMS}；只有格式错误的JSON才会导致整个请求体失败。
+ */
+public class JsonRpcRequestReader {
+
+    /**
+     * Stands in for params that could not be read into their method's type
+     * 代替无法读取为方法类型的参数
+     */
+    public static final Object MALFORMED_PARAMS = new Object() {
+        @Override
+        public String toString() {
+            return "MALFORMED_PARAMS";
+        }
+    };
+
+    private static final JSONRPCRequest NOT_AN_OBJECT = new JSONRPCRequest(null, null, null, null);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader idReader; // 读取任意类型的请求ID
+    private final Map<String, ObjectReader> paramsReaders; // 按方法名预先构建的参数读取器
+
+    /**
+     * Create a reader
+     * 创建读取器
+     *
+     * @param paramsTypes the params type of each method
+     *                    每个方法的参数类型
+     */
+    public JsonRpcRequestReader(ObjectMapper objectMapper, Map<String, Class<?>> paramsTypes) {
+        this.objectMapper = objectMapper;
+        this.idReader = objectMapper.readerFor(Object.class);
+        Map<String, ObjectReader> readers = new HashMap<>();
+        paramsTypes.forEach((method, type) -> readers.put(method, objectMapper.readerFor(type)));
+        this.paramsReaders = Map.copyOf(readers);
+    }
+
+    /**
+     * A request body: one request, or the requests of a batch
+     * 请求体：单个请求，或批量请求中的各个请求
+     *
+     * @param requests the requests, in body order; a batch element that is not an object is a request
+     *                 without any field
+     *                 按请求体顺序排列的请求；批量中不是对象的元素表示为没有任何字段的请求
+     * @param batch whether the body was an array
+     *              请求体是否为数组
+     */
+    public record Body(List<JSONRPCRequest> requests, boolean batch) {
+    }
+
+    /**
+     * Read a body
+     * 读取请求体
+     *
+     * @throws IOException if the body is not well-formed JSON
+     *                     请求体不是格式正确的JSON时抛出
+     */
+    public Body read(byte[] body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new IOException("Empty request body");
+            }
+            if (token != JsonToken.START_ARRAY) {
+                return new Body(List.of(readRequest(parser)), false);
+            }
+            List<JSONRPCRequest> requests = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                requests.add(readRequest(parser));
+            }
+            return new Body(requests, true);
+        }
+    }
+
+    /**
+     * Read the request starting at the parser's current token, leaving the parser on its last token
+     * 读取从解析器当前token开始的请求，读取后解析器停在请求的最后一个token上
+     */
+    private JSONRPCRequest readRequest(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return NOT_AN_OBJECT;
+        }
+        JsonStreamContext request = parser.getParsingContext();
+        Object id = null;
+        String jsonrpc = null;
+        String method = null;
+        Object params = null;
+        TokenBuffer pendingParams = null; // method之前出现的参数
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> id = idReader.readValue(parser);
+                case "jsonrpc" -> jsonrpc = readString(parser);
+                case "method" -> method = readString(parser);
+                case "params" -> {
+                    if (method == null) {
+                        pendingParams = new TokenBuffer(parser);
+                        pendingParams.copyCurrentStructure(parser);
+                    } else {
+                        params = readParams(parser, method, request);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (pendingParams != null && method != null) {
+            try (JsonParser buffered = pendingParams.asParser(objectMapper)) {
+                buffered.nextToken();
+                params = readParams(buffered, method, null);
+            }
+        }
+        return new JSONRPCRequest(id, jsonrpc, method, params);
+    }
+
+    /**
+     * Read the params value at the parser's current token into the type of the method
+     * 将解析器当前token处的参数值读取为方法的类型
+     *
+     * @param request the context of the request object, which the parser is returned to if the params
+     *                do not fit the type, or null for buffered params
+     *                请求对象的上下文，参数与类型不符时解析器会回到该上下文；缓存的参数为null
+     */
+    private Object readParams(JsonParser parser, String method, JsonStreamContext request) throws IOException {
+        ObjectReader reader = paramsReaders.get(method);
+        if (reader == null || parser.currentToken() == JsonToken.VALUE_NULL) {
+            // 未知方法的参数无人使用，直接跳过
+            parser.skipChildren();
+            return null;
+        }
+        try {
+            return reader.readValue(parser);
+        } catch (JsonMappingException e) {
+            if (request == null) {
+                return MALFORMED_PARAMS;
+            }
+            // Skip what is left of the params, so the fields after them are still read
+            // 跳过参数的剩余部分，以便继续读取其后的字段
+            while (parser.getParsingContext() != request) {
+                if (parser.nextToken() == null) {
+                    throw e;
+                }
+            }
+            return MALFORMED_PARAMS;
+        }
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+}
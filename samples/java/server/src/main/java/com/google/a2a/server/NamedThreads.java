@@ -0,0 +1,39 @@
+package com.google.a2a.server;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for the server's background pools, naming threads prefix-1, prefix-2, ...
+ * 服务器后台线程池使用的线程工厂，线程依次命名为prefix-1、prefix-2……
+ */
+final class NamedThreads {
+
+    private NamedThreads() {
+    }
+
+    /**
+     * Daemon threads, for pools that must not keep the JVM alive
+     * 守护线程，用于不应阻止JVM退出的线程池
+     */
+    static ThreadFactory daemon(String prefix) {
+        return factory(prefix, true);
+    }
+
+    /**
+     * Non-daemon threads, for pools that are shut down explicitly
+     * 非守护线程，用于会被显式关闭的线程池
+     */
+    static ThreadFactory nonDaemon(String prefix) {
+        return factory(prefix, false);
+    }
+
+    private static ThreadFactory factory(String prefix, boolean daemon) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+}
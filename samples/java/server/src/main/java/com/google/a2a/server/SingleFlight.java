@@ -0,0 +1,186 @@
+package com.google.a2a.server;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SingleFlight lets concurrent callers with the same key share one in-flight call
+ * SingleFlight让具有相同键的并发调用者共享同一个正在进行的调用
+ *
+ * <p>The first caller for a key starts the call; callers that arrive while it runs wait for the same
+ * result, and the key is free again once the call finishes. The call runs on a thread of its own, so
+ * a waiter that is interrupted (for example by {@code tasks/cancel}) just stops waiting and the
+ * others still get the result. Only when every waiter has left is the call itself canceled.
+ * 某个键的第一个调用者发起调用；调用进行期间到达的调用者等待同一个结果，调用结束后该键即被释放。
+ * 调用运行在独立的线程上，因此被中断的等待者（例如因{@code tasks/cancel}）只是停止等待，其他等待者仍能得到结果。
+ * 只有当所有等待者都离开时才会取消调用本身。
+ *
+ * @param <V> type of the call result
+ *            调用结果的类型
+ */
+public class SingleFlight<V> implements Closeable {
+
+    private final ConcurrentHashMap<String, Flight<V>> flights = new ConcurrentHashMap<>(); // 正在进行的调用
+    private final ExecutorService executor; // 运行共享调用的线程
+
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder abandonedCount = new LongAdder();
+
+    public SingleFlight() {
+        this(Executors.newCachedThreadPool(NamedThreads.daemon("a2a-single-flight-")));
+    }
+
+    SingleFlight(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run a call, or wait for the identical call already in flight
+     * 执行调用，或等待已在进行中的相同调用
+     *
+     * @param key identifies calls that produce the same result
+     *            标识产生相同结果的调用
+     * @return the result of the shared call
+     *         共享调用的结果
+     * @throws InterruptedException if the caller was interrupted while waiting
+     *                              调用者等待期间被中断时抛出
+     * @throws Exception whatever the shared call threw
+     *                   共享调用抛出的异常
+     */
+    public V execute(String key, Callable<V> call) throws Exception {
+        while (true) {
+            Flight<V> created = new Flight<>();
+            Flight<V> flight = flights.putIfAbsent(key, created);
+            boolean leader = flight == null;
+            if (leader) {
+                flight = created;
+            }
+            if (!flight.join()) {
+                // 所有等待者都已离开的调用，移除后重试
+                flights.remove(key, flight);
+                continue;
+            }
+            if (leader) {
+                callCount.increment();
+                try {
+                    flight.start(executor.submit(run(key, flight, call)));
+                } catch (RejectedExecutionException e) {
+                    // 已关闭，通过结果把异常交给所有等待者
+                    flight.result.completeExceptionally(e);
+                    flights.remove(key, flight);
+                }
+            } else {
+                coalescedCount.increment();
+            }
+            return await(key, flight);
+        }
+    }
+
+    private Runnable run(String key, Flight<V> flight, Callable<V> call) {
+        return () -> {
+            V value;
+            try {
+                value = call.call();
+            } catch (Throwable e) {
+                flights.remove(key, flight);
+                flight.result.completeExceptionally(e);
+                return;
+            }
+            // 先释放键再通知等待者，之后的调用会发起新的调用
+            flights.remove(key, flight);
+            flight.result.complete(value);
+        };
+    }
+
+    private V await(String key, Flight<V> flight) throws Exception {
+        try {
+            return flight.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        } finally {
+            if (flight.leave()) {
+                abandonedCount.increment();
+                flights.remove(key, flight);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the single-flight counters
+     * 合并调用统计信息快照
+     */
+    public SingleFlightStats stats() {
+        return new SingleFlightStats(callCount.sum(), coalescedCount.sum(), abandonedCount.sum(), flights.size());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One in-flight call and the callers waiting for it
+     * 一个正在进行的调用及等待它的调用者
+     */
+    private static final class Flight<V> {
+
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        private int waiters; // 正在等待结果的调用者数
+        private boolean abandoned; // 所有等待者都已离开，调用已取消
+        private Future<?> call; // 执行器中的调用
+
+        /**
+         * @return false if the flight was abandoned and can no longer be joined
+         *         调用已被放弃、不能再加入时返回false
+         */
+        synchronized boolean join() {
+            if (abandoned) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        synchronized void start(Future<?> call) {
+            if (abandoned) {
+                call.cancel(true);
+            } else {
+                this.call = call;
+            }
+        }
+
+        /**
+         * Stop waiting; the last waiter to leave an unfinished call cancels it
+         * 停止等待；最后一个离开未完成调用的等待者会取消该调用
+         *
+         * @return true if the call was abandoned
+         *         调用被放弃时返回true
+         */
+        synchronized boolean leave() {
+            if (--waiters > 0 || result.isDone()) {
+                return false;
+            }
+            abandoned = true;
+            if (call != null) {
+                call.cancel(true);
+            }
+            return true;
+        }
+    }
+}
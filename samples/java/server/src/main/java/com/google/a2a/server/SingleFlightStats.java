@@ -0,0 +1,31 @@
+package com.google.a2a.server;
+
+/**
+ * SingleFlightStats is a point-in-time snapshot of SingleFlight counters
+ * SingleFlightStats是合并调用计数器的时间点快照
+ *
+ * @param callCount calls actually started
+ *                  实际发起的调用数
+ * @param coalescedCount callers that joined a call already in flight instead of starting one
+ *                       加入已在进行中的调用而未发起新调用的调用者数
+ * @param abandonedCount calls canceled because every waiter left
+ *                       因所有等待者都离开而被取消的调用数
+ * @param inFlight calls currently in flight
+ *                 正在进行的调用数
+ */
+public record SingleFlightStats(
+    long callCount,
+    long coalescedCount,
+    long abandonedCount,
+    int inFlight
+) {
+
+    /**
+     * Ratio of callers served by another caller's call, 0.0 when there were no callers
+     * 由其他调用者的调用返回结果的比例，无调用者时为0.0
+     */
+    public double coalescingRatio() {
+        long requestCount = callCount + coalescedCount;
+        return requestCount == 0 ? 0.0 : (double) coalescedCount / requestCount;
+    }
+}
@@ -0,0 +1,28 @@
+package com.google.a2a.server;
+
+/**
+ * SseEncodingStats is a point-in-time snapshot of SseFrameEncoder counters
+ * SseEncodingStats是SSE帧编码器计数器的时间点快照
+ *
+ * @param encodedCount events serialized into a shared frame
+ *                     序列化为共享帧的事件数
+ * @param encodedBytes bytes of those frames
+ *                     这些帧的字节数
+ * @param reusedCount frames written without serializing again, because another stream already had
+ *                    因其他流已序列化而无需再次序列化即写出的帧数
+ */
+public record SseEncodingStats(
+    long encodedCount,
+    long encodedBytes,
+    long reusedCount
+) {
+
+    /**
+     * Share of frame writes that reused a shared frame, 0.0 when nothing was written
+     * 复用共享帧的写出所占比例，没有写出时为0.0
+     */
+    public double reuseRatio() {
+        long total = encodedCount + reusedCount;
+        return total == 0 ? 0.0 : (double) reusedCount / total;
+    }
+}
@@ -0,0 +1,343 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Artifact;
+import com.google.a2a.model.Part;
+import com.google.a2a.model.TaskArtifactUpdateEvent;
+import com.google.a2a.model.TaskStatusUpdateEvent;
+import com.google.a2a.model.TextPart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * SseFrameCoalescer merges consecutive artifact chunks of a stream into fewer SSE frames
+ * SseFrameCoalescer将流中连续的制品分块合并为更少的SSE帧
+ *
+ * <p>A chunk that arrives at least {@code interval} after the previous frame is written right away, so
+ * a slow stream gets no extra latency. Chunks that arrive faster are held and appended to each other
+ * (same artifact, {@code append=true}, text parts only) until the interval since the previous frame has
+ * passed or {@code maxBytes} of text is pending, so a fast stream costs at most one serialization and
+ * one write per interval. Status updates, the last chunk of an artifact and final events first flush
+ * whatever is pending and are then written at once.
+ * 距上一帧已超过{@code interval}才到达的分块会立即写出，因此慢速流不会增加延迟。到达更快的分块会被暂存并相互拼接
+ * （同一制品、{@code append=true}且只含文本部分），直到距上一帧已过{@code interval}或暂存文本达到{@code maxBytes}，
+ * 因此快速流每个间隔最多只有一次序列化和一次写入。状态更新、制品的最后一块和最终事件会先刷出暂存内容，然后立即写出。
+ *
+ * <p>A merge of two bus events is made once and kept on the first of them, so streams of one task that
+ * start merging at the same chunk share the merged events and their frames, rather than each making
+ * and serializing its own. Streams that flushed at different points still merge apart.
+ * 两个总线事件的合并只生成一次并保存在其中第一个事件上，因此同一任务中从同一分块开始合并的各个流共享合并事件及其帧，
+ * 而不是各自生成并序列化。在不同位置刷出的流仍各自合并。
+ *
+ * <p>One timer serves all streams, but it only hands a due flush to the stream's flusher, so a write
+ * that blocks on a slow client holds up that stream alone.
+ * 所有流共用一个定时器，但它只把到期的刷出交给流的刷出执行器，因此阻塞在慢速客户端上的写入只会拖住该流自己。
+ */
+public class SseFrameCoalescer implements Closeable {
+
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(50);
+    public static final int DEFAULT_MAX_BYTES = 16 * 1024;
+
+    private final long intervalNanos; // 两帧之间的最小间隔，0表示不合并
+    private final int maxBytes; // 暂存文本达到该字节数时立即刷出
+    private final LongSupplier ticker; // 纳秒时钟
+    private final ScheduledExecutorService timer; // 间隔到期时刷出暂存内容
+
+    private final LongAdder eventCount = new LongAdder();
+    private final LongAdder frameCount = new LongAdder();
+    private final LongAdder byteCount = new LongAdder();
+
+    public SseFrameCoalescer() {
+        this(DEFAULT_INTERVAL, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create a coalescer
+     * 创建帧合并器
+     *
+     * @param interval minimum time between two frames of a stream while chunks keep coming; zero writes
+     *                 every event as its own frame
+     *                 分块持续到达时同一个流两帧之间的最短时间；为0时每个事件单独成帧
+     * @param maxBytes pending text that is flushed without waiting for the interval
+     *                 不等待间隔即刷出的暂存文本字节数
+     */
+    public SseFrameCoalescer(Duration interval, int maxBytes) {
+        this(interval, maxBytes, System::nanoTime);
+    }
+
+    SseFrameCoalescer(Duration interval, int maxBytes, LongSupplier ticker) {
+        if (interval.isNegative() || maxBytes <= 0) {
+            throw new IllegalArgumentException("interval must not be negative and maxBytes must be positive");
+        }
+        this.intervalNanos = interval.toNanos();
+        this.maxBytes = maxBytes;
+        this.ticker = ticker;
+        this.timer = Executors.newSingleThreadScheduledExecutor(NamedThreads.daemon("a2a-sse-flush-"));
+    }
+
+    /**
+     * Open a coalescing sink in front of one stream whose writes do not block; deferred flushes run on
+     * the timer thread
+     * 在写入不会阻塞的流之前打开合并接收器；延迟的刷出在定时器线程上运行
+     *
+     * @param writer serializes and writes one frame
+     *               序列化并写出一帧
+     */
+    public Sink open(FrameWriter writer) {
+        return open(writer, Runnable::run);
+    }
+
+    /**
+     * Open a coalescing sink in front of one stream
+     * 在一个流之前打开合并接收器
+     *
+     * @param writer  serializes and writes one frame
+     *                序列化并写出一帧
+     * @param flusher runs the deferred flushes of the stream, usually where its other writes run
+     *                运行该流延迟的刷出，通常与其其他写入在同一处运行
+     */
+    public Sink open(FrameWriter writer, Executor flusher) {
+        return new Sink(writer, flusher);
+    }
+
+    /**
+     * Snapshot of the frame counters
+     * 帧计数器快照
+     */
+    public SseFrameStats stats() {
+        return new SseFrameStats(eventCount.sum(), frameCount.sum(), byteCount.sum());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Serializes an event and writes it as one SSE frame
+     * 将事件序列化并作为一个SSE帧写出
+     */
+    @FunctionalInterface
+    public interface FrameWriter {
+        /**
+         * @param event the event as published, or a new one for merged chunks, which carries the
+         *              sequence number of its last chunk
+         *              发布时的事件；合并的分块为新事件，携带其最后一个分块的序号
+         * @return the number of bytes written
+         *         写出的字节数
+         */
+        int write(TaskEventBus.Event event) throws IOException;
+    }
+
+    /**
+     * The coalescing sink of one stream; once a write fails, later events are dropped
+     * 一个流的合并接收器；一旦写入失败，之后的事件会被丢弃
+     */
+    public final class Sink implements TaskEventSink, Closeable {
+
+        private final FrameWriter writer;
+        private final Executor flusher; // 运行延迟的刷出
+
+        // The following fields are guarded by this
+        // 以下字段由this保护
+        private TaskEventBus.Event pending; // 暂存的分块，合并后携带最后一块的序号
+        private int pendingBytes; // 暂存文本的字节数
+        private long lastFrameAt; // 上一帧写出的时间
+        private boolean framed; // 是否已写出过帧
+        private ScheduledFuture<?> scheduledFlush; // 已安排的刷出
+        private long flushGeneration; // 已安排刷出的代数，用于忽略已被取代的刷出
+        private boolean broken; // 写入失败或已关闭
+
+        private Sink(FrameWriter writer, Executor flusher) {
+            this.writer = writer;
+            this.flusher = flusher;
+        }
+
+        @Override
+        public synchronized void sendStatusUpdate(TaskStatusUpdateEvent event) {
+            send(new TaskEventBus.Event(0, event));
+        }
+
+        @Override
+        public synchronized void sendArtifactUpdate(TaskArtifactUpdateEvent event) {
+            send(new TaskEventBus.Event(0, event));
+        }
+
+        /**
+         * Send an event with its sequence number; a chunk that is not merged with others is written as
+         * the same event, so its shared frame can be reused, and chunks merged the same way by other
+         * streams of the task are written as the same merged event
+         * 发送带有序号的事件；未与其他分块合并的分块按原事件写出，以便复用其共享帧；任务的其他流以相同方式合并的分块按同一个合并事件写出
+         */
+        public synchronized void send(TaskEventBus.Event event) {
+            eventCount.increment();
+            if (!(event.payload() instanceof TaskArtifactUpdateEvent chunk)) {
+                flush();
+                write(event);
+                return;
+            }
+            if (pending != null && appendable((TaskArtifactUpdateEvent) pending.payload(), chunk)) {
+                pending = pending.mergedWith(event,
+                    (head, tail) -> merge((TaskArtifactUpdateEvent) head, (TaskArtifactUpdateEvent) tail));
+            } else {
+                flush();
+                pending = event;
+                pendingBytes = 0;
+            }
+            pendingBytes += textBytes(chunk);
+
+            long now = ticker.getAsLong();
+            boolean ends = Boolean.TRUE.equals(chunk.finalUpdate())
+                || chunk.artifact() == null || Boolean.TRUE.equals(chunk.artifact().lastChunk());
+            if (ends || intervalNanos == 0 || pendingBytes >= maxBytes || !framed
+                    || now - lastFrameAt >= intervalNanos) {
+                flush();
+            } else if (scheduledFlush == null) {
+                long generation = ++flushGeneration;
+                scheduledFlush = timer.schedule(() -> flusher.execute(() -> flushScheduled(generation)),
+                    lastFrameAt + intervalNanos - now, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Write the pending chunks, if any
+         * 写出暂存的分块（如果有）
+         */
+        public synchronized void flush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if (pending != null) {
+                TaskEventBus.Event event = pending;
+                pending = null;
+                pendingBytes = 0;
+                write(event);
+            }
+        }
+
+        /**
+         * Flush what is pending and drop later events
+         * 刷出暂存内容并丢弃之后的事件
+         */
+        @Override
+        public synchronized void close() {
+            flush();
+            broken = true;
+        }
+
+        private synchronized void flushScheduled(long generation) {
+            // 刷出在交给刷出执行器之后可能已被其他写入完成
+            if (scheduledFlush == null || generation != flushGeneration) {
+                return;
+            }
+            scheduledFlush = null;
+            flush();
+        }
+
+        /**
+         * Whether frames are still written, that is no write failed and the sink is not closed
+         * 是否仍在写出帧，即没有写入失败且接收器未关闭
+         */
+        public synchronized boolean isOpen() {
+            return !broken;
+        }
+
+        private void write(TaskEventBus.Event event) {
+            if (broken) {
+                return;
+            }
+            try {
+                int bytes = writer.write(event);
+                frameCount.increment();
+                byteCount.add(bytes);
+                lastFrameAt = ticker.getAsLong();
+                framed = true;
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开，不再写入
+                broken = true;
+            }
+        }
+    }
+
+    /**
+     * Whether a chunk continues the pending text chunk of the same artifact
+     * 分块是否是同一制品暂存文本分块的后续
+     */
+    private static boolean appendable(TaskArtifactUpdateEvent pending, TaskArtifactUpdateEvent next) {
+        Artifact head = pending.artifact();
+        Artifact tail = next.artifact();
+        return head != null && tail != null
+            && head.artifactId() != null && head.artifactId().equals(tail.artifactId())
+            && Objects.equals(pending.id(), next.id())
+            && Objects.equals(head.index(), tail.index())
+            && Boolean.TRUE.equals(tail.append())
+            && !Boolean.TRUE.equals(head.lastChunk())
+            && !Boolean.TRUE.equals(pending.finalUpdate())
+            && tail.metadata() == null && next.metadata() == null
+            && singleText(head) != null && singleText(tail) != null;
+    }
+
+    private static TaskArtifactUpdateEvent merge(TaskArtifactUpdateEvent pending, TaskArtifactUpdateEvent next) {
+        Artifact head = pending.artifact();
+        Artifact tail = next.artifact();
+        TextPart text = new TextPart(singleText(head).text() + singleText(tail).text(), singleText(head).metadata());
+        Artifact merged = new Artifact(
+            head.artifactId(),
+            head.name(),
+            head.description(),
+            List.of(text),
+            head.index(),
+            head.append(),
+            head.metadata(),
+            tail.lastChunk()
+        );
+        return new TaskArtifactUpdateEvent(pending.id(), merged, next.finalUpdate(), pending.metadata());
+    }
+
+    private static TextPart singleText(Artifact artifact) {
+        List<Part> parts = artifact.parts();
+        if (parts != null && parts.size() == 1 && parts.get(0) instanceof TextPart text && text.text() != null) {
+            return text;
+        }
+        return null;
+    }
+
+    /**
+     * Number of bytes of a string in UTF-8, without encoding it
+     * 字符串的UTF-8字节数，无需实际编码
+     */
+    static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // 代理对共4字节
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static int textBytes(TaskArtifactUpdateEvent event) {
+        TextPart text = event.artifact() == null ? null : singleText(event.artifact());
+        return text == null ? 0 : utf8Length(text.text());
+    }
+}
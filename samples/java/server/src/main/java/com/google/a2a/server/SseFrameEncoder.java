@@ -0,0 +1,96 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SseFrameEncoder serializes a task event into an SSE frame that every stream of the task can share
+ * SseFrameEncoder将任务事件序列化为该任务所有流都可共享的SSE帧
+ *
+ * <p>A {@code task-update} frame is a SendTaskStreamingResponse whose only per-stream part is the
+ * JSON-RPC id of the request that opened the stream. The encoder therefore writes the id last: the
+ * shared frame holds the SSE id and event lines and the response up to the result, and each stream
+ * appends its own {@link #tail(Object) tail} with the request id and the end of the frame. Writing
+ * an event to a thousand streams costs one serialization and a thousand copies of the same bytes.
+ * {@code task-update}帧是一个SendTaskStreamingResponse，其中只有打开流的请求的JSON-RPC ID因流而异。因此编码器将ID写在最后：
+ * 共享帧包含SSE的ID行、事件行以及结果之前的响应内容，每个流追加自己的{@link #tail(Object) 尾部}，其中包含请求ID和帧结尾。
+ * 将一个事件写给一千个流只需一次序列化和一千次相同字节的拷贝。
+ */
+public class SseFrameEncoder {
+
+    public static final String EVENT_NAME = "task-update";
+
+    private static final byte[] FRAME_END = "}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectWriter writer; // 序列化事件和请求ID
+
+    private final LongAdder encodedCount = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+
+    public SseFrameEncoder(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer();
+    }
+
+    /**
+     * The shared frame of an event, serialized by the first stream that writes it
+     * 事件的共享帧，由第一个写出它的流序列化
+     */
+    public byte[] frame(TaskEventBus.Event event) throws IOException {
+        return event.frame(this);
+    }
+
+    /**
+     * Serialize an event into its shared frame: {@code id:}, {@code event:} and the response without
+     * its id and closing brace
+     * 将事件序列化为共享帧：{@code id:}、{@code event:}以及不含ID和右花括号的响应
+     */
+    byte[] encode(TaskEventBus.Event event) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+        StringBuilder head = new StringBuilder();
+        if (event.sequence() > 0) {
+            head.append("id:").append(event.sequence()).append('\n');
+        }
+        head.append("event:").append(EVENT_NAME).append('\n');
+        head.append("data:{\"jsonrpc\":\"2.0\",\"result\":");
+        frame.write(head.toString().getBytes(StandardCharsets.UTF_8));
+        writer.writeValue(frame, event.payload());
+        byte[] encoded = frame.toByteArray();
+        encodedCount.increment();
+        encodedBytes.add(encoded.length);
+        return encoded;
+    }
+
+    /**
+     * The per-stream end of every frame: the JSON-RPC id of the stream's request, if any, and the end
+     * of the frame
+     * 每一帧中属于各个流的结尾：流请求的JSON-RPC ID（如果有）以及帧结尾
+     */
+    public byte[] tail(Object requestId) throws IOException {
+        if (requestId == null) {
+            return FRAME_END.clone();
+        }
+        ByteArrayOutputStream tail = new ByteArrayOutputStream(32);
+        tail.write(",\"id\":".getBytes(StandardCharsets.UTF_8));
+        writer.writeValue(tail, requestId);
+        tail.write(FRAME_END);
+        return tail.toByteArray();
+    }
+
+    void reused() {
+        reusedCount.increment();
+    }
+
+    /**
+     * Snapshot of the encoding counters
+     * 编码计数器快照
+     */
+    public SseEncodingStats stats() {
+        return new SseEncodingStats(encodedCount.sum(), encodedBytes.sum(), reusedCount.sum());
+    }
+}
@@ -0,0 +1,35 @@
+package com.google.a2a.server;
+
+/**
+ * SseFrameStats is a point-in-time snapshot of SseFrameCoalescer counters
+ * SseFrameStats是SSE帧合并器计数器的时间点快照
+ *
+ * @param eventCount events sent by handlers and the controller, before coalescing
+ *                   处理器和控制器发送的事件数（合并前）
+ * @param frameCount SSE frames written
+ *                   写出的SSE帧数
+ * @param byteCount bytes written in those frames
+ *                  这些帧写出的字节数
+ */
+public record SseFrameStats(
+    long eventCount,
+    long frameCount,
+    long byteCount
+) {
+
+    /**
+     * Average bytes per frame, 0.0 when no frame was written
+     * 每帧平均字节数，未写出帧时为0.0
+     */
+    public double averageFrameBytes() {
+        return frameCount == 0 ? 0.0 : (double) byteCount / frameCount;
+    }
+
+    /**
+     * Average events merged into one frame, 0.0 when no frame was written
+     * 每帧平均合并的事件数，未写出帧时为0.0
+     */
+    public double eventsPerFrame() {
+        return frameCount == 0 ? 0.0 : (double) eventCount / frameCount;
+    }
+}
@@ -0,0 +1,552 @@
+package com.google.a2a.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * SseStreamRegistry keeps track of the open SSE streams: it caps how many there are, keeps idle ones
+ * alive with heartbeats and ends the ones that timed out or whose client went away
+ * SseStreamRegistry跟踪打开的SSE流：限制其数量，用心跳保持空闲流的连接，并结束超时或客户端已离开的流
+ *
+ * <p>A stream that wrote nothing for {@code heartbeatInterval} gets an SSE comment, which proxies and
+ * clients ignore but which keeps the connection open and reveals a dead one: a heartbeat that fails,
+ * or any write still blocked a whole interval after it started, aborts the stream. Streams without a frame for
+ * {@code idleTimeout}, and streams open longer than {@code maxDuration}, are aborted as well. Aborting
+ * runs the actions the stream registered, which release the work producing its events.
+ * 在{@code heartbeatInterval}内没有写出任何内容的流会收到一条SSE注释，代理和客户端会忽略它，但它能保持连接并发现已断开的连接：
+ * 心跳写入失败，或任何写入开始后被阻塞了整个间隔，都会中止该流。超过{@code idleTimeout}没有帧的流以及打开时间超过{@code maxDuration}的流
+ * 同样会被中止。中止时会运行流注册的动作，以释放为其产生事件的工作。
+ *
+ * <p>At most {@code maxStreams} streams are open at once, and at most {@code maxStreamsPerClient} per
+ * client address; {@link #open} refuses more.
+ * 同时最多打开{@code maxStreams}个流，每个客户端地址最多{@code maxStreamsPerClient}个；超出时{@link #open}会拒绝。
+ *
+ * <p>Each stream is also an executor for the writes to it: they run one at a time and in order on a pool
+ * of {@code writeThreads} threads shared by all streams, so no thread waits for a stream between events.
+ * Heartbeats are such writes too; a stream whose heartbeat is still waiting for a thread gets no second one.
+ * 每个流同时也是写入它的执行器：写入在所有流共享的{@code writeThreads}个线程上逐个按顺序运行，因此事件之间没有线程等待流。
+ * 心跳也是这样的写入；心跳仍在等待线程的流不会收到第二次心跳。
+ *
+ * <p>The streams of one client address write on at most {@code writeThreadsPerClient} of those threads at
+ * once; its other streams wait for one of them. Aborting a stream cannot unblock a write stuck on a client
+ * that stopped reading, so the thread counts against the client until the write returns. A client with
+ * many streams that stops reading therefore stalls its own streams, never those of other clients.
+ * 同一客户端地址的流最多同时占用其中{@code writeThreadsPerClient}个线程写入；其余的流等待这些线程。中止流无法解除
+ * 停止读取的客户端上阻塞的写入，因此在写入返回之前该线程一直计入该客户端。打开许多流后停止读取的客户端只会阻塞其自己的流，
+ * 不会影响其他客户端的流。
+ */
+public class SseStreamRegistry implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseStreamRegistry.class);
+
+    public static final Duration DEFAULT_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_MAX_DURATION = Duration.ofMinutes(30);
+    public static final int DEFAULT_MAX_STREAMS = 10_000;
+    public static final int DEFAULT_MAX_STREAMS_PER_CLIENT = 100;
+    public static final int DEFAULT_WRITE_THREADS = 64;
+    public static final int DEFAULT_WRITE_THREADS_PER_CLIENT = 16;
+
+    /**
+     * Why a stream was aborted
+     * 流被中止的原因
+     */
+    public enum AbortReason {
+        /**
+         * No frame was written for the idle timeout
+         * 超过空闲超时未写出帧
+         */
+        IDLE,
+        /**
+         * The stream was open longer than the maximum duration
+         * 流打开的时间超过最长时长
+         */
+        EXPIRED,
+        /**
+         * A write or heartbeat failed or blocked, or the container reported the connection closed
+         * 写入或心跳失败或被阻塞，或容器报告连接已关闭
+         */
+        DISCONNECTED
+    }
+
+    private final long heartbeatNanos; // 心跳间隔
+    private final long idleNanos; // 空闲超时
+    private final long maxDurationNanos; // 流的最长时长
+    private final int maxStreams; // 全局最多打开的流数
+    private final int maxStreamsPerClient; // 每个客户端最多打开的流数
+    private final int writeThreadsPerClient; // 每个客户端最多同时占用的写入线程数
+    private final LongSupplier ticker; // 纳秒时钟
+    private final ScheduledExecutorService sweeper; // 定期检查各个流
+    private final ThreadPoolExecutor writers; // 运行各个流的写入
+
+    private final Set<Stream> streams = ConcurrentHashMap.newKeySet(); // 打开的流
+    private final Map<String, Client> clients = new HashMap<>(); // 有打开的流或正在进行的写入的客户端，由this保护
+
+    private final LongAdder openedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder heartbeatCount = new LongAdder();
+    private final LongAdder idleCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder disconnectedCount = new LongAdder();
+
+    public SseStreamRegistry() {
+        this(DEFAULT_HEARTBEAT_INTERVAL, DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_DURATION, DEFAULT_MAX_STREAMS,
+            DEFAULT_MAX_STREAMS_PER_CLIENT, DEFAULT_WRITE_THREADS, DEFAULT_WRITE_THREADS_PER_CLIENT);
+    }
+
+    /**
+     * Create a registry
+     * 创建流注册表
+     *
+     * @param heartbeatInterval how long a stream may write nothing before it gets a heartbeat comment
+     *                          流在收到心跳注释之前可以不写出任何内容的时间
+     * @param idleTimeout how long a stream may write no frame before it is aborted
+     *                    流在被中止之前可以不写出帧的时间
+     * @param maxDuration how long a stream may stay open
+     *                    流最长可以保持打开的时间
+     * @param maxStreams streams open at once
+     *                   同时打开的流数
+     * @param maxStreamsPerClient streams open at once per client address
+     *                            每个客户端地址同时打开的流数
+     * @param writeThreads threads writing to the streams at once
+     *                     同时写入各个流的线程数
+     * @param writeThreadsPerClient write threads the streams of one client address may hold at once; less than
+     *                              {@code writeThreads} unless there is only one
+     *                              同一客户端地址的流最多同时占用的写入线程数；除非只有一个线程，否则必须小于{@code writeThreads}
+     */
+    public SseStreamRegistry(Duration heartbeatInterval, Duration idleTimeout, Duration maxDuration, int maxStreams,
+                             int maxStreamsPerClient, int writeThreads, int writeThreadsPerClient) {
+        this(heartbeatInterval, idleTimeout, maxDuration, maxStreams, maxStreamsPerClient, writeThreads,
+            writeThreadsPerClient, System::nanoTime, true);
+    }
+
+    SseStreamRegistry(Duration heartbeatInterval, Duration idleTimeout, Duration maxDuration, int maxStreams,
+                      int maxStreamsPerClient, int writeThreads, int writeThreadsPerClient, LongSupplier ticker,
+                      boolean sweep) {
+        if (!positive(heartbeatInterval) || !positive(idleTimeout) || !positive(maxDuration)) {
+            throw new IllegalArgumentException("heartbeatInterval, idleTimeout and maxDuration must be positive");
+        }
+        if (maxStreams <= 0 || maxStreamsPerClient <= 0 || writeThreads <= 0 || writeThreadsPerClient <= 0) {
+            throw new IllegalArgumentException(
+                "maxStreams, maxStreamsPerClient, writeThreads and writeThreadsPerClient must be positive");
+        }
+        // One client must leave the other clients a write thread
+        // 一个客户端必须给其他客户端留下写入线程
+        if (writeThreadsPerClient > Math.max(1, writeThreads - 1)) {
+            throw new IllegalArgumentException("writeThreadsPerClient must be less than writeThreads");
+        }
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.idleNanos = idleTimeout.toNanos();
+        this.maxDurationNanos = maxDuration.toNanos();
+        this.maxStreams = maxStreams;
+        this.maxStreamsPerClient = maxStreamsPerClient;
+        this.writeThreadsPerClient = writeThreadsPerClient;
+        this.ticker = ticker;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(NamedThreads.daemon("a2a-sse-sweep-"));
+        // A stream queues at most one run of its writes, so the queue is bounded by the open streams
+        // 每个流最多排队一次写入运行，因此队列长度受打开的流数限制
+        this.writers = new ThreadPoolExecutor(writeThreads, writeThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), NamedThreads.daemon("a2a-sse-write-"));
+        writers.allowCoreThreadTimeOut(true);
+        if (sweep) {
+            long period = Math.max(TimeUnit.MILLISECONDS.toNanos(100),
+                Math.min(heartbeatNanos, Math.min(idleNanos, maxDurationNanos)) / 3);
+            sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Open a stream for a client, unless the global or the client's cap is reached
+     * 为客户端打开一个流，除非已达到全局上限或该客户端的上限
+     *
+     * @param client the client address the per-client cap applies to
+     *               适用每客户端上限的客户端地址
+     * @param heartbeat writes a heartbeat comment to the stream
+     *                  向流写出一条心跳注释
+     * @return the stream, or null if it would exceed a cap
+     *         打开的流；超出上限时返回null
+     */
+    public Stream open(String client, Heartbeat heartbeat) {
+        synchronized (this) {
+            Client owner = clients.get(client);
+            if (streams.size() >= maxStreams || (owner != null && owner.streams >= maxStreamsPerClient)) {
+                rejectedCount.increment();
+                return null;
+            }
+            if (owner == null) {
+                owner = new Client(client);
+                clients.put(client, owner);
+            }
+            owner.streams++;
+            Stream stream = new Stream(owner, heartbeat, ticker.getAsLong());
+            streams.add(stream);
+            openedCount.increment();
+            return stream;
+        }
+    }
+
+    private synchronized void remove(Stream stream) {
+        if (streams.remove(stream)) {
+            stream.client.streams--;
+            removeIfIdle(stream.client);
+        }
+    }
+
+    /**
+     * Forget a client once it has neither open streams nor writes holding or waiting for a thread
+     * 客户端既没有打开的流、也没有占用或等待线程的写入时将其移除
+     */
+    private synchronized void removeIfIdle(Client client) {
+        if (client.streams == 0 && client.isIdle()) {
+            clients.remove(client.address, client);
+        }
+    }
+
+    /**
+     * Abort streams that timed out and send heartbeats to the quiet ones
+     * 中止已超时的流，并向安静的流发送心跳
+     */
+    void sweep() {
+        long now = ticker.getAsLong();
+        for (Stream stream : streams) {
+            try {
+                stream.check(now);
+            } catch (RuntimeException e) {
+                logger.warn("Checking SSE stream of client {} failed", stream.client.address, e);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the stream counters
+     * 流计数器快照
+     */
+    public SseStreamStats stats() {
+        return new SseStreamStats(streams.size(), openedCount.sum(), rejectedCount.sum(), heartbeatCount.sum(),
+            idleCount.sum(), expiredCount.sum(), disconnectedCount.sum());
+    }
+
+    /**
+     * Streams open at once at most
+     * 同时打开的流的上限
+     */
+    public int maxStreams() {
+        return maxStreams;
+    }
+
+    /**
+     * How long a stream may stay open
+     * 流最长可以保持打开的时间
+     */
+    public Duration maxDuration() {
+        return Duration.ofNanos(maxDurationNanos);
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private static boolean positive(Duration duration) {
+        return !duration.isNegative() && !duration.isZero();
+    }
+
+    /**
+     * Writes a heartbeat comment to a stream
+     * 向流写出一条心跳注释
+     */
+    @FunctionalInterface
+    public interface Heartbeat {
+        void send() throws IOException;
+    }
+
+    /**
+     * A client address with its open streams and the write threads they hold
+     * 一个客户端地址，及其打开的流和这些流占用的写入线程
+     */
+    private final class Client {
+
+        final String address; // 客户端地址
+        int streams; // 打开的流数，由注册表保护
+
+        // The following fields are guarded by this
+        // 以下字段由this保护
+        private int writing; // 正在占用写入线程的流数
+        private final Queue<Stream> waiting = new ArrayDeque<>(); // 等待写入线程的流
+
+        Client(String address) {
+            this.address = address;
+        }
+
+        /**
+         * Run the writes of a stream on the pool, or queue the stream if the client holds its share
+         * 在线程池上运行流的写入；客户端已占满其份额时让流排队
+         */
+        void schedule(Stream stream) {
+            synchronized (this) {
+                if (writing >= writeThreadsPerClient) {
+                    waiting.add(stream);
+                    return;
+                }
+                writing++;
+            }
+            start(stream);
+        }
+
+        /**
+         * A stream gave its thread back: pass it to a waiting stream of this client, or free it
+         * 流归还了线程：交给该客户端等待中的流，或者释放
+         */
+        void release() {
+            Stream next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    writing--;
+                }
+            }
+            if (next != null) {
+                start(next);
+            } else {
+                removeIfIdle(this);
+            }
+        }
+
+        synchronized boolean isIdle() {
+            return writing == 0 && waiting.isEmpty();
+        }
+
+        private void start(Stream stream) {
+            try {
+                writers.execute(stream::runWrites);
+            } catch (RejectedExecutionException e) {
+                // 注册表已关闭
+                stream.dropWrites();
+                release();
+            }
+        }
+    }
+
+    /**
+     * One open stream; closed when it ends normally, aborted when it times out or its client goes away
+     * 一个打开的流；正常结束时关闭，超时或客户端离开时中止
+     */
+    public final class Stream implements Closeable, Executor {
+
+        private final Client client; // 流所属的客户端
+        private final Heartbeat heartbeat;
+        private final long openedAt; // 打开的时间
+        private final Queue<Runnable> writes = new ConcurrentLinkedQueue<>(); // 待运行的写入
+        private final AtomicInteger pendingWrites = new AtomicInteger(); // 已提交未运行完的写入数
+        private volatile boolean writing; // 是否有写入正在运行
+        private volatile long writeStartedAt; // 正在运行的写入开始的时间
+
+        // The following fields are guarded by this
+        // 以下字段由this保护
+        private final List<Runnable> abortActions = new ArrayList<>(); // 中止时运行的动作
+        private long lastFrameAt; // 最后写出帧的时间
+        private long lastWriteAt; // 最后写出帧或心跳的时间
+        private boolean heartbeatPending; // 是否有心跳在等待或正在写出
+        private boolean closed; // 已关闭或已中止
+        private AbortReason abortReason; // 中止的原因
+
+        private Stream(Client client, Heartbeat heartbeat, long openedAt) {
+            this.client = client;
+            this.heartbeat = heartbeat;
+            this.openedAt = openedAt;
+            this.lastFrameAt = openedAt;
+            this.lastWriteAt = openedAt;
+        }
+
+        /**
+         * Run a write to this stream on the registry's write pool, after the writes submitted before it
+         * and never at the same time as them, once the client has a write thread to spare
+         * 在注册表的写入线程池上运行一次对本流的写入，位于之前提交的写入之后，且不会与其同时运行；需等客户端有空闲的写入线程份额
+         *
+         * <p>Writes submitted once the registry is closed are dropped.
+         * 注册表关闭后提交的写入会被丢弃。
+         */
+        @Override
+        public void execute(Runnable write) {
+            writes.add(write);
+            if (pendingWrites.getAndIncrement() == 0) {
+                client.schedule(this);
+            }
+        }
+
+        private void dropWrites() {
+            writes.clear();
+            pendingWrites.set(0);
+        }
+
+        private void runWrites() {
+            do {
+                Runnable write = writes.poll();
+                writeStartedAt = ticker.getAsLong();
+                writing = true;
+                try {
+                    write.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Write to SSE stream of client {} failed", client.address, e);
+                } finally {
+                    writing = false;
+                }
+            } while (pendingWrites.decrementAndGet() != 0);
+            client.release();
+        }
+
+        /**
+         * Record that a frame was written
+         * 记录已写出一帧
+         */
+        public synchronized void touch() {
+            lastFrameAt = ticker.getAsLong();
+            lastWriteAt = lastFrameAt;
+        }
+
+        /**
+         * Run an action when the stream is aborted, or right away if it already was
+         * 在流被中止时运行动作；如果已被中止则立即运行
+         */
+        public void onAbort(Runnable action) {
+            synchronized (this) {
+                if (abortReason == null) {
+                    if (!closed) {
+                        abortActions.add(action);
+                    }
+                    return;
+                }
+            }
+            action.run();
+        }
+
+        /**
+         * Abort the stream and run its abort actions; does nothing once it is closed or aborted
+         * 中止流并运行其中止动作；流已关闭或已中止时不做任何事
+         */
+        public void abort(AbortReason reason) {
+            List<Runnable> actions;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                abortReason = reason;
+                actions = new ArrayList<>(abortActions);
+                abortActions.clear();
+            }
+            remove(this);
+            switch (reason) {
+                case IDLE -> idleCount.increment();
+                case EXPIRED -> expiredCount.increment();
+                case DISCONNECTED -> disconnectedCount.increment();
+            }
+            logger.debug("SSE stream of client {} aborted: {}", client.address, reason);
+            for (Runnable action : actions) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Abort action of SSE stream of client {} failed", client.address, e);
+                }
+            }
+        }
+
+        /**
+         * Why the stream was aborted, null unless it was
+         * 流被中止的原因，未被中止时为null
+         */
+        public synchronized AbortReason abortReason() {
+            return abortReason;
+        }
+
+        /**
+         * Whether the stream is neither closed nor aborted
+         * 流是否既未关闭也未中止
+         */
+        public synchronized boolean isOpen() {
+            return !closed;
+        }
+
+        /**
+         * End the stream normally, without running its abort actions
+         * 正常结束流，不运行其中止动作
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                abortActions.clear();
+            }
+            remove(this);
+        }
+
+        private void check(long now) {
+            AbortReason reason = null;
+            boolean beat = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (now - openedAt >= maxDurationNanos) {
+                    reason = AbortReason.EXPIRED;
+                } else if (now - lastFrameAt >= idleNanos) {
+                    reason = AbortReason.IDLE;
+                } else if (now - lastWriteAt >= heartbeatNanos) {
+                    if (writing && now - writeStartedAt >= heartbeatNanos) {
+                        // 一次写入阻塞了整个间隔，客户端已不再读取
+                        reason = AbortReason.DISCONNECTED;
+                    } else if (!heartbeatPending) {
+                        heartbeatPending = true;
+                        lastWriteAt = now;
+                        beat = true;
+                    }
+                }
+            }
+            if (reason != null) {
+                abort(reason);
+            } else if (beat) {
+                // 心跳与本流的其他写入一样在写入线程池上运行；注册表关闭后被丢弃
+                execute(this::sendHeartbeat);
+            }
+        }
+
+        private void sendHeartbeat() {
+            try {
+                heartbeat.send();
+                heartbeatCount.increment();
+                synchronized (this) {
+                    heartbeatPending = false;
+                }
+            } catch (IOException | IllegalStateException e) {
+                abort(AbortReason.DISCONNECTED);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.google.a2a.server;
+
+/**
+ * SseStreamStats is a point-in-time snapshot of SseStreamRegistry counters
+ * SseStreamStats是SSE流注册表计数器的时间点快照
+ *
+ * @param openCount streams currently open
+ *                  当前打开的流数
+ * @param openedCount streams opened
+ *                    打开过的流数
+ * @param rejectedCount streams refused because a global or per-client cap was reached
+ *                      因达到全局或每客户端上限而被拒绝的流数
+ * @param heartbeatCount heartbeat comments written
+ *                       写出的心跳注释数
+ * @param idleCount streams aborted after the idle timeout
+ *                  因空闲超时被中止的流数
+ * @param expiredCount streams aborted after the maximum duration
+ *                     因达到最长时长被中止的流数
+ * @param disconnectedCount streams aborted because their client went away
+ *                          因客户端离开被中止的流数
+ */
+public record SseStreamStats(
+    int openCount,
+    long openedCount,
+    long rejectedCount,
+    long heartbeatCount,
+    long idleCount,
+    long expiredCount,
+    long disconnectedCount
+) {
+
+    /**
+     * Share of stream requests refused by the caps, 0.0 when there were none
+     * 被上限拒绝的流请求比例，没有请求时为0.0
+     */
+    public double rejectionRate() {
+        long requested = openedCount + rejectedCount;
+        return requested == 0 ? 0.0 : (double) rejectedCount / requested;
+    }
+}
@@ -0,0 +1,668 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.TaskArtifactUpdateEvent;
+import com.google.a2a.model.TaskStatusUpdateEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * TaskEventBus keeps the recent events of every task and fans them out to any number of subscribers
+ * TaskEventBus保存每个任务最近的事件，并将其分发给任意数量的订阅者
+ *
+ * <p>Every event published for a task gets the next sequence number of that task and is kept in a ring
+ * of the last {@code retainedEvents}, so a client that lost its connection can resubscribe with the last
+ * sequence it saw and have the missing events replayed. Each subscriber has a queue of its own holding at
+ * most {@code subscriberCapacity} live events; publishing never waits for a subscriber. When a queue is
+ * full the {@link SlowConsumerPolicy} decides whether the subscriber loses its oldest event or is
+ * disconnected, so one slow client cannot stall the task or the other subscribers. Tasks without
+ * subscribers and without events for {@code retention} are forgotten. A forgotten task that gets events
+ * again continues above every sequence number handed out before, so a client resubscribing with a
+ * sequence from before is never taken as having seen the new events.
+ * 为任务发布的每个事件都会获得该任务的下一个序号，并保存在最近{@code retainedEvents}个事件的环形缓冲中，
+ * 因此断开连接的客户端可以携带其看到的最后序号重新订阅，并重放缺失的事件。每个订阅者有自己的队列，最多保存
+ * {@code subscriberCapacity}个实时事件；发布从不等待订阅者。队列已满时由{@link SlowConsumerPolicy}决定订阅者丢弃最旧的事件
+ * 还是被断开，因此一个慢速客户端不会拖慢任务或其他订阅者。没有订阅者且{@code retention}内没有事件的任务会被遗忘。
+ * 被遗忘的任务再次产生事件时，其序号从之前发出的所有序号之上继续，因此携带之前序号重新订阅的客户端不会被视为已看到新事件。
+ */
+public class TaskEventBus implements Closeable {
+
+    public static final int DEFAULT_RETAINED_EVENTS = 512;
+    public static final int DEFAULT_SUBSCRIBER_CAPACITY = 256;
+    public static final Duration DEFAULT_RETENTION = Duration.ofMinutes(5);
+
+    /**
+     * What happens to a subscriber whose queue is full
+     * 订阅者队列已满时的处理方式
+     */
+    public enum SlowConsumerPolicy {
+        /**
+         * Drop the subscriber's oldest queued event; the gap shows as a jump in sequence numbers
+         * 丢弃订阅者队列中最旧的事件；缺口表现为序号跳跃
+         */
+        DROP_OLDEST,
+        /**
+         * Disconnect the subscriber, which may resubscribe from its last sequence number
+         * 断开订阅者，订阅者可以从其最后的序号重新订阅
+         */
+        DISCONNECT
+    }
+
+    private final int retainedEvents; // 每个任务保留的最近事件数
+    private final int subscriberCapacity; // 每个订阅者队列最多保存的事件数
+    private final SlowConsumerPolicy policy; // 慢速订阅者的处理策略
+    private final long retentionNanos; // 空闲任务的保留时间
+    private final LongSupplier ticker; // 纳秒时钟
+    private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>(); // 按任务ID保存事件和订阅者
+    private final ScheduledExecutorService sweeper; // 定期清理空闲任务
+    private final AtomicLong forgottenSequence = new AtomicLong(); // 已遗忘任务的最大序号，新任务的序号从其之后开始
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder disconnectedCount = new LongAdder();
+
+    public TaskEventBus() {
+        this(DEFAULT_RETAINED_EVENTS, DEFAULT_SUBSCRIBER_CAPACITY, SlowConsumerPolicy.DROP_OLDEST, DEFAULT_RETENTION);
+    }
+
+    /**
+     * Create an event bus
+     * 创建事件总线
+     *
+     * @param retainedEvents events kept per task for replay
+     *                       每个任务为重放保留的事件数
+     * @param subscriberCapacity live events queued per subscriber before the policy applies
+     *                           应用策略之前每个订阅者可排队的实时事件数
+     * @param policy what to do with a subscriber whose queue is full
+     *               订阅者队列已满时的处理方式
+     * @param retention how long a task without subscribers keeps its events after the last one
+     *                  没有订阅者的任务在最后一个事件之后保留事件的时间
+     */
+    public TaskEventBus(int retainedEvents, int subscriberCapacity, SlowConsumerPolicy policy, Duration retention) {
+        this(retainedEvents, subscriberCapacity, policy, retention, System::nanoTime);
+    }
+
+    TaskEventBus(int retainedEvents, int subscriberCapacity, SlowConsumerPolicy policy, Duration retention,
+                 LongSupplier ticker) {
+        if (retainedEvents <= 0 || subscriberCapacity <= 0) {
+            throw new IllegalArgumentException("retainedEvents and subscriberCapacity must be positive");
+        }
+        if (retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("retention must be positive");
+        }
+        this.retainedEvents = retainedEvents;
+        this.subscriberCapacity = subscriberCapacity;
+        this.policy = policy;
+        this.retentionNanos = retention.toNanos();
+        this.ticker = ticker;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(NamedThreads.daemon("a2a-event-bus-sweep-"));
+        long period = Math.max(TimeUnit.SECONDS.toNanos(1), retentionNanos / 2);
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publish a status update to the subscribers of its task
+     * 将状态更新发布给其任务的订阅者
+     *
+     * @return the sequence number of the event
+     *         事件的序号
+     */
+    public long publish(TaskStatusUpdateEvent event) {
+        return publish(event.id(), event);
+    }
+
+    /**
+     * Publish an artifact update to the subscribers of its task
+     * 将制品更新发布给其任务的订阅者
+     *
+     * @return the sequence number of the event
+     *         事件的序号
+     */
+    public long publish(TaskArtifactUpdateEvent event) {
+        return publish(event.id(), event);
+    }
+
+    private long publish(String taskId, Object payload) {
+        Topic topic = lockTopic(taskId);
+        List<Runnable> listeners = null; // 在锁外通知的订阅者
+        long sequence;
+        try {
+            Event event = new Event(++topic.lastSequence, payload);
+            if (topic.ring.size() == retainedEvents) {
+                topic.ring.removeFirst();
+            }
+            topic.ring.addLast(event);
+            topic.touchedAt = ticker.getAsLong();
+            publishedCount.increment();
+            for (Iterator<Subscription> it = topic.subscribers.iterator(); it.hasNext(); ) {
+                Subscription subscription = it.next();
+                if (!subscription.offer(event)) {
+                    it.remove();
+                }
+                if (subscription.listener != null) {
+                    if (listeners == null) {
+                        listeners = new ArrayList<>();
+                    }
+                    listeners.add(subscription.listener);
+                }
+            }
+            sequence = event.sequence();
+        } finally {
+            topic.lock.unlock();
+        }
+        if (listeners != null) {
+            listeners.forEach(Runnable::run);
+        }
+        return sequence;
+    }
+
+    /**
+     * A sink that publishes everything it receives
+     * 发布其收到的所有事件的接收器
+     */
+    public TaskEventSink sink() {
+        return new TaskEventSink() {
+            @Override
+            public void sendStatusUpdate(TaskStatusUpdateEvent event) {
+                publish(event);
+            }
+
+            @Override
+            public void sendArtifactUpdate(TaskArtifactUpdateEvent event) {
+                publish(event);
+            }
+        };
+    }
+
+    /**
+     * Subscribe to the events of a task published from now on
+     * 订阅任务从现在开始发布的事件
+     */
+    public Subscription subscribe(String taskId) {
+        return subscribe(taskId, -1);
+    }
+
+    /**
+     * Subscribe to the events of a task, first replaying the retained events after a sequence number
+     * 订阅任务的事件，先重放某个序号之后保留的事件
+     *
+     * <p>If some events after {@code afterSequence} are no longer retained, or the sequence is unknown,
+     * nothing is replayed and {@link Subscription#isResumed()} is false, so the caller knows it has to
+     * start over from the task's current state.
+     * 如果{@code afterSequence}之后的部分事件已不再保留，或该序号未知，则不重放任何事件且{@link Subscription#isResumed()}为false，
+     * 调用方据此得知需要从任务的当前状态重新开始。
+     *
+     * @param afterSequence the last sequence number the subscriber saw, or a negative value to only
+     *                      receive new events
+     *                      订阅者看到的最后序号；为负数时只接收新事件
+     */
+    public Subscription subscribe(String taskId, long afterSequence) {
+        Topic topic = lockTopic(taskId);
+        try {
+            long first = topic.ring.isEmpty() ? topic.lastSequence + 1 : topic.ring.peekFirst().sequence();
+            boolean resumed = afterSequence >= 0 && afterSequence >= first - 1 && afterSequence <= topic.lastSequence;
+            List<Event> replay = new ArrayList<>();
+            if (resumed) {
+                for (Event event : topic.ring) {
+                    if (event.sequence() > afterSequence) {
+                        replay.add(event);
+                    }
+                }
+                replayedCount.add(replay.size());
+            }
+            Subscription subscription = new Subscription(topic, replay, resumed, topic.lastSequence);
+            topic.subscribers.add(subscription);
+            topic.touchedAt = ticker.getAsLong();
+            return subscription;
+        } finally {
+            topic.lock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number of the last event published for a task, 0 if none
+     * 任务最后发布事件的序号，没有时为0
+     */
+    public long lastSequence(String taskId) {
+        Topic topic = topics.get(taskId);
+        if (topic == null) {
+            return 0;
+        }
+        topic.lock.lock();
+        try {
+            return topic.lastSequence;
+        } finally {
+            topic.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of subscribers currently following a task
+     * 当前跟踪任务的订阅者数量
+     */
+    public int subscriberCount(String taskId) {
+        Topic topic = topics.get(taskId);
+        if (topic == null) {
+            return 0;
+        }
+        topic.lock.lock();
+        try {
+            return topic.subscribers.size();
+        } finally {
+            topic.lock.unlock();
+        }
+    }
+
+    /**
+     * Lock the topic of a task, creating it if needed; the caller unlocks it
+     * 锁定任务的主题，需要时创建；由调用方解锁
+     *
+     * <p>The sweeper may forget a topic between looking it up and locking it, so that is checked under
+     * the lock; a subscriber or event must never land on a topic nobody can find anymore.
+     * 清理线程可能在查找主题和锁定主题之间将其遗忘，因此在锁内检查；订阅者或事件绝不能落在已无法找到的主题上。
+     */
+    private Topic lockTopic(String taskId) {
+        while (true) {
+            Topic topic = topics.computeIfAbsent(taskId, id -> new Topic(forgottenSequence.get()));
+            topic.lock.lock();
+            if (!topic.removed) {
+                return topic;
+            }
+            topic.lock.unlock();
+            // 被清理的主题会从映射中移除，重试即可
+            topics.remove(taskId, topic);
+        }
+    }
+
+    /**
+     * Forget tasks that have no subscribers and no event within the retention
+     * 遗忘没有订阅者且在保留时间内没有事件的任务
+     */
+    void sweep() {
+        long now = ticker.getAsLong();
+        for (Map.Entry<String, Topic> entry : topics.entrySet()) {
+            Topic topic = entry.getValue();
+            topic.lock.lock();
+            try {
+                if (topic.subscribers.isEmpty() && now - topic.touchedAt >= retentionNanos) {
+                    topic.removed = true;
+                    // Before the topic can be created again, so its next lifetime starts above this one
+                    // 在主题可能被重新创建之前更新，使其下一次生命周期从本次之上开始
+                    forgottenSequence.accumulateAndGet(topic.lastSequence, Math::max);
+                    topics.remove(entry.getKey(), topic);
+                }
+            } finally {
+                topic.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the bus counters
+     * 事件总线统计信息快照
+     */
+    public TaskEventBusStats stats() {
+        int subscribers = 0;
+        for (Topic topic : topics.values()) {
+            topic.lock.lock();
+            try {
+                subscribers += topic.subscribers.size();
+            } finally {
+                topic.lock.unlock();
+            }
+        }
+        return new TaskEventBusStats(topics.size(), subscribers, publishedCount.sum(), deliveredCount.sum(),
+            replayedCount.sum(), droppedCount.sum(), disconnectedCount.sum());
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * An event with its sequence number within the task
+     * 带有任务内序号的事件
+     *
+     * <p>The SSE frame of an event is encoded by the first stream that writes it and then shared by
+     * every other stream, so fan-out to many subscribers serializes each event once.
+     * 事件的SSE帧由第一个写出它的流编码，之后由其他所有流共享，因此向多个订阅者分发时每个事件只序列化一次。
+     */
+    public static final class Event {
+
+        private final long sequence; // 任务每个事件加一；新任务从1开始，被遗忘后再次出现的任务从已遗忘任务的最大序号之后开始
+        private final Object payload; // TaskStatusUpdateEvent或TaskArtifactUpdateEvent
+        private volatile byte[] frame; // 共享的预序列化SSE帧
+        private volatile Merge merge; // 与下一个事件合并的结果，由合并相同事件的各个流共享
+
+        /**
+         * @param sequence grows by one per event of the task, from 1 unless the bus forgot the task before;
+         *                 0 for an event outside the bus
+         *                 任务每个事件加一，除非总线之前遗忘过该任务，否则从1开始；不属于总线的事件为0
+         * @param payload a TaskStatusUpdateEvent or TaskArtifactUpdateEvent
+         *                TaskStatusUpdateEvent或TaskArtifactUpdateEvent
+         */
+        public Event(long sequence, Object payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        public long sequence() {
+            return sequence;
+        }
+
+        public Object payload() {
+            return payload;
+        }
+
+        /**
+         * Whether the event ends the stream of its task
+         * 事件是否结束其任务的流
+         */
+        public boolean isFinal() {
+            if (payload instanceof TaskStatusUpdateEvent status) {
+                return Boolean.TRUE.equals(status.finalUpdate());
+            }
+            return payload instanceof TaskArtifactUpdateEvent artifact && Boolean.TRUE.equals(artifact.finalUpdate());
+        }
+
+        /**
+         * The shared SSE frame of this event, encoded on first use
+         * 该事件共享的SSE帧，首次使用时编码
+         */
+        byte[] frame(SseFrameEncoder encoder) throws IOException {
+            byte[] encoded = frame;
+            if (encoded == null) {
+                synchronized (this) {
+                    if (frame == null) {
+                        frame = encoder.encode(this);
+                        return frame;
+                    }
+                    encoded = frame;
+                }
+            }
+            encoder.reused();
+            return encoded;
+        }
+
+        /**
+         * This event merged with the one after it, made once per pair, so every stream that merges the
+         * same run of chunks gets the same merged events and shares their frames
+         * 本事件与其后一个事件合并的结果，每对事件只生成一次，因此合并同一串分块的各个流得到相同的合并事件并共享其帧
+         *
+         * @param next the event after this one, whose sequence number the merged event carries
+         *             本事件之后的事件，合并事件携带其序号
+         * @param merger merges the two payloads
+         *               合并两个载荷
+         */
+        Event mergedWith(Event next, BinaryOperator<Object> merger) {
+            Merge known = merge;
+            if (known != null && known.next == next) {
+                return known.result;
+            }
+            Event result = new Event(next.sequence, merger.apply(payload, next.payload));
+            if (sequence == 0 || next.sequence == 0) {
+                // 不属于总线的事件不会被其他流合并
+                return result;
+            }
+            synchronized (this) {
+                known = merge;
+                if (known != null && known.next == next) {
+                    return known.result;
+                }
+                merge = new Merge(next, result);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Event[sequence=" + sequence + ", payload=" + payload + "]";
+        }
+    }
+
+    private record Merge(Event next, Event result) {
+    }
+
+    /**
+     * The retained events and subscribers of one task
+     * 一个任务保留的事件及其订阅者
+     */
+    private static final class Topic {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        // The following fields are guarded by lock
+        // 以下字段由lock保护
+        final ArrayDeque<Event> ring = new ArrayDeque<>(); // 最近的事件
+        final List<Subscription> subscribers = new ArrayList<>(); // 当前订阅者
+        long lastSequence; // 最后发布事件的序号
+        long touchedAt; // 最后发布或订阅的时间
+        boolean removed; // 已被清理
+
+        Topic(long lastSequence) {
+            this.lastSequence = lastSequence;
+        }
+    }
+
+    /**
+     * The queue of events of one subscriber; consumed by a single thread
+     * 一个订阅者的事件队列；由单个线程消费
+     */
+    public final class Subscription implements Closeable {
+
+        private final Topic topic;
+        private final ArrayDeque<Event> replay; // 订阅时待重放的事件，不计入队列容量
+        private final boolean resumed; // 是否从请求的序号处继续
+        private final long startSequence; // 订阅时最后发布事件的序号
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+
+        // The following fields are guarded by lock
+        // 以下字段由lock保护
+        private final ArrayDeque<Event> queue = new ArrayDeque<>(); // 待消费的实时事件
+        private long dropped; // 因队列已满被丢弃的事件数
+        private boolean closed; // 已关闭或已被断开
+        private boolean disconnected; // 因消费过慢被断开
+
+        private volatile Runnable listener; // 有新事件或订阅关闭时通知
+
+        private Subscription(Topic topic, List<Event> replay, boolean resumed, long startSequence) {
+            this.topic = topic;
+            this.replay = new ArrayDeque<>(replay);
+            this.resumed = resumed;
+            this.startSequence = startSequence;
+        }
+
+        /**
+         * Whether the events since the requested sequence number were replayed
+         * 是否已重放请求序号之后的事件
+         */
+        public boolean isResumed() {
+            return resumed;
+        }
+
+        /**
+         * Sequence number of the last event published before the subscription, 0 if none; live events
+         * start after it
+         * 订阅之前最后发布事件的序号，没有时为0；实时事件从其之后开始
+         */
+        public long startSequence() {
+            return startSequence;
+        }
+
+        /**
+         * Queue a live event, applying the slow-consumer policy when the queue is full
+         * 将实时事件加入队列，队列已满时应用慢速消费者策略
+         *
+         * @return false if the subscription is closed and should be removed
+         *         订阅已关闭、应被移除时返回false
+         */
+        private boolean offer(Event event) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                if (queue.size() >= subscriberCapacity) {
+                    if (policy == SlowConsumerPolicy.DISCONNECT) {
+                        closed = true;
+                        disconnected = true;
+                        disconnectedCount.increment();
+                        available.signalAll();
+                        return false;
+                    }
+                    queue.removeFirst();
+                    dropped++;
+                    droppedCount.increment();
+                }
+                queue.addLast(event);
+                deliveredCount.increment();
+                available.signalAll();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Be notified when an event is queued or the subscription closes, instead of waiting in poll
+         * 在有事件排队或订阅关闭时收到通知，而不是在poll中等待
+         *
+         * <p>The listener runs on the publishing or closing thread, outside the bus's locks, and must not
+         * block; it typically schedules a drain with {@link #poll()}. It is run once right away, so events
+         * replayed or queued before it was set are not missed.
+         * 监听器在发布或关闭的线程上、在总线的锁之外运行，且不得阻塞；通常用它安排一次{@link #poll()}取出。
+         * 设置时会立即运行一次，因此不会错过设置之前重放或排队的事件。
+         */
+        public void onAvailable(Runnable listener) {
+            this.listener = listener;
+            listener.run();
+        }
+
+        /**
+         * Take the next event without waiting
+         * 不等待地取出下一个事件
+         *
+         * @return the next replayed or live event, or null if there is none
+         *         下一个重放或实时事件，没有时返回null
+         */
+        public Event poll() {
+            lock.lock();
+            try {
+                Event event = replay.pollFirst();
+                return event != null ? event : queue.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Take the next event, waiting up to the timeout for one
+         * 取出下一个事件，最多等待给定时间
+         *
+         * @return the next event, or null on timeout or once the subscription is closed and drained
+         *         下一个事件；超时或订阅已关闭且已取完时返回null
+         */
+        public Event poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long remaining = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (replay.isEmpty() && queue.isEmpty() && !closed) {
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                Event event = replay.pollFirst();
+                return event != null ? event : queue.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Whether the subscription was closed, by its owner or by the slow-consumer policy
+         * 订阅是否已被关闭（由其所有者或慢速消费者策略）
+         */
+        public boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Whether the slow-consumer policy disconnected this subscriber
+         * 慢速消费者策略是否已断开该订阅者
+         */
+        public boolean isDisconnected() {
+            lock.lock();
+            try {
+                return disconnected;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Events this subscriber lost because its queue was full
+         * 该订阅者因队列已满而丢失的事件数
+         */
+        public long droppedCount() {
+            lock.lock();
+            try {
+                return dropped;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Stop receiving events
+         * 停止接收事件
+         */
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            topic.lock.lock();
+            try {
+                topic.subscribers.remove(this);
+                topic.touchedAt = ticker.getAsLong();
+            } finally {
+                topic.lock.unlock();
+            }
+            Runnable current = listener;
+            if (current != null) {
+                current.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.google.a2a.server;
+
+/**
+ * TaskEventBusStats is a point-in-time snapshot of TaskEventBus counters
+ * TaskEventBusStats是任务事件总线计数器的时间点快照
+ *
+ * @param topicCount tasks whose events are currently retained
+ *                   当前保留事件的任务数
+ * @param subscriberCount open subscriptions
+ *                        打开的订阅数
+ * @param publishedCount events published
+ *                       发布的事件数
+ * @param deliveredCount live events queued for subscribers, one per subscriber
+ *                       为订阅者排队的实时事件数（每个订阅者各计一次）
+ * @param replayedCount retained events replayed to resubscribing clients
+ *                      向重新订阅的客户端重放的保留事件数
+ * @param droppedCount events slow subscribers lost under the drop-oldest policy
+ *                     在丢弃最旧策略下慢速订阅者丢失的事件数
+ * @param disconnectedCount slow subscribers disconnected under the disconnect policy
+ *                          在断开策略下被断开的慢速订阅者数
+ */
+public record TaskEventBusStats(
+    int topicCount,
+    int subscriberCount,
+    long publishedCount,
+    long deliveredCount,
+    long replayedCount,
+    long droppedCount,
+    long disconnectedCount
+) {
+
+    /**
+     * Share of queued events that slow subscribers lost, 0.0 when nothing was queued
+     * 排队事件中被慢速订阅者丢失的比例，没有排队事件时为0.0
+     */
+    public double dropRate() {
+        return deliveredCount == 0 ? 0.0 : (double) droppedCount / deliveredCount;
+    }
+}
@@ -0,0 +1,58 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.TaskArtifactUpdateEvent;
+import com.google.a2a.model.TaskStatusUpdateEvent;
+
+/**
+ * TaskEventSink receives the events a TaskHandler emits while it works, such as partial results
+ * TaskEventSink接收TaskHandler在处理过程中发出的事件，例如部分结果
+ *
+ * <p>For {@code /a2a/stream} requests every event is pushed to the client as soon as it is sent, so
+ * a handler that emits artifact chunks while the model generates them lets the client see the first
+ * token instead of waiting for the whole answer. The final status is still taken from the task the
+ * handler returns. Events sent after the task was canceled are dropped.
+ * 对于{@code /a2a/stream}请求，每个事件发送后会立即推送给客户端，因此在模型生成时发出分块制品的处理器能让客户端看到第一个token，
+ * 而不必等待完整的回答。最终状态仍取自处理器返回的任务。任务被取消后发送的事件会被丢弃。
+ */
+public interface TaskEventSink {
+
+    /**
+     * A sink that drops every event, used when nobody is listening
+     * 丢弃所有事件的接收器，在没有监听者时使用
+     */
+    TaskEventSink NONE = new TaskEventSink() {
+        @Override
+        public void sendStatusUpdate(TaskStatusUpdateEvent event) {
+        }
+
+        @Override
+        public void sendArtifactUpdate(TaskArtifactUpdateEvent event) {
+        }
+
+        @Override
+        public boolean isListening() {
+            return false;
+        }
+    };
+
+    /**
+     * Send an intermediate status, for example WORKING with a progress message
+     * 发送中间状态，例如带有进度消息的WORKING状态
+     */
+    void sendStatusUpdate(TaskStatusUpdateEvent event);
+
+    /**
+     * Send an artifact or the next chunk of one ({@code append=true}, {@code lastChunk} on the last)
+     * 发送一个制品或其下一个分块（{@code append=true}，最后一块设置{@code lastChunk}）
+     */
+    void sendArtifactUpdate(TaskArtifactUpdateEvent event);
+
+    /**
+     * Whether anyone receives the events; when nobody does, a handler can skip producing them and
+     * take a path that shares work between tasks instead
+     * 是否有人接收事件；无人接收时处理器可以不产生事件，转而使用在任务之间共享工作的路径
+     */
+    default boolean isListening() {
+        return true;
+    }
+}
@@ -13,15 +13,46 @@ public interface TaskHandler {
      * Handle a task
      * 处理一个任务
      * 
-     * @param task the task to handle
-     *             要处理的任务
+     * @param task the task to handle; its history holds the conversation so far, ending with {@code message}
+     *             要处理的任务；其历史包含目前为止的对话，最后一条为{@code message}
      * @param message the message content
      *                消息内容
-     * @return the processed task
-     *         处理后的任务
+     * @return the processed task; new messages such as the reply are appended to the given history
+     *         处理后的任务；回复等新消息应追加在传入的历史之后
      * @throws Exception exceptions during processing
      *                   处理过程中可能抛出的异常
      */
     Task handle(Task task, Message message) throws Exception;
     // 实现此方法以根据传入的任务和消息进行处理，并返回新的任务状态
-} 
\ No newline at end of file
+
+    /**
+     * Handle a task that may be canceled while it runs
+     * 处理一个运行期间可能被取消的任务
+     *
+     * <p>On {@code tasks/cancel} the server signals the token and interrupts the calling thread; the
+     * result of a canceled task is discarded. The default ignores the token and relies on the interrupt.
+     * 收到{@code tasks/cancel}时服务器会通知令牌并中断调用线程，已取消任务的处理结果会被丢弃。默认实现忽略令牌，依赖线程中断。
+     *
+     * @param cancellation signaled when the task is canceled
+     *                     任务被取消时发出通知的令牌
+     */
+    default Task handle(Task task, Message message, CancellationToken cancellation) throws Exception {
+        return handle(task, message);
+    }
+
+    /**
+     * Handle a task and report progress while it runs
+     * 处理一个任务，并在运行期间报告进度
+     *
+     * <p>Streaming handlers override this to emit status updates and artifact chunks through
+     * {@code events} before returning the finished task. The default emits nothing.
+     * 流式处理器重写此方法，在返回完成的任务之前通过{@code events}发出状态更新和制品分块。默认实现不发出任何事件。
+     *
+     * @param events receives intermediate events; {@link TaskEventSink#isListening()} is false when nobody listens
+     *               接收中间事件；无人监听时{@link TaskEventSink#isListening()}为false
+     */
+    default Task handle(Task task, Message message, CancellationToken cancellation, TaskEventSink events)
+            throws Exception {
+        return handle(task, message, cancellation);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,485 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, segment-rolled task journal written through memory-mapped files
+ * 基于内存映射文件、按段滚动的只追加任务日志
+ *
+ * <p>Appends copy the encoded record into the active mapped segment under a short lock.
+ * When fsync is enabled, {@link #commit(long)} blocks until the record is on disk; concurrent
+ * committers share a single force call (group commit): one thread flushes everything written
+ * so far while the others wait for it.
+ * 追加操作在短暂持锁期间把编码后的记录复制到当前映射段。启用fsync时，{@link #commit(long)}会阻塞直到记录落盘；
+ * 并发提交共享同一次刷盘（组提交）：一个线程刷出目前为止写入的全部数据，其他线程等待其完成。
+ *
+ * <p>On open, the latest snapshot is loaded and the segments after it are decoded in parallel
+ * and replayed in order. Snapshots make older segments obsolete; sealed segments can also be
+ * rewritten without their dead records (compaction).
+ * 打开时先加载最新快照，再并行解码其后的各段并按顺序重放。快照使更早的段失效；已封存的段还可以去掉失效记录后重写（压缩）。
+ */
+public final class TaskJournal implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Path directory; // 日志目录
+    private final int segmentSize; // 段文件大小
+    private final boolean fsync; // 提交时是否刷盘
+    private final JournalCodec codec;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final NavigableMap<Long, Path> sealedSegments = new ConcurrentSkipListMap<>(); // 已封存的段
+    private JournalSegment active; // 当前写入段，由appendLock保护
+    private volatile long writePosition; // 已写入的日志位置
+    private volatile long snapshotSegmentId; // 最新快照覆盖到的段序号，0表示没有快照
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition committed = commitLock.newCondition();
+    private boolean forcing; // 是否有线程正在刷盘，由commitLock保护
+    private long durablePosition; // 已落盘的日志位置，由commitLock保护
+
+    private TaskJournal(Path directory, int segmentSize, boolean fsync, JournalCodec codec) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.codec = codec;
+    }
+
+    /**
+     * Open a journal directory, replaying the latest snapshot and every later record in write order
+     * 打开日志目录，按写入顺序重放最新快照及其后的全部记录
+     *
+     * @param directory the journal directory, created if missing
+     *                  日志目录，不存在时自动创建
+     * @param objectMapper mapper used to encode tasks and messages
+     *                     用于编码任务和消息的对象映射器
+     * @param options segment size and fsync mode
+     *                段大小和刷盘模式
+     * @param replay receives the recovered records
+     *               接收恢复出的记录
+     */
+    public static TaskJournal open(Path directory, ObjectMapper objectMapper, JournalOptions options,
+                                   ReplayListener replay) throws IOException {
+        Files.createDirectories(directory);
+        TaskJournal journal = new TaskJournal(directory, options.segmentSize(), options.fsync(),
+            new JournalCodec(objectMapper));
+        journal.recover(replay);
+        return journal;
+    }
+
+    /**
+     * Append a record to the journal
+     * 向日志追加一条记录
+     *
+     * @return the journal position of the record, to be passed to {@link #commit(long)}
+     *         记录的日志位置，用于传给{@link #commit(long)}
+     */
+    public long append(JournalRecord record) throws IOException {
+        byte[] payload = codec.encode(record);
+        int frameSize = JournalSegment.frameSize(payload);
+        appendLock.lock();
+        try {
+            if (!active.hasRoomFor(frameSize)) {
+                roll(frameSize);
+            }
+            int offset = active.append(payload);
+            writePosition = position(active.id, active.writeOffset());
+            return position(active.id, offset);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the record at the position is durable; a no-op when fsync is disabled
+     * 等待该位置的记录持久化；未启用fsync时直接返回
+     */
+    public void commit(long position) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        commitLock.lock();
+        try {
+            while (durablePosition <= position) {
+                if (forcing) {
+                    // Another thread is flushing; our record is likely included in its batch
+                    // 其他线程正在刷盘，本记录很可能已包含在该批次中
+                    committed.awaitUninterruptibly();
+                    continue;
+                }
+                forcing = true;
+                long target = durablePosition;
+                boolean forced = false;
+                commitLock.unlock();
+                try {
+                    JournalSegment segment;
+                    appendLock.lock();
+                    try {
+                        target = writePosition;
+                        segment = active;
+                    } finally {
+                        appendLock.unlock();
+                    }
+                    // Earlier segments were forced when they were rolled
+                    // 之前的段在滚动时已刷盘
+                    segment.force(offset(target));
+                    forced = true;
+                } finally {
+                    commitLock.lock();
+                    forcing = false;
+                    if (forced) {
+                        durablePosition = Math.max(durablePosition, target);
+                    }
+                    committed.signalAll();
+                }
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Number of segment files, including the active one
+     * 段文件数量（含当前写入段）
+     */
+    public int segmentCount() {
+        return sealedSegments.size() + 1;
+    }
+
+    /**
+     * IDs of the sealed segments, oldest first
+     * 已封存段的序号，从旧到新
+     */
+    public List<Long> sealedSegmentIds() {
+        return List.copyOf(sealedSegments.keySet());
+    }
+
+    /**
+     * Whether nothing was written since the latest snapshot
+     * 自最新快照以来是否没有新的写入
+     */
+    public boolean isSnapshotCurrent() {
+        appendLock.lock();
+        try {
+            return snapshotSegmentId == active.id && active.writeOffset() == 0;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Start a snapshot: seal the active segment so the snapshot covers everything before the new one
+     * 开始快照：封存当前段，使快照覆盖新段之前的全部内容
+     *
+     * <p>The caller must make sure every record appended so far is reflected in the state it
+     * writes; records appended afterwards are replayed on top of the snapshot.
+     * 调用方需确保目前已追加的记录都已体现在其写入的状态中；之后追加的记录会在快照之上重放。
+     */
+    JournalSnapshot.Writer beginSnapshot(IoThrottle throttle) throws IOException {
+        long startSegmentId;
+        appendLock.lock();
+        try {
+            if (active.writeOffset() > 0) {
+                roll(0);
+            }
+            startSegmentId = active.id;
+        } finally {
+            appendLock.unlock();
+        }
+        return new JournalSnapshot.Writer(directory, startSegmentId, codec, throttle);
+    }
+
+    /**
+     * Publish a finished snapshot and delete the segments and snapshots it supersedes
+     * 发布已完成的快照，并删除被其取代的段和旧快照
+     *
+     * @return the number of bytes reclaimed
+     *         释放的字节数
+     */
+    long completeSnapshot(JournalSnapshot.Writer writer) throws IOException {
+        Path snapshot = writer.commit();
+        long startSegmentId = JournalSnapshot.parseId(snapshot);
+        snapshotSegmentId = startSegmentId;
+
+        long reclaimed = 0;
+        for (Map.Entry<Long, Path> segment : sealedSegments.headMap(startSegmentId, false).entrySet()) {
+            reclaimed += deleteFile(segment.getValue());
+            sealedSegments.remove(segment.getKey());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path old : files.filter(path -> {
+                long id = JournalSnapshot.parseId(path);
+                return id > 0 && id < startSegmentId;
+            }).toList()) {
+                reclaimed += deleteFile(old);
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Rewrite a sealed segment with only its live records, if enough of it is garbage
+     * 若已封存段中失效数据足够多，则仅保留有效记录重写该段
+     *
+     * @param segmentId the sealed segment to compact
+     *                  要压缩的已封存段
+     * @param liveness decides which records are still needed
+     *                 判断记录是否仍然需要
+     * @param minGarbageRatio minimum share of reclaimable bytes that makes a rewrite worthwhile
+     *                        值得重写的最小可回收字节比例
+     * @param throttle limits the write rate
+     *                 限制写入速率
+     * @return the rewrite, or null if the segment was left untouched
+     *         重写结果；未重写时返回null
+     */
+    Compaction compact(long segmentId, Liveness liveness, double minGarbageRatio, IoThrottle throttle)
+            throws IOException {
+        Path path = sealedSegments.get(segmentId);
+        if (path == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            MappedByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            List<JournalSegment.Entry> entries = JournalSegment.scanFrames(source, 0, codec).entries();
+
+            List<JournalSegment.Entry> kept = new ArrayList<>();
+            Set<String> taskIds = new LinkedHashSet<>();
+            long liveBytes = 0;
+            for (JournalSegment.Entry entry : entries) {
+                taskIds.add(entry.record().taskId());
+                if (liveness.isLive(entry.record(), position(segmentId, entry.offset()))) {
+                    kept.add(entry);
+                    liveBytes += entry.size();
+                }
+            }
+            if (kept.size() == entries.size() || fileSize - liveBytes < minGarbageRatio * fileSize) {
+                return null;
+            }
+            if (kept.isEmpty()) {
+                // Nothing left to keep: drop the whole segment
+                // 没有需要保留的记录：直接删除整个段
+                sealedSegments.remove(segmentId);
+                Files.delete(path);
+                return new Compaction(segmentId, new int[0], new int[0], 0, fileSize, taskIds);
+            }
+
+            int[] oldOffsets = new int[kept.size()];
+            int[] newOffsets = new int[kept.size()];
+            Path temp = path.resolveSibling(path.getFileName() + JournalSnapshot.TEMP_SUFFIX);
+            try (FileChannel out = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                int newOffset = 0;
+                for (int i = 0; i < kept.size(); i++) {
+                    JournalSegment.Entry entry = kept.get(i);
+                    throttle.acquire(entry.size());
+                    oldOffsets[i] = entry.offset();
+                    newOffsets[i] = newOffset;
+                    var frame = source.slice(entry.offset(), entry.size());
+                    while (frame.hasRemaining()) {
+                        out.write(frame);
+                    }
+                    newOffset += entry.size();
+                }
+                out.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new Compaction(segmentId, oldOffsets, newOffsets, (int) liveBytes, fileSize - liveBytes, taskIds);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            active.force(active.writeOffset());
+            active.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Seal the active segment and start a new one large enough for the next record
+     * 封存当前段并创建足以容纳下一条记录的新段
+     */
+    private void roll(int frameSize) throws IOException {
+        JournalSegment sealed = active;
+        if (fsync) {
+            sealed.force(sealed.writeOffset());
+        }
+        active = JournalSegment.create(directory, sealed.id + 1, Math.max(segmentSize, frameSize));
+        sealedSegments.put(sealed.id, sealed.path);
+        sealed.close();
+    }
+
+    private void recover(ReplayListener replay) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.toList();
+        }
+        for (Path path : files) {
+            if (path.getFileName().toString().endsWith(JournalSnapshot.TEMP_SUFFIX)) {
+                Files.deleteIfExists(path); // 未完成的快照或压缩
+            }
+        }
+
+        // Load the latest snapshot; segments before it are obsolete
+        // 加载最新快照，其之前的段已失效
+        Path snapshot = files.stream()
+            .filter(path -> JournalSnapshot.parseId(path) > 0)
+            .max(Comparator.comparingLong(JournalSnapshot::parseId))
+            .orElse(null);
+        long startSegmentId = 1;
+        if (snapshot != null) {
+            startSegmentId = JournalSnapshot.read(snapshot, codec, record -> replay.accept(record, -1));
+            snapshotSegmentId = startSegmentId;
+        }
+
+        List<Path> segments = new ArrayList<>();
+        for (Path path : files.stream()
+                .filter(path -> JournalSegment.parseId(path) > 0)
+                .sorted(Comparator.comparingLong(JournalSegment::parseId))
+                .toList()) {
+            if (JournalSegment.parseId(path) < startSegmentId) {
+                Files.deleteIfExists(path); // 快照完成后未来得及删除的旧段
+            } else {
+                segments.add(path);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            active = JournalSegment.create(directory, startSegmentId, segmentSize);
+            writePosition = position(active.id, 0);
+            durablePosition = writePosition;
+            return;
+        }
+
+        // Decode segments in parallel, keeping a bounded window in flight, and replay them in order
+        // 并行解码各段（限制同时处理的数量），并按顺序重放
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), segments.size());
+        ExecutorService decoders = Executors.newFixedThreadPool(parallelism);
+        JournalSegment.Scan last = null;
+        try {
+            Deque<Future<JournalSegment.Scan>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                while (next < segments.size() && next < i + 2 * parallelism) {
+                    Path path = segments.get(next++);
+                    inFlight.addLast(decoders.submit(() -> JournalSegment.scan(path, codec)));
+                }
+                last = inFlight.removeFirst().get();
+                long segmentId = JournalSegment.parseId(segments.get(i));
+                for (JournalSegment.Entry entry : last.entries()) {
+                    replay.accept(entry.record(), position(segmentId, entry.offset()));
+                }
+                if (i < segments.size() - 1) {
+                    sealedSegments.put(segmentId, segments.get(i));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while replaying journal", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to replay journal segment", e.getCause());
+        } finally {
+            decoders.shutdownNow();
+        }
+
+        Path tail = segments.get(segments.size() - 1);
+        active = JournalSegment.openForAppend(tail, JournalSegment.parseId(tail), last.validEnd());
+        writePosition = position(active.id, active.writeOffset());
+        durablePosition = writePosition;
+    }
+
+    private static long deleteFile(Path path) throws IOException {
+        long size = Files.exists(path) ? Files.size(path) : 0;
+        Files.deleteIfExists(path);
+        return size;
+    }
+
+    static long position(long segmentId, int offset) {
+        return (segmentId << 32) | (offset & 0xffffffffL);
+    }
+
+    static long segmentId(long position) {
+        return position >> 32;
+    }
+
+    static int offset(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Receives recovered records with their journal position, -1 for records from a snapshot
+     * 接收恢复出的记录及其日志位置，来自快照的记录位置为-1
+     */
+    @FunctionalInterface
+    public interface ReplayListener {
+        void accept(JournalRecord record, long position);
+    }
+
+    /**
+     * Decides whether a record is still needed to rebuild the store
+     * 判断记录是否仍为重建存储所需
+     */
+    @FunctionalInterface
+    interface Liveness {
+        boolean isLive(JournalRecord record, long position);
+    }
+
+    /**
+     * Outcome of rewriting a segment: maps old record positions to new ones
+     * 段重写结果：将记录的旧位置映射到新位置
+     *
+     * @param taskIds the tasks that had records in the segment
+     *                在该段中有记录的任务
+     */
+    record Compaction(long segmentId, int[] oldOffsets, int[] newOffsets, int keptBytes, long reclaimedBytes,
+                      Set<String> taskIds) {
+
+        /**
+         * Translate a position into the rewritten segment, keeping the relative order of all positions
+         * 将位置转换为重写后段中的位置，并保持所有位置的相对顺序
+         */
+        long remap(long position) {
+            if (TaskJournal.segmentId(position) != segmentId) {
+                return position;
+            }
+            int index = Arrays.binarySearch(oldOffsets, offset(position));
+            if (index < 0) {
+                // A dropped record: map to where the next kept record now starts
+                // 已丢弃的记录：映射到下一条保留记录的新位置
+                index = -index - 1;
+            }
+            return position(segmentId, index < newOffsets.length ? newOffsets[index] : keptBytes);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.google.a2a.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TaskMailboxes runs the turns of each task one after another, and turns of different tasks in parallel
+ * TaskMailboxes依次运行每个任务的各轮处理，不同任务的处理并行运行
+ *
+ * <p>Each task with pending work has a mailbox: a queue of turns and a counter of the turns not yet
+ * finished. The thread that takes the counter from zero starts the first turn; whoever finishes a
+ * turn starts the next. A mailbox whose counter drops back to zero is closed and removed, so idle
+ * tasks cost nothing, and a sender that finds a closed mailbox simply creates a new one. There is no
+ * lock shared between tasks.
+ * 每个有待处理工作的任务都有一个邮箱：一个处理轮次队列和一个未完成轮次计数器。将计数器从零增加的线程启动第一轮；
+ * 完成一轮的线程启动下一轮。计数器回到零的邮箱会被关闭并删除，因此空闲任务没有任何开销；发送者遇到已关闭的邮箱时
+ * 直接创建新的邮箱。不同任务之间不共享任何锁。
+ */
+public class TaskMailboxes {
+
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>(); // 有待处理工作的任务邮箱
+    private final int capacity; // 每个任务最多未完成的轮次
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public TaskMailboxes() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create mailboxes
+     * 创建任务邮箱
+     *
+     * @param capacity maximum number of unfinished turns per task, including the running one
+     *                 每个任务最多未完成的轮次，包括正在运行的一轮
+     */
+    public TaskMailboxes(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queue a turn; it starts once every earlier turn of the task has finished, possibly on this thread
+     * 将一轮处理加入队列；该任务之前的轮次全部完成后开始，可能在当前线程上开始
+     *
+     * @throws RejectedExecutionException if the task already has {@code capacity} unfinished turns
+     *                                    该任务未完成的轮次已达上限时抛出
+     */
+    public void enqueue(String taskId, Turn turn) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(taskId, Mailbox::new);
+            if (mailbox.offer(turn)) {
+                return;
+            }
+            // 邮箱刚被关闭，移除后重试
+            mailboxes.remove(taskId, mailbox);
+        }
+    }
+
+    /**
+     * Cancel the turns of a task that have not started yet
+     * 取消任务中尚未开始的轮次
+     */
+    public void cancelPending(String taskId) {
+        Mailbox mailbox = mailboxes.get(taskId);
+        if (mailbox != null) {
+            mailbox.queue.forEach(Turn::cancel);
+        }
+    }
+
+    /**
+     * Number of tasks with unfinished turns
+     * 有未完成轮次的任务数
+     */
+    public int activeCount() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Turns rejected because their task's mailbox was full
+     * 因任务邮箱已满被拒绝的轮次数
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * One unit of work for a task
+     * 任务的一轮处理
+     */
+    public interface Turn {
+        /**
+         * Start the turn; {@code done} must be run exactly once when it has finished, on any thread
+         * 开始这一轮处理；结束后必须在任意线程上恰好调用一次{@code done}
+         */
+        void start(Runnable done);
+
+        /**
+         * The task was canceled before the turn started; it should finish without doing its work
+         * 任务在这一轮开始前被取消；它应该不做处理直接结束
+         */
+        void cancel();
+    }
+
+    private final class Mailbox {
+        final String taskId;
+        final ConcurrentLinkedQueue<Turn> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger unfinished = new AtomicInteger(); // 未完成的轮次数，-1表示已关闭
+
+        Mailbox(String taskId) {
+            this.taskId = taskId;
+        }
+
+        /**
+         * @return false if the mailbox was closed and the turn must go to a new one
+         *         邮箱已关闭、需要放入新邮箱时返回false
+         */
+        boolean offer(Turn turn) {
+            queue.add(turn);
+            while (true) {
+                int count = unfinished.get();
+                if (count < 0) {
+                    queue.remove(turn);
+                    return false;
+                }
+                if (count >= capacity) {
+                    queue.remove(turn);
+                    rejectedCount.increment();
+                    throw new RejectedExecutionException("Too many pending messages for task " + taskId);
+                }
+                if (unfinished.compareAndSet(count, count + 1)) {
+                    if (count == 0) {
+                        startNext();
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private void startNext() {
+            queue.poll().start(this::finish);
+        }
+
+        private void finish() {
+            if (unfinished.decrementAndGet() > 0) {
+                startNext();
+                return;
+            }
+            // Idle: close unless a new turn arrived meanwhile, whose sender then starts it
+            // 空闲：关闭邮箱，除非期间有新的轮次到达（由其发送者启动）
+            if (unfinished.compareAndSet(0, -1)) {
+                mailboxes.remove(taskId, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Artifact;
+import com.google.a2a.model.DataPart;
+import com.google.a2a.model.FileContentBytes;
+import com.google.a2a.model.FileContentURI;
+import com.google.a2a.model.FilePart;
+import com.google.a2a.model.Message;
+import com.google.a2a.model.Part;
+import com.google.a2a.model.Task;
+import com.google.a2a.model.TaskStatus;
+import com.google.a2a.model.TextPart;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rough estimate of the heap retained by tasks and messages
+ * 估算任务和消息占用的堆内存
+ *
+ * <p>The numbers only need to be proportional to the real footprint so that byte limits
+ * behave predictably; they are not exact object sizes.
+ * 估算值只需与实际占用大致成比例，使字节上限表现可预期，并非精确的对象大小。
+ */
+final class TaskSizeEstimator {
+
+    private static final long OBJECT_OVERHEAD = 16; // 对象头
+    private static final long REFERENCE_SIZE = 8;   // 引用大小
+    private static final long STRING_OVERHEAD = 40; // String对象及其数组的固定开销
+
+    private TaskSizeEstimator() {
+    }
+
+    static long estimate(Task task) {
+        long size = OBJECT_OVERHEAD + 7 * REFERENCE_SIZE;
+        size += estimate(task.id()) + estimate(task.contextId()) + estimate(task.kind());
+        size += estimate(task.status());
+        if (task.artifacts() != null) {
+            for (Artifact artifact : task.artifacts()) {
+                size += estimate(artifact);
+            }
+        }
+        size += estimateMessages(task.history());
+        size += estimateObject(task.metadata());
+        return size;
+    }
+
+    static long estimate(Message message) {
+        if (message == null) {
+            return 0;
+        }
+        long size = OBJECT_OVERHEAD + 8 * REFERENCE_SIZE;
+        size += estimate(message.messageId()) + estimate(message.kind()) + estimate(message.role());
+        size += estimateParts(message.parts());
+        size += estimate(message.contextId()) + estimate(message.taskId());
+        size += estimateObject(message.referenceTaskIds());
+        size += estimateObject(message.metadata());
+        return size;
+    }
+
+    private static long estimate(TaskStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        return OBJECT_OVERHEAD + 3 * REFERENCE_SIZE + estimate(status.message()) + estimate(status.timestamp());
+    }
+
+    private static long estimate(Artifact artifact) {
+        long size = OBJECT_OVERHEAD + 8 * REFERENCE_SIZE;
+        size += estimate(artifact.artifactId()) + estimate(artifact.name()) + estimate(artifact.description());
+        size += estimateParts(artifact.parts());
+        size += estimateObject(artifact.metadata());
+        return size;
+    }
+
+    private static long estimateMessages(List<Message> messages) {
+        if (messages == null) {
+            return 0;
+        }
+        long size = OBJECT_OVERHEAD + messages.size() * REFERENCE_SIZE;
+        for (Message message : messages) {
+            size += estimate(message);
+        }
+        return size;
+    }
+
+    private static long estimateParts(List<Part> parts) {
+        if (parts == null) {
+            return 0;
+        }
+        long size = OBJECT_OVERHEAD + parts.size() * REFERENCE_SIZE;
+        for (Part part : parts) {
+            size += OBJECT_OVERHEAD + 3 * REFERENCE_SIZE;
+            if (part instanceof TextPart textPart) {
+                size += estimate(textPart.text()) + estimateObject(textPart.metadata());
+            } else if (part instanceof FilePart filePart) {
+                if (filePart.file() instanceof FileContentBytes bytes) {
+                    size += estimate(bytes.name()) + estimate(bytes.mimeType()) + estimate(bytes.bytes());
+                } else if (filePart.file() instanceof FileContentURI uri) {
+                    size += estimate(uri.name()) + estimate(uri.mimeType()) + estimate(uri.uri());
+                }
+                size += estimateObject(filePart.metadata());
+            } else if (part instanceof DataPart dataPart) {
+                size += estimateObject(dataPart.data()) + estimateObject(dataPart.metadata());
+            }
+        }
+        return size;
+    }
+
+    private static long estimate(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + value.length();
+    }
+
+    private static long estimateObject(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return estimate(string);
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = OBJECT_OVERHEAD + map.size() * 4 * REFERENCE_SIZE;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimateObject(entry.getKey()) + estimateObject(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = OBJECT_OVERHEAD + collection.size() * REFERENCE_SIZE;
+            for (Object element : collection) {
+                size += estimateObject(element);
+            }
+            return size;
+        }
+        return OBJECT_OVERHEAD + REFERENCE_SIZE;
+    }
+}
@@ -0,0 +1,136 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Task;
+import com.google.a2a.model.TaskState;
+import com.google.a2a.model.TaskStatus;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TaskStateMachine moves stored tasks between states with compare-and-set updates
+ * TaskStateMachine通过比较并交换更新在状态之间转换已存储的任务
+ *
+ * <p>A transition reads the task with its version, checks that the move is legal and writes the new
+ * state only if the version is unchanged; if another writer got there first it retries against the
+ * new state. Concurrent sends, cancels and handler completions therefore cannot move a task
+ * backwards, and a finished task stays finished. No lock is taken beyond what the store uses for a
+ * single write.
+ * 转换时读取任务及其版本，检查转换是否合法，仅在版本未变时写入新状态；如果其他写入者抢先一步，则基于新状态重试。
+ * 因此并发的发送、取消和处理器完成不会让任务状态倒退，已结束的任务保持结束。除存储单次写入所用的锁外不加任何锁。
+ */
+public final class TaskStateMachine {
+
+    private static final Map<TaskState, Set<TaskState>> TRANSITIONS = new EnumMap<>(TaskState.class);
+
+    static {
+        Set<TaskState> fromActive = EnumSet.of(TaskState.WORKING, TaskState.INPUT_REQUIRED, TaskState.AUTH_REQUIRED,
+            TaskState.COMPLETED, TaskState.CANCELED, TaskState.FAILED, TaskState.REJECTED);
+        Set<TaskState> fromInterrupted = EnumSet.of(TaskState.SUBMITTED, TaskState.WORKING, TaskState.COMPLETED,
+            TaskState.CANCELED, TaskState.FAILED, TaskState.REJECTED);
+        TRANSITIONS.put(TaskState.SUBMITTED, fromActive);
+        TRANSITIONS.put(TaskState.WORKING, fromActive);
+        TRANSITIONS.put(TaskState.INPUT_REQUIRED, fromInterrupted);
+        TRANSITIONS.put(TaskState.AUTH_REQUIRED, fromInterrupted);
+        TRANSITIONS.put(TaskState.UNKNOWN, EnumSet.allOf(TaskState.class));
+        for (TaskState terminal : EnumSet.of(TaskState.COMPLETED, TaskState.CANCELED, TaskState.FAILED,
+                TaskState.REJECTED)) {
+            TRANSITIONS.put(terminal, EnumSet.noneOf(TaskState.class));
+        }
+    }
+
+    private final TaskStore taskStore; // 任务存储
+
+    public TaskStateMachine(TaskStore taskStore) {
+        this.taskStore = taskStore;
+    }
+
+    /**
+     * Whether a task may move from one state to another
+     * 任务是否可以从一个状态转换到另一个状态
+     *
+     * @param from the current state, null if unknown
+     *             当前状态，未知时为null
+     */
+    public static boolean isAllowed(TaskState from, TaskState to) {
+        return from == null || TRANSITIONS.get(from).contains(to);
+    }
+
+    /**
+     * Whether no transition leaves this state
+     * 该状态是否没有任何后续转换
+     */
+    public static boolean isTerminal(TaskState state) {
+        return state != null && TRANSITIONS.get(state).isEmpty();
+    }
+
+    /**
+     * Start a new turn of a task: store it whatever the current state, since a new message reopens the task
+     * 开始任务的新一轮处理：无论当前状态如何都保存它，因为新消息会重新打开任务
+     *
+     * @return the stored version
+     *         保存后的版本
+     */
+    public VersionedTask open(Task task) {
+        while (true) {
+            VersionedTask current = taskStore.getVersioned(task.id());
+            VersionedTask opened = taskStore.compareAndSet(task.id(), current, task);
+            if (opened != null) {
+                return opened;
+            }
+        }
+    }
+
+    /**
+     * Move a task to a new state
+     * 将任务转换到新状态
+     *
+     * @return the stored version, or null if the task does not exist
+     *         保存后的版本，任务不存在时返回null
+     * @throws IllegalTaskTransitionException if the current state does not allow the move
+     *                                        当前状态不允许该转换时抛出
+     */
+    public VersionedTask transition(String taskId, TaskState target) {
+        while (true) {
+            VersionedTask current = taskStore.getVersioned(taskId);
+            if (current == null) {
+                return null;
+            }
+            TaskState from = stateOf(current.task());
+            if (!isAllowed(from, target)) {
+                throw new IllegalTaskTransitionException(taskId, from, target);
+            }
+            Task updated = current.task().withStatus(new TaskStatus(target, null, Instant.now().toString()));
+            VersionedTask next = taskStore.compareAndSet(taskId, current, updated);
+            if (next != null) {
+                return next;
+            }
+            // 其他写入者抢先更新，基于最新状态重试
+        }
+    }
+
+    /**
+     * Replace the version a caller read with its result, if the move is legal and nothing changed the task since
+     * 如果转换合法且任务此后未被修改，则用调用者的结果替换其读取的版本
+     *
+     * @return the stored version, or null if the task changed in between
+     *         保存后的版本，任务在此期间被修改时返回null
+     * @throws IllegalTaskTransitionException if the read state does not allow the result state
+     *                                        读取时的状态不允许结果状态时抛出
+     */
+    public VersionedTask complete(VersionedTask expected, Task result) {
+        TaskState from = stateOf(expected.task());
+        TaskState to = stateOf(result);
+        if (to != null && !isAllowed(from, to)) {
+            throw new IllegalTaskTransitionException(result.id(), from, to);
+        }
+        return taskStore.compareAndSet(result.id(), expected, result);
+    }
+
+    private static TaskState stateOf(Task task) {
+        return task.status() != null ? task.status().state() : null;
+    }
+}
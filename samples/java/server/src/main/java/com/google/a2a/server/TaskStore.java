@@ -0,0 +1,124 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Message;
+import com.google.a2a.model.Task;
+
+import java.util.List;
+
+/**
+ * TaskStore is the storage SPI used by A2AServer for tasks and their message history
+ * TaskStore是A2AServer用于保存任务及其消息历史的存储接口
+ *
+ * <p>Implementations may drop tasks at any time (size limits, expiration, ...);
+ * a dropped task simply behaves as if it never existed.
+ * 实现可以随时淘汰任务（容量限制、过期等），被淘汰的任务等同于不存在。
+ */
+public interface TaskStore {
+
+    /**
+     * Get a task by ID
+     * 根据ID获取任务
+     *
+     * @param taskId the task ID
+     *               任务ID
+     * @return the stored task, or null if absent or evicted
+     *         已存储的任务，不存在或已被淘汰时返回null
+     */
+    Task get(String taskId);
+
+    /**
+     * Store or replace a task, whatever its current version
+     * 存储或替换任务，不检查当前版本
+     *
+     * @param task the task to store
+     *             要存储的任务
+     */
+    void put(Task task);
+
+    /**
+     * Get a task together with its version
+     * 获取任务及其版本号
+     *
+     * @param taskId the task ID
+     *               任务ID
+     * @return the stored task and version, or null if absent or evicted
+     *         已存储的任务及版本，不存在或已被淘汰时返回null
+     */
+    VersionedTask getVersioned(String taskId);
+
+    /**
+     * Replace a task only if it is still at the expected version
+     * 仅当任务仍处于预期版本时替换任务
+     *
+     * @param taskId the task ID
+     *               任务ID
+     * @param expected the version read from this store, or null to store the task only if it is absent
+     *                 从本存储读取的版本，为null时仅在任务不存在时保存
+     * @param task the new task
+     *             新的任务
+     * @return the new version, or null if the task was written or removed since {@code expected} was read
+     *         新版本；如果读取{@code expected}后任务被写入或删除则返回null
+     */
+    VersionedTask compareAndSet(String taskId, VersionedTask expected, Task task);
+
+    /**
+     * Remove a task together with its history
+     * 删除任务及其消息历史
+     *
+     * @param taskId the task ID
+     *               任务ID
+     * @return the removed task, or null if absent
+     *         被删除的任务，不存在时返回null
+     */
+    Task remove(String taskId);
+
+    /**
+     * Append a message to the history of a stored task; ignored if the task is absent
+     * 向已存储任务的历史追加消息，任务不存在时忽略
+     *
+     * @param taskId the task ID
+     *               任务ID
+     * @param message the message to append
+     *                要追加的消息
+     */
+    void appendHistory(String taskId, Message message);
+
+    /**
+     * Get the message history of a task
+     * 获取任务的消息历史
+     *
+     * @param taskId the task ID
+     *               任务ID
+     * @return the history in chronological order, empty if the task is absent
+     *         按时间顺序排列的历史，任务不存在时返回空列表
+     */
+    List<Message> getHistory(String taskId);
+
+    /**
+     * Get the most recent messages of a task
+     * 获取任务最近的消息
+     *
+     * @param taskId the task ID
+     *               任务ID
+     * @param length maximum number of messages, counted back from the newest
+     *               最多返回的消息数，从最新的消息往前计算
+     * @return the last messages in chronological order, empty if the task is absent
+     *         按时间顺序排列的最近消息，任务不存在时返回空列表
+     */
+    default List<Message> getRecentHistory(String taskId, int length) {
+        List<Message> history = getHistory(taskId);
+        return history.subList(Math.max(0, history.size() - Math.max(0, length)), history.size());
+    }
+
+    /**
+     * Number of tasks currently stored
+     * 当前存储的任务数量
+     */
+    long size();
+
+    /**
+     * Snapshot of the store counters
+     * 存储统计信息快照
+     */
+    TaskStoreStats stats();
+}
@@ -0,0 +1,37 @@
+package com.google.a2a.server;
+
+/**
+ * TaskStoreStats is a point-in-time snapshot of TaskStore counters
+ * TaskStoreStats是任务存储计数器的时间点快照
+ *
+ * @param hitCount lookups that found a task
+ *                 命中的查询次数
+ * @param missCount lookups that found nothing
+ *                  未命中的查询次数
+ * @param evictionCount tasks dropped because of size or weight limits
+ *                      因数量或容量限制被淘汰的任务数
+ * @param expirationCount terminal tasks dropped after their TTL
+ *                        终态任务超过TTL后被清除的数量
+ * @param size number of stored tasks
+ *             当前任务数量
+ * @param weightBytes estimated retained bytes of stored tasks and history
+ *                    任务及历史的估算占用字节数
+ */
+public record TaskStoreStats(
+    long hitCount,
+    long missCount,
+    long evictionCount,
+    long expirationCount,
+    long size,
+    long weightBytes
+) {
+
+    /**
+     * Ratio of lookups that found a task, 1.0 when there were no lookups
+     * 查询命中率，无查询时为1.0
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
@@ -0,0 +1,302 @@
+package com.google.a2a.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TranslationBatcher sends short texts that arrive close together to the model as one prompt
+ * TranslationBatcher将相近时间到达的短文本合并为一个提示词发送给模型
+ *
+ * <p>Texts wait until {@code maxBatchSize} of them have arrived or {@code maxDelay} has passed since
+ * the first one, then go out as numbered segments in a single prompt, and the numbered answers are
+ * handed back to their callers. If the answer cannot be split into exactly one translation per
+ * segment, every text of the batch is translated on its own instead. Texts longer than
+ * {@code maxTextLength}, and every text when {@code maxBatchSize} is 1, skip batching.
+ * 文本会等待到达{@code maxBatchSize}条或距第一条已过{@code maxDelay}，然后作为编号片段放入同一个提示词发出，
+ * 按编号拆分的译文再交还给各自的调用者。如果回答无法拆分为每个片段恰好一条译文，则该批中的每条文本改为单独翻译。
+ * 超过{@code maxTextLength}的文本，以及{@code maxBatchSize}为1时的所有文本，都不参与合并。
+ *
+ * <p>Batches run on threads of their own, so a caller that is interrupted only stops waiting and the
+ * rest of its batch is unaffected.
+ * 批次运行在独立的线程上，因此被中断的调用者只是停止等待，不影响同批的其他文本。
+ */
+public class TranslationBatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TranslationBatcher.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(20);
+    public static final int DEFAULT_MAX_TEXT_LENGTH = 500;
+
+    private static final Pattern SEGMENT_MARKER = Pattern.compile("(?m)^\\s*\\[\\[(\\d+)]]\\s*");
+
+    private final ModelCall model; // 调用模型
+    private final UnaryOperator<String> singlePrompt; // 单条文本的翻译提示词
+    private final int maxBatchSize; // 每批最多文本数
+    private final long maxDelayNanos; // 第一条文本最多等待的时间
+    private final int maxTextLength; // 可参与合并的最大文本长度
+    private final ExecutorService executor; // 运行批次的线程
+    private final ScheduledExecutorService timer; // 到期发送未满的批次
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Batch pending; // 正在收集的批次，由lock保护
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder batchedTextCount = new LongAdder();
+    private final LongAdder fallbackCount = new LongAdder();
+
+    /**
+     * Create a batcher
+     * 创建批量翻译器
+     *
+     * @param model sends a prompt to the model and returns its answer
+     *              将提示词发送给模型并返回回答
+     * @param singlePrompt builds the prompt that translates one text
+     *                     构造翻译单条文本的提示词
+     * @param maxBatchSize maximum number of texts per prompt, 1 disables batching
+     *                     每个提示词最多包含的文本数，1表示不合并
+     * @param maxDelay how long the first text of a batch waits for others
+     *                 批次中第一条文本等待其他文本的最长时间
+     * @param maxTextLength texts longer than this are translated on their own
+     *                      超过该长度的文本单独翻译
+     */
+    public TranslationBatcher(ModelCall model, UnaryOperator<String> singlePrompt, int maxBatchSize,
+                              Duration maxDelay, int maxTextLength) {
+        if (maxBatchSize <= 0 || maxTextLength <= 0) {
+            throw new IllegalArgumentException("maxBatchSize and maxTextLength must be positive");
+        }
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("maxDelay must not be negative");
+        }
+        this.model = model;
+        this.singlePrompt = singlePrompt;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxTextLength = maxTextLength;
+        this.executor = Executors.newCachedThreadPool(NamedThreads.daemon("a2a-translation-batch-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(NamedThreads.daemon("a2a-translation-batch-timer-"));
+    }
+
+    /**
+     * Translate a text, possibly together with other texts
+     * 翻译一条文本，可能与其他文本合并翻译
+     *
+     * @throws InterruptedException if the caller was interrupted while waiting
+     *                              调用者等待期间被中断时抛出
+     * @throws Exception whatever the model call threw
+     *                   模型调用抛出的异常
+     */
+    public String translate(String text) throws Exception {
+        if (maxBatchSize == 1 || text.length() > maxTextLength) {
+            return model.call(singlePrompt.apply(text));
+        }
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Batch full = null;
+        lock.lock();
+        try {
+            if (pending == null) {
+                Batch batch = new Batch();
+                pending = batch;
+                timer.schedule(() -> flush(batch), maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+            pending.texts.add(text);
+            pending.results.add(result);
+            if (pending.texts.size() >= maxBatchSize) {
+                full = pending;
+                pending = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            submit(full);
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Send a batch whose delay expired, unless it was already sent because it filled up
+     * 发送等待时间已到的批次，除非它已因装满而发出
+     */
+    private void flush(Batch batch) {
+        lock.lock();
+        try {
+            if (pending != batch) {
+                return;
+            }
+            pending = null;
+        } finally {
+            lock.unlock();
+        }
+        submit(batch);
+    }
+
+    private void submit(Batch batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            batch.results.forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private void run(Batch batch) {
+        int size = batch.texts.size();
+        if (size == 1) {
+            complete(batch.results.get(0), batch.texts.get(0));
+            return;
+        }
+        batchCount.increment();
+        batchedTextCount.add(size);
+        List<String> translations = null;
+        try {
+            translations = parseBatch(model.call(batchPrompt(batch.texts)), size);
+        } catch (Exception e) {
+            logger.warn("Batch of {} texts failed, translating them one by one: {}", size, e.getMessage());
+        }
+        if (translations != null) {
+            for (int i = 0; i < size; i++) {
+                batch.results.get(i).complete(translations.get(i));
+            }
+            return;
+        }
+        // The answer did not match the segments, so every text gets its own call
+        // 回答与片段不对应，改为每条文本单独调用
+        fallbackCount.increment();
+        for (int i = 0; i < size; i++) {
+            String text = batch.texts.get(i);
+            CompletableFuture<String> result = batch.results.get(i);
+            try {
+                executor.execute(() -> complete(result, text));
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void complete(CompletableFuture<String> result, String text) {
+        try {
+            result.complete(model.call(singlePrompt.apply(text)));
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Build the prompt that translates several texts as numbered segments
+     * 构造以编号片段翻译多条文本的提示词
+     */
+    static String batchPrompt(List<String> texts) {
+        StringBuilder segments = new StringBuilder();
+        for (int i = 0; i < texts.size(); i++) {
+            segments.append("[[").append(i + 1).append("]] ").append(texts.get(i)).append('\n');
+        }
+        return String.format("""
+            You are a professional translator. Translate each numbered segment below separately to the most appropriate target language.
+
+            Instructions:
+            1. If a segment is in Chinese, translate it to English
+            2. If a segment is in English, translate it to Chinese
+            3. If a segment is in other languages, translate it to English
+            4. Maintain the original meaning and context of each segment
+            5. Provide natural, fluent translations
+            6. Return exactly %d segments in the same order, each starting on a new line with its marker, for example [[1]]
+            7. Only return the marked translations, no explanations
+
+            Segments:
+            %s""", texts.size(), segments);
+        // 你是一名专业翻译，请分别翻译下面每个编号片段。按原顺序返回恰好N个片段，每个片段另起一行并以其编号标记开头，只返回带标记的译文。
+    }
+
+    /**
+     * Split a batch answer into one translation per segment
+     * 将批量回答拆分为每个片段一条译文
+     *
+     * @return the translations in segment order, or null unless segments 1 to {@code count} each appear
+     *         exactly once, in order and non-empty
+     *         按片段顺序排列的译文；除非片段1到{@code count}各出现一次、按顺序且非空，否则返回null
+     */
+    static List<String> parseBatch(String answer, int count) {
+        if (answer == null) {
+            return null;
+        }
+        Matcher matcher = SEGMENT_MARKER.matcher(answer);
+        List<String> translations = new ArrayList<>(count);
+        int start = -1;
+        while (matcher.find()) {
+            if (start >= 0) {
+                translations.add(answer.substring(start, matcher.start()).strip());
+            }
+            if (Integer.parseInt(matcher.group(1)) != translations.size() + 1) {
+                return null;
+            }
+            start = matcher.end();
+        }
+        if (start >= 0) {
+            translations.add(answer.substring(start).strip());
+        }
+        if (translations.size() != count || translations.stream().anyMatch(String::isEmpty)) {
+            return null;
+        }
+        return translations;
+    }
+
+    /**
+     * Snapshot of the batching counters
+     * 批量翻译统计信息快照
+     */
+    public TranslationBatcherStats stats() {
+        return new TranslationBatcherStats(batchCount.sum(), batchedTextCount.sum(), fallbackCount.sum());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends one prompt to the model and returns its answer
+     * 将一个提示词发送给模型并返回其回答
+     */
+    @FunctionalInterface
+    public interface ModelCall {
+        String call(String prompt) throws Exception;
+    }
+
+    /**
+     * Texts collected for one prompt and the callers waiting for them
+     * 为一个提示词收集的文本及等待结果的调用者
+     */
+    private static final class Batch {
+        final List<String> texts = new ArrayList<>();
+        final List<CompletableFuture<String>> results = new ArrayList<>();
+    }
+}
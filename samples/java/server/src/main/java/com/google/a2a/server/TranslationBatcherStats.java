@@ -0,0 +1,27 @@
+package com.google.a2a.server;
+
+/**
+ * TranslationBatcherStats is a point-in-time snapshot of TranslationBatcher counters
+ * TranslationBatcherStats是批量翻译计数器的时间点快照
+ *
+ * @param batchCount prompts sent with more than one text
+ *                   包含多条文本的提示词数
+ * @param batchedTextCount texts sent in those prompts
+ *                         这些提示词中包含的文本数
+ * @param fallbackCount batches whose answer could not be split, so each text was translated on its own
+ *                      回答无法拆分、改为逐条翻译的批次数
+ */
+public record TranslationBatcherStats(
+    long batchCount,
+    long batchedTextCount,
+    long fallbackCount
+) {
+
+    /**
+     * Average number of texts per batch, 0.0 when no batch was sent
+     * 每批平均文本数，未发送过批次时为0.0
+     */
+    public double averageBatchSize() {
+        return batchCount == 0 ? 0.0 : (double) batchedTextCount / batchCount;
+    }
+}
@@ -0,0 +1,206 @@
+package com.google.a2a.server;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of translation results, consulted before calling the model
+ * 翻译结果的有界缓存，在调用模型之前查询
+ *
+ * <p>Keys combine the model and prompt version with the normalized input text, so a prompt or model
+ * change never serves stale results. Entries expire after a TTL and the total estimated bytes stay
+ * under a limit: the least recently used entry is evicted, but only if the new entry was requested
+ * more often recently (TinyLFU admission), so one-off texts do not flush popular phrases.
+ * 键由模型和提示词版本加上规范化后的输入文本组成，因此更换提示词或模型不会返回过期结果。条目在TTL后过期，
+ * 估算总字节数不超过上限：淘汰最近最少使用的条目，但仅当新条目近期被请求得更频繁时才淘汰（TinyLFU准入），
+ * 因此一次性的文本不会冲掉热门短语。
+ */
+public class TranslationCache {
+
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    private static final long ENTRY_OVERHEAD = 96; // 条目、链表节点及两个String的固定开销
+    private static final long AVERAGE_ENTRY_WEIGHT = 512; // 用于确定频率草图大小
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long maximumWeight; // 最大估算字节数，0表示禁用缓存
+    private final long ttlNanos; // 条目存活时间
+    private final LongSupplier ticker; // 纳秒时钟
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The following fields are guarded by lock
+    // 以下字段由lock保护
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // 按访问顺序排列
+    private final FrequencySketch sketch;
+    private long weightedSize;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    public TranslationCache() {
+        this(DEFAULT_MAXIMUM_WEIGHT, DEFAULT_TTL);
+    }
+
+    /**
+     * Create a translation cache
+     * 创建翻译缓存
+     *
+     * @param maximumWeight maximum estimated bytes of cached keys and results, 0 disables the cache
+     *                      缓存键和结果的最大估算字节数，0表示禁用缓存
+     * @param ttl how long a result is served after it was stored
+     *            结果保存后可被使用的时长
+     */
+    public TranslationCache(long maximumWeight, Duration ttl) {
+        this(maximumWeight, ttl, System::nanoTime);
+    }
+
+    TranslationCache(long maximumWeight, Duration ttl, LongSupplier ticker) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.sketch = new FrequencySketch(Math.max(1, maximumWeight / AVERAGE_ENTRY_WEIGHT));
+    }
+
+    /**
+     * Build the cache key of a text: Unicode NFC, surrounding whitespace stripped and inner runs of
+     * whitespace collapsed to one space
+     * 构造文本的缓存键：Unicode NFC规范化，去除首尾空白，内部连续空白合并为一个空格
+     *
+     * @param version identifies the model and prompt that produce the result
+     *                标识生成结果的模型和提示词
+     */
+    public static String key(String version, String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip())
+            .replaceAll(" ");
+        return version + '\n' + normalized;
+    }
+
+    /**
+     * Get a cached result
+     * 获取缓存的结果
+     *
+     * @return the result, or null if absent or expired
+     *         缓存的结果，不存在或已过期时返回null
+     */
+    public String get(String key) {
+        if (maximumWeight == 0) {
+            return null;
+        }
+        long now = ticker.getAsLong();
+        lock.lock();
+        try {
+            sketch.increment(key);
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.expiresAt >= 0) {
+                remove(key, entry);
+                expirationCount++;
+                entry = null;
+            }
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cache a result; it may be refused if it is too large or rarer than what it would evict
+     * 缓存结果；如果结果过大或比需要淘汰的条目更少被请求，则可能不被缓存
+     */
+    public void put(String key, String value) {
+        long weight = weigh(key, value);
+        if (weight > maximumWeight) {
+            return;
+        }
+        long now = ticker.getAsLong();
+        lock.lock();
+        try {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                weightedSize -= previous.weight;
+            }
+            if (!makeRoom(key, weight, now)) {
+                return;
+            }
+            entries.put(key, new Entry(value, weight, now + ttlNanos));
+            weightedSize += weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evict expired entries, then least recently used ones the candidate is more popular than
+     * 淘汰过期条目，然后淘汰比候选条目更少被请求的最近最少使用条目
+     *
+     * @return false if the candidate should not be admitted
+     *         候选条目不应被缓存时返回false
+     */
+    private boolean makeRoom(String key, long weight, long now) {
+        if (weightedSize + weight <= maximumWeight) {
+            return true;
+        }
+        int candidateFrequency = sketch.frequency(key);
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (weightedSize + weight > maximumWeight && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            boolean expired = now - eldest.getValue().expiresAt >= 0;
+            if (!expired && sketch.frequency(eldest.getKey()) >= candidateFrequency) {
+                return false;
+            }
+            iterator.remove();
+            weightedSize -= eldest.getValue().weight;
+            if (expired) {
+                expirationCount++;
+            } else {
+                evictionCount++;
+            }
+        }
+        return weightedSize + weight <= maximumWeight;
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        weightedSize -= entry.weight;
+    }
+
+    private static long weigh(String key, String value) {
+        return ENTRY_OVERHEAD + 2L * (key.length() + value.length());
+    }
+
+    /**
+     * Snapshot of the cache counters
+     * 缓存统计信息快照
+     */
+    public TranslationCacheStats stats() {
+        lock.lock();
+        try {
+            return new TranslationCacheStats(hitCount, missCount, evictionCount, expirationCount,
+                entries.size(), weightedSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(String value, long weight, long expiresAt) {
+    }
+}
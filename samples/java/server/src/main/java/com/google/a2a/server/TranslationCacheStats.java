@@ -0,0 +1,37 @@
+package com.google.a2a.server;
+
+/**
+ * TranslationCacheStats is a point-in-time snapshot of TranslationCache counters
+ * TranslationCacheStats是翻译缓存计数器的时间点快照
+ *
+ * @param hitCount lookups served from the cache
+ *                 由缓存返回结果的查询次数
+ * @param missCount lookups that had to call the model
+ *                  需要调用模型的查询次数
+ * @param evictionCount results dropped to stay under the weight limit
+ *                      为保持在容量上限内被淘汰的结果数
+ * @param expirationCount results dropped after their TTL
+ *                        超过TTL后被清除的结果数
+ * @param size number of cached results
+ *             当前缓存的结果数
+ * @param weightBytes estimated bytes of cached keys and results
+ *                    缓存键和结果的估算字节数
+ */
+public record TranslationCacheStats(
+    long hitCount,
+    long missCount,
+    long evictionCount,
+    long expirationCount,
+    long size,
+    long weightBytes
+) {
+
+    /**
+     * Ratio of lookups served from the cache, 0.0 when there were no lookups
+     * 由缓存返回结果的查询比例，无查询时为0.0
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+    }
+}
@@ -0,0 +1,21 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Task;
+
+/**
+ * VersionedTask is a stored task together with its version
+ * VersionedTask是已存储的任务及其版本号
+ *
+ * <p>Every write of a task creates a new instance with the next version, so an instance read from
+ * a TaskStore can be passed back to {@link TaskStore#compareAndSet} to update the task only if
+ * nothing else changed it in between.
+ * 每次写入任务都会创建一个版本号递增的新实例，因此从TaskStore读取的实例可以传回{@link TaskStore#compareAndSet}，
+ * 仅在期间没有其他写入时更新任务。
+ *
+ * @param task the stored task
+ *             已存储的任务
+ * @param version starts at 1 and grows by one on every write
+ *                从1开始，每次写入加1
+ */
+public record VersionedTask(Task task, long version) {
+}
@@ -0,0 +1,228 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A2AController tests
+ */
+class A2AControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HandlerExecutor executor;
+    private TaskEventBus eventBus;
+    private SseFrameCoalescer frameCoalescer;
+    private SseStreamRegistry streamRegistry;
+    private A2AMethods methods;
+    private JsonRpcBatchDispatcher batchDispatcher;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        AgentCard agentCard = new AgentCard("Test Agent", "Test Agent", "http://localhost:8080/a2a", null, "1.0.0",
+            null, new AgentCapabilities(true, true, true), null, List.of("text"), List.of("text"), List.of());
+        // One handler thread, so a stream that held it would starve every other request
+        executor = new HandlerExecutor(1, 1);
+        eventBus = new TaskEventBus();
+        // Tasks whose id starts with "follow" keep working, so their non-blocking streams stay open
+        A2AServer server = new A2AServer(agentCard, (task, message) -> new Task(task.id(), task.contextId(),
+            task.kind(), new TaskStatus(task.id().startsWith("follow") ? TaskState.WORKING : TaskState.COMPLETED,
+            null, Instant.now().toString()), task.artifacts(), task.history(), task.metadata()),
+            new InMemoryTaskStore(), executor, new TaskMailboxes(), eventBus, objectMapper);
+        frameCoalescer = new SseFrameCoalescer(Duration.ZERO, 16384);
+        streamRegistry = new SseStreamRegistry(Duration.ofSeconds(15), Duration.ofMinutes(5), Duration.ofMinutes(30),
+            10, 10, 4, 2);
+        methods = new A2AMethods(server);
+        batchDispatcher = new JsonRpcBatchDispatcher();
+        A2ACodec codec = new A2ACodec(objectMapper, A2ACodec.Accessors.REFLECTION);
+        mvc = MockMvcBuilders.standaloneSetup(new A2AController(server, codec, frameCoalescer,
+            new SseFrameEncoder(objectMapper), streamRegistry,
+            new JsonRpcMethodRegistry(objectMapper, methods.methods()), batchDispatcher)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchDispatcher.close();
+        methods.close();
+        streamRegistry.close();
+        frameCoalescer.close();
+        eventBus.close();
+        executor.close();
+    }
+
+    @Test
+    void testBatchAnswersEveryCallInOrder() throws Exception {
+        MvcResult result = mvc.perform(post("/a2a")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(List.of(
+                    new JSONRPCRequest("request-1", "2.0", "tasks/send", sendParams("task-1", true)),
+                    new JSONRPCRequest("request-2", "2.0", "tasks/get", Map.of("id", "task-2")),
+                    new JSONRPCRequest("request-3", "2.0", "tasks/unknown", Map.of())))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<JSONRPCResponse> responses = List.of(objectMapper.readValue(body, JSONRPCResponse[].class));
+        assertEquals(3, responses.size());
+        assertEquals("request-1", responses.get(0).id());
+        assertNull(responses.get(0).error());
+        assertEquals(ErrorCode.TASK_NOT_FOUND.getValue(), responses.get(1).error().code());
+        assertEquals(ErrorCode.METHOD_NOT_FOUND.getValue(), responses.get(2).error().code());
+    }
+
+    @Test
+    void testStreamEndsWithTurn() throws Exception {
+        String body = stream("tasks/send", sendParams("task-1", true), null);
+
+        assertTrue(body.startsWith("id:1\nevent:task-update\ndata:"));
+        assertTrue(body.contains("\"state\":\"completed\""));
+        assertTrue(body.contains("\"final\":true"));
+        assertTrue(body.contains("\"id\":\"stream-request\""));
+        assertFalse(body.contains("event:error"));
+        assertEquals(0, streamRegistry.stats().openCount());
+    }
+
+    @Test
+    void testUnreadableStreamRequestsGetOneErrorEvent() throws Exception {
+        String missingParams = stream("tasks/send", null, null);
+        assertTrue(missingParams.startsWith("event:error\n"));
+        assertTrue(missingParams.contains(String.valueOf(ErrorCode.INVALID_PARAMS.getValue())));
+        assertTrue(missingParams.contains("\"id\":\"stream-request\""));
+
+        String malformedParams = stream("tasks/resubscribe", List.of("task-1"), null);
+        assertTrue(malformedParams.contains(String.valueOf(ErrorCode.INVALID_PARAMS.getValue())));
+
+        String notJson = streamBody("{\"jsonrpc\":\"2.0\",");
+        assertTrue(notJson.startsWith("event:error\n"));
+        assertTrue(notJson.contains(String.valueOf(ErrorCode.PARSE_ERROR.getValue())));
+        assertEquals(0, streamRegistry.stats().openCount());
+    }
+
+    @Test
+    void testResubscribeReplaysMissedEvents() throws Exception {
+        stream("tasks/send", sendParams("task-1", true), null);
+
+        String replayed = stream("tasks/resubscribe", Map.of("id", "task-1"), "1");
+        assertFalse(replayed.contains("id:1\n"));
+        assertTrue(replayed.startsWith("id:2\n"));
+        assertTrue(replayed.contains("\"final\":true"));
+
+        String missing = stream("tasks/resubscribe", Map.of("id", "task-2"), null);
+        assertTrue(missing.startsWith("event:error\n"));
+        assertTrue(missing.contains(String.valueOf(ErrorCode.TASK_NOT_FOUND.getValue())));
+    }
+
+    @Test
+    void testFollowersDoNotHoldHandlerThreads() throws Exception {
+        // Each of these streams follows a task that keeps working
+        for (int i = 0; i < 3; i++) {
+            MvcResult follow = mvc.perform(streamRequest("tasks/send", sendParams("follow-" + i, false), null))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            assertTrue(waitFor(() -> content(follow).contains("\"state\":\"working\"")));
+        }
+        assertEquals(3, streamRegistry.stats().openCount());
+
+        // The only handler thread is free for other requests
+        MvcResult sent = mvc.perform(post("/a2a")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(
+                    new JSONRPCRequest("request-1", "2.0", "tasks/send", sendParams("task-1", true)))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mvc.perform(asyncDispatch(sent))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        JSONRPCResponse response = objectMapper.readValue(body, JSONRPCResponse.class);
+        assertNull(response.error());
+        assertEquals(TaskState.COMPLETED,
+            objectMapper.convertValue(response.result(), Task.class).status().state());
+    }
+
+    private String stream(String method, Object params, String lastEventId) throws Exception {
+        return stream(streamRequest(method, params, lastEventId));
+    }
+
+    private String streamBody(String body) throws Exception {
+        return stream(post("/a2a/stream")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .content(body));
+    }
+
+    private String stream(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            // Wait for the stream to end; an error event ends it with an error, which is its async result
+            result.getAsyncResult(5000);
+        }
+        return content(result);
+    }
+
+    private MockHttpServletRequestBuilder streamRequest(String method, Object params, String lastEventId)
+            throws Exception {
+        MockHttpServletRequestBuilder request = post("/a2a/stream")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .content(objectMapper.writeValueAsBytes(new JSONRPCRequest("stream-request", "2.0", method, params)));
+        if (lastEventId != null) {
+            request = request.header("Last-Event-ID", lastEventId);
+        }
+        return request;
+    }
+
+    private static String content(MvcResult result) {
+        return new String(result.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static Map<String, Object> sendParams(String taskId, boolean blocking) {
+        return Map.of(
+            "id", taskId,
+            "message", Map.of(
+                "messageId", UUID.randomUUID().toString(),
+                "kind", "message",
+                "role", "user",
+                "parts", List.of(Map.of(
+                    "kind", "text",
+                    "text", "Test message"
+                ))
+            ),
+            "configuration", Map.of("blocking", blocking)
+        );
+    }
+}
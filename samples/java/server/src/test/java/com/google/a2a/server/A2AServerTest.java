@@ -4,11 +4,23 @@ import com.google.a2a.model.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatModel;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,13 +31,15 @@ class A2AServerTest {
     
     private A2AServer server;
     private ObjectMapper objectMapper;
+    private AgentCard agentCard;
+    private TaskHandler taskHandler;
     
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
         
         // Create test agent card
-        AgentCard agentCard = new AgentCard(
+        agentCard = new AgentCard(
             "Test Agent",
             "Test Agent",
             "http://localhost:8080/a2a",
@@ -40,7 +54,7 @@ class A2AServerTest {
         );
         
         // Create test task handler that completes tasks except for "test-task-3"
-        TaskHandler taskHandler = (task, message) -> {
+        taskHandler = (task, message) -> {
             TaskState targetState = TaskState.COMPLETED;
             
             // For cancel test, keep task in WORKING state
@@ -267,6 +281,498 @@ class A2AServerTest {
         assertEquals("Task not found", response.error().message());
     }
     
+    @Test
+    void testHandleTaskGetEvicted() {
+        // Server whose store only holds a single task
+        server = new A2AServer(agentCard, taskHandler, new InMemoryTaskStore(1, Long.MAX_VALUE, null), objectMapper);
+        
+        for (String taskId : List.of("test-task-4", "test-task-5")) {
+            Map<String, Object> sendParams = Map.of(
+                "id", taskId,
+                "message", Map.of(
+                    "messageId", UUID.randomUUID().toString(),
+                    "kind", "message",
+                    "role", "user",
+                    "parts", List.of(Map.of(
+                        "kind", "text",
+                        "text", "Test message"
+                    ))
+                )
+            );
+            server.handleTaskSend(new JSONRPCRequest("request-1", "2.0", "tasks/send", sendParams));
+        }
+        
+        // The first task was evicted to make room for the second
+        JSONRPCResponse response = server.handleTaskGet(
+            new JSONRPCRequest("request-2", "2.0", "tasks/get", Map.of("id", "test-task-4", "historyLength", 10))
+        );
+        
+        assertNotNull(response.error());
+        assertEquals(ErrorCode.TASK_NOT_FOUND.getValue(), response.error().code());
+        assertTrue(server.getTaskHistory("test-task-4").isEmpty());
+        assertEquals(1, server.getTaskStore().stats().evictionCount());
+    }
+    
+    @Test
+    void testHistoryIsStoredOnce() {
+        // Handler that replies to every message and records the history it was given
+        List<Integer> seenHistorySizes = new ArrayList<>();
+        TaskHandler replyingHandler = (task, message) -> {
+            seenHistorySizes.add(task.history().size());
+            Message reply = new Message("reply-" + message.messageId(), "agent", List.of(new TextPart("ok")));
+            TaskStatus status = new TaskStatus(TaskState.COMPLETED, null, Instant.now().toString());
+            return task.withStatus(status).withHistory(PersistentList.copyOf(task.history()).append(reply));
+        };
+        server = new A2AServer(agentCard, replyingHandler, objectMapper);
+        
+        for (String messageId : List.of("m1", "m2")) {
+            Map<String, Object> sendParams = Map.of(
+                "id", "test-task-6",
+                "message", Map.of(
+                    "messageId", messageId,
+                    "kind", "message",
+                    "role", "user",
+                    "parts", List.of(Map.of(
+                        "kind", "text",
+                        "text", "Test message"
+                    ))
+                )
+            );
+            // A client that reacts to the final status already finds the reply
+            List<String> lastMessageAtFinal = new ArrayList<>();
+            TaskEventSink sink = new TaskEventSink() {
+                @Override
+                public void sendStatusUpdate(TaskStatusUpdateEvent event) {
+                    if (Boolean.TRUE.equals(event.finalUpdate())) {
+                        List<Message> history = server.getTaskHistory("test-task-6");
+                        lastMessageAtFinal.add(history.get(history.size() - 1).messageId());
+                    }
+                }
+
+                @Override
+                public void sendArtifactUpdate(TaskArtifactUpdateEvent event) {
+                }
+            };
+            JSONRPCResponse response = server.handleTaskSend(
+                new JSONRPCRequest("request-1", "2.0", "tasks/send", sendParams), sink);
+            Task result = (Task) response.result();
+            assertEquals("reply-" + messageId, result.history().get(result.history().size() - 1).messageId());
+            assertEquals(List.of("reply-" + messageId), lastMessageAtFinal);
+        }
+        
+        // The handler saw the conversation so far, ending with the new user message
+        assertEquals(List.of(1, 3), seenHistorySizes);
+        assertEquals(List.of("m1", "reply-m1", "m2", "reply-m2"),
+            server.getTaskHistory("test-task-6").stream().map(Message::messageId).toList());
+        // The stored task does not hold a second copy of the history
+        assertNull(server.getTaskStore().get("test-task-6").history());
+        
+        JSONRPCResponse response = server.handleTaskGet(
+            new JSONRPCRequest("request-2", "2.0", "tasks/get", Map.of("id", "test-task-6", "historyLength", 2))
+        );
+        assertEquals(List.of("m2", "reply-m2"),
+            ((Task) response.result()).history().stream().map(Message::messageId).toList());
+    }
+    
+    @Test
+    void testNonBlockingSend() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskHandler slowHandler = (task, message) -> {
+            assertEquals(TaskState.WORKING, task.status().state());
+            started.countDown();
+            release.await();
+            return taskHandler.handle(task, message);
+        };
+        HandlerExecutor executor = new HandlerExecutor(1, 1);
+        server = new A2AServer(agentCard, slowHandler, new InMemoryTaskStore(), executor, objectMapper);
+        
+        JSONRPCResponse response = server.handleTaskSend(
+            new JSONRPCRequest("request-1", "2.0", "tasks/send", nonBlockingParams("test-task-7"))
+        );
+        
+        // Returned before the handler finished
+        assertNull(response.error());
+        assertEquals(TaskState.SUBMITTED, ((Task) response.result()).status().state());
+        assertEquals(1, ((Task) response.result()).history().size());
+        
+        // One job running and one queued fill the executor, so the next one is rejected
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        server.handleTaskSend(new JSONRPCRequest("request-2", "2.0", "tasks/send", nonBlockingParams("test-task-8")));
+        JSONRPCResponse rejected = server.handleTaskSend(
+            new JSONRPCRequest("request-3", "2.0", "tasks/send", nonBlockingParams("test-task-9"))
+        );
+        assertNotNull(rejected.error());
+        assertEquals(TaskState.FAILED, server.getTaskStore().get("test-task-9").status().state());
+        assertEquals(1, executor.stats().rejectedCount());
+        
+        release.countDown();
+        executor.close();
+        assertEquals(TaskState.COMPLETED, server.getTaskStore().get("test-task-7").status().state());
+        assertEquals(TaskState.COMPLETED, server.getTaskStore().get("test-task-8").status().state());
+        assertEquals(2, executor.stats().completedCount());
+        assertEquals(2, executor.stats().waitCount());
+    }
+    
+    @Test
+    void testCancelInterruptsRunningHandler() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        TaskHandler slowHandler = new TaskHandler() {
+            @Override
+            public Task handle(Task task, Message message) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Task handle(Task task, Message message, CancellationToken cancellation) throws Exception {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    assertTrue(cancellation.isCancellationRequested());
+                    interrupted.countDown();
+                }
+                // Returned after the cancel, so it must be discarded
+                return taskHandler.handle(task, message);
+            }
+        };
+        HandlerExecutor executor = new HandlerExecutor(1, 1);
+        server = new A2AServer(agentCard, slowHandler, new InMemoryTaskStore(), executor, objectMapper);
+
+        server.handleTaskSend(new JSONRPCRequest("request-1", "2.0", "tasks/send", nonBlockingParams("test-task-10")));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        JSONRPCResponse response = server.handleTaskCancel(
+            new JSONRPCRequest("request-2", "2.0", "tasks/cancel", Map.of("id", "test-task-10"))
+        );
+        assertNull(response.error());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+
+        // The handler stopped well before its sleep ended, and its result never overwrote CANCELED
+        executor.close();
+        assertEquals(1, executor.stats().completedCount());
+        assertEquals(TaskState.CANCELED, server.getTaskStore().get("test-task-10").status().state());
+        assertEquals(1, server.getTaskHistory("test-task-10").size());
+    }
+
+    @Test
+    void testCancelQueuedTaskFreesQueueSlot() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> handled = new ArrayList<>();
+        TaskHandler slowHandler = (task, message) -> {
+            handled.add(task.id());
+            started.countDown();
+            release.await();
+            return taskHandler.handle(task, message);
+        };
+        HandlerExecutor executor = new HandlerExecutor(1, 1);
+        server = new A2AServer(agentCard, slowHandler, new InMemoryTaskStore(), executor, objectMapper);
+
+        server.handleTaskSend(new JSONRPCRequest("request-1", "2.0", "tasks/send", nonBlockingParams("test-task-12")));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        server.handleTaskSend(new JSONRPCRequest("request-2", "2.0", "tasks/send", nonBlockingParams("test-task-13")));
+        assertEquals(1, executor.stats().queueDepth());
+
+        server.handleTaskCancel(new JSONRPCRequest("request-3", "2.0", "tasks/cancel", Map.of("id", "test-task-13")));
+        assertEquals(0, executor.stats().queueDepth());
+        assertEquals(1, executor.stats().canceledCount());
+
+        // The queue slot is free again
+        JSONRPCResponse response = server.handleTaskSend(
+            new JSONRPCRequest("request-4", "2.0", "tasks/send", nonBlockingParams("test-task-14"))
+        );
+        assertNull(response.error());
+
+        release.countDown();
+        executor.close();
+        assertEquals(List.of("test-task-12", "test-task-14"), handled);
+        assertEquals(TaskState.CANCELED, server.getTaskStore().get("test-task-13").status().state());
+        assertEquals(TaskState.COMPLETED, server.getTaskStore().get("test-task-14").status().state());
+    }
+
+    @Test
+    void testMessagesForSameTaskRunInOrder() throws Exception {
+        CountDownLatch bothTasksRunning = new CountDownLatch(2);
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        List<String> seen = new CopyOnWriteArrayList<>();
+        TaskHandler slowHandler = (task, message) -> {
+            AtomicInteger active = running.computeIfAbsent(task.id(), id -> new AtomicInteger());
+            assertEquals(1, active.incrementAndGet(), "two turns of " + task.id() + " ran at once");
+            bothTasksRunning.countDown();
+            // The first turns of the two tasks overlap
+            bothTasksRunning.await(10, TimeUnit.SECONDS);
+            Thread.sleep(10);
+            // Each turn sees the messages of every earlier turn, ending with its own
+            List<Message> history = task.history();
+            seen.add(history.size() + ":" + history.get(history.size() - 1).messageId());
+            active.decrementAndGet();
+            return taskHandler.handle(task, message);
+        };
+        HandlerExecutor executor = new HandlerExecutor(4, 100);
+        server = new A2AServer(agentCard, slowHandler, new InMemoryTaskStore(), executor, objectMapper);
+
+        for (int i = 0; i < 5; i++) {
+            for (String taskId : List.of("test-task-15", "test-task-16")) {
+                JSONRPCResponse response = server.handleTaskSend(new JSONRPCRequest("request-" + i, "2.0",
+                    "tasks/send", nonBlockingParams(taskId, taskId + "-m" + i)));
+                assertNull(response.error());
+            }
+        }
+
+        // Later turns are handed to the executor as earlier ones finish, so wait for the mailboxes to drain
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.getMailboxes().activeCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // Idle tasks keep no mailbox
+        assertEquals(0, server.getMailboxes().activeCount());
+        executor.close();
+        assertEquals(0, bothTasksRunning.getCount());
+        for (String taskId : List.of("test-task-15", "test-task-16")) {
+            List<String> turns = seen.stream().filter(turn -> turn.contains(taskId)).toList();
+            assertEquals(List.of("1:" + taskId + "-m0", "2:" + taskId + "-m1", "3:" + taskId + "-m2",
+                "4:" + taskId + "-m3", "5:" + taskId + "-m4"), turns);
+            assertEquals(TaskState.COMPLETED, server.getTaskStore().get(taskId).status().state());
+        }
+    }
+
+    @Test
+    void testStreamingHandlerEventsReachSink() {
+        TaskHandler streamingHandler = new TaskHandler() {
+            @Override
+            public Task handle(Task task, Message message) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Task handle(Task task, Message message, CancellationToken cancellation, TaskEventSink events)
+                    throws Exception {
+                for (String token : List.of("Hel", "lo")) {
+                    Artifact chunk = new Artifact("artifact-1", null, null, List.of(new TextPart(token)), 0,
+                        !"Hel".equals(token), null, "lo".equals(token));
+                    events.sendArtifactUpdate(new TaskArtifactUpdateEvent(task.id(), chunk, false, null));
+                }
+                return taskHandler.handle(task, message);
+            }
+        };
+        server = new A2AServer(agentCard, streamingHandler, objectMapper);
+
+        List<TaskArtifactUpdateEvent> received = new ArrayList<>();
+        TaskEventSink sink = new TaskEventSink() {
+            @Override
+            public void sendStatusUpdate(TaskStatusUpdateEvent event) {
+            }
+
+            @Override
+            public void sendArtifactUpdate(TaskArtifactUpdateEvent event) {
+                received.add(event);
+            }
+        };
+        Map<String, Object> params = Map.of(
+            "id", "test-task-20",
+            "message", Map.of(
+                "messageId", "m1",
+                "kind", "message",
+                "role", "user",
+                "parts", List.of(Map.of("kind", "text", "text", "Test message"))
+            )
+        );
+        JSONRPCResponse response = server.handleTaskSend(
+            new JSONRPCRequest("request-1", "2.0", "tasks/send", params), sink);
+
+        assertNull(response.error());
+        assertEquals(TaskState.COMPLETED, ((Task) response.result()).status().state());
+        assertEquals(List.of("Hel", "lo"), received.stream()
+            .map(event -> ((TextPart) event.artifact().parts().get(0)).text()).toList());
+        assertEquals(List.of(false, true), received.stream().map(event -> event.artifact().append()).toList());
+        assertEquals(List.of(false, true), received.stream().map(event -> event.artifact().lastChunk()).toList());
+    }
+
+    @Test
+    void testStatusChangesArePublishedOnEventBus() throws Exception {
+        AtomicInteger turns = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        TaskHandler handler = (task, message) -> {
+            if (turns.incrementAndGet() == 2) {
+                // The second turn runs until it is canceled
+                release.await();
+            }
+            return taskHandler.handle(task, message);
+        };
+        HandlerExecutor executor = new HandlerExecutor(1, 1);
+        server = new A2AServer(agentCard, handler, new InMemoryTaskStore(), executor, objectMapper);
+        TaskEventBus.Subscription subscription = server.getEventBus().subscribe("test-task-21");
+
+        server.handleTaskSend(new JSONRPCRequest("request-1", "2.0", "tasks/send", nonBlockingParams("test-task-21")));
+        List<TaskEventBus.Event> events = untilFinal(subscription);
+        assertEquals(List.of(TaskState.SUBMITTED, TaskState.WORKING, TaskState.COMPLETED),
+            events.stream().map(event -> ((TaskStatusUpdateEvent) event.payload()).status().state()).toList());
+        assertEquals(List.of(1L, 2L, 3L), events.stream().map(TaskEventBus.Event::sequence).toList());
+
+        // A resubscriber that saw the first turn follows the next one until the cancel ends it
+        TaskEventBus.Subscription resubscribed = server.getEventBus().subscribe("test-task-21", 3);
+        server.handleTaskSend(new JSONRPCRequest("request-2", "2.0", "tasks/send", nonBlockingParams("test-task-21")));
+        // Once the turn reopened the task it can be canceled
+        assertEquals(4L, resubscribed.poll(10, TimeUnit.SECONDS).sequence());
+        server.handleTaskCancel(new JSONRPCRequest("request-3", "2.0", "tasks/cancel", Map.of("id", "test-task-21")));
+
+        List<TaskEventBus.Event> next = untilFinal(resubscribed);
+        assertEquals(TaskState.CANCELED,
+            ((TaskStatusUpdateEvent) next.get(next.size() - 1).payload()).status().state());
+        executor.close();
+    }
+
+    @Test
+    void testHandleTaskSendAsync() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskHandler slowHandler = (task, message) -> {
+            started.countDown();
+            release.await();
+            return taskHandler.handle(task, message);
+        };
+        HandlerExecutor executor = new HandlerExecutor(1, 1);
+        server = new A2AServer(agentCard, slowHandler, new InMemoryTaskStore(), executor, objectMapper);
+
+        // The blocking turn runs on the executor, not on the caller
+        CompletableFuture<JSONRPCResponse> first = server.handleTaskSendAsync(
+            new JSONRPCRequest("request-1", "2.0", "tasks/send", blockingParams("test-task-22")), TaskEventSink.NONE);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertFalse(first.isDone());
+
+        // One job running and one queued fill the executor, so the next one is answered as busy right away
+        CompletableFuture<JSONRPCResponse> second = server.handleTaskSendAsync(
+            new JSONRPCRequest("request-2", "2.0", "tasks/send", blockingParams("test-task-23")), TaskEventSink.NONE);
+        JSONRPCResponse rejected = server.handleTaskSendAsync(
+            new JSONRPCRequest("request-3", "2.0", "tasks/send", blockingParams("test-task-24")), TaskEventSink.NONE)
+            .getNow(null);
+        assertNotNull(rejected);
+        assertEquals(ErrorCode.INTERNAL_ERROR.getValue(), rejected.error().code());
+        assertNull(server.getTaskStore().get("test-task-24"));
+
+        release.countDown();
+        assertEquals(TaskState.COMPLETED, ((Task) first.get(10, TimeUnit.SECONDS).result()).status().state());
+        assertEquals(TaskState.COMPLETED, ((Task) second.get(10, TimeUnit.SECONDS).result()).status().state());
+        executor.close();
+    }
+
+    @Test
+    void testBlockingAsyncSendWaitsForItsTurnOffTheExecutor() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskHandler slowHandler = (task, message) -> {
+            started.countDown();
+            release.await();
+            return taskHandler.handle(task, message);
+        };
+        // One handler thread, which a blocking send waiting for its turn must not hold
+        HandlerExecutor executor = new HandlerExecutor(1, 10);
+        server = new A2AServer(agentCard, slowHandler, new InMemoryTaskStore(), executor, objectMapper);
+
+        server.handleTaskSend(new JSONRPCRequest("request-1", "2.0", "tasks/send", nonBlockingParams("test-task-25")));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        // This turn submits its handler only once the first one finished
+        server.handleTaskSend(new JSONRPCRequest("request-2", "2.0", "tasks/send", nonBlockingParams("test-task-25")));
+        CompletableFuture<JSONRPCResponse> blocking = server.handleTaskSendAsync(
+            new JSONRPCRequest("request-3", "2.0", "tasks/send", blockingParams("test-task-25")), TaskEventSink.NONE);
+
+        release.countDown();
+        JSONRPCResponse response = blocking.get(10, TimeUnit.SECONDS);
+        assertNull(response.error());
+        assertEquals(TaskState.COMPLETED, ((Task) response.result()).status().state());
+        assertEquals(3, server.getTaskHistory("test-task-25").size());
+        executor.close();
+    }
+
+    @Test
+    void testIdenticalSendsWithoutListenersShareOneModelCall() throws Exception {
+        AtomicInteger modelCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        TranslationBatcher batcher = new TranslationBatcher(prompt -> {
+            modelCalls.incrementAndGet();
+            release.await();
+            return "Message de test";
+        }, text -> text, 1, Duration.ZERO, 500);
+        ChatModel chatModel = prompt -> {
+            throw new AssertionError("Nobody listens, so nothing should be streamed");
+        };
+        TaskHandler handler = new A2AServerConfiguration().createTranslationTaskHandler(chatModel,
+            new TranslationCache(), singleFlight, batcher, "test");
+        server = new A2AServer(agentCard, handler, objectMapper);
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        List<Future<JSONRPCResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String taskId = "test-task-" + (30 + i);
+            responses.add(callers.submit(() -> server.handleTaskSend(
+                new JSONRPCRequest(taskId, "2.0", "tasks/send", blockingParams(taskId)), TaskEventSink.NONE)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (singleFlight.stats().coalescedCount() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<JSONRPCResponse> response : responses) {
+            Task task = (Task) response.get(10, TimeUnit.SECONDS).result();
+            assertEquals(TaskState.COMPLETED, task.status().state());
+        }
+        assertEquals(1, modelCalls.get());
+        assertEquals(3, singleFlight.stats().coalescedCount());
+        callers.shutdown();
+        batcher.close();
+        singleFlight.close();
+    }
+
+    private static List<TaskEventBus.Event> untilFinal(TaskEventBus.Subscription subscription) throws Exception {
+        List<TaskEventBus.Event> events = new ArrayList<>();
+        TaskEventBus.Event event;
+        do {
+            event = subscription.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event);
+            events.add(event);
+        } while (!event.isFinal());
+        return events;
+    }
+
+    private static Map<String, Object> blockingParams(String taskId) {
+        return Map.of(
+            "id", taskId,
+            "message", Map.of(
+                "messageId", UUID.randomUUID().toString(),
+                "kind", "message",
+                "role", "user",
+                "parts", List.of(Map.of(
+                    "kind", "text",
+                    "text", "Test message"
+                ))
+            )
+        );
+    }
+
+    private static Map<String, Object> nonBlockingParams(String taskId) {
+        return nonBlockingParams(taskId, UUID.randomUUID().toString());
+    }
+
+    private static Map<String, Object> nonBlockingParams(String taskId, String messageId) {
+        return Map.of(
+            "id", taskId,
+            "message", Map.of(
+                "messageId", messageId,
+                "kind", "message",
+                "role", "user",
+                "parts", List.of(Map.of(
+                    "kind", "text",
+                    "text", "Test message"
+                ))
+            ),
+            "configuration", Map.of("blocking", false)
+        );
+    }
+    
     @Test
     void testGetAgentCard() {
         AgentCard agentCard = server.getAgentCard();
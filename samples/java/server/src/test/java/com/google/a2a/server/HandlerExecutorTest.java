@@ -0,0 +1,155 @@
+package com.google.a2a.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * HandlerExecutor unit tests
+ */
+class HandlerExecutorTest {
+
+    @Test
+    void testPlatformModeRejectsWhenQueueIsFull() throws Exception {
+        HandlerExecutor executor = new HandlerExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> block(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit(() -> { });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> { }));
+        HandlerExecutorStats stats = executor.stats();
+        assertEquals(1, stats.activeCount());
+        assertEquals(1, stats.queueDepth());
+        assertEquals(1, stats.rejectedCount());
+
+        release.countDown();
+        waitFor(() -> executor.stats().completedCount() == 2);
+        executor.close();
+    }
+
+    @Test
+    void testPlatformModeCancelBeforeStartFreesQueueSlot() throws Exception {
+        HandlerExecutor executor = new HandlerExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> block(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicBoolean ran = new AtomicBoolean();
+        Future<?> queued = executor.submit(() -> ran.set(true));
+
+        executor.cancel(queued);
+        assertEquals(0, executor.stats().queueDepth());
+        executor.submit(() -> { });
+
+        release.countDown();
+        waitFor(() -> executor.stats().completedCount() == 2);
+        assertFalse(ran.get());
+        assertEquals(1, executor.stats().canceledCount());
+        executor.close();
+    }
+
+    @Test
+    void testSemaphoreCapsRunningJobsAndQueue() throws Exception {
+        // Platform threads stand in for virtual ones, so the semaphore path runs on any JDK
+        HandlerExecutor executor = new HandlerExecutor(Executors.newCachedThreadPool(), 1, 2, 1);
+        assertEquals(HandlerExecutor.Mode.VIRTUAL, executor.mode());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            executor.submit(() -> {
+                running.incrementAndGet();
+                block(started, release);
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicBoolean ran = new AtomicBoolean();
+        Future<?> waiting = executor.submit(() -> ran.set(true));
+
+        // Two running and one waiting for a permit fill the executor
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> { }));
+        HandlerExecutorStats stats = executor.stats();
+        assertEquals(2, stats.activeCount());
+        assertEquals(1, stats.queueDepth());
+        assertEquals(1, stats.rejectedCount());
+
+        // A job canceled while waiting for a permit never runs and gives its slot back
+        executor.cancel(waiting);
+        waitFor(() -> executor.stats().queueDepth() == 0);
+        executor.submit(() -> { });
+
+        release.countDown();
+        waitFor(() -> executor.stats().completedCount() == 3);
+        assertFalse(ran.get());
+        assertEquals(2, running.get());
+        assertEquals(1, executor.stats().canceledCount());
+        executor.close();
+    }
+
+    @Test
+    void testVirtualModeFallsBackToThreadsBeforeJava21() throws Exception {
+        assumeTrue(Runtime.version().feature() < 21);
+        HandlerExecutor executor = new HandlerExecutor(HandlerExecutor.Mode.VIRTUAL, 1, 1000, 1);
+        assertEquals(HandlerExecutor.Mode.PLATFORM, executor.mode());
+
+        // The pool has the size PLATFORM mode would use, not max-concurrency
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> block(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit(() -> { });
+        assertEquals(1, executor.stats().activeCount());
+        assertEquals(1, executor.stats().queueDepth());
+
+        release.countDown();
+        waitFor(() -> executor.stats().completedCount() == 2);
+        executor.close();
+    }
+
+    @Test
+    void testVirtualModeRunsJobsOnVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+        HandlerExecutor executor = new HandlerExecutor(HandlerExecutor.Mode.VIRTUAL, 1, 1000, 1);
+        assertEquals(HandlerExecutor.Mode.VIRTUAL, executor.mode());
+
+        AtomicBoolean virtual = new AtomicBoolean();
+        executor.submit(() -> {
+            try {
+                virtual.set((Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(5, TimeUnit.SECONDS);
+        assertTrue(virtual.get());
+        executor.close();
+    }
+
+    private static void block(CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.Message;
+import com.google.a2a.model.TextPart;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HistoryLog unit tests
+ */
+class HistoryLogTest {
+
+    @Test
+    void testAppendAcrossChunks() {
+        HistoryLog log = new HistoryLog();
+        int count = HistoryLog.CHUNK_SIZE * 10 + 3;
+        for (int i = 0; i < count; i++) {
+            log.append(message("m" + i));
+        }
+
+        assertEquals(count, log.size());
+        assertEquals("m0", log.get(0).messageId());
+        assertEquals("m" + HistoryLog.CHUNK_SIZE, log.get(HistoryLog.CHUNK_SIZE).messageId());
+        assertEquals("m" + (count - 1), log.get(count - 1).messageId());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(count));
+    }
+
+    @Test
+    void testTailIsFixedWindow() {
+        HistoryLog log = new HistoryLog();
+        for (int i = 0; i < 5; i++) {
+            log.append(message("m" + i));
+        }
+
+        List<Message> tail = log.tail(2);
+        List<Message> all = log.snapshot();
+        log.append(message("m5"));
+
+        assertEquals(List.of("m3", "m4"), tail.stream().map(Message::messageId).toList());
+        assertEquals(5, all.size());
+        assertEquals(List.of("m4"), all.subList(4, 5).stream().map(Message::messageId).toList());
+        assertEquals(6, log.tail(100).size());
+        assertTrue(log.tail(0).isEmpty());
+    }
+
+    private static Message message(String id) {
+        return new Message(id, "user", List.of(new TextPart("hello")));
+    }
+}
@@ -0,0 +1,115 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InMemoryTaskStore unit tests
+ */
+class InMemoryTaskStoreTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    void testPutAndGet() {
+        InMemoryTaskStore store = new InMemoryTaskStore(10, Long.MAX_VALUE, Duration.ofMinutes(1), ticker::get);
+        store.put(task("task-1", TaskState.WORKING));
+        store.appendHistory("task-1", message("hello"));
+
+        assertEquals("task-1", store.get("task-1").id());
+        assertEquals(1, store.getHistory("task-1").size());
+        assertNull(store.get("missing"));
+
+        TaskStoreStats stats = store.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.size());
+        assertTrue(stats.weightBytes() > 0);
+    }
+
+    @Test
+    void testSizeLimitEvicts() {
+        InMemoryTaskStore store = new InMemoryTaskStore(100, Long.MAX_VALUE, null, ticker::get);
+        for (int i = 0; i < 1_000; i++) {
+            store.put(task("task-" + i, TaskState.WORKING));
+        }
+
+        assertEquals(100, store.size());
+        assertEquals(900, store.stats().evictionCount());
+    }
+
+    @Test
+    void testWeightLimitEvicts() {
+        InMemoryTaskStore store = new InMemoryTaskStore(1_000, 10_000, null, ticker::get);
+        for (int i = 0; i < 100; i++) {
+            store.put(task("task-" + i, TaskState.WORKING));
+            store.appendHistory("task-" + i, message("x".repeat(500)));
+        }
+
+        assertTrue(store.stats().weightBytes() <= 10_000);
+        assertTrue(store.stats().evictionCount() > 0);
+    }
+
+    @Test
+    void testFrequentTaskSurvivesScan() {
+        InMemoryTaskStore store = new InMemoryTaskStore(100, Long.MAX_VALUE, null, ticker::get);
+        store.put(task("hot", TaskState.WORKING));
+        for (int i = 0; i < 10; i++) {
+            store.get("hot");
+        }
+
+        // A burst of one-off tasks must not push out the frequently read one
+        for (int i = 0; i < 500; i++) {
+            store.put(task("scan-" + i, TaskState.WORKING));
+        }
+
+        assertNotNull(store.get("hot"));
+    }
+
+    @Test
+    void testTerminalTaskExpires() {
+        InMemoryTaskStore store = new InMemoryTaskStore(10, Long.MAX_VALUE, Duration.ofSeconds(30), ticker::get);
+        store.put(task("done", TaskState.COMPLETED));
+        store.put(task("rejected", TaskState.REJECTED));
+        store.put(task("running", TaskState.WORKING));
+        store.appendHistory("done", message("hello"));
+
+        ticker.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertNull(store.get("done"));
+        assertNull(store.get("rejected"));
+        assertTrue(store.getHistory("done").isEmpty());
+        assertNotNull(store.get("running"));
+
+        // Expired tasks are purged on the next write
+        store.put(task("other", TaskState.WORKING));
+        assertEquals(2, store.size());
+        assertEquals(2, store.stats().expirationCount());
+    }
+
+    @Test
+    void testRemove() {
+        InMemoryTaskStore store = new InMemoryTaskStore(10, Long.MAX_VALUE, null, ticker::get);
+        store.put(task("task-1", TaskState.WORKING));
+
+        assertNotNull(store.remove("task-1"));
+        assertNull(store.get("task-1"));
+        assertNull(store.remove("task-1"));
+        assertEquals(0, store.stats().weightBytes());
+    }
+
+    private static Task task(String id, TaskState state) {
+        return new Task(id, "context", new TaskStatus(state, null, Instant.now().toString()));
+    }
+
+    private static Message message(String text) {
+        return new Message("message-" + text.hashCode(), "user", List.of(new TextPart(text)));
+    }
+}
@@ -0,0 +1,282 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JournaledTaskStore unit tests
+ */
+class JournaledTaskStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecoverAfterRestart() throws IOException {
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 100)) {
+            store.put(task("task-1", TaskState.WORKING));
+            store.appendHistory("task-1", message("m1", "hello"));
+            store.appendHistory("task-1", message("m2", "world"));
+            store.put(task("task-1", TaskState.CANCELED));
+            store.put(task("task-2", TaskState.COMPLETED));
+            store.remove("task-2");
+        }
+
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 100)) {
+            Task recovered = store.get("task-1");
+            assertNotNull(recovered);
+            assertEquals(TaskState.CANCELED, recovered.status().state());
+            assertEquals(List.of("m1", "m2"), store.getHistory("task-1").stream().map(Message::messageId).toList());
+            assertNull(store.get("task-2"));
+        }
+    }
+
+    @Test
+    void testSegmentsRollAndReplayInOrder() throws IOException {
+        try (JournaledTaskStore store = open(4096, 10_000)) {
+            for (int i = 0; i < 500; i++) {
+                store.put(task("task-" + (i % 50), i < 450 ? TaskState.WORKING : TaskState.COMPLETED));
+            }
+            assertTrue(store.segmentCount() > 1);
+        }
+
+        try (JournaledTaskStore store = open(4096, 10_000)) {
+            assertEquals(50, store.size());
+            assertEquals(TaskState.COMPLETED, store.get("task-0").status().state());
+        }
+    }
+
+    @Test
+    void testEvictedTasksStayEvicted() throws IOException {
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 1)) {
+            store.put(task("task-1", TaskState.WORKING));
+            store.put(task("task-2", TaskState.WORKING));
+            assertNull(store.get("task-1"));
+        }
+
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 100)) {
+            assertNull(store.get("task-1"));
+            assertNotNull(store.get("task-2"));
+        }
+    }
+
+    @Test
+    void testTornWriteIsIgnored() throws IOException {
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 100)) {
+            store.put(task("task-1", TaskState.WORKING));
+        }
+
+        // Simulate a crash in the middle of writing the next record
+        Path segment = directory.resolve(JournalSegment.fileName(1));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long end = 0;
+            while (true) {
+                file.seek(end);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                end += JournalSegment.HEADER_SIZE + length;
+            }
+            file.seek(end);
+            file.writeInt(100);
+            file.writeInt(0xdeadbeef);
+        }
+
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 100)) {
+            assertNotNull(store.get("task-1"));
+            store.put(task("task-2", TaskState.WORKING));
+        }
+
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 100)) {
+            assertNotNull(store.get("task-1"));
+            assertNotNull(store.get("task-2"));
+        }
+    }
+
+    @Test
+    void testConcurrentWritersGroupCommit() throws Exception {
+        try (JournaledTaskStore store = open(64 * 1024, 10_000)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            for (int i = 0; i < 400; i++) {
+                String taskId = "task-" + i;
+                executor.submit(() -> {
+                    store.put(task(taskId, TaskState.WORKING));
+                    store.appendHistory(taskId, message(taskId + "-m", "hello"));
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        try (JournaledTaskStore store = open(64 * 1024, 10_000)) {
+            assertEquals(400, store.size());
+            assertEquals(1, store.getHistory("task-399").size());
+        }
+    }
+
+    @Test
+    void testEvictionsRacingPutsKeepLiveTasks() throws Exception {
+        Set<String> live = new HashSet<>();
+        try (JournaledTaskStore store = open(64 * 1024, 8)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            for (int i = 0; i < 4000; i++) {
+                String taskId = "task-" + (i % 16);
+                executor.submit(() -> store.put(task(taskId, TaskState.WORKING)));
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            for (int i = 0; i < 16; i++) {
+                if (store.get("task-" + i) != null) {
+                    live.add("task-" + i);
+                }
+            }
+        }
+
+        // Reopened without a size bound, replay keeps exactly what the journal says is live
+        try (JournaledTaskStore store = open(64 * 1024, 10_000)) {
+            for (int i = 0; i < 16; i++) {
+                assertEquals(live.contains("task-" + i), store.get("task-" + i) != null, "task-" + i);
+            }
+        }
+    }
+
+    @Test
+    void testSnapshotRetiresOldSegments() throws IOException {
+        try (JournaledTaskStore store = open(4096, 10_000)) {
+            for (int i = 0; i < 500; i++) {
+                store.put(task("task-" + (i % 50), TaskState.WORKING));
+                store.appendHistory("task-" + (i % 50), message("m" + i, "hello"));
+            }
+            store.remove("task-49");
+            assertTrue(store.segmentCount() > 1);
+
+            store.snapshot();
+            assertEquals(1, store.segmentCount());
+            assertEquals(1, store.journalStats().snapshotCount());
+            assertTrue(store.journalStats().reclaimedBytes() > 0);
+
+            store.put(task("task-0", TaskState.COMPLETED));
+            store.appendHistory("task-0", message("after", "snapshot"));
+        }
+
+        try (JournaledTaskStore store = open(4096, 10_000)) {
+            assertEquals(49, store.size());
+            assertNull(store.get("task-49"));
+            assertEquals(TaskState.COMPLETED, store.get("task-0").status().state());
+            assertEquals(11, store.getHistory("task-0").size());
+            assertEquals("after", store.getHistory("task-0").get(10).messageId());
+            assertEquals(10, store.getHistory("task-1").size());
+
+            // Nothing changed since the last snapshot, so it is skipped
+            store.snapshot();
+            store.snapshot();
+            assertEquals(1, store.journalStats().snapshotCount());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(path -> JournalSnapshot.parseId(path) > 0).count());
+        }
+    }
+
+    @Test
+    void testCompactionDropsSupersededRecords() throws IOException {
+        try (JournaledTaskStore store = open(4096, 10_000)) {
+            store.put(task("kept", TaskState.WORKING));
+            store.appendHistory("kept", message("k1", "hello"));
+            for (int i = 0; i < 200; i++) {
+                store.put(task("task-" + (i % 5), TaskState.WORKING));
+            }
+            store.put(task("removed", TaskState.WORKING));
+            store.appendHistory("removed", message("r1", "gone"));
+            store.remove("removed");
+            store.appendHistory("kept", message("k2", "world"));
+            store.put(task("task-0", TaskState.COMPLETED));
+
+            long before = directorySize();
+            store.compact();
+            assertTrue(store.journalStats().compactionCount() > 0);
+            assertTrue(store.journalStats().reclaimedBytes() > 0);
+            assertTrue(directorySize() < before);
+
+            // Compacting again finds nothing more to reclaim, and writes continue normally
+            long compactions = store.journalStats().compactionCount();
+            store.compact();
+            assertEquals(compactions, store.journalStats().compactionCount());
+            store.put(task("task-1", TaskState.COMPLETED));
+        }
+
+        try (JournaledTaskStore store = open(4096, 10_000)) {
+            assertEquals(6, store.size());
+            assertNull(store.get("removed"));
+            assertEquals(List.of("k1", "k2"), store.getHistory("kept").stream().map(Message::messageId).toList());
+            assertEquals(TaskState.COMPLETED, store.get("task-0").status().state());
+            assertEquals(TaskState.COMPLETED, store.get("task-1").status().state());
+            assertEquals(TaskState.WORKING, store.get("task-2").status().state());
+
+            // Positions remapped by the first compaction stay valid for later ones
+            for (int i = 0; i < 200; i++) {
+                store.put(task("task-" + (i % 5), TaskState.WORKING));
+            }
+            store.compact();
+        }
+
+        try (JournaledTaskStore store = open(4096, 10_000)) {
+            assertEquals(6, store.size());
+            assertEquals(List.of("k1", "k2"), store.getHistory("kept").stream().map(Message::messageId).toList());
+        }
+    }
+
+    @Test
+    void testCompareAndSetIsNotALookup() throws IOException {
+        try (JournaledTaskStore store = open(TaskJournal.DEFAULT_SEGMENT_SIZE, 100)) {
+            store.put(task("task-1", TaskState.WORKING));
+            VersionedTask working = store.getVersioned("task-1");
+
+            assertNotNull(store.compareAndSet("task-1", working, task("task-1", TaskState.COMPLETED)));
+            assertNull(store.compareAndSet("task-1", working, task("task-1", TaskState.FAILED)));
+
+            // Only the explicit lookup counts towards the hit ratio
+            assertEquals(1, store.stats().hitCount());
+            assertEquals(0, store.stats().missCount());
+        }
+    }
+
+    private long directorySize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private JournaledTaskStore open(int segmentSize, long maximumSize) throws IOException {
+        JournalOptions options = new JournalOptions(segmentSize, true, Duration.ZERO, Duration.ZERO, 0);
+        return new JournaledTaskStore(directory, objectMapper, options, maximumSize, Long.MAX_VALUE, null);
+    }
+
+    private static Task task(String id, TaskState state) {
+        return new Task(id, "context", new TaskStatus(state, null, Instant.now().toString()));
+    }
+
+    private static Message message(String id, String text) {
+        return new Message(id, "user", List.of(new TextPart(text)));
+    }
+}
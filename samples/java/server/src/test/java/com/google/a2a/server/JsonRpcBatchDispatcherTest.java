@@ -0,0 +1,154 @@
+package com.google.a2a.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonRpcBatchDispatcher unit tests
+ */
+class JsonRpcBatchDispatcherTest {
+
+    private final JsonRpcBatchDispatcher dispatcher = new JsonRpcBatchDispatcher(100, 4, 8);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        dispatcher.close();
+    }
+
+    @Test
+    void testResultsKeepRequestOrder() {
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+
+        List<String> results = dispatcher.dispatch(items, item -> {
+            sleep(item % 7);
+            return "result-" + item;
+        });
+
+        assertEquals(IntStream.range(0, 100).mapToObj(i -> "result-" + i).toList(), results);
+        JsonRpcBatchStats stats = dispatcher.stats();
+        assertEquals(1, stats.batchCount());
+        assertEquals(100, stats.callCount());
+        assertEquals(100.0, stats.averageBatchSize());
+    }
+
+    @Test
+    void testCallsRunInParallelUpToParallelism() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch allStarted = new CountDownLatch(4);
+
+        dispatcher.dispatch(IntStream.range(0, 20).boxed().toList(), item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            allStarted.countDown();
+            try {
+                // The first four calls only finish once four run at the same time
+                assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return item;
+        });
+
+        assertEquals(4, maxRunning.get());
+        assertTrue(dispatcher.stats().parallelRatio() > 0.0);
+    }
+
+    @Test
+    void testBusyHelpersLeaveTheBatchToTheCaller() throws Exception {
+        JsonRpcBatchDispatcher small = new JsonRpcBatchDispatcher(100, 4, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        try {
+            // Both calls of a first batch block, so one of them holds the only helper thread
+            Future<List<Integer>> first = callers.submit(() -> small.dispatch(List.of(1, 2), item -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return item;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals(List.of(30, 40, 50), small.dispatch(List.of(3, 4, 5), item -> item * 10));
+            assertEquals(0, small.stats().helperCallCount());
+
+            release.countDown();
+            assertEquals(List.of(1, 2), first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, small.stats().helperCallCount());
+        } finally {
+            release.countDown();
+            small.close();
+        }
+    }
+
+    @Test
+    void testAsyncBatchLeavesTheCallerFree() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+
+        CompletableFuture<List<Integer>> results = dispatcher.dispatchAsync(List.of(1, 2, 3, 4, 5, 6), item -> {
+            assertNotSame(caller, Thread.currentThread());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return item * 10;
+        });
+
+        // The calls block, yet the caller got its future back
+        assertFalse(results.isDone());
+        release.countDown();
+        assertEquals(List.of(10, 20, 30, 40, 50, 60), results.get(5, TimeUnit.SECONDS));
+        assertEquals(6, dispatcher.stats().helperCallCount());
+    }
+
+    @Test
+    void testFailingCallDoesNotStopOthers() {
+        AtomicInteger calls = new AtomicInteger();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> dispatcher.dispatch(List.of(1, 2, 3, 4, 5), item -> {
+                calls.incrementAndGet();
+                if (item == 2) {
+                    throw new IllegalStateException("boom");
+                }
+                return item;
+            }));
+
+        assertEquals("boom", e.getMessage());
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void testOversizedBatchIsRefused() {
+        assertTrue(dispatcher.accepts(100));
+        assertFalse(dispatcher.accepts(101));
+        assertEquals(1, dispatcher.stats().rejectedCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.ErrorCode;
+import com.google.a2a.model.JSONRPCRequest;
+import com.google.a2a.model.JSONRPCResponse;
+import com.google.a2a.model.TaskQueryParams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonRpcMethodRegistry unit tests
+ */
+class JsonRpcMethodRegistryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService slowExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(1));
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        slowExecutor.shutdownNow();
+    }
+
+    @Test
+    void testParamsAreReadIntoTheMethodType() {
+        AtomicReference<TaskQueryParams> received = new AtomicReference<>();
+        JsonRpcMethodRegistry registry = new JsonRpcMethodRegistry(objectMapper, List.of(
+            JsonRpcMethod.inline("tasks/get", TaskQueryParams.class, (id, params) -> {
+                received.set(params);
+                return new JSONRPCResponse(id, "2.0", params.id(), null);
+            })));
+
+        JSONRPCResponse response = registry.dispatch(request("tasks/get", Map.of("id", "task-1", "historyLength", 3)))
+            .join();
+
+        assertEquals("task-1", response.result());
+        assertEquals("task-1", received.get().id());
+        assertEquals(3, received.get().historyLength());
+        assertEquals(1, registry.stats("tasks/get").callCount());
+    }
+
+    @Test
+    void testUnknownMethodAndBadParamsAreErrors() {
+        JsonRpcMethodRegistry registry = new JsonRpcMethodRegistry(objectMapper, List.of(
+            JsonRpcMethod.inline("tasks/get", TaskQueryParams.class, (id, params) -> fail("handler must not run"))));
+
+        JSONRPCResponse unknown = registry.dispatch(request("tasks/unknown", Map.of())).join();
+        assertEquals(ErrorCode.METHOD_NOT_FOUND.getValue(), unknown.error().code());
+
+        JSONRPCResponse badParams = registry.dispatch(request("tasks/get", List.of("task-1"))).join();
+        assertEquals(ErrorCode.INVALID_PARAMS.getValue(), badParams.error().code());
+        JSONRPCResponse noParams = registry.dispatch(request("tasks/get", null)).join();
+        assertEquals(ErrorCode.INVALID_PARAMS.getValue(), noParams.error().code());
+        assertEquals(1.0, registry.stats("tasks/get").errorRate());
+    }
+
+    @Test
+    void testCheapMethodDoesNotWaitForSlowOnes() throws Exception {
+        JsonRpcMethodRegistry registry = new JsonRpcMethodRegistry(objectMapper, List.of(
+            new JsonRpcMethod<>("tasks/send", Map.class, (id, params) -> {
+                awaitRelease();
+                return new JSONRPCResponse(id, "2.0", Thread.currentThread().getName(), null);
+            }, slowExecutor, null),
+            JsonRpcMethod.inline("tasks/get", TaskQueryParams.class,
+                (id, params) -> new JSONRPCResponse(id, "2.0", Thread.currentThread().getName(), null))));
+
+        CompletableFuture<JSONRPCResponse> send = registry.dispatch(request("tasks/send", Map.of("id", "task-1")));
+        CompletableFuture<JSONRPCResponse> queued = registry.dispatch(request("tasks/send", Map.of("id", "task-2")));
+        JSONRPCResponse busy = registry.dispatch(request("tasks/send", Map.of("id", "task-3"))).join();
+
+        // The send pool is taken and its queue full, yet tasks/get is answered on this thread
+        JSONRPCResponse get = registry.dispatch(request("tasks/get", Map.of("id", "task-1"))).join();
+        assertEquals(Thread.currentThread().getName(), get.result());
+        assertEquals(ErrorCode.INTERNAL_ERROR.getValue(), busy.error().code());
+        assertEquals(1, registry.stats("tasks/send").rejectedCount());
+        assertFalse(send.isDone());
+
+        release.countDown();
+        assertNotEquals(Thread.currentThread().getName(), send.get(5, TimeUnit.SECONDS).result());
+        assertNull(queued.get(5, TimeUnit.SECONDS).error());
+    }
+
+    @Test
+    void testTimedOutCallerGetsAnError() {
+        JsonRpcMethodRegistry registry = new JsonRpcMethodRegistry(objectMapper, List.of(
+            new JsonRpcMethod<>("tasks/send", Map.class, (id, params) -> {
+                awaitRelease();
+                return new JSONRPCResponse(id, "2.0", "done", null);
+            }, slowExecutor, Duration.ofMillis(50))));
+
+        JSONRPCResponse response = registry.dispatch(request("tasks/send", Map.of("id", "task-1"))).join();
+
+        assertEquals(ErrorCode.INTERNAL_ERROR.getValue(), response.error().code());
+        assertTrue(response.error().message().contains("timed out"));
+        assertEquals(1, registry.stats("tasks/send").timeoutCount());
+    }
+
+    @Test
+    void testInvalidRequestsAndDuplicateMethods() throws Exception {
+        JsonRpcMethodRegistry registry = new JsonRpcMethodRegistry(objectMapper, List.of());
+
+        JsonRpcRequestReader.Body body = registry.read(
+            "[{\"jsonrpc\":\"1.0\",\"id\":7,\"method\":\"tasks/get\"}, 1]".getBytes(StandardCharsets.UTF_8));
+        assertTrue(body.batch());
+        JSONRPCResponse wrongVersion = registry.call(body.requests().get(0));
+        assertEquals(ErrorCode.INVALID_REQUEST.getValue(), wrongVersion.error().code());
+        assertEquals("Invalid JSON-RPC version", wrongVersion.error().message());
+        assertEquals(7, wrongVersion.id());
+        JSONRPCResponse notAnObject = registry.call(body.requests().get(1));
+        assertEquals("Invalid request", notAnObject.error().message());
+        assertNull(notAnObject.id());
+
+        JsonRpcMethod<Map> method = JsonRpcMethod.inline("tasks/get", Map.class, (id, params) -> null);
+        assertThrows(IllegalArgumentException.class,
+            () -> new JsonRpcMethodRegistry(objectMapper, List.of(method, method)));
+        assertThrows(IllegalArgumentException.class,
+            () -> new JsonRpcMethod<>("tasks/get", Map.class, (id, params) -> null, null, Duration.ofSeconds(1)));
+    }
+
+    private static JSONRPCRequest request(String method, Object params) {
+        return new JSONRPCRequest("request-1", "2.0", method, params);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.JSONRPCRequest;
+import com.google.a2a.model.TaskIDParams;
+import com.google.a2a.model.TaskQueryParams;
+import com.google.a2a.model.TaskSendParams;
+import com.google.a2a.model.TextPart;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonRpcRequestReader unit tests
+ */
+class JsonRpcRequestReaderTest {
+
+    private final JsonRpcRequestReader reader = new JsonRpcRequestReader(new ObjectMapper(), Map.of(
+        "tasks/send", TaskSendParams.class,
+        "tasks/get", TaskQueryParams.class,
+        "tasks/cancel", TaskIDParams.class));
+
+    @Test
+    void testParamsAreReadIntoTheMethodType() throws IOException {
+        JSONRPCRequest request = readOne("""
+            {"jsonrpc": "2.0", "id": 42, "method": "tasks/send", "params": {"id": "task-1",
+             "message": {"messageId": "msg-1", "kind": "message", "role": "user",
+                         "parts": [{"kind": "text", "text": "Hello"}]}}}""");
+
+        assertEquals(42, request.id());
+        assertEquals("2.0", request.jsonrpc());
+        TaskSendParams params = assertInstanceOf(TaskSendParams.class, request.params());
+        assertEquals("task-1", params.id());
+        assertEquals("Hello", assertInstanceOf(TextPart.class, params.message().parts().get(0)).text());
+    }
+
+    @Test
+    void testParamsBeforeMethodAreReadOnceTheMethodIsKnown() throws IOException {
+        JSONRPCRequest request = readOne("""
+            {"params": {"id": "task-1", "historyLength": 2}, "id": "request-1", "method": "tasks/get",
+             "jsonrpc": "2.0"}""");
+
+        TaskQueryParams params = assertInstanceOf(TaskQueryParams.class, request.params());
+        assertEquals("task-1", params.id());
+        assertEquals(2, params.historyLength());
+        assertEquals("request-1", request.id());
+    }
+
+    @Test
+    void testMalformedParamsDoNotHideTheFieldsAfterThem() throws IOException {
+        JSONRPCRequest request = readOne("""
+            {"jsonrpc": "2.0", "method": "tasks/get", "params": {"id": {"nested": [1, 2]}, "extra": true},
+             "id": "request-1"}""");
+
+        assertSame(JsonRpcRequestReader.MALFORMED_PARAMS, request.params());
+        assertEquals("request-1", request.id());
+
+        JSONRPCRequest buffered = readOne("""
+            {"params": ["task-1"], "jsonrpc": "2.0", "method": "tasks/get", "id": 3}""");
+        assertSame(JsonRpcRequestReader.MALFORMED_PARAMS, buffered.params());
+        assertEquals(3, buffered.id());
+    }
+
+    @Test
+    void testUnknownMethodsAndFieldsAreSkipped() throws IOException {
+        JSONRPCRequest request = readOne("""
+            {"jsonrpc": "2.0", "id": 1, "method": "tasks/unknown", "params": {"a": [1, {"b": 2}]},
+             "extension": {"c": 3}}""");
+
+        assertEquals("tasks/unknown", request.method());
+        assertNull(request.params());
+        assertEquals(1, request.id());
+    }
+
+    @Test
+    void testBatchKeepsEveryElement() throws IOException {
+        JsonRpcRequestReader.Body body = reader.read(bytes("""
+            [{"jsonrpc": "2.0", "id": 1, "method": "tasks/cancel", "params": {"id": "task-1"}},
+             7,
+             {"jsonrpc": "1.0", "id": 3, "method": "tasks/get", "params": {"id": "task-3"}}]"""));
+
+        assertTrue(body.batch());
+        assertEquals(3, body.requests().size());
+        assertInstanceOf(TaskIDParams.class, body.requests().get(0).params());
+        assertNull(body.requests().get(1).method());
+        assertEquals("1.0", body.requests().get(2).jsonrpc());
+        assertTrue(reader.read(bytes("[]")).requests().isEmpty());
+    }
+
+    @Test
+    void testMalformedJsonFailsTheBody() {
+        assertThrows(IOException.class, () -> reader.read(bytes("{\"jsonrpc\": \"2.0\", \"params\": {")));
+        assertThrows(IOException.class, () -> reader.read(bytes("")));
+    }
+
+    private JSONRPCRequest readOne(String json) throws IOException {
+        JsonRpcRequestReader.Body body = reader.read(bytes(json));
+        assertFalse(body.batch());
+        return body.requests().get(0);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
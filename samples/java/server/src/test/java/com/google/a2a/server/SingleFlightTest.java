@@ -0,0 +1,129 @@
+package com.google.a2a.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SingleFlight unit tests
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        singleFlight.close();
+    }
+
+    @Test
+    void testConcurrentCallsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = callers.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            release.await();
+            return "result";
+        }));
+        awaitInFlight();
+        Future<String> second = callers.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertEquals("result", first.get(5, TimeUnit.SECONDS));
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+
+        SingleFlightStats stats = singleFlight.stats();
+        assertEquals(1, stats.callCount());
+        assertEquals(1, stats.coalescedCount());
+        assertEquals(0.5, stats.coalescingRatio());
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    void testCanceledWaiterDoesNotAbortCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = callers.submit(() -> singleFlight.execute("key", () -> {
+            release.await();
+            return "result";
+        }));
+        awaitInFlight();
+        Future<String> second = callers.submit(() -> singleFlight.execute("key", () -> "other"));
+        awaitCoalesced(1);
+
+        first.cancel(true);
+        release.countDown();
+
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.stats().abandonedCount());
+    }
+
+    @Test
+    void testCallIsCanceledWhenEveryWaiterLeaves() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Future<String> only = callers.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "result";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        only.cancel(true);
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.stats().abandonedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, singleFlight.stats().abandonedCount());
+        assertEquals("next", singleFlight.execute("key", () -> "next"));
+    }
+
+    @Test
+    void testFailureIsSharedByAllWaiters() {
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+            () -> singleFlight.execute("key", () -> {
+                throw new IllegalStateException("model unavailable");
+            }));
+        assertEquals("model unavailable", failure.getMessage());
+        assertEquals(0, singleFlight.stats().inFlight());
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.stats().inFlight() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, singleFlight.stats().inFlight());
+    }
+
+    private void awaitCoalesced(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.stats().coalescedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, singleFlight.stats().coalescedCount());
+    }
+}
@@ -0,0 +1,236 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SseFrameCoalescer unit tests
+ */
+class SseFrameCoalescerTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final List<Object> frames = new ArrayList<>();
+    private SseFrameCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    void testSlowChunksAreWrittenAtOnce() {
+        coalescer = new SseFrameCoalescer(Duration.ofMillis(50), 1024, ticker::get);
+        SseFrameCoalescer.Sink sink = coalescer.open(this::write);
+
+        sink.sendArtifactUpdate(chunk("Hel", false, false));
+        ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        sink.sendArtifactUpdate(chunk("lo", true, false));
+
+        assertEquals(List.of("Hel", "lo"), texts());
+    }
+
+    @Test
+    void testFastChunksAreMergedUntilLastChunk() {
+        coalescer = new SseFrameCoalescer(Duration.ofMinutes(1), 1024, ticker::get);
+        SseFrameCoalescer.Sink sink = coalescer.open(this::write);
+
+        sink.sendArtifactUpdate(chunk("a", false, false));
+        sink.sendArtifactUpdate(chunk("b", true, false));
+        sink.sendArtifactUpdate(chunk("c", true, false));
+        assertEquals(List.of("a"), texts());
+
+        sink.sendArtifactUpdate(chunk("d", true, true));
+        assertEquals(List.of("a", "bcd"), texts());
+        Artifact merged = ((TaskArtifactUpdateEvent) frames.get(1)).artifact();
+        assertTrue(merged.append());
+        assertTrue(merged.lastChunk());
+
+        SseFrameStats stats = coalescer.stats();
+        assertEquals(4, stats.eventCount());
+        assertEquals(2, stats.frameCount());
+        assertEquals(2.0, stats.eventsPerFrame());
+    }
+
+    @Test
+    void testStatusUpdateFlushesPendingChunks() {
+        coalescer = new SseFrameCoalescer(Duration.ofMinutes(1), 1024, ticker::get);
+        SseFrameCoalescer.Sink sink = coalescer.open(this::write);
+
+        sink.sendArtifactUpdate(chunk("a", false, false));
+        sink.sendArtifactUpdate(chunk("b", true, false));
+        sink.sendStatusUpdate(new TaskStatusUpdateEvent("task-1",
+            new TaskStatus(TaskState.COMPLETED, null, Instant.now().toString()), true, null));
+
+        assertEquals(3, frames.size());
+        assertEquals("b", text(frames.get(1)));
+        assertInstanceOf(TaskStatusUpdateEvent.class, frames.get(2));
+    }
+
+    @Test
+    void testByteLimitFlushes() {
+        coalescer = new SseFrameCoalescer(Duration.ofMinutes(1), 4, ticker::get);
+        SseFrameCoalescer.Sink sink = coalescer.open(this::write);
+
+        sink.sendArtifactUpdate(chunk("a", false, false));
+        sink.sendArtifactUpdate(chunk("bc", true, false));
+        sink.sendArtifactUpdate(chunk("de", true, false));
+
+        assertEquals(List.of("a", "bcde"), texts());
+    }
+
+    @Test
+    void testPendingChunksAreFlushedAfterInterval() throws Exception {
+        coalescer = new SseFrameCoalescer(Duration.ofMillis(20), 1024);
+        List<Object> written = new CopyOnWriteArrayList<>();
+        SseFrameCoalescer.Sink sink = coalescer.open(event -> {
+            written.add(event.payload());
+            return 1;
+        });
+
+        sink.sendArtifactUpdate(chunk("a", false, false));
+        sink.sendArtifactUpdate(chunk("b", true, false));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (written.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(2, written.size());
+        assertEquals("b", text(written.get(1)));
+    }
+
+    @Test
+    void testBlockedFlushDoesNotDelayOtherStreams() throws Exception {
+        coalescer = new SseFrameCoalescer(Duration.ofMillis(20), 1024);
+        ExecutorService slowWrites = Executors.newSingleThreadExecutor();
+        ExecutorService fastWrites = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> written = new CopyOnWriteArrayList<>();
+        try {
+            SseFrameCoalescer.Sink slow = coalescer.open(event -> {
+                if (text(event.payload()).equals("b")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                return 1;
+            }, slowWrites);
+            SseFrameCoalescer.Sink fast = coalescer.open(event -> {
+                written.add(event.payload());
+                return 1;
+            }, fastWrites);
+
+            slow.sendArtifactUpdate(chunk("a", false, false));
+            slow.sendArtifactUpdate(chunk("b", true, false));
+            Thread.sleep(50);
+            fast.sendArtifactUpdate(chunk("c", false, false));
+            fast.sendArtifactUpdate(chunk("d", true, false));
+
+            // 慢速流的刷出阻塞在其自己的写入上，快速流的刷出照常进行
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (written.size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(2, written.size());
+            assertEquals("d", text(written.get(1)));
+        } finally {
+            release.countDown();
+            slowWrites.shutdown();
+            fastWrites.shutdown();
+        }
+    }
+
+    @Test
+    void testUtf8Length() {
+        assertEquals(5, SseFrameCoalescer.utf8Length("hello"));
+        assertEquals(6, SseFrameCoalescer.utf8Length("你好"));
+        assertEquals(4, SseFrameCoalescer.utf8Length("😀"));
+    }
+
+    @Test
+    void testMergedFrameCarriesLastSequence() {
+        coalescer = new SseFrameCoalescer(Duration.ofMinutes(1), 1024, ticker::get);
+        List<TaskEventBus.Event> written = new ArrayList<>();
+        SseFrameCoalescer.Sink sink = coalescer.open(event -> {
+            written.add(event);
+            frames.add(event.payload());
+            return 1;
+        });
+
+        TaskEventBus.Event first = new TaskEventBus.Event(1, chunk("a", false, false));
+        sink.send(first);
+        sink.send(new TaskEventBus.Event(2, chunk("b", true, false)));
+        sink.send(new TaskEventBus.Event(3, chunk("c", true, true)));
+
+        assertEquals(List.of("a", "bc"), texts());
+        assertEquals(List.of(1L, 3L), written.stream().map(TaskEventBus.Event::sequence).toList());
+        // 未合并的事件原样写出，以便复用其共享帧
+        assertSame(first, written.get(0));
+    }
+
+    @Test
+    void testStreamsMergingTheSameChunksShareTheMergedEvent() {
+        coalescer = new SseFrameCoalescer(Duration.ofMinutes(1), 1024, ticker::get);
+        List<TaskEventBus.Event> first = new ArrayList<>();
+        List<TaskEventBus.Event> second = new ArrayList<>();
+        SseFrameCoalescer.Sink firstSink = coalescer.open(event -> {
+            first.add(event);
+            return 1;
+        });
+        SseFrameCoalescer.Sink secondSink = coalescer.open(event -> {
+            second.add(event);
+            return 1;
+        });
+
+        // 两个流收到相同的总线事件
+        List<TaskEventBus.Event> published = List.of(
+            new TaskEventBus.Event(1, chunk("a", false, false)),
+            new TaskEventBus.Event(2, chunk("b", true, false)),
+            new TaskEventBus.Event(3, chunk("c", true, false)),
+            new TaskEventBus.Event(4, chunk("d", true, true)));
+        published.forEach(firstSink::send);
+        published.forEach(secondSink::send);
+
+        assertEquals(2, first.size());
+        assertEquals("bcd", text(first.get(1).payload()));
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+    }
+
+    private int write(TaskEventBus.Event event) {
+        frames.add(event.payload());
+        return 1;
+    }
+
+    private List<String> texts() {
+        return frames.stream().map(SseFrameCoalescerTest::text).toList();
+    }
+
+    private static String text(Object event) {
+        return ((TextPart) ((TaskArtifactUpdateEvent) event).artifact().parts().get(0)).text();
+    }
+
+    private static TaskArtifactUpdateEvent chunk(String text, boolean append, boolean lastChunk) {
+        Artifact artifact = new Artifact("artifact-1", null, null, List.of(new TextPart(text)), 0, append, null,
+            lastChunk);
+        return new TaskArtifactUpdateEvent("task-1", artifact, false, null);
+    }
+}
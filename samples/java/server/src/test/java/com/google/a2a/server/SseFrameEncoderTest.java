@@ -0,0 +1,76 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SseFrameEncoder unit tests
+ */
+class SseFrameEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SseFrameEncoder encoder = new SseFrameEncoder(objectMapper);
+
+    @Test
+    void testFrameMatchesStreamingResponse() throws Exception {
+        TaskArtifactUpdateEvent chunk = new TaskArtifactUpdateEvent("task-1",
+            new Artifact("artifact-1", "translation", null, List.of(new TextPart("你好\n\"world\"")), 0, true, null,
+                false), false, null);
+        TaskEventBus.Event event = new TaskEventBus.Event(7, chunk);
+
+        String frame = frame(event, "request-1");
+
+        assertTrue(frame.startsWith("id:7\nevent:task-update\ndata:"));
+        assertTrue(frame.endsWith("}\n\n"));
+        String data = frame.substring(frame.indexOf("data:") + 5, frame.length() - 2);
+        assertFalse(data.contains("\n"));
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(
+                new SendTaskStreamingResponse("request-1", "2.0", chunk, null))),
+            objectMapper.readTree(data));
+    }
+
+    @Test
+    void testFrameIsEncodedOnceAndShared() throws Exception {
+        TaskEventBus.Event event = new TaskEventBus.Event(1, new TaskStatusUpdateEvent("task-1",
+            new TaskStatus(TaskState.WORKING, null, Instant.now().toString()), false, null));
+
+        byte[] first = encoder.frame(event);
+        for (int i = 0; i < 9; i++) {
+            assertSame(first, encoder.frame(event));
+        }
+
+        SseEncodingStats stats = encoder.stats();
+        assertEquals(1, stats.encodedCount());
+        assertEquals(first.length, stats.encodedBytes());
+        assertEquals(9, stats.reusedCount());
+        assertEquals(0.9, stats.reuseRatio(), 1e-9);
+    }
+
+    @Test
+    void testRequestIdsStayPerStream() throws Exception {
+        TaskEventBus.Event event = new TaskEventBus.Event(0, new TaskStatusUpdateEvent("task-1",
+            new TaskStatus(TaskState.COMPLETED, null, Instant.now().toString()), true, null));
+
+        assertEquals("request-1", objectMapper.readTree(data(frame(event, "request-1"))).get("id").asText());
+        assertEquals(42, objectMapper.readTree(data(frame(event, 42))).get("id").asInt());
+        assertFalse(objectMapper.readTree(data(frame(event, null))).has("id"));
+        // 没有序号的事件不写id行
+        assertTrue(frame(event, null).startsWith("event:task-update\n"));
+    }
+
+    private String frame(TaskEventBus.Event event, Object requestId) throws Exception {
+        return new String(encoder.frame(event), StandardCharsets.UTF_8)
+            + new String(encoder.tail(requestId), StandardCharsets.UTF_8);
+    }
+
+    private static String data(String frame) {
+        return frame.substring(frame.indexOf("data:") + 5, frame.length() - 2);
+    }
+}
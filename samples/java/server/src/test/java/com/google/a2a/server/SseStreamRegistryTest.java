@@ -0,0 +1,249 @@
+package com.google.a2a.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SseStreamRegistry unit tests
+ */
+class SseStreamRegistryTest {
+
+    private static final SseStreamRegistry.Heartbeat NO_HEARTBEAT = () -> { };
+
+    private final AtomicLong ticker = new AtomicLong();
+    private SseStreamRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void testGlobalAndPerClientCaps() {
+        registry = newRegistry(2, 1);
+
+        SseStreamRegistry.Stream first = registry.open("10.0.0.1", NO_HEARTBEAT);
+        assertNotNull(first);
+        assertNull(registry.open("10.0.0.1", NO_HEARTBEAT));
+        assertNotNull(registry.open("10.0.0.2", NO_HEARTBEAT));
+        assertNull(registry.open("10.0.0.3", NO_HEARTBEAT));
+
+        // 关闭的流释放其名额
+        first.close();
+        assertNotNull(registry.open("10.0.0.1", NO_HEARTBEAT));
+
+        SseStreamStats stats = registry.stats();
+        assertEquals(2, stats.openCount());
+        assertEquals(3, stats.openedCount());
+        assertEquals(2, stats.rejectedCount());
+        assertEquals(0.4, stats.rejectionRate(), 1e-9);
+    }
+
+    @Test
+    void testQuietStreamGetsHeartbeat() throws Exception {
+        registry = newRegistry(10, 10);
+        CountDownLatch sent = new CountDownLatch(1);
+        AtomicInteger heartbeats = new AtomicInteger();
+        SseStreamRegistry.Stream stream = registry.open("10.0.0.1", () -> {
+            heartbeats.incrementAndGet();
+            sent.countDown();
+        });
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        stream.touch();
+        registry.sweep();
+        assertEquals(0, heartbeats.get());
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        registry.sweep();
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        waitFor(() -> registry.stats().heartbeatCount() == 1);
+        assertTrue(stream.isOpen());
+    }
+
+    @Test
+    void testIdleAndExpiredStreamsAreAborted() {
+        registry = newRegistry(10, 10);
+        List<SseStreamRegistry.AbortReason> reasons = new ArrayList<>();
+        SseStreamRegistry.Stream idle = registry.open("10.0.0.1", NO_HEARTBEAT);
+        idle.onAbort(() -> reasons.add(idle.abortReason()));
+        SseStreamRegistry.Stream busy = registry.open("10.0.0.1", NO_HEARTBEAT);
+        busy.onAbort(() -> reasons.add(busy.abortReason()));
+
+        // 活跃的流在最长时长之前一直保持打开
+        for (int i = 0; i < 9; i++) {
+            ticker.addAndGet(TimeUnit.SECONDS.toNanos(50));
+            busy.touch();
+            registry.sweep();
+        }
+        assertEquals(List.of(SseStreamRegistry.AbortReason.IDLE), reasons);
+        assertFalse(idle.isOpen());
+        assertTrue(busy.isOpen());
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        busy.touch();
+        registry.sweep();
+        assertEquals(List.of(SseStreamRegistry.AbortReason.IDLE, SseStreamRegistry.AbortReason.EXPIRED), reasons);
+
+        SseStreamStats stats = registry.stats();
+        assertEquals(0, stats.openCount());
+        assertEquals(1, stats.idleCount());
+        assertEquals(1, stats.expiredCount());
+    }
+
+    @Test
+    void testFailedOrBlockedHeartbeatAbortsStream() throws Exception {
+        registry = newRegistry(10, 10);
+        SseStreamRegistry.Stream broken = registry.open("10.0.0.1", () -> {
+            throw new IOException("Broken pipe");
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        SseStreamRegistry.Stream blocked = registry.open("10.0.0.2", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        registry.sweep();
+        waitFor(() -> !broken.isOpen());
+        assertEquals(SseStreamRegistry.AbortReason.DISCONNECTED, broken.abortReason());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(blocked.isOpen());
+
+        // 上一次心跳仍被阻塞，客户端已不再读取
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        registry.sweep();
+        assertFalse(blocked.isOpen());
+        assertEquals(SseStreamRegistry.AbortReason.DISCONNECTED, blocked.abortReason());
+        assertEquals(2, registry.stats().disconnectedCount());
+        release.countDown();
+    }
+
+    @Test
+    void testQueuedHeartbeatIsNotSentTwice() throws Exception {
+        registry = new SseStreamRegistry(Duration.ofSeconds(15), Duration.ofMinutes(1), Duration.ofMinutes(8),
+            10, 10, 1, 1, ticker::get, false);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        SseStreamRegistry.Stream blocked = registry.open("10.0.0.1", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // The blocked heartbeat holds the only write thread
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        registry.sweep();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // A stream opened now gets its heartbeat queued behind it
+        AtomicInteger heartbeats = new AtomicInteger();
+        SseStreamRegistry.Stream waiting = registry.open("10.0.0.2", heartbeats::incrementAndGet);
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        registry.sweep();
+        assertFalse(blocked.isOpen());
+
+        // 排队中的心跳既不会中止流，也不会再次排队
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        registry.sweep();
+        assertTrue(waiting.isOpen());
+
+        release.countDown();
+        waitFor(() -> registry.stats().heartbeatCount() == 2);
+        Thread.sleep(50);
+        assertEquals(1, heartbeats.get());
+    }
+
+    @Test
+    void testClientThatStopsReadingStallsOnlyItsOwnStreams() throws Exception {
+        registry = newRegistry(10, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blockedWrites = new CountDownLatch(2);
+        List<SseStreamRegistry.Stream> stalled = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            SseStreamRegistry.Stream stream = registry.open("10.0.0.1", NO_HEARTBEAT);
+            stream.execute(() -> {
+                blockedWrites.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            stalled.add(stream);
+        }
+        assertTrue(blockedWrites.await(5, TimeUnit.SECONDS));
+
+        // The client holds its share of the write threads, even once its streams were aborted
+        stalled.forEach(stream -> stream.abort(SseStreamRegistry.AbortReason.DISCONNECTED));
+        CountDownLatch sameClient = new CountDownLatch(1);
+        registry.open("10.0.0.1", NO_HEARTBEAT).execute(sameClient::countDown);
+        CountDownLatch otherClient = new CountDownLatch(1);
+        registry.open("10.0.0.2", NO_HEARTBEAT).execute(otherClient::countDown);
+
+        // 其他客户端的写入不受影响
+        assertTrue(otherClient.await(5, TimeUnit.SECONDS));
+        assertFalse(sameClient.await(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(sameClient.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testOneClientMustLeaveOthersAWriteThread() {
+        registry = newRegistry(10, 10);
+        assertThrows(IllegalArgumentException.class, () -> new SseStreamRegistry(Duration.ofSeconds(15),
+            Duration.ofMinutes(1), Duration.ofMinutes(8), 10, 10, 4, 4));
+    }
+
+    @Test
+    void testCloseSkipsAbortActions() {
+        registry = newRegistry(10, 10);
+        AtomicInteger aborted = new AtomicInteger();
+        SseStreamRegistry.Stream closed = registry.open("10.0.0.1", NO_HEARTBEAT);
+        closed.onAbort(aborted::incrementAndGet);
+        closed.close();
+        closed.abort(SseStreamRegistry.AbortReason.DISCONNECTED);
+        assertEquals(0, aborted.get());
+        assertNull(closed.abortReason());
+
+        // 中止后注册的动作立即运行
+        SseStreamRegistry.Stream stream = registry.open("10.0.0.1", NO_HEARTBEAT);
+        stream.abort(SseStreamRegistry.AbortReason.DISCONNECTED);
+        stream.onAbort(aborted::incrementAndGet);
+        assertEquals(1, aborted.get());
+        assertEquals(0, registry.stats().openCount());
+    }
+
+    private SseStreamRegistry newRegistry(int maxStreams, int maxStreamsPerClient) {
+        return new SseStreamRegistry(Duration.ofSeconds(15), Duration.ofMinutes(1), Duration.ofMinutes(8),
+            maxStreams, maxStreamsPerClient, 4, 2, ticker::get, false);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
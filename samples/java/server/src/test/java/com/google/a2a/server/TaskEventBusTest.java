@@ -0,0 +1,206 @@
+package com.google.a2a.server;
+
+import com.google.a2a.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskEventBus unit tests
+ */
+class TaskEventBusTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private TaskEventBus bus;
+
+    @AfterEach
+    void tearDown() {
+        bus.close();
+    }
+
+    @Test
+    void testEverySubscriberReceivesEveryEvent() throws Exception {
+        bus = newBus(10, 10, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST);
+        TaskEventBus.Subscription first = bus.subscribe("task-1");
+        TaskEventBus.Subscription second = bus.subscribe("task-1");
+
+        assertEquals(1, bus.publish(status("task-1", TaskState.WORKING, false)));
+        assertEquals(2, bus.publish(status("task-1", TaskState.COMPLETED, true)));
+
+        for (TaskEventBus.Subscription subscription : List.of(first, second)) {
+            assertEquals(1, subscription.poll(1, TimeUnit.SECONDS).sequence());
+            TaskEventBus.Event last = subscription.poll(1, TimeUnit.SECONDS);
+            assertEquals(2, last.sequence());
+            assertTrue(last.isFinal());
+            assertNull(subscription.poll());
+        }
+        assertEquals(2, bus.stats().subscriberCount());
+        assertEquals(4, bus.stats().deliveredCount());
+    }
+
+    @Test
+    void testResubscribeReplaysEventsAfterSequence() {
+        bus = newBus(10, 10, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            bus.publish(status("task-1", TaskState.WORKING, false));
+        }
+
+        TaskEventBus.Subscription subscription = bus.subscribe("task-1", 3);
+        bus.publish(status("task-1", TaskState.COMPLETED, true));
+
+        assertTrue(subscription.isResumed());
+        assertEquals(5, subscription.startSequence());
+        assertEquals(List.of(4L, 5L, 6L), sequences(subscription));
+        assertEquals(2, bus.stats().replayedCount());
+    }
+
+    @Test
+    void testSequenceNoLongerRetainedIsNotResumed() {
+        bus = newBus(3, 10, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            bus.publish(status("task-1", TaskState.WORKING, false));
+        }
+
+        // 事件1和2已不再保留，序号1之后缺少事件2
+        TaskEventBus.Subscription gap = bus.subscribe("task-1", 1);
+        assertFalse(gap.isResumed());
+        assertNull(gap.poll());
+
+        TaskEventBus.Subscription retained = bus.subscribe("task-1", 2);
+        assertTrue(retained.isResumed());
+        assertEquals(List.of(3L, 4L, 5L), sequences(retained));
+
+        assertFalse(bus.subscribe("task-1", 9).isResumed());
+        assertFalse(bus.subscribe("task-1").isResumed());
+    }
+
+    @Test
+    void testDropOldestKeepsNewestEvents() {
+        bus = newBus(10, 2, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST);
+        TaskEventBus.Subscription slow = bus.subscribe("task-1");
+        TaskEventBus.Subscription fast = bus.subscribe("task-1");
+
+        List<Long> fastSequences = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bus.publish(status("task-1", TaskState.WORKING, false));
+            fastSequences.addAll(sequences(fast));
+        }
+
+        assertEquals(List.of(3L, 4L), sequences(slow));
+        assertEquals(2, slow.droppedCount());
+        assertFalse(slow.isClosed());
+        assertEquals(List.of(1L, 2L, 3L, 4L), fastSequences);
+        assertEquals(2, bus.stats().droppedCount());
+    }
+
+    @Test
+    void testDisconnectClosesSlowSubscriberOnly() throws Exception {
+        bus = newBus(10, 2, TaskEventBus.SlowConsumerPolicy.DISCONNECT);
+        TaskEventBus.Subscription slow = bus.subscribe("task-1");
+        TaskEventBus.Subscription fast = bus.subscribe("task-1");
+
+        for (int i = 0; i < 3; i++) {
+            bus.publish(status("task-1", TaskState.WORKING, false));
+            sequences(fast);
+        }
+
+        assertTrue(slow.isClosed());
+        assertTrue(slow.isDisconnected());
+        assertFalse(fast.isClosed());
+        // 已排队的事件仍可取出，之后不再等待
+        assertEquals(List.of(1L, 2L), sequences(slow));
+        assertNull(slow.poll(1, TimeUnit.SECONDS));
+        assertEquals(1, bus.stats().subscriberCount());
+        assertEquals(1, bus.stats().disconnectedCount());
+    }
+
+    @Test
+    void testListenerIsNotifiedOfEventsAndClose() {
+        bus = newBus(10, 10, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST);
+        bus.publish(status("task-1", TaskState.WORKING, false));
+        TaskEventBus.Subscription subscription = bus.subscribe("task-1", 0);
+        List<Long> received = new ArrayList<>();
+        AtomicInteger notifications = new AtomicInteger();
+
+        // 设置时立即通知一次，因此重放的事件不会被错过
+        subscription.onAvailable(() -> {
+            notifications.incrementAndGet();
+            received.addAll(sequences(subscription));
+        });
+        assertEquals(List.of(1L), received);
+
+        bus.publish(status("task-1", TaskState.WORKING, false));
+        bus.publish(status("task-1", TaskState.COMPLETED, true));
+        assertEquals(List.of(1L, 2L, 3L), received);
+
+        subscription.close();
+        assertEquals(4, notifications.get());
+        assertTrue(subscription.isClosed());
+    }
+
+    @Test
+    void testIdleTopicsAreSwept() {
+        bus = newBus(10, 10, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST);
+        bus.publish(status("task-1", TaskState.COMPLETED, true));
+        TaskEventBus.Subscription subscription = bus.subscribe("task-2");
+
+        ticker.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        bus.sweep();
+
+        assertEquals(0, bus.lastSequence("task-1"));
+        assertEquals(1, bus.stats().topicCount());
+
+        subscription.close();
+        ticker.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        bus.sweep();
+        assertEquals(0, bus.stats().topicCount());
+    }
+
+    @Test
+    void testForgottenTaskContinuesAboveOldSequences() {
+        bus = newBus(10, 10, TaskEventBus.SlowConsumerPolicy.DROP_OLDEST);
+        for (int i = 0; i < 3; i++) {
+            bus.publish(status("task-1", TaskState.WORKING, false));
+        }
+        ticker.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        bus.sweep();
+
+        // A client that saw the first event of the forgotten lifetime must start over, not skip new events
+        TaskEventBus.Subscription stale = bus.subscribe("task-1", 1);
+        assertFalse(stale.isResumed());
+        assertEquals(4, bus.publish(status("task-1", TaskState.WORKING, false)));
+        assertEquals(List.of(4L), sequences(stale));
+
+        // One that saw the last event of the forgotten lifetime missed nothing
+        TaskEventBus.Subscription current = bus.subscribe("task-1", 3);
+        assertTrue(current.isResumed());
+        assertEquals(List.of(4L), sequences(current));
+    }
+
+    private TaskEventBus newBus(int retainedEvents, int subscriberCapacity, TaskEventBus.SlowConsumerPolicy policy) {
+        return new TaskEventBus(retainedEvents, subscriberCapacity, policy, Duration.ofMinutes(1), ticker::get);
+    }
+
+    private static List<Long> sequences(TaskEventBus.Subscription subscription) {
+        List<Long> sequences = new ArrayList<>();
+        TaskEventBus.Event event;
+        while ((event = subscription.poll()) != null) {
+            sequences.add(event.sequence());
+        }
+        return sequences;
+    }
+
+    private static TaskStatusUpdateEvent status(String taskId, TaskState state, boolean finalUpdate) {
+        return new TaskStatusUpdateEvent(taskId, new TaskStatus(state, null, Instant.now().toString()), finalUpdate,
+            null);
+    }
+}
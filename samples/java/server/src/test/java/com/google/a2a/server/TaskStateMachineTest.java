@@ -0,0 +1,147 @@
+package com.google.a2a.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.a2a.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaskStateMachine unit tests
+ */
+class TaskStateMachineTest {
+
+    private static final TaskState[] TARGETS = {
+        TaskState.WORKING, TaskState.INPUT_REQUIRED, TaskState.COMPLETED, TaskState.CANCELED, TaskState.FAILED
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testIllegalTransitionsAreRejected() {
+        TaskStore store = new InMemoryTaskStore();
+        TaskStateMachine stateMachine = new TaskStateMachine(store);
+        VersionedTask submitted = stateMachine.open(task("task-1", TaskState.SUBMITTED));
+        assertEquals(1, submitted.version());
+
+        VersionedTask completed = stateMachine.transition("task-1", TaskState.COMPLETED);
+        assertEquals(2, completed.version());
+
+        IllegalTaskTransitionException e = assertThrows(IllegalTaskTransitionException.class,
+            () -> stateMachine.transition("task-1", TaskState.WORKING));
+        assertEquals(TaskState.COMPLETED, e.getFrom());
+        assertThrows(IllegalTaskTransitionException.class, () -> stateMachine.transition("task-1", TaskState.CANCELED));
+        assertNull(stateMachine.transition("missing", TaskState.CANCELED));
+
+        // A result computed from an old version is not stored
+        assertNull(stateMachine.complete(submitted, task("task-1", TaskState.FAILED)));
+        assertEquals(TaskState.COMPLETED, store.get("task-1").status().state());
+        assertEquals(2, store.getVersioned("task-1").version());
+    }
+
+    @Test
+    void testConcurrentTransitionsInMemory() throws Exception {
+        stress(new InMemoryTaskStore(), 20_000);
+    }
+
+    @Test
+    void testConcurrentTransitionsJournaled() throws Exception {
+        JournalOptions options = new JournalOptions(TaskJournal.DEFAULT_SEGMENT_SIZE, false, Duration.ZERO,
+            Duration.ZERO, 0);
+        try (JournaledTaskStore store = new JournaledTaskStore(directory, new ObjectMapper(), options,
+                1000, Long.MAX_VALUE, null)) {
+            stress(store, 2_000);
+        }
+    }
+
+    /**
+     * Hammer a few task ids from many threads, then check that every successful write got its own
+     * version and that each one is a legal move from the version before it
+     */
+    private static void stress(TaskStore store, int operationsPerThread) throws Exception {
+        int threads = 8;
+        List<String> taskIds = List.of("task-0", "task-1", "task-2", "task-3");
+        TaskStateMachine stateMachine = new TaskStateMachine(store);
+        Map<String, ConcurrentLinkedQueue<VersionedTask>> writes = new ConcurrentHashMap<>();
+        Set<VersionedTask> opens = ConcurrentHashMap.newKeySet();
+        AtomicLong rejected = new AtomicLong();
+        for (String taskId : taskIds) {
+            writes.put(taskId, new ConcurrentLinkedQueue<>());
+            VersionedTask opened = stateMachine.open(task(taskId, TaskState.SUBMITTED));
+            writes.get(taskId).add(opened);
+            opens.add(opened);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    String taskId = taskIds.get(random.nextInt(taskIds.size()));
+                    if (random.nextInt(10) == 0) {
+                        // A new message reopens the task
+                        VersionedTask opened = stateMachine.open(task(taskId, TaskState.SUBMITTED));
+                        writes.get(taskId).add(opened);
+                        opens.add(opened);
+                        continue;
+                    }
+                    try {
+                        VersionedTask next = stateMachine.transition(taskId, TARGETS[random.nextInt(TARGETS.length)]);
+                        writes.get(taskId).add(next);
+                    } catch (IllegalTaskTransitionException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(rejected.get() > 0);
+        for (String taskId : taskIds) {
+            List<VersionedTask> history = new ArrayList<>(writes.get(taskId));
+            history.sort(Comparator.comparingLong(VersionedTask::version));
+            for (int i = 0; i < history.size(); i++) {
+                // No write was lost or applied twice
+                assertEquals(i + 1, history.get(i).version(), taskId);
+                if (i > 0 && !opens.contains(history.get(i))) {
+                    TaskState from = history.get(i - 1).task().status().state();
+                    TaskState to = history.get(i).task().status().state();
+                    assertTrue(TaskStateMachine.isAllowed(from, to), taskId + ": " + from + " -> " + to);
+                }
+            }
+            assertEquals(history.get(history.size() - 1), store.getVersioned(taskId));
+        }
+    }
+
+    private static Task task(String id, TaskState state) {
+        return new Task(id, "context", new TaskStatus(state, null, Instant.now().toString()));
+    }
+}
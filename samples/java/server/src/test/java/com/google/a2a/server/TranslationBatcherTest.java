@@ -0,0 +1,125 @@
+package com.google.a2a.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TranslationBatcher unit tests
+ */
+class TranslationBatcherTest {
+
+    private static final Pattern SEGMENT = Pattern.compile("(?m)^\\[\\[(\\d+)]] (.*)$");
+
+    private final ConcurrentLinkedQueue<String> prompts = new ConcurrentLinkedQueue<>();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private TranslationBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void testFullBatchIsSentAsOnePrompt() throws Exception {
+        batcher = new TranslationBatcher(this::answerSegments, text -> "single:" + text, 3,
+            Duration.ofMinutes(1), 100);
+
+        List<Future<String>> results = translateConcurrently("a", "b", "c");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("T(" + "abc".charAt(i) + ")", results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, prompts.size());
+        TranslationBatcherStats stats = batcher.stats();
+        assertEquals(1, stats.batchCount());
+        assertEquals(3, stats.batchedTextCount());
+        assertEquals(3.0, stats.averageBatchSize());
+        assertEquals(0, stats.fallbackCount());
+    }
+
+    @Test
+    void testPartialBatchIsSentAfterDelay() throws Exception {
+        batcher = new TranslationBatcher(this::answerSegments, text -> "single:" + text, 10,
+            Duration.ofMillis(20), 100);
+
+        List<Future<String>> results = translateConcurrently("a", "b");
+
+        assertEquals("T(a)", results.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("T(b)", results.get(1).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testUnparseableAnswerFallsBackToSingleCalls() throws Exception {
+        batcher = new TranslationBatcher(prompt -> {
+            prompts.add(prompt);
+            return prompt.startsWith("single:") ? "T(" + prompt.substring(7) + ")" : "not numbered";
+        }, text -> "single:" + text, 2, Duration.ofMinutes(1), 100);
+
+        List<Future<String>> results = translateConcurrently("a", "b");
+
+        assertEquals("T(a)", results.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("T(b)", results.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals(3, prompts.size());
+        assertEquals(1, batcher.stats().fallbackCount());
+    }
+
+    @Test
+    void testLongTextsAndSizeOneSkipBatching() throws Exception {
+        batcher = new TranslationBatcher(prompt -> prompt, text -> "single:" + text, 1, Duration.ofMinutes(1), 100);
+        assertEquals("single:a", batcher.translate("a"));
+        batcher.close();
+
+        batcher = new TranslationBatcher(prompt -> prompt, text -> "single:" + text, 10, Duration.ofMinutes(1), 3);
+        assertEquals("single:long", batcher.translate("long"));
+        assertEquals(0, batcher.stats().batchCount());
+    }
+
+    @Test
+    void testParseBatch() {
+        assertEquals(List.of("one", "two\nlines"), TranslationBatcher.parseBatch("[[1]] one\n[[2]] two\nlines\n", 2));
+        assertNull(TranslationBatcher.parseBatch("[[1]] one\n", 2));
+        assertNull(TranslationBatcher.parseBatch("[[2]] two\n[[1]] one\n", 2));
+        assertNull(TranslationBatcher.parseBatch("[[1]]\n[[2]] two\n", 2));
+        assertNull(TranslationBatcher.parseBatch(null, 1));
+    }
+
+    /**
+     * Answer a prompt by translating the text, or every segment of a batch, to T(text)
+     */
+    private String answerSegments(String prompt) {
+        prompts.add(prompt);
+        if (prompt.startsWith("single:")) {
+            return "T(" + prompt.substring("single:".length()) + ")";
+        }
+        StringBuilder answer = new StringBuilder();
+        Matcher matcher = SEGMENT.matcher(prompt);
+        while (matcher.find()) {
+            answer.append("[[").append(matcher.group(1)).append("]] T(").append(matcher.group(2)).append(")\n");
+        }
+        return answer.toString();
+    }
+
+    private List<Future<String>> translateConcurrently(String... texts) {
+        List<Future<String>> results = new ArrayList<>();
+        for (String text : texts) {
+            results.add(callers.submit(() -> batcher.translate(text)));
+        }
+        return results;
+    }
+}
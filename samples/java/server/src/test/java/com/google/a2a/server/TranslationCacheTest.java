@@ -0,0 +1,86 @@
+package com.google.a2a.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TranslationCache unit tests
+ */
+class TranslationCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    void testKeyNormalizesText() {
+        assertEquals(TranslationCache.key("gpt/1", "Hello world"),
+            TranslationCache.key("gpt/1", "  Hello \n\t world "));
+        assertEquals(TranslationCache.key("gpt/1", "café"), TranslationCache.key("gpt/1", "café"));
+        assertNotEquals(TranslationCache.key("gpt/1", "Hello"), TranslationCache.key("gpt/2", "Hello"));
+    }
+
+    @Test
+    void testHitsAndMisses() {
+        TranslationCache cache = new TranslationCache(1024 * 1024, Duration.ofMinutes(1), ticker::get);
+        String key = TranslationCache.key("v", "Hello");
+
+        assertNull(cache.get(key));
+        cache.put(key, "你好");
+        assertEquals("你好", cache.get(key));
+
+        TranslationCacheStats stats = cache.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(0.5, stats.hitRate());
+        assertEquals(1, stats.size());
+        assertTrue(stats.weightBytes() > 0);
+    }
+
+    @Test
+    void testEntriesExpire() {
+        TranslationCache cache = new TranslationCache(1024 * 1024, Duration.ofSeconds(10), ticker::get);
+        cache.put("key", "value");
+
+        ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertNull(cache.get("key"));
+        assertEquals(1, cache.stats().expirationCount());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void testWeightLimitEvicts() {
+        TranslationCache cache = new TranslationCache(4 * 1024, Duration.ofMinutes(1), ticker::get);
+        for (int i = 0; i < 100; i++) {
+            cache.put("cold-" + i, "value-" + i);
+        }
+        assertTrue(cache.stats().weightBytes() <= 4 * 1024);
+
+        // Texts requested repeatedly displace texts that were never requested
+        for (int i = 0; i < 10; i++) {
+            String key = "hot-" + i;
+            cache.get(key);
+            cache.get(key);
+            cache.put(key, "value-" + i);
+        }
+
+        TranslationCacheStats stats = cache.stats();
+        assertTrue(stats.weightBytes() <= 4 * 1024);
+        assertTrue(stats.evictionCount() > 0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("value-" + i, cache.get("hot-" + i));
+        }
+    }
+
+    @Test
+    void testZeroWeightDisablesCache() {
+        TranslationCache cache = new TranslationCache(0, Duration.ofMinutes(1), ticker::get);
+        cache.put("key", "value");
+
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.stats().size());
+    }
+}